@@ -0,0 +1,205 @@
+package org.esa.snap.opt.enmap;
+
+import com.bc.ceres.core.VirtualDir;
+import org.esa.snap.core.dataio.DecodeQualification;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.opt.enmap.benchmark.BenchmarkProducts;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of opening a product: the decode qualification, the parsing of the metadata and the
+ * complete opening, whose phases are reported as secondary results.
+ * <p>
+ * The cold benchmarks run once in each of many freshly forked VMs, so they include class loading and the
+ * initialisation of SNAP and GDAL. The warm benchmarks measure the average time after a warm-up.
+ * <p>
+ * The zipped and the unpacked variant of each product are measured, so the products directory must contain both,
+ * as written by the {@code SyntheticProductGenerator} of the reader with {@code zipped=true}, see
+ * {@link BenchmarkProducts}. The qualification products of the reader tests are not used, their unpacked variants
+ * contain only dummy metadata.
+ * <p>
+ * The class is located in the package of the reader, because parsing the metadata is not public API.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OpenLatencyBenchmark {
+
+    private static final int COLD_FORKS = 10;
+
+    @Param({"L1B", "L1C", "L2A"})
+    public String level;
+
+    // both variants are written by the product generator, the unpacked one is the directory packed into the zip
+    @Param({"true", "false"})
+    public boolean zipped;
+
+    private File productFile;
+    private byte[] metadataBytes;
+    private EnmapProductReaderPlugIn plugIn;
+    private Product product;
+
+    /**
+     * Sums the durations of the open phases over an iteration. Divided by the number of operations,
+     * they give the average duration of each phase in microseconds.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class OpenPhases {
+        public long metadataMicros;
+        public long geocodingMicros;
+        public long spectralBandsMicros;
+        public long tiePointGridsMicros;
+        public long qualityLayersMicros;
+        public long quicklooksMicros;
+        public long metadataInsertionMicros;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            metadataMicros = 0;
+            geocodingMicros = 0;
+            spectralBandsMicros = 0;
+            tiePointGridsMicros = 0;
+            qualityLayersMicros = 0;
+            quicklooksMicros = 0;
+            metadataInsertionMicros = 0;
+        }
+
+        private void add(Map<OpenPhase, Long> durations) {
+            metadataMicros += toMicros(durations, OpenPhase.METADATA);
+            geocodingMicros += toMicros(durations, OpenPhase.GEOCODING);
+            spectralBandsMicros += toMicros(durations, OpenPhase.SPECTRAL_BANDS);
+            tiePointGridsMicros += toMicros(durations, OpenPhase.TIE_POINT_GRIDS);
+            qualityLayersMicros += toMicros(durations, OpenPhase.QUALITY_LAYERS);
+            quicklooksMicros += toMicros(durations, OpenPhase.QUICKLOOKS);
+            metadataInsertionMicros += toMicros(durations, OpenPhase.METADATA_INSERTION);
+        }
+
+        private static long toMicros(Map<OpenPhase, Long> durations, OpenPhase phase) {
+            return TimeUnit.NANOSECONDS.toMicros(durations.getOrDefault(phase, 0L));
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        productFile = BenchmarkProducts.getProduct(level, zipped);
+        metadataBytes = readMetadataBytes(productFile);
+        plugIn = new EnmapProductReaderPlugIn();
+    }
+
+    // the metadata is taken from the selected product itself, so the zipped and the unpacked variant parse the same file
+    private static byte[] readMetadataBytes(File productFile) throws IOException {
+        File dataFile = EnmapFileUtils.isZip(productFile.toPath()) ? productFile : productFile.getParentFile();
+        VirtualDir dataDir = VirtualDir.create(dataFile);
+        if (dataDir == null) {
+            throw new IOException(String.format("Cannot open product '%s'", productFile.getAbsolutePath()));
+        }
+        try {
+            String metadataFile = Arrays.stream(dataDir.listAllFiles())
+                    .filter(s -> s.endsWith(EnmapFileUtils.METADATA_SUFFIX))
+                    .findFirst()
+                    .orElseThrow(() -> new IOException("Metadata file not found"));
+            try (InputStream inputStream = dataDir.getInputStream(metadataFile)) {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                byte[] buffer = new byte[64 * 1024];
+                int count;
+                while ((count = inputStream.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, count);
+                }
+                return outputStream.toByteArray();
+            }
+        } finally {
+            dataDir.close();
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void disposeProduct() {
+        if (product != null) {
+            product.dispose();
+            product = null;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(COLD_FORKS)
+    public DecodeQualification qualificationCold() {
+        return plugIn.getDecodeQualification(productFile);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    @Fork(1)
+    public DecodeQualification qualificationWarm() {
+        return plugIn.getDecodeQualification(productFile);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(COLD_FORKS)
+    public EnmapMetadata metadataCold() throws IOException {
+        return EnmapMetadata.create(new ByteArrayInputStream(metadataBytes));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    @Fork(1)
+    public EnmapMetadata metadataWarm() throws IOException {
+        return EnmapMetadata.create(new ByteArrayInputStream(metadataBytes));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(COLD_FORKS)
+    public Product openCold(OpenPhases phases) throws IOException {
+        return open(phases);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    @Fork(1)
+    public Product openWarm(OpenPhases phases) throws IOException {
+        return open(phases);
+    }
+
+    private Product open(OpenPhases phases) throws IOException {
+        EnmapProductReader reader = (EnmapProductReader) plugIn.createReaderInstance();
+        product = reader.readProductNodes(productFile, null);
+        phases.add(reader.getOpenPhaseDurations());
+        return product;
+    }
+}
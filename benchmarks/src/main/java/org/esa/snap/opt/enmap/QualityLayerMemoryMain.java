@@ -0,0 +1,47 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.dataio.ProductIO;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Compares the memory needed by the run-length encoded quality layers with the memory of the decoded rasters
+ * as they are kept in the tile cache. Run with the path of a product:
+ * <pre>
+ *     java -cp target/snap-enmap-benchmarks.jar org.esa.snap.opt.enmap.QualityLayerMemoryMain &lt;product&gt;
+ * </pre>
+ */
+public class QualityLayerMemoryMain {
+
+    public static void main(String[] args) throws IOException {
+        boolean rleQualityLayers = EnmapProductReaderPlugIn.PREFERENCES.getBoolean(EnmapProductReaderPlugIn.ENMAP_RLE_QUALITY_LAYERS, false);
+        EnmapProductReaderPlugIn.PREFERENCES.putBoolean(EnmapProductReaderPlugIn.ENMAP_RLE_QUALITY_LAYERS, true);
+        try {
+            Product product = ProductIO.readProduct(new File(args[0]), new EnmapProductReaderPlugIn().getFormatNames());
+            long totalRaster = 0;
+            long totalRle = 0;
+            for (Band band : product.getBands()) {
+                if (!(band.getSourceImage().getImage(0) instanceof RleOpImage)) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                RleRaster rleRaster = ((RleOpImage) band.getSourceImage().getImage(0)).getRleRaster();
+                long encodingMillis = (System.nanoTime() - start) / 1_000_000;
+                long rasterSize = (long) band.getRasterWidth() * band.getRasterHeight();
+                long rleSize = rleRaster.getMemorySize();
+                totalRaster += rasterSize;
+                totalRle += rleSize;
+                System.out.printf("%-25s raster: %10d bytes  rle: %10d bytes  ratio: %6.2f  encoding: %d ms%n",
+                                  band.getName(), rasterSize, rleSize, (double) rasterSize / rleSize, encodingMillis);
+            }
+            System.out.printf("%-25s raster: %10d bytes  rle: %10d bytes  ratio: %6.2f%n",
+                              "total", totalRaster, totalRle, totalRle > 0 ? (double) totalRaster / totalRle : 0.0);
+            product.dispose();
+        } finally {
+            EnmapProductReaderPlugIn.PREFERENCES.putBoolean(EnmapProductReaderPlugIn.ENMAP_RLE_QUALITY_LAYERS, rleQualityLayers);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package org.esa.snap.opt.enmap;
+
+import com.bc.ceres.core.ProgressMonitor;
+import org.esa.snap.core.dataio.ProductReader;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Mask;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.opt.enmap.benchmark.BenchmarkProducts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.media.jai.JAI;
+import java.awt.image.Raster;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The fixed workloads of the performance regression check, see {@link org.esa.snap.opt.enmap.benchmark.RegressionMain}:
+ * opening a product, reading the complete spectral cube and evaluating the masks of the quality layers.
+ * The tile cache is flushed before each invocation, so the reads include the decoding of the GeoTIFF tiles.
+ * <p>
+ * The class is located in the package of the reader, because the quality layer definitions are not public API.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RegressionBenchmark {
+
+    private static final QualityLayerInfo[][] QUALITY_LAYERS = {
+            QualityLayerInfo.CLASSES_FLAGS, QualityLayerInfo.CLOUD_FLAGS, QualityLayerInfo.CLOUDSHADOW_FLAGS,
+            QualityLayerInfo.HAZE_FLAGS, QualityLayerInfo.CIRRUS_FLAGS, QualityLayerInfo.SNOW_FLAGS,
+            QualityLayerInfo.TESTFLAGS_FLAGS, QualityLayerInfo.TESTFLAGS_VNIR_FLAGS, QualityLayerInfo.TESTFLAGS_SWIR_FLAGS
+    };
+
+    @Param({"L1B", "L2A"})
+    public String level;
+
+    private File productFile;
+    private EnmapProductReaderPlugIn plugIn;
+    private ProductReader reader;
+    private Product product;
+    private List<Band> spectralBands;
+    private List<Mask> qualityMasks;
+    private ProductData buffer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        productFile = BenchmarkProducts.getProduct(level, false);
+        plugIn = new EnmapProductReaderPlugIn();
+        reader = plugIn.createReaderInstance();
+        product = reader.readProductNodes(productFile, null);
+
+        spectralBands = new ArrayList<>();
+        for (Band band : product.getBands()) {
+            if (band.getSpectralBandIndex() >= 0) {
+                spectralBands.add(band);
+            }
+        }
+        if (spectralBands.isEmpty()) {
+            throw new IOException(String.format("The product '%s' contains no spectral bands", productFile));
+        }
+        // the bands of a cube have the same data type, one buffer is reused for all of them
+        buffer = ProductData.createInstance(spectralBands.get(0).getDataType(),
+                                            product.getSceneRasterWidth() * product.getSceneRasterHeight());
+
+        // the VNIR and SWIR test flags of L1B products define masks of the same names, each mask is evaluated once
+        Set<Mask> masks = new LinkedHashSet<>();
+        for (QualityLayerInfo[] layerInfos : QUALITY_LAYERS) {
+            for (QualityLayerInfo layerInfo : layerInfos) {
+                Mask mask = product.getMaskGroup().get(layerInfo.maskName);
+                if (mask != null) {
+                    masks.add(mask);
+                }
+            }
+        }
+        qualityMasks = new ArrayList<>(masks);
+    }
+
+    @Setup(Level.Invocation)
+    public void flushTileCache() {
+        JAI.getDefaultInstance().getTileCache().flush();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        product.dispose();
+    }
+
+    @Benchmark
+    public int openProduct() throws IOException {
+        Product openedProduct = plugIn.createReaderInstance().readProductNodes(productFile, null);
+        try {
+            return openedProduct.getNumBands();
+        } finally {
+            openedProduct.dispose();
+        }
+    }
+
+    @Benchmark
+    public long readSpectralCube() throws IOException {
+        int width = product.getSceneRasterWidth();
+        int height = product.getSceneRasterHeight();
+        long checksum = 0;
+        for (Band band : spectralBands) {
+            reader.readBandRasterData(band, 0, 0, width, height, buffer, ProgressMonitor.NULL);
+            checksum += buffer.getElemIntAt(0) + buffer.getElemIntAt(buffer.getNumElems() - 1);
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    public long evaluateQualityMasks() {
+        long setCount = 0;
+        for (Mask mask : qualityMasks) {
+            Raster data = mask.getSourceImage().getData();
+            int[] samples = data.getSamples(0, 0, data.getWidth(), data.getHeight(), 0, (int[]) null);
+            for (int sample : samples) {
+                if (sample != 0) {
+                    setCount++;
+                }
+            }
+        }
+        return setCount;
+    }
+}
@@ -0,0 +1,43 @@
+package org.esa.snap.opt.enmap.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Runs the benchmarks with the usual JMH command line options. Unless another result format is given, the results
+ * are written as JSON into {@value #DEFAULT_RESULT_FILE}, so the results of different releases can be compared.
+ */
+public class BenchmarkMain {
+
+    private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(commandLineOptions);
+        if (!commandLineOptions.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLineOptions.getResult().hasValue()) {
+            builder.result(DEFAULT_RESULT_FILE);
+        }
+        // the property is checked before any VM is forked, the forked VMs get the absolute path
+        File productsDir;
+        try {
+            productsDir = BenchmarkProducts.getProductsDir();
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+            return;
+        }
+        builder.jvmArgsAppend(String.format("-D%s=%s", BenchmarkProducts.PRODUCTS_DIR_PROPERTY, productsDir.getAbsolutePath()));
+        new Runner(builder.build()).run();
+    }
+}
@@ -0,0 +1,78 @@
+package org.esa.snap.opt.enmap.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Locates the products used by the benchmarks. They are searched in the directory given by the system property
+ * {@value #PRODUCTS_DIR_PROPERTY}, which is required. The qualification products of the reader tests are not
+ * suitable, they contain only dummy images. Products with real data sizes can be generated by the test class
+ * {@code SyntheticProductGenerator} of the reader; with {@code zipped=true} it writes the zipped and the unpacked
+ * variant of a product.
+ * A product is selected by its processing level and whether it is zipped or unpacked.
+ */
+public class BenchmarkProducts {
+
+    public static final String PRODUCTS_DIR_PROPERTY = "enmap.benchmark.products";
+    private static final String METADATA_SUFFIX = "-METADATA.XML";
+
+    private BenchmarkProducts() {
+    }
+
+    /**
+     * returns the directory given by the system property {@value #PRODUCTS_DIR_PROPERTY}
+     *
+     * @return the products directory
+     * @throws IOException if the property is not set
+     */
+    public static File getProductsDir() throws IOException {
+        String productsDir = System.getProperty(PRODUCTS_DIR_PROPERTY);
+        if (productsDir == null || productsDir.trim().isEmpty()) {
+            throw new IOException(String.format("The system property '%s' must name the directory of the benchmark products. " +
+                                                "Synthetic products can be generated with the test class " +
+                                                "org.esa.snap.opt.enmap.SyntheticProductGenerator, e.g. with the " +
+                                                "arguments 'L2A <directory> zipped=true'", PRODUCTS_DIR_PROPERTY));
+        }
+        return new File(productsDir);
+    }
+
+    /**
+     * returns the product file of the given processing level
+     *
+     * @param level  the processing level, L1B, L1C or L2A
+     * @param zipped {@code true} for the zip file, {@code false} for the metadata file of the unpacked product
+     * @return the file to be opened by the reader
+     * @throws IOException if no matching product exists
+     */
+    public static File getProduct(String level, boolean zipped) throws IOException {
+        File productsDir = getProductsDir();
+        File[] files = productsDir.listFiles();
+        if (files == null) {
+            throw new IOException(String.format("The product directory '%s' does not exist", productsDir.getAbsolutePath()));
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            if (!file.getName().contains(level)) {
+                continue;
+            }
+            if (zipped && file.isFile() && file.getName().endsWith(".zip")) {
+                return file;
+            }
+            if (!zipped && file.isDirectory()) {
+                Optional<File> metadataFile = findMetadataFile(file);
+                if (metadataFile.isPresent()) {
+                    return metadataFile.get();
+                }
+            }
+        }
+        throw new IOException(String.format("No %s %s product found in '%s'",
+                                            zipped ? "zipped" : "unpacked", level, productsDir.getAbsolutePath()));
+    }
+
+    private static Optional<File> findMetadataFile(File productDir) {
+        File[] files = productDir.listFiles((dir, name) -> name.endsWith(METADATA_SUFFIX));
+        return files != null && files.length > 0 ? Optional.of(files[0]) : Optional.empty();
+    }
+}
@@ -0,0 +1,149 @@
+package org.esa.snap.opt.enmap.benchmark;
+
+import com.bc.ceres.core.ProgressMonitor;
+import org.esa.snap.core.dataio.ProductReader;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.image.ImageManager;
+import org.esa.snap.opt.enmap.EnmapProductReaderPlugIn;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.media.jai.JAI;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading the raw data of spectral bands through {@link ProductReader#readBandRasterData}, which is
+ * implemented by the {@code readBandRasterDataImpl} method of the EnMAP reader. The tile cache is flushed before
+ * each invocation, so every read includes the decoding of the GeoTIFF tiles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReadBenchmark {
+
+    public enum ReadMode {
+        /**
+         * each band is read completely with one call
+         */
+        FULL_BAND,
+        /**
+         * each band is read with one call per tile of the preferred tile size
+         */
+        TILE
+    }
+
+    @Param({"GDAL", "JAI"})
+    public String backend;
+
+    @Param({"L1B", "L1C", "L2A"})
+    public String level;
+
+    @Param({"true", "false"})
+    public boolean zipped;
+
+    @Param({"FULL_BAND", "TILE"})
+    public ReadMode readMode;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    @Param({"8"})
+    public int numBands;
+
+    private ProductReader reader;
+    private Product product;
+    private ExecutorService executor;
+    private List<ReadTask> tasks;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        EnmapProductReaderPlugIn.PREFERENCES.putBoolean(EnmapProductReaderPlugIn.ENMAP_GEOTIFF_USE_JAI, "JAI".equals(backend));
+        EnmapProductReaderPlugIn plugIn = new EnmapProductReaderPlugIn();
+        reader = plugIn.createReaderInstance();
+        product = reader.readProductNodes(BenchmarkProducts.getProduct(level, zipped), null);
+        executor = Executors.newFixedThreadPool(threads);
+
+        Dimension tileSize = ImageManager.getPreferredTileSize(product);
+        Rectangle bounds = new Rectangle(product.getSceneRasterWidth(), product.getSceneRasterHeight());
+        tasks = new ArrayList<>();
+        int bandCount = 0;
+        for (Band band : product.getBands()) {
+            if (band.getSpectralBandIndex() < 0 || bandCount++ >= numBands) {
+                continue;
+            }
+            if (readMode == ReadMode.FULL_BAND) {
+                tasks.add(new ReadTask(band, bounds));
+            } else {
+                for (int y = 0; y < bounds.height; y += tileSize.height) {
+                    for (int x = 0; x < bounds.width; x += tileSize.width) {
+                        tasks.add(new ReadTask(band, new Rectangle(x, y, tileSize.width, tileSize.height).intersection(bounds)));
+                    }
+                }
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void flushTileCache() {
+        JAI.getDefaultInstance().getTileCache().flush();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+        product.dispose();
+    }
+
+    @Benchmark
+    public long readBands() throws Exception {
+        long checksum = 0;
+        for (Future<Long> future : executor.invokeAll(tasks)) {
+            checksum += future.get();
+        }
+        return checksum;
+    }
+
+    private class ReadTask implements Callable<Long> {
+
+        private final Band band;
+        private final Rectangle region;
+
+        private ReadTask(Band band, Rectangle region) {
+            this.band = band;
+            this.region = region;
+        }
+
+        @Override
+        public Long call() throws IOException {
+            ProductData data = ProductData.createInstance(band.getDataType(), region.width * region.height);
+            reader.readBandRasterData(band, region.x, region.y, region.width, region.height, data, ProgressMonitor.NULL);
+            // the sum of a few samples keeps the read from being optimised away
+            return (long) data.getElemIntAt(0) + data.getElemIntAt(data.getNumElems() - 1);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.esa.snap.opt.enmap.benchmark;
+
+import org.esa.snap.opt.enmap.RegressionBenchmark;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Runs the {@link RegressionBenchmark} and compares the average times with a stored baseline. The check fails with
+ * exit code 1 if a workload is slower than its baseline by more than the tolerance. It is configured by the
+ * system properties
+ * <ul>
+ *     <li>{@value #BASELINE_PROPERTY}: the baseline file, by default {@value #DEFAULT_BASELINE_FILE}</li>
+ *     <li>{@value #TOLERANCE_PROPERTY}: the allowed slow-down in percent, by default {@value #DEFAULT_TOLERANCE}</li>
+ *     <li>{@value #UPDATE_PROPERTY}: {@code true} to replace the baseline by the current results</li>
+ * </ul>
+ * If the baseline file does not exist, the check fails without running the benchmarks, unless the baseline is
+ * updated. Baselines are only comparable if they have been measured on the same machine with the same products, so
+ * no baseline is part of the sources: each machine running the check, e.g. a dedicated benchmark host, records its
+ * own baseline once with {@code mvn verify -Pregression -Dregression.update=true} and keeps it in
+ * {@code benchmarks/regression-baseline.properties}.
+ */
+public class RegressionMain {
+
+    public static final String BASELINE_PROPERTY = "enmap.regression.baseline";
+    public static final String TOLERANCE_PROPERTY = "enmap.regression.tolerance";
+    public static final String UPDATE_PROPERTY = "enmap.regression.update";
+    private static final String DEFAULT_BASELINE_FILE = "regression-baseline.properties";
+    private static final String DEFAULT_TOLERANCE = "10";
+    private static final String RESULT_FILE = "target/regression-result.json";
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        File baselineFile = new File(System.getProperty(BASELINE_PROPERTY, DEFAULT_BASELINE_FILE));
+        double tolerance = Double.parseDouble(System.getProperty(TOLERANCE_PROPERTY, DEFAULT_TOLERANCE));
+        boolean update = Boolean.getBoolean(UPDATE_PROPERTY);
+        if (!update && !baselineFile.exists()) {
+            System.out.printf("%nNo baseline found at %s%nRecord the baseline of this machine with -D%s=true " +
+                              "(mvn verify -Pregression -Dregression.update=true)%n",
+                              baselineFile.getAbsolutePath(), UPDATE_PROPERTY);
+            System.exit(1);
+        }
+
+        ChainedOptionsBuilder builder = new OptionsBuilder()
+                .include(RegressionBenchmark.class.getName())
+                .resultFormat(ResultFormatType.JSON)
+                .result(RESULT_FILE);
+        String productsDir = System.getProperty(BenchmarkProducts.PRODUCTS_DIR_PROPERTY);
+        if (productsDir != null) {
+            builder.jvmArgsAppend(String.format("-D%s=%s", BenchmarkProducts.PRODUCTS_DIR_PROPERTY, productsDir));
+        }
+        Map<String, Double> scores = getScores(new Runner(builder.build()).run());
+
+        if (update) {
+            writeBaseline(baselineFile, scores);
+            System.out.printf("Baseline written to %s%n", baselineFile.getAbsolutePath());
+            return;
+        }
+        List<String> regressions = compare(readBaseline(baselineFile), scores, tolerance);
+        if (!regressions.isEmpty()) {
+            System.out.printf(Locale.ENGLISH, "%nPerformance regression of more than %.1f%% in %s%n", tolerance, String.join(", ", regressions));
+            System.exit(1);
+        }
+        System.out.printf(Locale.ENGLISH, "%nNo performance regression of more than %.1f%%%n", tolerance);
+    }
+
+    // the key consists of the benchmark method and the parameter values, e.g. readSpectralCube.L2A
+    private static Map<String, Double> getScores(Collection<RunResult> results) {
+        Map<String, Double> scores = new TreeMap<>();
+        for (RunResult result : results) {
+            BenchmarkParams params = result.getParams();
+            String benchmark = params.getBenchmark();
+            StringBuilder key = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.') + 1));
+            for (String paramKey : params.getParamsKeys()) {
+                key.append('.').append(params.getParam(paramKey));
+            }
+            scores.put(key.toString(), result.getPrimaryResult().getScore());
+        }
+        return scores;
+    }
+
+    /**
+     * @return the keys of the workloads which are slower than the baseline by more than the tolerance
+     */
+    private static List<String> compare(Map<String, Double> baseline, Map<String, Double> scores, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        System.out.printf("%n%-32s %12s %12s %9s%n", "Workload", "Baseline ms", "Current ms", "Change");
+        for (Map.Entry<String, Double> entry : scores.entrySet()) {
+            String key = entry.getKey();
+            double score = entry.getValue();
+            Double baselineScore = baseline.get(key);
+            if (baselineScore == null) {
+                System.out.printf(Locale.ENGLISH, "%-32s %12s %12.3f %9s%n", key, "-", score, "new");
+                continue;
+            }
+            double change = (score / baselineScore - 1.0) * 100.0;
+            boolean regression = change > tolerance;
+            System.out.printf(Locale.ENGLISH, "%-32s %12.3f %12.3f %+8.1f%%%s%n", key, baselineScore, score, change,
+                              regression ? "  REGRESSION" : "");
+            if (regression) {
+                regressions.add(key);
+            }
+        }
+        return regressions;
+    }
+
+    private static Map<String, Double> readBaseline(File baselineFile) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream inputStream = new FileInputStream(baselineFile)) {
+            properties.load(inputStream);
+        }
+        Map<String, Double> baseline = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            baseline.put(key, Double.parseDouble(properties.getProperty(key)));
+        }
+        return baseline;
+    }
+
+    private static void writeBaseline(File baselineFile, Map<String, Double> scores) throws IOException {
+        Properties properties = new Properties();
+        scores.forEach((key, score) -> properties.setProperty(key, String.format(Locale.ENGLISH, "%.3f", score)));
+        try (OutputStream outputStream = new FileOutputStream(baselineFile)) {
+            properties.store(outputStream, String.format("Average time in ms of the EnMAP reader regression workloads, " +
+                                                         "measured with Java %s on %s %s",
+                                                         System.getProperty("java.version"),
+                                                         System.getProperty("os.name"), System.getProperty("os.arch")));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.ProductData;
+
+import java.awt.Rectangle;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.ENMAP_ASYNC_THREADS;
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.PREFERENCES;
+
+/**
+ * Reads band regions asynchronously. A request is split into the tiles of the band source images and every tile is
+ * decoded by a separate task on the executor. Cancelling the returned future cancels all tile tasks which have not
+ * been started yet.
+ */
+class AsyncBandReader {
+
+    // some VMs reserve header words in an array, larger arrays cannot be allocated
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private volatile Executor executor;
+
+    AsyncBandReader() {
+        executor = DefaultExecutor.INSTANCE;
+    }
+
+    void setExecutor(Executor executor) {
+        this.executor = executor != null ? executor : DefaultExecutor.INSTANCE;
+    }
+
+    CompletableFuture<ProductData> readCube(Rectangle region, Band... bands) {
+        if (bands.length == 0) {
+            throw new IllegalArgumentException("At least one band must be given");
+        }
+        int dataType = bands[0].getDataType();
+        for (Band band : bands) {
+            if (band.getDataType() != dataType) {
+                throw new IllegalArgumentException("All bands of a cube must have the same data type");
+            }
+            Rectangle bandBounds = new Rectangle(band.getRasterWidth(), band.getRasterHeight());
+            if (!bandBounds.contains(region)) {
+                throw new IllegalArgumentException(String.format("Region %s is not inside of band '%s'", region, band.getName()));
+            }
+        }
+
+        long cubeLength = (long) region.width * region.height * bands.length;
+        if (cubeLength > MAX_ARRAY_LENGTH) {
+            throw new IllegalArgumentException(String.format("The cube of %d samples exceeds the maximum array length of %d, " +
+                                                             "it must be read in smaller parts", cubeLength, MAX_ARRAY_LENGTH));
+        }
+        int numPixels = region.width * region.height;
+        ProductData cube = ProductData.createInstance(dataType, (int) cubeLength);
+        List<CompletableFuture<Void>> tileTasks = new ArrayList<>();
+        Executor currentExecutor = executor;
+        for (int i = 0; i < bands.length; i++) {
+            RenderedImage image = bands[i].getSourceImage();
+            int bandOffset = i * numPixels;
+            for (Rectangle tileRect : getTileRectangles(image, region)) {
+                tileTasks.add(CompletableFuture.runAsync(() -> copyTile(image, tileRect, region, cube, bandOffset),
+                                                         currentExecutor));
+            }
+        }
+
+        CompletableFuture<ProductData> result = new CompletableFuture<>();
+        CompletableFuture.allOf(tileTasks.toArray(new CompletableFuture[0])).whenComplete((v, throwable) -> {
+            if (throwable != null) {
+                result.completeExceptionally(throwable);
+            } else {
+                result.complete(cube);
+            }
+        });
+        result.whenComplete((data, throwable) -> {
+            if (result.isCancelled()) {
+                // tasks which are not yet started will not decode their tile
+                tileTasks.forEach(task -> task.cancel(false));
+            }
+        });
+        return result;
+    }
+
+    private static void copyTile(RenderedImage image, Rectangle tileRect, Rectangle region, ProductData dest, int destOffset) {
+        Raster data = image.getData(tileRect);
+        int lineOffset = destOffset + (tileRect.y - region.y) * region.width + (tileRect.x - region.x);
+        if (dest.isFloatingPointType()) {
+            double[] samples = data.getSamples(tileRect.x, tileRect.y, tileRect.width, tileRect.height, 0, (double[]) null);
+            for (int y = 0; y < tileRect.height; y++) {
+                int destIndex = lineOffset + y * region.width;
+                int sourceIndex = y * tileRect.width;
+                for (int x = 0; x < tileRect.width; x++) {
+                    dest.setElemDoubleAt(destIndex + x, samples[sourceIndex + x]);
+                }
+            }
+        } else {
+            int[] samples = data.getSamples(tileRect.x, tileRect.y, tileRect.width, tileRect.height, 0, (int[]) null);
+            for (int y = 0; y < tileRect.height; y++) {
+                int destIndex = lineOffset + y * region.width;
+                int sourceIndex = y * tileRect.width;
+                for (int x = 0; x < tileRect.width; x++) {
+                    dest.setElemIntAt(destIndex + x, samples[sourceIndex + x]);
+                }
+            }
+        }
+    }
+
+    static List<Rectangle> getTileRectangles(RenderedImage image, Rectangle region) {
+        int tileWidth = image.getTileWidth();
+        int tileHeight = image.getTileHeight();
+        int minTileX = Math.floorDiv(region.x - image.getTileGridXOffset(), tileWidth);
+        int maxTileX = Math.floorDiv(region.x + region.width - 1 - image.getTileGridXOffset(), tileWidth);
+        int minTileY = Math.floorDiv(region.y - image.getTileGridYOffset(), tileHeight);
+        int maxTileY = Math.floorDiv(region.y + region.height - 1 - image.getTileGridYOffset(), tileHeight);
+        List<Rectangle> rectangles = new ArrayList<>();
+        for (int tileY = minTileY; tileY <= maxTileY; tileY++) {
+            for (int tileX = minTileX; tileX <= maxTileX; tileX++) {
+                Rectangle tileRect = new Rectangle(image.getTileGridXOffset() + tileX * tileWidth,
+                                                   image.getTileGridYOffset() + tileY * tileHeight,
+                                                   tileWidth, tileHeight);
+                rectangles.add(tileRect.intersection(region));
+            }
+        }
+        return rectangles;
+    }
+
+    private static class DefaultExecutor {
+        private static final ExecutorService INSTANCE = createExecutor();
+
+        private static ExecutorService createExecutor() {
+            int numThreads = Math.max(1, PREFERENCES.getInt(ENMAP_ASYNC_THREADS, Runtime.getRuntime().availableProcessors()));
+            AtomicInteger threadCount = new AtomicInteger();
+            return Executors.newFixedThreadPool(numThreads, r -> {
+                Thread thread = new Thread(r, "enmap-async-read-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
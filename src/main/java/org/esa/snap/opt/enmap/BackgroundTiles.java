@@ -0,0 +1,43 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.util.SystemUtils;
+
+import java.awt.Rectangle;
+import java.util.function.Supplier;
+
+/**
+ * Detects regions of the spectral images which are entirely background, by means of the {@link TileQualityIndex}.
+ * Such regions are filled with the background value instead of being decoded from the spectral file.
+ * The index is requested on the first check, if it cannot be created no region is considered as background.
+ */
+class BackgroundTiles {
+
+    private final Supplier<TileQualityIndex> indexSupplier;
+    private final double backgroundValue;
+    private volatile boolean disabled;
+
+    BackgroundTiles(Supplier<TileQualityIndex> indexSupplier, double backgroundValue) {
+        this.indexSupplier = indexSupplier;
+        this.backgroundValue = backgroundValue;
+    }
+
+    double getBackgroundValue() {
+        return backgroundValue;
+    }
+
+    /**
+     * returns whether the region, given in full resolution pixel coordinates, contains only background pixels
+     */
+    boolean isBackground(Rectangle region) {
+        if (disabled) {
+            return false;
+        }
+        try {
+            return indexSupplier.get().isAll(region, TileQualityIndex.TileClass.BACKGROUND);
+        } catch (RuntimeException e) {
+            disabled = true;
+            SystemUtils.LOG.warning(String.format("Background tiles can not be detected, all tiles are read: %s", e.getMessage()));
+            return false;
+        }
+    }
+}
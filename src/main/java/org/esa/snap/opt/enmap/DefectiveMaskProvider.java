@@ -0,0 +1,59 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.datamodel.Mask;
+import org.esa.snap.core.datamodel.Product;
+
+/**
+ * Provides the per-band defective pixel masks ({@code Defective_001}, {@code Defective_002}, ...) on demand.
+ * Instead of registering one mask per spectral band when the product is opened, a mask is only created and added
+ * to the mask group of the product when it is requested for the first time.
+ */
+class DefectiveMaskProvider {
+
+    private final Product product;
+    private final QualityLayerInfo seriesInfo;
+    private final int[] spectralIndices;
+
+    DefectiveMaskProvider(Product product, QualityLayerInfo seriesInfo, int[] spectralIndices) {
+        this.product = product;
+        this.seriesInfo = seriesInfo;
+        this.spectralIndices = spectralIndices;
+    }
+
+    /**
+     * returns the mask of the given spectral band, it is created and added to the product if not present yet
+     *
+     * @param spectralIndex the spectral index of the band as used in the band names (one based)
+     * @return the mask
+     * @throws IllegalArgumentException if the product has no band with this spectral index
+     */
+    Mask getMask(int spectralIndex) {
+        if (!hasSpectralIndex(spectralIndex)) {
+            throw new IllegalArgumentException(String.format("No spectral band with index %d", spectralIndex));
+        }
+        String maskName = seriesInfo.getSeriesMaskName(spectralIndex);
+        synchronized (product) {
+            Mask mask = product.getMaskGroup().get(maskName);
+            if (mask == null) {
+                mask = seriesInfo.createSeriesMask(product, spectralIndex);
+                product.getMaskGroup().add(mask);
+            }
+            return mask;
+        }
+    }
+
+    void addAllMasks() {
+        for (int spectralIndex : spectralIndices) {
+            getMask(spectralIndex);
+        }
+    }
+
+    private boolean hasSpectralIndex(int spectralIndex) {
+        for (int index : spectralIndices) {
+            if (index == spectralIndex) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,58 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.image.ResolutionLevel;
+import org.esa.snap.core.image.SingleBandedOpImage;
+
+import javax.media.jai.PlanarImage;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.DataBuffer;
+import java.awt.image.WritableRaster;
+
+/**
+ * Aggregates the pixel masks of all spectral bands. The defect bits of each pixel are taken from the
+ * {@link PixelMaskStore} and reduced across the bands, either to the number of defective bands or to flags
+ * indicating defective VNIR and SWIR pixels.
+ */
+class DefectivePixelsOpImage extends SingleBandedOpImage {
+
+    enum Mode {COUNT, FLAGS}
+
+    static final int VNIR_FLAG = 0b01;
+    static final int SWIR_FLAG = 0b10;
+
+    private final PixelMaskStore store;
+    private final int numVnirBands;
+    private final Mode mode;
+
+    DefectivePixelsOpImage(PixelMaskStore store, int numVnirBands, Mode mode, Dimension tileSize) {
+        super(DataBuffer.TYPE_BYTE, store.getWidth(), store.getHeight(), tileSize, null, ResolutionLevel.MAXRES);
+        this.store = store;
+        this.numVnirBands = numVnirBands;
+        this.mode = mode;
+    }
+
+    @Override
+    protected void computeRect(PlanarImage[] sourceImages, WritableRaster tile, Rectangle destRect) {
+        int numBands = store.getNumBands();
+        int[] result = new int[destRect.width * destRect.height];
+        int i = 0;
+        for (int y = destRect.y; y < destRect.y + destRect.height; y++) {
+            for (int x = destRect.x; x < destRect.x + destRect.width; x++) {
+                if (mode == Mode.COUNT) {
+                    result[i++] = store.countDefects(x, y, 0, numBands);
+                } else {
+                    int flags = 0;
+                    if (store.countDefects(x, y, 0, numVnirBands) > 0) {
+                        flags |= VNIR_FLAG;
+                    }
+                    if (store.countDefects(x, y, numVnirBands, numBands) > 0) {
+                        flags |= SWIR_FLAG;
+                    }
+                    result[i++] = flags;
+                }
+            }
+        }
+        tile.setSamples(destRect.x, destRect.y, destRect.width, destRect.height, 0, result);
+    }
+}
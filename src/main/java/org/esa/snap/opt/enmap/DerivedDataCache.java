@@ -0,0 +1,101 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.util.SystemUtils;
+
+import java.awt.Dimension;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Locates and validates the files of data derived from the quality layers of a product, e.g. the
+ * {@link TileQualityIndex}. The files are stored in the SNAP cache directory, never next to the product,
+ * whose directory might be read-only or shared with other users.
+ * <p>
+ * Each file records the fingerprint of the scene and of the quality layer files the data has been derived from.
+ * A file is only used if its fingerprint equals the one of the opened product, so data of a modified or of
+ * another product at the same location is never used.
+ */
+class DerivedDataCache {
+
+    private static final String CACHE_DIR_NAME = "enmap";
+
+    private final Path cacheDir;
+
+    DerivedDataCache(Path cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    static DerivedDataCache getDefault() {
+        return new DerivedDataCache(SystemUtils.getCacheDir().toPath().resolve(CACHE_DIR_NAME));
+    }
+
+    /**
+     * returns the path of the cache file of the product with the given suffix, the name is unique for the location
+     * of the product
+     */
+    Path getPath(Path productPath, String suffix) {
+        Path absolutePath = productPath.toAbsolutePath().normalize();
+        String locationHash = Integer.toHexString(absolutePath.toString().hashCode());
+        return cacheDir.resolve(String.format("%s-%s%s", absolutePath.getFileName(), locationHash, suffix));
+    }
+
+    /**
+     * Creates the fingerprint of the scene and the given files of the product. A file is identified by its name,
+     * size and modification time, or the CRC of its data if it is contained in a zip file.
+     *
+     * @param productPath the path of the metadata file or the zip file of the product
+     * @param fileNameMap the file names of the product by their keys, as provided by the metadata
+     * @param sceneSize   the size of the complete scene
+     * @param tileSize    the tile size the data refers to, can be {@code null}
+     * @param keys        the keys of the files the data is derived from, keys without file are skipped
+     * @return the fingerprint
+     * @throws IOException if the attributes of a file cannot be read
+     */
+    static String createFingerprint(Path productPath, Map<String, String> fileNameMap, Dimension sceneSize,
+                                    Dimension tileSize, String... keys) throws IOException {
+        StringBuilder fingerprint = new StringBuilder();
+        fingerprint.append(String.format("scene=%dx%d", sceneSize.width, sceneSize.height));
+        if (tileSize != null) {
+            fingerprint.append(String.format(";tile=%dx%d", tileSize.width, tileSize.height));
+        }
+        if (EnmapFileUtils.isZip(productPath)) {
+            try (ZipFile zipFile = new ZipFile(productPath.toFile())) {
+                for (String key : keys) {
+                    String fileName = fileNameMap.get(key);
+                    if (fileName != null) {
+                        ZipEntry entry = findEntry(zipFile, fileName);
+                        fingerprint.append(String.format(";%s=%s:%d:%x", key, fileName, entry.getSize(), entry.getCrc()));
+                    }
+                }
+            }
+        } else {
+            Path productDir = productPath.toAbsolutePath().getParent();
+            for (String key : keys) {
+                String fileName = fileNameMap.get(key);
+                if (fileName != null) {
+                    BasicFileAttributes attributes = Files.readAttributes(productDir.resolve(fileName), BasicFileAttributes.class);
+                    fingerprint.append(String.format(";%s=%s:%d:%d", key, fileName, attributes.size(),
+                                                     attributes.lastModifiedTime().toMillis()));
+                }
+            }
+        }
+        return fingerprint.toString();
+    }
+
+    private static ZipEntry findEntry(ZipFile zipFile, String fileName) throws IOException {
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (entry.getName().equals(fileName) || entry.getName().endsWith("/" + fileName)) {
+                return entry;
+            }
+        }
+        throw new IOException(String.format("The file '%s' is not contained in '%s'", fileName, zipFile.getName()));
+    }
+}
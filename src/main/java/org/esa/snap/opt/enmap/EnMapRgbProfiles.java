@@ -8,6 +8,31 @@ class EnMapRgbProfiles {
 
     static void registerRGBProfiles() {
         RGBImageProfileManager manager = RGBImageProfileManager.getInstance();
+        // the fast preview profiles use the RGB quicklook images and do not need to decode spectral bands
+        manager.addProfile(new RGBImageProfile("EnMAP Fast Preview",
+                new String[]{
+                        "QL_VNIR_red",
+                        "QL_VNIR_green",
+                        "QL_VNIR_blue"
+                },
+                new String[]{
+                        "ENMAP*",
+                        "ENMAP_L*",
+                        "",
+                }
+        ));
+        manager.addProfile(new RGBImageProfile("EnMAP SWIR Fast Preview",
+                new String[]{
+                        "QL_SWIR_red",
+                        "QL_SWIR_green",
+                        "QL_SWIR_blue"
+                },
+                new String[]{
+                        "ENMAP*",
+                        "ENMAP_L*",
+                        "",
+                }
+        ));
         manager.addProfile(new RGBImageProfile("EnMAP True Color",
                 new String[]{
                         "band_046",
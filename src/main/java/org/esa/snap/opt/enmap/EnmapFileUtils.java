@@ -28,8 +28,8 @@ public class EnmapFileUtils {
             Pattern.compile(L1B_BASEFILENAME + "-QL_QUALITY_SNOW.TIF"),
             Pattern.compile(L1B_BASEFILENAME + "-QL_QUALITY_TESTFLAGS_SWIR.TIF"),
             Pattern.compile(L1B_BASEFILENAME + "-QL_QUALITY_TESTFLAGS_VNIR.TIF"),
-//            Pattern.compile(L1B_BASEFILENAME + "-QL_SWIR.TIF"), // not considering the RGB quicklook images
-//            Pattern.compile(L1B_BASEFILENAME + "-QL_VNIR.TIF"), // not considering the RGB quicklook images
+//            Pattern.compile(L1B_BASEFILENAME + "-QL_SWIR.TIF"), // the RGB quicklook images are optional
+//            Pattern.compile(L1B_BASEFILENAME + "-QL_VNIR.TIF"), // the RGB quicklook images are optional
             Pattern.compile(L1B_BASEFILENAME + "-SPECTRAL_IMAGE_SWIR.(TIF|HDR|JPEG2000)"),
             Pattern.compile(L1B_BASEFILENAME + "-SPECTRAL_IMAGE_VNIR.(TIF|HDR|JPEG2000)"),
 //            Pattern.compile(L1B_BASEFILENAME + "-SPECTRAL_IMAGE_SWIR.(BSQ|BIP|BIL)") // only in case of HDR
@@ -47,8 +47,8 @@ public class EnmapFileUtils {
             Pattern.compile(L1C_BASEFILENAME + "-QL_QUALITY_HAZE.TIF"),
             Pattern.compile(L1C_BASEFILENAME + "-QL_QUALITY_SNOW.TIF"),
             Pattern.compile(L1C_BASEFILENAME + "-QL_QUALITY_TESTFLAGS.TIF"),
-//            Pattern.compile(L1C_BASEFILENAME + "-QL_SWIR.TIF"), // not considering the RGB quicklook images
-//            Pattern.compile(L1C_BASEFILENAME + "-QL_VNIR.TIF"), // not considering the RGB quicklook images
+//            Pattern.compile(L1C_BASEFILENAME + "-QL_SWIR.TIF"), // the RGB quicklook images are optional
+//            Pattern.compile(L1C_BASEFILENAME + "-QL_VNIR.TIF"), // the RGB quicklook images are optional
             Pattern.compile(L1C_BASEFILENAME + "-SPECTRAL_IMAGE.(TIF|HDR|JPEG2000)"),
 //            Pattern.compile(L1C_BASEFILENAME + "-SPECTRAL_IMAGE.(BSQ|BIP|BIL)") // only in case of HDR
     };
@@ -63,8 +63,8 @@ public class EnmapFileUtils {
             Pattern.compile(L2A_BASEFILENAME + "-QL_QUALITY_HAZE.TIF"),
             Pattern.compile(L2A_BASEFILENAME + "-QL_QUALITY_SNOW.TIF"),
             Pattern.compile(L2A_BASEFILENAME + "-QL_QUALITY_TESTFLAGS.TIF"),
-//            Pattern.compile(L2A_BASEFILENAME + "-QL_SWIR.TIF"), // not considering the RGB quicklook images
-//            Pattern.compile(L2A_BASEFILENAME + "-QL_VNIR.TIF"), // not considering the RGB quicklook images
+//            Pattern.compile(L2A_BASEFILENAME + "-QL_SWIR.TIF"), // the RGB quicklook images are optional
+//            Pattern.compile(L2A_BASEFILENAME + "-QL_VNIR.TIF"), // the RGB quicklook images are optional
             Pattern.compile(L2A_BASEFILENAME + "-SPECTRAL_IMAGE.(TIF|HDR|JPEG2000)"),
 //            Pattern.compile(L2A_BASEFILENAME + "-SPECTRAL_IMAGE.(BSQ|BIP|BIL)") // only in case of HDR
     };
@@ -85,6 +85,8 @@ public class EnmapFileUtils {
     public final static String QUALITY_PIXELMASK_KEY = "PIXELMASK";
     public final static String QUALITY_PIXELMASK_VNIR_KEY = "PIXELMASK_VNIR";
     public final static String QUALITY_PIXELMASK_SWIR_KEY = "PIXELMASK_SWIR";
+    public final static String QUICKLOOK_VNIR_KEY = "QL_VNIR";
+    public final static String QUICKLOOK_SWIR_KEY = "QL_SWIR";
 
 
     static boolean isZip(Path path) {
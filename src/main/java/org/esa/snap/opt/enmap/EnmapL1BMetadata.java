@@ -61,6 +61,8 @@ class EnmapL1BMetadata extends EnmapMetadata {
         map.put(EnmapFileUtils.QUALITY_TESTFLAGS_VNIR_KEY, getFileName(EnmapFileUtils.QUALITY_TESTFLAGS_VNIR_KEY, nodeSet));
         map.put(EnmapFileUtils.QUALITY_PIXELMASK_SWIR_KEY, getFileName(EnmapFileUtils.QUALITY_PIXELMASK_SWIR_KEY, nodeSet));
         map.put(EnmapFileUtils.QUALITY_PIXELMASK_VNIR_KEY, getFileName(EnmapFileUtils.QUALITY_PIXELMASK_VNIR_KEY, nodeSet));
+        map.put(EnmapFileUtils.QUICKLOOK_VNIR_KEY, getFileName(EnmapFileUtils.QUICKLOOK_VNIR_KEY, nodeSet));
+        map.put(EnmapFileUtils.QUICKLOOK_SWIR_KEY, getFileName(EnmapFileUtils.QUICKLOOK_SWIR_KEY, nodeSet));
         return map;
     }
 
@@ -0,0 +1,176 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.image.ResolutionLevel;
+import org.esa.snap.core.image.SingleBandedOpImage;
+
+import javax.media.jai.PlanarImage;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+
+/**
+ * An image of a single resolution level of an EnMAP band. If the underlying image reader provides the level natively
+ * the data is copied from there, otherwise the level is computed by decimating the full resolution image.
+ * All access to the images of the reader is synchronised on the given lock, because the readers are not thread safe.
+ * Tiles prefetched by the {@link TilePrefetcher} are read from another reader of the same file under its own lock.
+ * Tiles which are known to contain only background are filled with the background value without reading the image.
+ * If a sample conversion is given, the raw samples are converted into geophysical values while copying the tile.
+ * If metrics are given, the time waited for the lock and the time spent in the image reader are recorded per tile.
+ * Each tile read from the image reader is also reported as flight recorder event, if such events are recorded.
+ */
+class EnmapLevelImage extends SingleBandedOpImage {
+
+    private final RenderedImage fullResImage;
+    private final RenderedImage nativeLevelImage;
+    private final ResolutionLevel level;
+    private final Object lock;
+    private final int imageIndex;
+    private final TilePrefetcher prefetcher;
+    private final BackgroundTiles backgroundTiles;
+    private final SampleConversion conversion;
+    private final ImageReaderMetrics metrics;
+    private final String bandName;
+    private final String backendName;
+
+    EnmapLevelImage(RenderedImage fullResImage, RenderedImage nativeLevelImage, int dataBufferType, Dimension tileSize,
+                    ResolutionLevel level, Object lock, int imageIndex, TilePrefetcher prefetcher,
+                    BackgroundTiles backgroundTiles, SampleConversion conversion, ImageReaderMetrics metrics,
+                    String bandName, String backendName) {
+        super(dataBufferType, fullResImage.getWidth(), fullResImage.getHeight(), tileSize, null, level);
+        this.fullResImage = fullResImage;
+        this.nativeLevelImage = nativeLevelImage;
+        this.level = level;
+        this.lock = lock;
+        this.imageIndex = imageIndex;
+        this.prefetcher = prefetcher;
+        this.backgroundTiles = backgroundTiles;
+        this.conversion = conversion;
+        this.metrics = metrics;
+        this.bandName = bandName;
+        this.backendName = backendName;
+    }
+
+    @Override
+    public Raster getTile(int tileX, int tileY) {
+        if (prefetcher != null) {
+            prefetcher.tileRequested(imageIndex, level.getIndex(), tileX, tileY, getTileFromCache(tileX, tileY) != null);
+        }
+        return super.getTile(tileX, tileY);
+    }
+
+    /**
+     * Computes the tile from the given images of another reader of the same file and puts it into the tile cache,
+     * without being recorded as a request by the prefetcher.
+     *
+     * @return {@code false} if the tile is already in the tile cache and has not been computed
+     */
+    boolean prefetchTile(int tileX, int tileY, RenderedImage prefetchFullResImage, RenderedImage prefetchLevelImage,
+                         Object prefetchLock) {
+        if (getTileFromCache(tileX, tileY) != null) {
+            return false;
+        }
+        WritableRaster tile = createTile(tileX, tileY);
+        Rectangle destRect = getTileRect(tileX, tileY).intersection(getBounds());
+        computeTile(tile, destRect, prefetchFullResImage, prefetchLevelImage, prefetchLock);
+        addTileToCache(tileX, tileY, tile);
+        return true;
+    }
+
+    @Override
+    protected void computeRect(PlanarImage[] sourceImages, WritableRaster tile, Rectangle destRect) {
+        computeTile(tile, destRect, fullResImage, nativeLevelImage, lock);
+    }
+
+    private void computeTile(WritableRaster tile, Rectangle destRect, RenderedImage sourceImage,
+                             RenderedImage levelImage, Object sourceLock) {
+        if (backgroundTiles != null && backgroundTiles.isBackground(getSourceRect(destRect, sourceImage))) {
+            // nothing to decode, the tile contains no measurement
+            double[] samples = new double[destRect.width * destRect.height];
+            Arrays.fill(samples, conversion != null ? Double.NaN : backgroundTiles.getBackgroundValue());
+            tile.setSamples(destRect.x, destRect.y, destRect.width, destRect.height, 0, samples);
+            return;
+        }
+        if (levelImage != null && getBounds(levelImage).contains(destRect)) {
+            Raster data = getData(levelImage, level.getIndex(), destRect, sourceLock);
+            if (conversion != null) {
+                float[] samples = data.getSamples(destRect.x, destRect.y, destRect.width, destRect.height, 0, (float[]) null);
+                conversion.convert(samples);
+                tile.setSamples(destRect.x, destRect.y, destRect.width, destRect.height, 0, samples);
+            } else {
+                tile.setRect(data);
+            }
+        } else {
+            computeDecimated(tile, destRect, sourceImage, sourceLock);
+        }
+    }
+
+    private Rectangle getSourceRect(Rectangle destRect, RenderedImage sourceImage) {
+        double scale = level.getScale();
+        Rectangle sourceRect = new Rectangle((int) Math.floor(destRect.x * scale),
+                                             (int) Math.floor(destRect.y * scale),
+                                             (int) Math.ceil(destRect.width * scale),
+                                             (int) Math.ceil(destRect.height * scale));
+        return sourceRect.intersection(getBounds(sourceImage));
+    }
+
+    private void computeDecimated(WritableRaster tile, Rectangle destRect, RenderedImage sourceImage, Object sourceLock) {
+        double scale = level.getScale();
+        Rectangle sourceRect = getSourceRect(destRect, sourceImage);
+        if (sourceRect.isEmpty()) {
+            return;
+        }
+
+        Raster data = getData(sourceImage, 0, sourceRect, sourceLock);
+        float[] sourceSamples = data.getSamples(sourceRect.x, sourceRect.y, sourceRect.width, sourceRect.height, 0, (float[]) null);
+        if (conversion != null) {
+            conversion.convert(sourceSamples);
+        }
+        float[] destSamples = new float[destRect.width * destRect.height];
+        int maxSourceX = sourceRect.width - 1;
+        int maxSourceY = sourceRect.height - 1;
+        for (int y = 0; y < destRect.height; y++) {
+            int sourceY = Math.min((int) Math.floor((destRect.y + y) * scale) - sourceRect.y, maxSourceY);
+            int sourceLineOffset = sourceY * sourceRect.width;
+            int destLineOffset = y * destRect.width;
+            for (int x = 0; x < destRect.width; x++) {
+                int sourceX = Math.min((int) Math.floor((destRect.x + x) * scale) - sourceRect.x, maxSourceX);
+                destSamples[destLineOffset + x] = sourceSamples[sourceLineOffset + sourceX];
+            }
+        }
+        tile.setSamples(destRect.x, destRect.y, destRect.width, destRect.height, 0, destSamples);
+    }
+
+    private Raster getData(RenderedImage image, int imageLevel, Rectangle rect, Object sourceLock) {
+        Object event = ReaderEvents.INSTANCE.beginTileRead();
+        if (metrics == null && event == null) {
+            synchronized (sourceLock) {
+                return image.getData(rect);
+            }
+        }
+        long waitStart = System.nanoTime();
+        long decodeStart;
+        Raster data;
+        synchronized (sourceLock) {
+            decodeStart = System.nanoTime();
+            data = image.getData(rect);
+        }
+        long decodeEnd = System.nanoTime();
+        long numPixels = (long) rect.width * rect.height;
+        long numBytes = numPixels * DataBuffer.getDataTypeSize(data.getSampleModel().getDataType()) / 8;
+        if (metrics != null) {
+            metrics.tileDecoded(numPixels, numBytes, decodeStart - waitStart, decodeEnd - decodeStart);
+        }
+        if (event != null) {
+            ReaderEvents.INSTANCE.endTileRead(event, bandName, imageLevel, rect, backendName, numBytes);
+        }
+        return data;
+    }
+
+    private static Rectangle getBounds(RenderedImage image) {
+        return new Rectangle(image.getMinX(), image.getMinY(), image.getWidth(), image.getHeight());
+    }
+}
@@ -0,0 +1,56 @@
+package org.esa.snap.opt.enmap;
+
+import com.bc.ceres.glevel.MultiLevelModel;
+import com.bc.ceres.glevel.support.AbstractMultiLevelSource;
+import org.esa.snap.core.image.ResolutionLevel;
+import org.esa.snap.opt.enmap.imgReader.EnmapImageReader;
+
+import java.awt.Dimension;
+import java.awt.image.RenderedImage;
+import java.io.IOException;
+
+class EnmapMultiLevelSource extends AbstractMultiLevelSource {
+
+    private final EnmapImageReader imageReader;
+    private final int imageIndex;
+    private final String bandName;
+    private final int dataBufferType;
+    private final Dimension tileSize;
+    private final Object lock;
+    private final TilePrefetcher prefetcher;
+    private final BackgroundTiles backgroundTiles;
+    private final SampleConversion conversion;
+    private final ImageReaderMetrics metrics;
+
+    EnmapMultiLevelSource(MultiLevelModel model, EnmapImageReader imageReader, int imageIndex, String bandName,
+                          int dataBufferType, Dimension tileSize, Object lock, TilePrefetcher prefetcher,
+                          BackgroundTiles backgroundTiles, SampleConversion conversion, ImageReaderMetrics metrics) {
+        super(model);
+        this.imageReader = imageReader;
+        this.imageIndex = imageIndex;
+        this.bandName = bandName;
+        this.dataBufferType = dataBufferType;
+        this.tileSize = tileSize;
+        this.lock = lock;
+        this.prefetcher = prefetcher;
+        this.backgroundTiles = backgroundTiles;
+        this.conversion = conversion;
+        this.metrics = metrics;
+        if (prefetcher != null) {
+            prefetcher.register(imageIndex, this);
+        }
+    }
+
+    @Override
+    protected RenderedImage createImage(int level) {
+        try {
+            RenderedImage fullResImage = imageReader.getImageAt(imageIndex);
+            RenderedImage nativeLevelImage = imageReader.getImageAt(imageIndex, level);
+            return new EnmapLevelImage(fullResImage, nativeLevelImage, dataBufferType, tileSize,
+                                       ResolutionLevel.create(getModel(), level), lock, imageIndex, prefetcher,
+                                       backgroundTiles, conversion, metrics, bandName, imageReader.getBackendName());
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Could not create image at level %d", level), e);
+        }
+    }
+}
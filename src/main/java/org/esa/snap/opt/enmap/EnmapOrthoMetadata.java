@@ -42,6 +42,8 @@ abstract class EnmapOrthoMetadata  extends EnmapMetadata{
         map.put(EnmapFileUtils.QUALITY_SNOW_KEY, getFileName(EnmapFileUtils.QUALITY_SNOW_KEY, nodeSet));
         map.put(EnmapFileUtils.QUALITY_TESTFLAGS_KEY, getFileName(EnmapFileUtils.QUALITY_TESTFLAGS_KEY, nodeSet));
         map.put(EnmapFileUtils.QUALITY_PIXELMASK_KEY, getFileName(EnmapFileUtils.QUALITY_PIXELMASK_KEY, nodeSet));
+        map.put(EnmapFileUtils.QUICKLOOK_VNIR_KEY, getFileName(EnmapFileUtils.QUICKLOOK_VNIR_KEY, nodeSet));
+        map.put(EnmapFileUtils.QUICKLOOK_SWIR_KEY, getFileName(EnmapFileUtils.QUICKLOOK_SWIR_KEY, nodeSet));
 
         return map;
     }
@@ -2,9 +2,14 @@ package org.esa.snap.opt.enmap;
 
 import com.bc.ceres.core.ProgressMonitor;
 import com.bc.ceres.core.VirtualDir;
+import com.bc.ceres.glevel.MultiLevelImage;
+import com.bc.ceres.glevel.MultiLevelModel;
+import com.bc.ceres.glevel.MultiLevelSource;
+import com.bc.ceres.glevel.support.DefaultMultiLevelImage;
 import org.esa.snap.core.dataio.AbstractProductReader;
 import org.esa.snap.core.dataio.ProductIO;
 import org.esa.snap.core.dataio.ProductReader;
+import org.esa.snap.core.dataio.ProductSubsetDef;
 import org.esa.snap.core.dataio.geocoding.ComponentFactory;
 import org.esa.snap.core.dataio.geocoding.ComponentGeoCoding;
 import org.esa.snap.core.dataio.geocoding.GeoChecks;
@@ -15,16 +20,24 @@ import org.esa.snap.core.datamodel.Band;
 import org.esa.snap.core.datamodel.CrsGeoCoding;
 import org.esa.snap.core.datamodel.FlagCoding;
 import org.esa.snap.core.datamodel.GeoCoding;
+import org.esa.snap.core.datamodel.GeoPos;
+import org.esa.snap.core.datamodel.Mask;
+import org.esa.snap.core.datamodel.PixelPos;
 import org.esa.snap.core.datamodel.Product;
 import org.esa.snap.core.datamodel.ProductData;
 import org.esa.snap.core.datamodel.TiePointGrid;
+import org.esa.snap.core.image.ImageManager;
+import org.esa.snap.core.subset.GeometrySubsetRegion;
+import org.esa.snap.core.util.SystemUtils;
 import org.esa.snap.opt.enmap.imgReader.EnmapImageReader;
 import org.geotools.referencing.CRS;
 import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.locationtech.jts.geom.Geometry;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.operation.MathTransform;
 
 import java.awt.Dimension;
+import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
@@ -35,15 +48,31 @@ import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.IntPredicate;
 import java.util.stream.IntStream;
 
 import static org.esa.snap.opt.enmap.EnmapFileUtils.*;
-
-class EnmapProductReader extends AbstractProductReader {
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.ENMAP_EAGER_DEFECTIVE_MASKS;
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.ENMAP_GEOPHYSICAL_FLOAT;
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.ENMAP_L1B_DETECTOR;
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.ENMAP_QUALITY_ALL;
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.ENMAP_QUALITY_STATS_CACHE;
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.ENMAP_RLE_QUALITY_LAYERS;
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.ENMAP_SKIP_BACKGROUND_TILES;
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.ENMAP_TILE_INDEX_CACHE;
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.ENMAP_READ_QUICKLOOKS;
+
+public class EnmapProductReader extends AbstractProductReader {
     public static final int KM_IN_METERS = 1000;
     public static final String SCENE_AZIMUTH_TPG_NAME = "scene_azimuth";
     public static final String SUN_AZIMUTH_TPG_NAME = "sun_azimuth";
@@ -52,11 +81,41 @@ class EnmapProductReader extends AbstractProductReader {
     public static final String ALONG_OFF_NADIR_TPG_NAME = "along_off_nadir";
 
     private static final String CANNOT_READ_PRODUCT_MSG = "Cannot read product";
+    // the decoded pixel mask blocks kept in memory, the least recently used blocks are decoded again when needed
+    private static final long PIXELMASK_STORE_MAX_BYTES = 64L * 1024 * 1024;
     private final Object syncObject;
 
     private VirtualDir dataDir;
     private final Map<String, RenderedImage> bandImageMap = new TreeMap<>();
     private final List<EnmapImageReader> imageReaderList = new ArrayList<>();
+    private final Map<EnmapImageReader, TilePrefetcher> prefetcherMap = new HashMap<>();
+    private final AsyncBandReader asyncBandReader = new AsyncBandReader();
+    private PixelMaskStore pixelMaskStore;
+    private DefectiveMaskProvider defectiveMaskProvider;
+    private Path productPath;
+    private Map<String, String> fileNameMap;
+    private Product product;
+    private final Object qualityStatisticsLock = new Object();
+    private volatile QualityStatistics qualityStatistics;
+    private volatile TileQualityIndex tileQualityIndex;
+    private BackgroundTiles backgroundTiles;
+    private RenderedImage qualityAllImage;
+    // the quality layers of the product which are excluded by the subset, their bits are zero in qualityAllImage
+    private final List<String> missingQualityLayers = new ArrayList<>();
+    private final Map<String, Integer> spectralImageIndexMap = new HashMap<>();
+    private ProductSubsetDef subsetDef;
+    private Rectangle region;
+    private boolean regionSubset;
+    private Dimension sceneDimension;
+    private Geometry regionOfInterest;
+    private EnmapMetadata.PROCESSING_LEVEL processingLevel;
+    private Point2D eastingNorthing;
+    private boolean vnirAccepted = true;
+    private boolean swirAccepted = true;
+    private int numVnirImages;
+    private final Map<OpenPhase, Long> openPhaseDurations = new EnumMap<>(OpenPhase.class);
+    private ReaderMetrics metrics;
+    private Object openPhaseEvent;
 
     public EnmapProductReader(EnmapProductReaderPlugIn readerPlugIn) {
         super(readerPlugIn);
@@ -66,9 +125,14 @@ class EnmapProductReader extends AbstractProductReader {
     @Override
     protected Product readProductNodesImpl() throws IOException {
         Path path = InputTypes.toPath(super.getInput());
+        productPath = path;
         if (!EnmapFileUtils.isZip(path)) {
             path = path.getParent();
         }
+        // without metrics nothing is recorded in the hot path, only the null checks remain
+        metrics = ReaderMetrics.isEnabled() ? new ReaderMetrics() : null;
+        long phaseStart = System.nanoTime();
+        openPhaseEvent = ReaderEvents.INSTANCE.beginOpenPhase();
         dataDir = VirtualDir.create(path.toFile());
         if (dataDir == null) {
             throw new IOException(String.format("%s%nVirtual directory could not be created", CANNOT_READ_PRODUCT_MSG));
@@ -77,6 +141,8 @@ class EnmapProductReader extends AbstractProductReader {
         String[] fileNames = dataDir.listAllFiles();
         String metadataFile = getMetadataFile(fileNames);
         EnmapMetadata meta = EnmapMetadata.create(dataDir.getInputStream(metadataFile));
+        fileNameMap = meta.getFileNameMap();
+        phaseStart = endOpenPhase(OpenPhase.METADATA, phaseStart);
 
         String productFormat = meta.getProductFormat();
         if (!ProductFormat.GeoTIFF_Metadata.name().equals(ProductFormat.toEnumName(productFormat))) {
@@ -84,22 +150,171 @@ class EnmapProductReader extends AbstractProductReader {
                     "Currently only '%s' is supported", productFormat, ProductFormat.GeoTIFF_Metadata.asEnmapFormatName()));
         }
 
-        Dimension dimension = meta.getSceneDimension();
-        Product product = new Product(meta.getProductName(), meta.getProductType(), dimension.width, dimension.height);
+        // region and band subsets are handled while reading, only the images of the requested nodes are opened
+        processingLevel = meta.getProcessingLevel();
+        subsetDef = isSubsetReadingFullySupported() ? getSubsetDef() : null;
+        sceneDimension = meta.getSceneDimension();
+        Rectangle sceneRect = new Rectangle(sceneDimension);
+        region = sceneRect;
+        if (subsetDef != null && subsetDef.getSubsetRegion() instanceof GeometrySubsetRegion) {
+            // a subset given by a geometry is located like a region of interest
+            GeometrySubsetRegion subsetRegion = (GeometrySubsetRegion) subsetDef.getSubsetRegion();
+            Rectangle geometryRect = getGeometryRect(meta, sceneRect, subsetRegion.getGeometryRegion());
+            int border = subsetRegion.getBorderPixels();
+            if (!geometryRect.isEmpty() && border > 0) {
+                geometryRect.grow(border, border);
+            }
+            region = geometryRect.intersection(sceneRect);
+        } else if (subsetDef != null && subsetDef.getRegion() != null) {
+            region = subsetDef.getRegion().intersection(sceneRect);
+        }
+        if (regionOfInterest != null) {
+            region = region.intersection(getGeometryRect(meta, sceneRect, regionOfInterest));
+        }
+        if (region.isEmpty()) {
+            throw new IOException(String.format("%s%nThe subset region does not intersect the scene", CANNOT_READ_PRODUCT_MSG));
+        }
+        regionSubset = !region.equals(sceneRect);
+        if (EnmapMetadata.PROCESSING_LEVEL.L1B.equals(meta.getProcessingLevel())) {
+            initDetectors(meta);
+        }
+
+        Product product = new Product(meta.getProductName(), meta.getProductType(), region.width, region.height);
         product.setStartTime(meta.getStartTime());
         product.setEndTime(meta.getStopTime());
 
         addGeoCoding(product, meta);
+        phaseStart = endOpenPhase(OpenPhase.GEOCODING, phaseStart);
         addSpectralBands(product, meta);
+        phaseStart = endOpenPhase(OpenPhase.SPECTRAL_BANDS, phaseStart);
         addTiePointGrids(product, meta);
+        phaseStart = endOpenPhase(OpenPhase.TIE_POINT_GRIDS, phaseStart);
         addQualityLayers(product, meta);
-        addMetadata(product, meta);
+        phaseStart = endOpenPhase(OpenPhase.QUALITY_LAYERS, phaseStart);
+        addQuicklooks(product, meta, fileNames);
+        phaseStart = endOpenPhase(OpenPhase.QUICKLOOKS, phaseStart);
+        if (subsetDef == null || !subsetDef.isIgnoreMetadata()) {
+            addMetadata(product, meta);
+        }
+        endOpenPhase(OpenPhase.METADATA_INSERTION, phaseStart);
 
-        product.setAutoGrouping("band:PIXELMASK:QUALITY");
+        product.setAutoGrouping("band:PIXELMASK:QUALITY:QL");
 
+        this.product = product;
+        if (metrics != null) {
+            metrics.register(product.getName());
+        }
         return product;
     }
 
+    /**
+     * records the duration of the phase, which started at the given time, and emits the flight recorder event
+     * of the phase
+     *
+     * @return the end of the phase, which is the start of the next one
+     */
+    private long endOpenPhase(OpenPhase phase, long phaseStart) {
+        long phaseEnd = System.nanoTime();
+        openPhaseDurations.put(phase, phaseEnd - phaseStart);
+        if (metrics != null) {
+            metrics.openPhaseEnded(phase, phaseEnd - phaseStart);
+        }
+        if (openPhaseEvent != null) {
+            ReaderEvents.INSTANCE.endOpenPhase(openPhaseEvent, phase, productPath.toString());
+        }
+        openPhaseEvent = phase != OpenPhase.METADATA_INSERTION ? ReaderEvents.INSTANCE.beginOpenPhase() : null;
+        return phaseEnd;
+    }
+
+    /**
+     * Returns the time spent in the phases of opening the product.
+     *
+     * @return the durations in nanoseconds, in the order of the phases
+     */
+    public Map<OpenPhase, Long> getOpenPhaseDurations() {
+        return Collections.unmodifiableMap(new EnumMap<>(openPhaseDurations));
+    }
+
+    /**
+     * Restricts the product to the pixels covering the given region of interest. Only the tiles intersecting these
+     * pixels are decoded. It must be set before the product is read and is only supported for L1C and L2A products.
+     * The region is intersected with the spatial coverage of the ortho scene and with the region of a subset,
+     * if one is given.
+     *
+     * @param wgs84Geometry the region of interest in WGS84, longitude as x and latitude as y coordinate;
+     *                      {@code null} to read the complete scene
+     */
+    public void setRegionOfInterest(Geometry wgs84Geometry) {
+        if (product != null) {
+            throw new IllegalStateException("The region of interest must be set before the product is read");
+        }
+        this.regionOfInterest = wgs84Geometry;
+    }
+
+    @Override
+    public boolean isSubsetReadingFullySupported() {
+        ProductSubsetDef subsetDef = getSubsetDef();
+        if (subsetDef == null) {
+            return true;
+        }
+        // sub-sampling and regions given by a geometry for L1B products are left to SNAP,
+        // in this case the complete product is read
+        boolean geometryRegion = subsetDef.getSubsetRegion() instanceof GeometrySubsetRegion;
+        boolean l1b = EnmapMetadata.PROCESSING_LEVEL.L1B.equals(processingLevel);
+        return !(geometryRegion && l1b) && subsetDef.getSubSamplingX() == 1 && subsetDef.getSubSamplingY() == 1;
+    }
+
+    private boolean isNodeAccepted(String name) {
+        return subsetDef == null || subsetDef.isNodeAccepted(name);
+    }
+
+    /**
+     * L1B products store the VNIR and SWIR data in separate files. If only one detector is requested by the
+     * preference {@value EnmapProductReaderPlugIn#ENMAP_L1B_DETECTOR}, the files of the other detector are neither
+     * opened nor extracted from the zip file.
+     */
+    private void initDetectors(EnmapMetadata meta) throws IOException {
+        String detector = EnmapProductReaderPlugIn.PREFERENCES.get(ENMAP_L1B_DETECTOR, "").trim();
+        if ("VNIR".equalsIgnoreCase(detector)) {
+            swirAccepted = false;
+        } else if ("SWIR".equalsIgnoreCase(detector)) {
+            vnirAccepted = false;
+        } else if (!detector.isEmpty() && !"ALL".equalsIgnoreCase(detector)) {
+            throw new IOException(String.format("%s%nUnknown detector '%s', must be VNIR, SWIR or ALL",
+                                                CANNOT_READ_PRODUCT_MSG, detector));
+        }
+        numVnirImages = meta.getNumVnirBands();
+    }
+
+    private boolean isDetectorAccepted(int imageIndex) {
+        return imageIndex < numVnirImages ? vnirAccepted : swirAccepted;
+    }
+
+    /**
+     * returns whether the spectral image at the given index is accepted by the subset and belongs to a requested detector
+     */
+    private boolean isSpectralImageAccepted(int imageIndex, String nodeName) {
+        return isDetectorAccepted(imageIndex) && isNodeAccepted(nodeName);
+    }
+
+    /**
+     * Registers the image reader for closing and, if only a region of the scene is read, returns a reader
+     * providing the images cropped to this region. If metrics are recorded, they are recorded under the given name.
+     */
+    private EnmapImageReader openImageReader(EnmapImageReader imageReader, String name) {
+        // keeping the original reader prevents it from being finalised while the subset reader is in use
+        imageReaderList.add(imageReader);
+        EnmapImageReader openedReader = regionSubset ? EnmapImageReader.createSubsetReader(imageReader, region) : imageReader;
+        if (metrics != null) {
+            metrics.addImageReader(name, openedReader);
+        }
+        return openedReader;
+    }
+
+    private boolean isSceneSized(RenderedImage image) {
+        return image.getWidth() == sceneDimension.width && image.getHeight() == sceneDimension.height;
+    }
+
     private void addMetadata(Product product, EnmapMetadata meta) throws IOException {
         meta.insertInto(product.getMetadataRoot());
     }
@@ -113,10 +328,131 @@ class EnmapProductReader extends AbstractProductReader {
         addSnowQl(product, meta);
         addTestFlagsQl(product, meta);
         addPixelMasksQl(product, dataDir, meta);
+        addQualityAll(product, meta, EnmapProductReaderPlugIn.PREFERENCES.getBoolean(ENMAP_QUALITY_ALL, false) &&
+                isNodeAccepted(QualityBits.QUALITY_ALL_BAND_NAME));
+    }
+
+    /**
+     * Creates the image combining all quality layers, it is used by the masked read methods. If requested, it is
+     * also provided as QUALITY_ALL band including flag coding and masks.
+     */
+    private void addQualityAll(Product product, EnmapMetadata meta, boolean addBand) throws IOException {
+        boolean isL1B = EnmapMetadata.PROCESSING_LEVEL.L1B.equals(meta.getProcessingLevel());
+        FlagCoding flagCoding = null;
+        if (addBand) {
+            flagCoding = new FlagCoding(QualityBits.QUALITY_ALL_BAND_NAME);
+            product.getFlagCodingGroup().add(flagCoding);
+        }
+
+        List<QualityAllOpImage.Layer> layers = new ArrayList<>();
+        addPackedLayer(product, flagCoding, layers, QUALITY_CLASSES_KEY, QualityBits.CLASSES_SHIFT, QualityBits.CLASSES_MASK, QualityLayerInfo.CLASSES_FLAGS);
+        addPackedLayer(product, flagCoding, layers, QUALITY_CLOUD_KEY, QualityBits.CLOUD_SHIFT, QualityBits.CLOUD_MASK, QualityLayerInfo.CLOUD_FLAGS);
+        addPackedLayer(product, flagCoding, layers, QUALITY_CLOUDSHADOW_KEY, QualityBits.CLOUDSHADOW_SHIFT, QualityBits.CLOUDSHADOW_MASK, QualityLayerInfo.CLOUDSHADOW_FLAGS);
+        addPackedLayer(product, flagCoding, layers, QUALITY_HAZE_KEY, QualityBits.HAZE_SHIFT, QualityBits.HAZE_MASK, QualityLayerInfo.HAZE_FLAGS);
+        addPackedLayer(product, flagCoding, layers, QUALITY_CIRRUS_KEY, QualityBits.CIRRUS_SHIFT, QualityBits.CIRRUS_MASK, QualityLayerInfo.CIRRUS_FLAGS);
+        addPackedLayer(product, flagCoding, layers, QUALITY_SNOW_KEY, QualityBits.SNOW_SHIFT, QualityBits.SNOW_MASK, QualityLayerInfo.SNOW_FLAGS);
+        if (isL1B) {
+            addPackedLayer(product, flagCoding, layers, QUALITY_TESTFLAGS_VNIR_KEY, QualityBits.TESTFLAGS_SHIFT, QualityBits.TESTFLAGS_MASK, QualityLayerInfo.TESTFLAGS_VNIR_FLAGS);
+            addPackedLayer(product, flagCoding, layers, QUALITY_TESTFLAGS_SWIR_KEY, QualityBits.TESTFLAGS_SWIR_SHIFT, QualityBits.TESTFLAGS_SWIR_MASK, QualityLayerInfo.TESTFLAGS_SWIR_FLAGS);
+        } else {
+            addPackedLayer(product, flagCoding, layers, QUALITY_TESTFLAGS_KEY, QualityBits.TESTFLAGS_SHIFT, QualityBits.TESTFLAGS_MASK, QualityLayerInfo.TESTFLAGS_FLAGS);
+        }
+
+        // L1B has separate test flags for VNIR and SWIR, they do not fit into 16 bits
+        int dataType = isL1B ? ProductData.TYPE_UINT32 : ProductData.TYPE_UINT16;
+        qualityAllImage = new QualityAllOpImage(layers, ImageManager.getDataBufferType(dataType),
+                product.getSceneRasterWidth(), product.getSceneRasterHeight(), ImageManager.getPreferredTileSize(product));
+        if (addBand) {
+            Band qualityBand = new Band(QualityBits.QUALITY_ALL_BAND_NAME, dataType,
+                    product.getSceneRasterWidth(), product.getSceneRasterHeight());
+            qualityBand.setDescription("All quality layers combined into one value per pixel");
+            qualityBand.setSampleCoding(flagCoding);
+            product.addBand(qualityBand);
+            qualityBand.setSourceImage(qualityAllImage);
+            bandImageMap.put(qualityBand.getName(), qualityBand.getSourceImage());
+        }
+    }
+
+    private void addPackedLayer(Product product, FlagCoding flagCoding, List<QualityAllOpImage.Layer> layers,
+                                String qualityKey, int shift, int mask, QualityLayerInfo[] flagInfos) {
+        Band qualityBand = product.getBand(qualityKey);
+        if (qualityBand == null) {
+            // the test flags of a detector which is not read are not needed for the bands of the other detector
+            boolean otherDetector = QUALITY_TESTFLAGS_VNIR_KEY.equals(qualityKey) && !vnirAccepted ||
+                                    QUALITY_TESTFLAGS_SWIR_KEY.equals(qualityKey) && !swirAccepted;
+            if (fileNameMap.get(qualityKey) != null && !otherDetector) {
+                missingQualityLayers.add(qualityKey);
+            }
+            return;
+        }
+        layers.add(new QualityAllOpImage.Layer(qualityBand.getSourceImage(), shift, mask));
+        if (flagCoding == null) {
+            return;
+        }
+        for (QualityLayerInfo flagInfo : flagInfos) {
+            flagInfo.addPackedFlagTo(flagCoding, shift);
+            flagInfo.addPackedMaskTo(product);
+        }
+    }
+
+    private void addQuicklooks(Product product, EnmapMetadata meta, String[] fileNames) throws IOException {
+        if (!EnmapProductReaderPlugIn.PREFERENCES.getBoolean(ENMAP_READ_QUICKLOOKS, true)) {
+            return;
+        }
+        if (vnirAccepted) {
+            addQuicklook(product, meta, fileNames, QUICKLOOK_VNIR_KEY);
+        }
+        if (swirAccepted) {
+            addQuicklook(product, meta, fileNames, QUICKLOOK_SWIR_KEY);
+        }
+    }
+
+    private void addQuicklook(Product product, EnmapMetadata meta, String[] fileNames, String quicklookKey) throws IOException {
+        String quicklookFile = meta.getFileNameMap().get(quicklookKey);
+        if (quicklookFile == null || Arrays.stream(fileNames).noneMatch(s -> s.endsWith(quicklookFile))) {
+            return;
+        }
+        boolean anyAccepted = Arrays.stream(new String[]{"red", "green", "blue"})
+                .anyMatch(colorName -> isNodeAccepted(String.format("%s_%s", quicklookKey, colorName)));
+        if (!anyAccepted) {
+            return;
+        }
+
+        EnmapImageReader quicklookReader;
+        try {
+            quicklookReader = EnmapImageReader.createImageReader(dataDir, meta, quicklookKey);
+        } catch (IOException | RuntimeException e) {
+            // the quicklooks are optional, the product is still usable without them
+            SystemUtils.LOG.warning(String.format("Could not read quicklook image '%s': %s", quicklookFile, e.getMessage()));
+            return;
+        }
+        if (regionSubset && !isSceneSized(quicklookReader.getImageAt(0))) {
+            // the region can only be applied if the quicklook covers the scene pixel by pixel
+            quicklookReader.close();
+            return;
+        }
+        quicklookReader = openImageReader(quicklookReader, quicklookKey);
+
+        String[] colorNames = {"red", "green", "blue"};
+        int numImages = Math.min(colorNames.length, quicklookReader.getNumImages());
+        for (int i = 0; i < numImages; i++) {
+            String bandName = String.format("%s_%s", quicklookKey, colorNames[i]);
+            if (!isNodeAccepted(bandName)) {
+                continue;
+            }
+            RenderedImage image = quicklookReader.getImageAt(i);
+            Band band = new Band(bandName, ProductData.TYPE_UINT8, image.getWidth(), image.getHeight());
+            band.setDescription(String.format("%s quicklook, %s channel", quicklookKey.substring(3), colorNames[i]));
+            product.addBand(band);
+            setSourceImage(band, quicklookReader, i);
+        }
     }
 
     private void addClassesQl(Product product, EnmapMetadata meta) throws IOException {
         String qualityKey = QUALITY_CLASSES_KEY;
+        if (!isNodeAccepted(qualityKey)) {
+            return;
+        }
         FlagCoding flagCoding = new FlagCoding(qualityKey);
         product.getFlagCodingGroup().add(flagCoding);
         QualityLayerInfo.QL_CLASSES_LAND.addFlagTo(flagCoding);
@@ -127,53 +463,64 @@ class EnmapProductReader extends AbstractProductReader {
         QualityLayerInfo.QL_CLASSES_BG.addMaskTo(product);
 
         EnmapImageReader qualityReader = EnmapImageReader.createImageReader(dataDir, meta, qualityKey);
-        imageReaderList.add(qualityReader);
+        qualityReader = openImageReader(qualityReader, qualityKey);
 
-        RenderedImage imageAt = qualityReader.getImageAt(0);
-        addFlagBand(product, qualityKey, flagCoding, imageAt);
+        addFlagBand(product, qualityKey, flagCoding, qualityReader, 0);
     }
 
     private void addCloudQl(Product product, EnmapMetadata meta) throws IOException {
         String qualityKey = QUALITY_CLOUD_KEY;
+        if (!isNodeAccepted(qualityKey)) {
+            return;
+        }
         FlagCoding flagCoding = new FlagCoding(qualityKey);
         product.getFlagCodingGroup().add(flagCoding);
         QualityLayerInfo.QL_CLOUD_CLOUD.addFlagTo(flagCoding);
         QualityLayerInfo.QL_CLOUD_CLOUD.addMaskTo(product);
 
         EnmapImageReader qualityReader = EnmapImageReader.createImageReader(dataDir, meta, qualityKey);
-        imageReaderList.add(qualityReader); // prevents finalising the reader
+        qualityReader = openImageReader(qualityReader, qualityKey);
 
-        addFlagBand(product, qualityKey, flagCoding, qualityReader.getImageAt(0));
+        addFlagBand(product, qualityKey, flagCoding, qualityReader, 0);
     }
 
     private void addCloudShadowQl(Product product, EnmapMetadata meta) throws IOException {
         String qualityKey = QUALITY_CLOUDSHADOW_KEY;
+        if (!isNodeAccepted(qualityKey)) {
+            return;
+        }
         FlagCoding flagCoding = new FlagCoding(qualityKey);
         product.getFlagCodingGroup().add(flagCoding);
         QualityLayerInfo.QL_CLOUDSHADOW_SHADOW.addFlagTo(flagCoding);
         QualityLayerInfo.QL_CLOUDSHADOW_SHADOW.addMaskTo(product);
 
         EnmapImageReader qualityReader = EnmapImageReader.createImageReader(dataDir, meta, qualityKey);
-        imageReaderList.add(qualityReader); // prevents finalising the reader
+        qualityReader = openImageReader(qualityReader, qualityKey);
 
-        addFlagBand(product, qualityKey, flagCoding, qualityReader.getImageAt(0));
+        addFlagBand(product, qualityKey, flagCoding, qualityReader, 0);
     }
 
     private void addHazeQl(Product product, EnmapMetadata meta) throws IOException {
         String qualityKey = QUALITY_HAZE_KEY;
+        if (!isNodeAccepted(qualityKey)) {
+            return;
+        }
         FlagCoding flagCoding = new FlagCoding(qualityKey);
         product.getFlagCodingGroup().add(flagCoding);
         QualityLayerInfo.QL_HAZE_HAZE.addFlagTo(flagCoding);
         QualityLayerInfo.QL_HAZE_HAZE.addMaskTo(product);
 
         EnmapImageReader qualityReader = EnmapImageReader.createImageReader(dataDir, meta, qualityKey);
-        imageReaderList.add(qualityReader); // prevents finalising the reader
+        qualityReader = openImageReader(qualityReader, qualityKey);
 
-        addFlagBand(product, qualityKey, flagCoding, qualityReader.getImageAt(0));
+        addFlagBand(product, qualityKey, flagCoding, qualityReader, 0);
     }
 
     private void addCirrusQl(Product product, EnmapMetadata meta) throws IOException {
         String qualityKey = QUALITY_CIRRUS_KEY;
+        if (!isNodeAccepted(qualityKey)) {
+            return;
+        }
         FlagCoding flagCoding = new FlagCoding(qualityKey);
         product.getFlagCodingGroup().add(flagCoding);
         QualityLayerInfo.QL_CIRRUS_THIN.addFlagTo(flagCoding);
@@ -184,106 +531,139 @@ class EnmapProductReader extends AbstractProductReader {
         QualityLayerInfo.QL_CIRRUS_THICK.addMaskTo(product);
 
         EnmapImageReader qualityReader = EnmapImageReader.createImageReader(dataDir, meta, qualityKey);
-        imageReaderList.add(qualityReader); // prevents finalising the reader
+        qualityReader = openImageReader(qualityReader, qualityKey);
 
-        addFlagBand(product, qualityKey, flagCoding, qualityReader.getImageAt(0));
+        addFlagBand(product, qualityKey, flagCoding, qualityReader, 0);
     }
 
     private void addSnowQl(Product product, EnmapMetadata meta) throws IOException {
         String qualityKey = QUALITY_SNOW_KEY;
+        if (!isNodeAccepted(qualityKey)) {
+            return;
+        }
         FlagCoding flagCoding = new FlagCoding(qualityKey);
         product.getFlagCodingGroup().add(flagCoding);
         QualityLayerInfo.QL_SNOW_SNOW.addFlagTo(flagCoding);
         QualityLayerInfo.QL_SNOW_SNOW.addMaskTo(product);
 
         EnmapImageReader qualityReader = EnmapImageReader.createImageReader(dataDir, meta, qualityKey);
-        imageReaderList.add(qualityReader); // prevents finalising the reader
+        qualityReader = openImageReader(qualityReader, qualityKey);
 
-        addFlagBand(product, qualityKey, flagCoding, qualityReader.getImageAt(0));
+        addFlagBand(product, qualityKey, flagCoding, qualityReader, 0);
     }
 
     private void addPixelMasksQl(Product product, VirtualDir dataDir, EnmapMetadata meta) throws IOException {
+        int[] spectralIndices = meta.getSpectralIndices();
+        String[] flagBandNames = new String[meta.getNumSpectralBands()];
+        boolean[] maskNeeded = new boolean[flagBandNames.length];
+        boolean defectivePixelsAccepted = isNodeAccepted(QualityLayerInfo.DEFECTIVE_PIXELS_BAND_NAME);
+        boolean defectiveCountAccepted = isNodeAccepted(QualityLayerInfo.DEFECTIVE_BAND_COUNT_BAND_NAME);
+        // the aggregated bands need the masks of all spectral bands of the requested detectors,
+        // the masked read needs the masks of the read bands
+        boolean anyMaskNeeded = false;
+        for (int i = 0; i < flagBandNames.length; i++) {
+            flagBandNames[i] = String.format("%s_%03d", QUALITY_PIXELMASK_KEY, spectralIndices[i]);
+            maskNeeded[i] = isDetectorAccepted(i) &&
+                    (defectivePixelsAccepted || defectiveCountAccepted || isNodeAccepted(flagBandNames[i]) ||
+                     spectralImageIndexMap.containsKey(String.format("band_%03d", spectralIndices[i])));
+            anyMaskNeeded |= maskNeeded[i];
+        }
+        if (!anyMaskNeeded) {
+            defectiveMaskProvider = new DefectiveMaskProvider(product, QualityLayerInfo.QL_PM_DEFECTIVE_SERIES, new int[0]);
+            return;
+        }
+
         EnmapImageReader pixelMaskReader = EnmapImageReader.createPixelMaskReader(dataDir, meta);
-        imageReaderList.add(pixelMaskReader);
+        pixelMaskReader = openImageReader(pixelMaskReader, QUALITY_PIXELMASK_KEY);
         FlagCoding flagCoding = new FlagCoding(QUALITY_PIXELMASK_KEY);
-        flagCoding.addFlag("Defective", 1, "Defective pixel");
+        QualityLayerInfo.QL_PM_DEFECTIVE_SERIES.addFlagTo(flagCoding);
         product.getFlagCodingGroup().add(flagCoding);
 
-        int[] spectralIndices = meta.getSpectralIndices();
-        for (int i = 0; i < meta.getNumSpectralBands(); i++) {
-            RenderedImage imageAt = pixelMaskReader.getImageAt(i);
-            String flagBandName = String.format("%s_%03d", QUALITY_PIXELMASK_KEY, spectralIndices[i]);
-            Band flagBand = addFlagBand(product, flagBandName, flagCoding, imageAt);
+        RenderedImage[] pixelMaskImages = new RenderedImage[pixelMaskReader.getNumImages()];
+        for (int i = 0; i < pixelMaskImages.length; i++) {
+            if (maskNeeded[i]) {
+                pixelMaskImages[i] = pixelMaskReader.getImageAt(i);
+            }
+        }
+        Dimension tileSize = ImageManager.getPreferredTileSize(product);
+        // the pixel masks of all bands are decoded once into a bit-packed store, the bands are views on this store
+        pixelMaskStore = new PixelMaskStore(pixelMaskImages, (int) meta.getPixelmaskBackgroundValue(), tileSize,
+                PIXELMASK_STORE_MAX_BYTES, syncObject);
+
+        List<Integer> acceptedIndices = new ArrayList<>();
+        for (int i = 0; i < flagBandNames.length; i++) {
+            String flagBandName = flagBandNames[i];
+            if (!isSpectralImageAccepted(i, flagBandName)) {
+                continue;
+            }
+            acceptedIndices.add(spectralIndices[i]);
+            Band flagBand = new Band(flagBandName, ProductData.TYPE_UINT8, pixelMaskStore.getWidth(), pixelMaskStore.getHeight());
+            flagBand.setSampleCoding(flagCoding);
             flagBand.setNoDataValueUsed(true);
             flagBand.setNoDataValue(meta.getPixelmaskBackgroundValue());
+            product.addBand(flagBand);
+            // the full resolution is a view on the store, the lower levels are read natively from the pixel mask;
+            // the store reduces the values to 0, 1 and the background value, as contained in the pixel mask
+            int bandIndex = i;
+            EnmapMultiLevelSource levelSource = createMultiLevelSource(flagBand, pixelMaskReader, i, null, null);
+            setSourceImage(flagBand, new FullResMultiLevelSource(
+                    () -> new PixelMaskBandOpImage(pixelMaskStore, bandIndex, tileSize), levelSource));
+        }
+        addDefectivePixelBands(product, meta, tileSize, defectivePixelsAccepted, defectiveCountAccepted);
+        QualityLayerInfo.QL_PM_DEFECTIVE_SERIES.addMasksTo(product);
+        defectiveMaskProvider = new DefectiveMaskProvider(product, QualityLayerInfo.QL_PM_DEFECTIVE_SERIES,
+                acceptedIndices.stream().mapToInt(Integer::intValue).toArray());
+        if (EnmapProductReaderPlugIn.PREFERENCES.getBoolean(ENMAP_EAGER_DEFECTIVE_MASKS, false)) {
+            defectiveMaskProvider.addAllMasks();
         }
-        QualityLayerInfo.QL_PM_DEFECTIVE_SERIES.addMasksTo(product, meta);
 
     }
 
+    private void addDefectivePixelBands(Product product, EnmapMetadata meta, Dimension tileSize,
+                                        boolean addFlagBand, boolean addCountBand) {
+        int numVnirBands = meta.getNumVnirBands();
+        if (addFlagBand) {
+            addDefectiveFlagBand(product, numVnirBands, tileSize);
+        }
+        if (addCountBand) {
+            addDefectiveCountBand(product, numVnirBands, tileSize);
+        }
+    }
+
+    private void addDefectiveFlagBand(Product product, int numVnirBands, Dimension tileSize) {
+        FlagCoding flagCoding = new FlagCoding(QualityLayerInfo.DEFECTIVE_PIXELS_BAND_NAME);
+        flagCoding.addFlag(QualityLayerInfo.DEFECTIVE_VNIR_FLAG_NAME, DefectivePixelsOpImage.VNIR_FLAG, "Defective in at least one VNIR band");
+        flagCoding.addFlag(QualityLayerInfo.DEFECTIVE_SWIR_FLAG_NAME, DefectivePixelsOpImage.SWIR_FLAG, "Defective in at least one SWIR band");
+        product.getFlagCodingGroup().add(flagCoding);
+        Band flagBand = new Band(QualityLayerInfo.DEFECTIVE_PIXELS_BAND_NAME, ProductData.TYPE_UINT8,
+                product.getSceneRasterWidth(), product.getSceneRasterHeight());
+        flagBand.setDescription("Defective VNIR and SWIR pixels aggregated over all bands");
+        flagBand.setSampleCoding(flagCoding);
+        product.addBand(flagBand);
+        flagBand.setSourceImage(new DefectivePixelsOpImage(pixelMaskStore, numVnirBands,
+                DefectivePixelsOpImage.Mode.FLAGS, tileSize));
+        bandImageMap.put(flagBand.getName(), flagBand.getSourceImage());
+    }
+
+    private void addDefectiveCountBand(Product product, int numVnirBands, Dimension tileSize) {
+        Band countBand = new Band(QualityLayerInfo.DEFECTIVE_BAND_COUNT_BAND_NAME, ProductData.TYPE_UINT8,
+                product.getSceneRasterWidth(), product.getSceneRasterHeight());
+        countBand.setDescription("Number of bands in which the pixel is defective");
+        product.addBand(countBand);
+        countBand.setSourceImage(new DefectivePixelsOpImage(pixelMaskStore, numVnirBands,
+                DefectivePixelsOpImage.Mode.COUNT, tileSize));
+        bandImageMap.put(countBand.getName(), countBand.getSourceImage());
+    }
+
     private void addTestFlagsQl(Product product, EnmapMetadata meta) throws IOException {
         if (EnmapMetadata.PROCESSING_LEVEL.L1B.equals(meta.getProcessingLevel())) {
-            String vnirQualityKey = QUALITY_TESTFLAGS_VNIR_KEY;
-            FlagCoding vnirFlagCoding = new FlagCoding(vnirQualityKey);
-            product.getFlagCodingGroup().add(vnirFlagCoding);
-
-            QualityLayerInfo.QL_TF_VNIR_NOMINAL.addFlagTo(vnirFlagCoding);
-            QualityLayerInfo.QL_TF_VNIR_NOMINAL.addMaskTo(product);
-            QualityLayerInfo.QL_TF_VNIR_REDUCED.addFlagTo(vnirFlagCoding);
-            QualityLayerInfo.QL_TF_VNIR_REDUCED.addMaskTo(product);
-            QualityLayerInfo.QL_TF_VNIR_LOW.addFlagTo(vnirFlagCoding);
-            QualityLayerInfo.QL_TF_VNIR_LOW.addMaskTo(product);
-            QualityLayerInfo.QL_TF_VNIR_NOT.addFlagTo(vnirFlagCoding);
-            QualityLayerInfo.QL_TF_VNIR_NOT.addMaskTo(product);
-            QualityLayerInfo.QL_TF_VNIR_INTERPOLATED_SWIR.addFlagTo(vnirFlagCoding);
-            QualityLayerInfo.QL_TF_VNIR_INTERPOLATED_SWIR.addMaskTo(product);
-            QualityLayerInfo.QL_TF_VNIR_INTERPOLATED_VNIR.addFlagTo(vnirFlagCoding);
-            QualityLayerInfo.QL_TF_VNIR_INTERPOLATED_VNIR.addMaskTo(product);
-            QualityLayerInfo.QL_TF_VNIR_SATURATION_SWIR.addFlagTo(vnirFlagCoding);
-            QualityLayerInfo.QL_TF_VNIR_SATURATION_SWIR.addMaskTo(product);
-            QualityLayerInfo.QL_TF_VNIR_SATURATION_VNIR.addFlagTo(vnirFlagCoding);
-            QualityLayerInfo.QL_TF_VNIR_SATURATION_VNIR.addMaskTo(product);
-            QualityLayerInfo.QL_TF_VNIR_ARTEFACT_SWIR.addFlagTo(vnirFlagCoding);
-            QualityLayerInfo.QL_TF_VNIR_ARTEFACT_SWIR.addMaskTo(product);
-            QualityLayerInfo.QL_TF_VNIR_ARTEFACT_VNIR.addFlagTo(vnirFlagCoding);
-            QualityLayerInfo.QL_TF_VNIR_ARTEFACT_VNIR.addMaskTo(product);
-
-            EnmapImageReader qualityVnirReader = EnmapImageReader.createImageReader(dataDir, meta, vnirQualityKey);
-            imageReaderList.add(qualityVnirReader); // prevents finalising the reader
-
-            addFlagBand(product, vnirQualityKey, vnirFlagCoding, qualityVnirReader.getImageAt(0));
-
-            String swirQualityKey = QUALITY_TESTFLAGS_SWIR_KEY;
-            FlagCoding swirFlagCoding = new FlagCoding(swirQualityKey);
-            product.getFlagCodingGroup().add(swirFlagCoding);
-
-            QualityLayerInfo.QL_TF_SWIR_NOMINAL.addFlagTo(swirFlagCoding);
-            QualityLayerInfo.QL_TF_SWIR_NOMINAL.addMaskTo(product);
-            QualityLayerInfo.QL_TF_SWIR_REDUCED.addFlagTo(swirFlagCoding);
-            QualityLayerInfo.QL_TF_SWIR_REDUCED.addMaskTo(product);
-            QualityLayerInfo.QL_TF_SWIR_LOW.addFlagTo(swirFlagCoding);
-            QualityLayerInfo.QL_TF_SWIR_LOW.addMaskTo(product);
-            QualityLayerInfo.QL_TF_SWIR_NOT.addFlagTo(swirFlagCoding);
-            QualityLayerInfo.QL_TF_SWIR_NOT.addMaskTo(product);
-            QualityLayerInfo.QL_TF_SWIR_INTERPOLATED_SWIR.addFlagTo(swirFlagCoding);
-            QualityLayerInfo.QL_TF_SWIR_INTERPOLATED_SWIR.addMaskTo(product);
-            QualityLayerInfo.QL_TF_SWIR_INTERPOLATED_VNIR.addFlagTo(swirFlagCoding);
-            QualityLayerInfo.QL_TF_SWIR_INTERPOLATED_VNIR.addMaskTo(product);
-            QualityLayerInfo.QL_TF_SWIR_SATURATION_SWIR.addFlagTo(swirFlagCoding);
-            QualityLayerInfo.QL_TF_SWIR_SATURATION_SWIR.addMaskTo(product);
-            QualityLayerInfo.QL_TF_SWIR_SATURATION_VNIR.addFlagTo(swirFlagCoding);
-            QualityLayerInfo.QL_TF_SWIR_SATURATION_VNIR.addMaskTo(product);
-            QualityLayerInfo.QL_TF_SWIR_ARTEFACT_SWIR.addFlagTo(swirFlagCoding);
-            QualityLayerInfo.QL_TF_SWIR_ARTEFACT_SWIR.addMaskTo(product);
-            QualityLayerInfo.QL_TF_SWIR_ARTEFACT_VNIR.addFlagTo(swirFlagCoding);
-            QualityLayerInfo.QL_TF_SWIR_ARTEFACT_VNIR.addMaskTo(product);
-
-            EnmapImageReader qualitySwirReader = EnmapImageReader.createImageReader(dataDir, meta, swirQualityKey);
-            imageReaderList.add(qualitySwirReader); // prevents finalising the reader
-
-            addFlagBand(product, swirQualityKey, swirFlagCoding, qualitySwirReader.getImageAt(0));
+            addVnirTestFlagsQl(product, meta);
+            addSwirTestFlagsQl(product, meta);
         } else {
             String qualityKey = QUALITY_TESTFLAGS_KEY;
+            if (!isNodeAccepted(qualityKey)) {
+                return;
+            }
             FlagCoding flagCoding = new FlagCoding(qualityKey);
             product.getFlagCodingGroup().add(flagCoding);
             QualityLayerInfo.QL_TF_NOMINAL.addFlagTo(flagCoding);
@@ -308,38 +688,164 @@ class EnmapProductReader extends AbstractProductReader {
             QualityLayerInfo.QL_TF_ARTEFACT_VNIR.addMaskTo(product);
 
             EnmapImageReader qualityReader = EnmapImageReader.createImageReader(dataDir, meta, qualityKey);
-            imageReaderList.add(qualityReader); // prevents finalising the reader
+            qualityReader = openImageReader(qualityReader, qualityKey);
 
-            addFlagBand(product, qualityKey, flagCoding, qualityReader.getImageAt(0));
+            addFlagBand(product, qualityKey, flagCoding, qualityReader, 0);
         }
     }
 
-    private Band addFlagBand(Product product, String bandName, FlagCoding flagCoding, RenderedImage dataImage) {
+    private void addVnirTestFlagsQl(Product product, EnmapMetadata meta) throws IOException {
+        String vnirQualityKey = QUALITY_TESTFLAGS_VNIR_KEY;
+        if (!vnirAccepted || !isNodeAccepted(vnirQualityKey)) {
+            return;
+        }
+        FlagCoding vnirFlagCoding = new FlagCoding(vnirQualityKey);
+        product.getFlagCodingGroup().add(vnirFlagCoding);
+
+        QualityLayerInfo.QL_TF_VNIR_NOMINAL.addFlagTo(vnirFlagCoding);
+        QualityLayerInfo.QL_TF_VNIR_NOMINAL.addMaskTo(product);
+        QualityLayerInfo.QL_TF_VNIR_REDUCED.addFlagTo(vnirFlagCoding);
+        QualityLayerInfo.QL_TF_VNIR_REDUCED.addMaskTo(product);
+        QualityLayerInfo.QL_TF_VNIR_LOW.addFlagTo(vnirFlagCoding);
+        QualityLayerInfo.QL_TF_VNIR_LOW.addMaskTo(product);
+        QualityLayerInfo.QL_TF_VNIR_NOT.addFlagTo(vnirFlagCoding);
+        QualityLayerInfo.QL_TF_VNIR_NOT.addMaskTo(product);
+        QualityLayerInfo.QL_TF_VNIR_INTERPOLATED_SWIR.addFlagTo(vnirFlagCoding);
+        QualityLayerInfo.QL_TF_VNIR_INTERPOLATED_SWIR.addMaskTo(product);
+        QualityLayerInfo.QL_TF_VNIR_INTERPOLATED_VNIR.addFlagTo(vnirFlagCoding);
+        QualityLayerInfo.QL_TF_VNIR_INTERPOLATED_VNIR.addMaskTo(product);
+        QualityLayerInfo.QL_TF_VNIR_SATURATION_SWIR.addFlagTo(vnirFlagCoding);
+        QualityLayerInfo.QL_TF_VNIR_SATURATION_SWIR.addMaskTo(product);
+        QualityLayerInfo.QL_TF_VNIR_SATURATION_VNIR.addFlagTo(vnirFlagCoding);
+        QualityLayerInfo.QL_TF_VNIR_SATURATION_VNIR.addMaskTo(product);
+        QualityLayerInfo.QL_TF_VNIR_ARTEFACT_SWIR.addFlagTo(vnirFlagCoding);
+        QualityLayerInfo.QL_TF_VNIR_ARTEFACT_SWIR.addMaskTo(product);
+        QualityLayerInfo.QL_TF_VNIR_ARTEFACT_VNIR.addFlagTo(vnirFlagCoding);
+        QualityLayerInfo.QL_TF_VNIR_ARTEFACT_VNIR.addMaskTo(product);
+
+        EnmapImageReader qualityVnirReader = EnmapImageReader.createImageReader(dataDir, meta, vnirQualityKey);
+        qualityVnirReader = openImageReader(qualityVnirReader, vnirQualityKey);
+
+        addFlagBand(product, vnirQualityKey, vnirFlagCoding, qualityVnirReader, 0);
+    }
+
+    private void addSwirTestFlagsQl(Product product, EnmapMetadata meta) throws IOException {
+        String swirQualityKey = QUALITY_TESTFLAGS_SWIR_KEY;
+        if (!swirAccepted || !isNodeAccepted(swirQualityKey)) {
+            return;
+        }
+        FlagCoding swirFlagCoding = new FlagCoding(swirQualityKey);
+        product.getFlagCodingGroup().add(swirFlagCoding);
+
+        QualityLayerInfo.QL_TF_SWIR_NOMINAL.addFlagTo(swirFlagCoding);
+        QualityLayerInfo.QL_TF_SWIR_NOMINAL.addMaskTo(product);
+        QualityLayerInfo.QL_TF_SWIR_REDUCED.addFlagTo(swirFlagCoding);
+        QualityLayerInfo.QL_TF_SWIR_REDUCED.addMaskTo(product);
+        QualityLayerInfo.QL_TF_SWIR_LOW.addFlagTo(swirFlagCoding);
+        QualityLayerInfo.QL_TF_SWIR_LOW.addMaskTo(product);
+        QualityLayerInfo.QL_TF_SWIR_NOT.addFlagTo(swirFlagCoding);
+        QualityLayerInfo.QL_TF_SWIR_NOT.addMaskTo(product);
+        QualityLayerInfo.QL_TF_SWIR_INTERPOLATED_SWIR.addFlagTo(swirFlagCoding);
+        QualityLayerInfo.QL_TF_SWIR_INTERPOLATED_SWIR.addMaskTo(product);
+        QualityLayerInfo.QL_TF_SWIR_INTERPOLATED_VNIR.addFlagTo(swirFlagCoding);
+        QualityLayerInfo.QL_TF_SWIR_INTERPOLATED_VNIR.addMaskTo(product);
+        QualityLayerInfo.QL_TF_SWIR_SATURATION_SWIR.addFlagTo(swirFlagCoding);
+        QualityLayerInfo.QL_TF_SWIR_SATURATION_SWIR.addMaskTo(product);
+        QualityLayerInfo.QL_TF_SWIR_SATURATION_VNIR.addFlagTo(swirFlagCoding);
+        QualityLayerInfo.QL_TF_SWIR_SATURATION_VNIR.addMaskTo(product);
+        QualityLayerInfo.QL_TF_SWIR_ARTEFACT_SWIR.addFlagTo(swirFlagCoding);
+        QualityLayerInfo.QL_TF_SWIR_ARTEFACT_SWIR.addMaskTo(product);
+        QualityLayerInfo.QL_TF_SWIR_ARTEFACT_VNIR.addFlagTo(swirFlagCoding);
+        QualityLayerInfo.QL_TF_SWIR_ARTEFACT_VNIR.addMaskTo(product);
+
+        EnmapImageReader qualitySwirReader = EnmapImageReader.createImageReader(dataDir, meta, swirQualityKey);
+        qualitySwirReader = openImageReader(qualitySwirReader, swirQualityKey);
+
+        addFlagBand(product, swirQualityKey, swirFlagCoding, qualitySwirReader, 0);
+    }
+
+    private Band addFlagBand(Product product, String bandName, FlagCoding flagCoding, EnmapImageReader imageReader, int imageIndex) throws IOException {
+        RenderedImage dataImage = imageReader.getImageAt(imageIndex);
         Band flagBand = new Band(bandName, ProductData.TYPE_UINT8, dataImage.getWidth(), dataImage.getHeight());
         flagBand.setSampleCoding(flagCoding);
         // first the band needs to be added to the product and only then the source mage set
         // see: https://senbox.atlassian.net/browse/SNAP-935
         product.addBand(flagBand);
-        bandImageMap.put(bandName, dataImage);
+        if (EnmapProductReaderPlugIn.PREFERENCES.getBoolean(ENMAP_RLE_QUALITY_LAYERS, false)) {
+            // the quality layers consist of long runs of equal values, a run-length encoded copy of the full
+            // resolution is kept in memory instead of the decoded tiles in the tile cache,
+            // the lower levels are read natively
+            Dimension tileSize = ImageManager.getPreferredTileSize(product);
+            EnmapMultiLevelSource levelSource = createMultiLevelSource(flagBand, imageReader, imageIndex, null, null);
+            setSourceImage(flagBand, new FullResMultiLevelSource(() -> new RleOpImage(dataImage, tileSize, syncObject),
+                                                                 levelSource));
+        } else {
+            setSourceImage(flagBand, imageReader, imageIndex);
+        }
         return flagBand;
     }
 
+    /**
+     * Sets a multi-level image as source image of the band. The lower resolution levels are taken from the
+     * image reader if it can provide them natively (e.g. from TIFF overviews), otherwise they are decimated from
+     * the full resolution image. This avoids that SNAP needs to downsample full resolution tiles for the overview levels.
+     */
+    private void setSourceImage(Band band, EnmapImageReader imageReader, int imageIndex) {
+        setSourceImage(band, imageReader, imageIndex, null, null);
+    }
+
+    private void setSourceImage(Band band, EnmapImageReader imageReader, int imageIndex, BackgroundTiles backgroundTiles,
+                                SampleConversion conversion) {
+        setSourceImage(band, createMultiLevelSource(band, imageReader, imageIndex, backgroundTiles, conversion));
+    }
+
+    private void setSourceImage(Band band, MultiLevelSource multiLevelSource) {
+        DefaultMultiLevelImage sourceImage = new DefaultMultiLevelImage(multiLevelSource);
+        band.setSourceImage(sourceImage);
+        bandImageMap.put(band.getName(), sourceImage);
+    }
+
+    private EnmapMultiLevelSource createMultiLevelSource(Band band, EnmapImageReader imageReader, int imageIndex,
+                                                         BackgroundTiles backgroundTiles, SampleConversion conversion) {
+        MultiLevelModel model = ImageManager.getMultiLevelModel(band);
+        int dataBufferType = ImageManager.getDataBufferType(band.getDataType());
+        Dimension tileSize = ImageManager.getPreferredTileSize(band.getProduct());
+        TilePrefetcher prefetcher = null;
+        if (TilePrefetcher.isEnabled()) {
+            prefetcher = prefetcherMap.computeIfAbsent(imageReader, TilePrefetcher::new);
+        }
+        ImageReaderMetrics readerMetrics = metrics != null ? metrics.getImageReaderMetrics(imageReader) : null;
+        return new EnmapMultiLevelSource(model, imageReader, imageIndex, band.getName(), dataBufferType, tileSize,
+                                         syncObject, prefetcher, backgroundTiles, conversion, readerMetrics);
+    }
+
     private void addTiePointGrids(Product product, EnmapMetadata meta) throws IOException {
-        addTPG(product, SCENE_AZIMUTH_TPG_NAME, meta.getSceneAzimuthAngles());
-        addTPG(product, SUN_AZIMUTH_TPG_NAME, meta.getSunAzimuthAngles());
-        addTPG(product, SUN_ELEVATION_TPG_NAME, meta.getSunElevationAngles());
-        addTPG(product, ACROSS_OFF_NADIR_TPG_NAME, meta.getAcrossOffNadirAngles());
-        addTPG(product, ALONG_OFF_NADIR_TPG_NAME, meta.getAlongOffNadirAngles());
+        if (isNodeAccepted(SCENE_AZIMUTH_TPG_NAME)) {
+            addTPG(product, SCENE_AZIMUTH_TPG_NAME, meta.getSceneAzimuthAngles());
+        }
+        if (isNodeAccepted(SUN_AZIMUTH_TPG_NAME)) {
+            addTPG(product, SUN_AZIMUTH_TPG_NAME, meta.getSunAzimuthAngles());
+        }
+        if (isNodeAccepted(SUN_ELEVATION_TPG_NAME)) {
+            addTPG(product, SUN_ELEVATION_TPG_NAME, meta.getSunElevationAngles());
+        }
+        if (isNodeAccepted(ACROSS_OFF_NADIR_TPG_NAME)) {
+            addTPG(product, ACROSS_OFF_NADIR_TPG_NAME, meta.getAcrossOffNadirAngles());
+        }
+        if (isNodeAccepted(ALONG_OFF_NADIR_TPG_NAME)) {
+            addTPG(product, ALONG_OFF_NADIR_TPG_NAME, meta.getAlongOffNadirAngles());
+        }
     }
 
-    private static TiePointGrid addTPG(Product product, String tpgName, double[] tpgValue) {
+    private TiePointGrid addTPG(Product product, String tpgName, double[] tpgValue) {
         int gridWidth = 2;
         int gridHeight = 2;
-        int gridSamplingX = product.getSceneRasterWidth();
-        int gridSamplingY = product.getSceneRasterHeight();
+        // the grid spans the complete scene, for a region it is shifted by the offset of the region
+        int gridSamplingX = sceneDimension.width;
+        int gridSamplingY = sceneDimension.height;
         float[] tpData = new float[tpgValue.length];
         IntStream.range(0, tpgValue.length).forEach(i -> tpData[i] = (float) tpgValue[i]);
-        TiePointGrid tpg = new TiePointGrid(tpgName, gridWidth, gridHeight, 0, 0,
+        TiePointGrid tpg = new TiePointGrid(tpgName, gridWidth, gridHeight, -region.x, -region.y,
                 gridSamplingX, gridSamplingY, tpData, true);
         tpg.setUnit("DEG");
         product.addTiePointGrid(tpg);
@@ -354,28 +860,55 @@ class EnmapProductReader extends AbstractProductReader {
      */
     private void addSpectralBands(Product product, EnmapMetadata meta) throws IOException {
 
+        int[] spectralIndices = meta.getSpectralIndices();
+        OptionalInt firstAccepted = IntStream.range(0, spectralIndices.length)
+                .filter(i -> isSpectralImageAccepted(i, String.format("band_%03d", spectralIndices[i])))
+                .findFirst();
+        if (!firstAccepted.isPresent()) {
+            return;
+        }
         EnmapImageReader spectralImageReader = EnmapImageReader.createSpectralReader(dataDir, meta);
-        imageReaderList.add(spectralImageReader);
+        spectralImageReader = openImageReader(spectralImageReader, SPECTRAL_IMAGE_KEY);
 
+        // for L1B this opens only the detector of the first requested band, the tile size is taken from it
+        spectralImageReader.getImageAt(firstAccepted.getAsInt());
         product.setPreferredTileSize(spectralImageReader.getTileDimension());
-        int[] spectralIndices = meta.getSpectralIndices();
 
-        int dataType = meta.getSpectralDataType();
+        // the ortho products contain large background areas, optionally tiles inside of them are not decoded;
+        // this needs the tile quality index, which is built from the quality layers on the first read
+        if (!EnmapMetadata.PROCESSING_LEVEL.L1B.equals(meta.getProcessingLevel()) &&
+                EnmapProductReaderPlugIn.PREFERENCES.getBoolean(ENMAP_SKIP_BACKGROUND_TILES, false)) {
+            backgroundTiles = new BackgroundTiles(this::getTileQualityIndex, meta.getSpectralBackgroundValue());
+        }
+
+        // optionally the bands provide the geophysical values directly, the scaling is applied while copying the tiles
+        boolean geophysicalFloat = EnmapProductReaderPlugIn.PREFERENCES.getBoolean(ENMAP_GEOPHYSICAL_FLOAT, false);
+        int dataType = geophysicalFloat ? ProductData.TYPE_FLOAT32 : meta.getSpectralDataType();
         for (int i = 0; i < spectralImageReader.getNumImages(); i++) {
             int spectralIndex = spectralIndices[i];
             String bandName = String.format("band_%03d", spectralIndex);
+            if (!isSpectralImageAccepted(i, bandName)) {
+                continue;
+            }
             Band band = new Band(bandName, dataType, product.getSceneRasterWidth(), product.getSceneRasterHeight());
             band.setSpectralBandIndex(spectralIndex - 1);
             band.setSpectralWavelength(meta.getCentralWavelength(i));
             band.setSpectralBandwidth(meta.getBandwidth(i));
             band.setDescription(meta.getSpectralBandDescription(i));
             band.setUnit(meta.getSpectralUnit());
-            band.setScalingFactor(meta.getBandScaling(i));
-            band.setScalingOffset(meta.getBandOffset(i));
-            band.setNoDataValue(meta.getSpectralBackgroundValue());
+            SampleConversion conversion = null;
+            if (geophysicalFloat) {
+                conversion = new SampleConversion(meta.getBandScaling(i), meta.getBandOffset(i), meta.getSpectralBackgroundValue());
+                band.setNoDataValue(Double.NaN);
+            } else {
+                band.setScalingFactor(meta.getBandScaling(i));
+                band.setScalingOffset(meta.getBandOffset(i));
+                band.setNoDataValue(meta.getSpectralBackgroundValue());
+            }
             band.setNoDataValueUsed(true);
-            bandImageMap.put(bandName, spectralImageReader.getImageAt(i));
             product.addBand(band);
+            setSourceImage(band, spectralImageReader, i, backgroundTiles, conversion);
+            spectralImageIndexMap.put(bandName, i);
         }
 
     }
@@ -397,18 +930,409 @@ class EnmapProductReader extends AbstractProductReader {
                                           int sourceStepX, int sourceStepY,
                                           Band destBand, int destOffsetX, int destOffsetY, int destWidth, int destHeight,
                                           ProductData destBuffer, ProgressMonitor pm) {
-        int[] samples;
-        synchronized (syncObject) {
-            RenderedImage renderedImage = bandImageMap.get(destBand.getName());
-            Raster data = renderedImage.getData(new Rectangle(destOffsetX, destOffsetY, destWidth, destHeight));
-            samples = data.getSamples(destOffsetX, destOffsetY, destWidth, destHeight, 0, (int[]) null);
+        // the images are already cropped to the subset region, so the destination offsets are the image coordinates;
+        // the source offsets additionally contain the offset of the region
+        Rectangle region = new Rectangle(destOffsetX, destOffsetY, destWidth, destHeight);
+        Object event = ReaderEvents.INSTANCE.beginRasterRead();
+        if (metrics == null && event == null) {
+            readRegion(region, destBand, destBuffer);
+            return;
+        }
+        long readStart = System.nanoTime();
+        String source = readRegion(region, destBand, destBuffer);
+        long numBytes = (long) destBuffer.getNumElems() * destBuffer.getElemSize();
+        if (metrics != null) {
+            metrics.bandRasterRead(destBuffer.getNumElems(), numBytes, System.nanoTime() - readStart);
+        }
+        if (event != null) {
+            ReaderEvents.INSTANCE.endRasterRead(event, destBand.getName(), region, source, numBytes);
         }
-        IntStream.range(0, samples.length).parallel().forEach(i -> destBuffer.setElemIntAt(i, samples[i]));
+    }
 
+    /**
+     * @return how the data has been provided, it is reported in the flight recorder events
+     */
+    private String readRegion(Rectangle region, Band destBand, ProductData destBuffer) {
+        if (backgroundTiles != null && destBand.getSpectralBandIndex() >= 0 && backgroundTiles.isBackground(region)) {
+            for (int i = 0; i < destBuffer.getNumElems(); i++) {
+                if (destBuffer.isFloatingPointType()) {
+                    destBuffer.setElemFloatAt(i, Float.NaN);
+                } else {
+                    destBuffer.setElemIntAt(i, (int) backgroundTiles.getBackgroundValue());
+                }
+            }
+            return "BACKGROUND";
+        }
+        // the level images synchronise the access to the underlying image readers
+        RenderedImage renderedImage = bandImageMap.get(destBand.getName());
+        RenderedImage levelZeroImage = renderedImage instanceof MultiLevelImage ? ((MultiLevelImage) renderedImage).getImage(0) : renderedImage;
+        if (levelZeroImage instanceof RleOpImage) {
+            ((RleOpImage) levelZeroImage).getRleRaster().expandInto(region, destBuffer);
+            return "RLE";
+        }
+        Raster data = renderedImage.getData(region);
+        if (destBuffer.isFloatingPointType()) {
+            float[] samples = data.getSamples(region.x, region.y, region.width, region.height, 0, (float[]) null);
+            IntStream.range(0, samples.length).parallel().forEach(i -> destBuffer.setElemFloatAt(i, samples[i]));
+        } else {
+            int[] samples = data.getSamples(region.x, region.y, region.width, region.height, 0, (int[]) null);
+            IntStream.range(0, samples.length).parallel().forEach(i -> destBuffer.setElemIntAt(i, samples[i]));
+        }
+        return "TILES";
+    }
+
+    /**
+     * Returns the bit-packed pixel masks of all spectral bands. It can be used to query the defective bands of
+     * a pixel or a row directly.
+     *
+     * @return the pixel mask store
+     */
+    public PixelMaskStore getPixelMaskStore() {
+        return pixelMaskStore;
+    }
+
+    /**
+     * Returns the mask of the defective pixels of a single spectral band. The per-band masks are not added to the
+     * product when it is opened, the mask is created and added to the mask group on the first request.
+     * Setting the preference {@value EnmapProductReaderPlugIn#ENMAP_EAGER_DEFECTIVE_MASKS} to {@code true} adds all
+     * masks when opening the product.
+     *
+     * @param spectralIndex the spectral index of the band as used in the band names (one based)
+     * @return the mask named {@code Defective_<index>}
+     */
+    public Mask getDefectiveMask(int spectralIndex) {
+        if (defectiveMaskProvider == null) {
+            throw new IllegalStateException("The product has not been read yet");
+        }
+        return defectiveMaskProvider.getMask(spectralIndex);
+    }
+
+    /**
+     * Returns the statistics of the quality layers of the scene. They are computed on the first call by reading
+     * each quality layer once, tile by tile in parallel, and are kept in memory afterwards.
+     * If the preference {@value EnmapProductReaderPlugIn#ENMAP_QUALITY_STATS_CACHE} is set to {@code true}, the
+     * statistics are also stored in the SNAP cache directory and read from there when the product is opened again,
+     * as long as the quality layer files are unchanged, see {@link DerivedDataCache}.
+     *
+     * @return the quality statistics
+     */
+    public QualityStatistics getQualityStatistics() {
+        if (product == null) {
+            throw new IllegalStateException("The product has not been read yet");
+        }
+        QualityStatistics statistics = qualityStatistics;
+        if (statistics == null) {
+            // not synchronised on the syncObject, the parallel tile reads need it
+            synchronized (qualityStatisticsLock) {
+                statistics = qualityStatistics;
+                if (statistics == null) {
+                    QualityStatisticsCalculator calculator = new QualityStatisticsCalculator(product);
+                    // the cached statistics belong to the complete scene, they are not used for a region
+                    String fingerprint = null;
+                    Path cacheFile = null;
+                    if (!regionSubset && EnmapProductReaderPlugIn.PREFERENCES.getBoolean(ENMAP_QUALITY_STATS_CACHE, false)) {
+                        fingerprint = createCacheFingerprint(null, calculator.getLayerKeys());
+                    }
+                    if (fingerprint != null) {
+                        cacheFile = DerivedDataCache.getDefault().getPath(productPath, QualityStatisticsCalculator.CACHE_FILE_SUFFIX);
+                        statistics = QualityStatisticsCalculator.readCacheFile(cacheFile, fingerprint);
+                    }
+                    if (statistics == null) {
+                        statistics = calculator.compute();
+                        if (cacheFile != null) {
+                            QualityStatisticsCalculator.writeCacheFile(cacheFile, fingerprint, statistics);
+                        }
+                    }
+                    qualityStatistics = statistics;
+                }
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Returns the per-tile quality summary of the scene, derived from QUALITY_CLASSES and QUALITY_CLOUD. The tiles
+     * have the size of the tiles of the spectral band images. The index is built on the first call and kept in memory.
+     * If the preference {@value EnmapProductReaderPlugIn#ENMAP_TILE_INDEX_CACHE} is set to {@code true}, it is also
+     * stored in the SNAP cache directory and read from there when the product is opened again, as long as the quality
+     * layer files are unchanged, see {@link DerivedDataCache}.
+     *
+     * @return the tile quality index
+     */
+    public TileQualityIndex getTileQualityIndex() {
+        if (product == null) {
+            throw new IllegalStateException("The product has not been read yet");
+        }
+        TileQualityIndex index = tileQualityIndex;
+        if (index == null) {
+            // not synchronised on the syncObject, the parallel tile reads need it
+            synchronized (qualityStatisticsLock) {
+                index = tileQualityIndex;
+                if (index == null) {
+                    Band classesBand = product.getBand(QUALITY_CLASSES_KEY);
+                    if (classesBand == null) {
+                        throw new IllegalStateException(String.format("The product does not contain the band '%s'", QUALITY_CLASSES_KEY));
+                    }
+                    Band cloudBand = product.getBand(QUALITY_CLOUD_KEY);
+                    Dimension tileSize = ImageManager.getPreferredTileSize(product);
+                    int width = product.getSceneRasterWidth();
+                    int height = product.getSceneRasterHeight();
+                    // the cached index belongs to the complete scene, it is not used for a region
+                    String fingerprint = null;
+                    Path cacheFile = null;
+                    if (!regionSubset && EnmapProductReaderPlugIn.PREFERENCES.getBoolean(ENMAP_TILE_INDEX_CACHE, false)) {
+                        fingerprint = cloudBand != null ?
+                                createCacheFingerprint(tileSize, QUALITY_CLASSES_KEY, QUALITY_CLOUD_KEY) :
+                                createCacheFingerprint(tileSize, QUALITY_CLASSES_KEY);
+                    }
+                    if (fingerprint != null) {
+                        cacheFile = DerivedDataCache.getDefault().getPath(productPath, TileQualityIndex.CACHE_FILE_SUFFIX);
+                        index = TileQualityIndex.readCacheFile(cacheFile, fingerprint, width, height, tileSize);
+                    }
+                    if (index == null) {
+                        index = TileQualityIndex.create(classesBand.getSourceImage(),
+                                                        cloudBand != null ? cloudBand.getSourceImage() : null, tileSize);
+                        if (cacheFile != null) {
+                            TileQualityIndex.writeCacheFile(cacheFile, fingerprint, index);
+                        }
+                    }
+                    tileQualityIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * returns the fingerprint of the quality layer files with the given keys, or {@code null} if it cannot be
+     * determined, in this case no cache file is used
+     */
+    private String createCacheFingerprint(Dimension tileSize, String... keys) {
+        try {
+            return DerivedDataCache.createFingerprint(productPath, fileNameMap, sceneDimension, tileSize, keys);
+        } catch (IOException | RuntimeException e) {
+            SystemUtils.LOG.warning(String.format("The quality layer files of '%s' cannot be identified, no cache file is used: %s",
+                                                  productPath, e.getMessage()));
+            return null;
+        }
+    }
+
+    /**
+     * Reads the geophysical values of spectral bands as float values in one pass. The scaling factor and offset of
+     * the bands are applied and pixels are set to NaN if they are background, defective in the respective band
+     * according to its pixel mask, or if the quality predicate rejects them.
+     * The quality predicate is evaluated on the packed value of all quality layers, as described by {@link QualityBits},
+     * e.g. {@code q -> (q & (QualityBits.CLOUD_MASK | QualityBits.CLOUDSHADOW_MASK)) != 0}.
+     *
+     * @param region         the region to read, in pixel coordinates of the scene
+     * @param invalidQuality returns {@code true} for quality values whose pixels shall be set to NaN, can be {@code null}
+     * @param dest           the array receiving the values, band after band, each band line by line; its length
+     *                       must be at least {@code bands.length * region.width * region.height}
+     * @param bands          the spectral bands to read
+     * @throws IllegalArgumentException if the region is not within the scene or the array is too small
+     * @throws IllegalStateException    if the product has not been read yet, or if a quality predicate is given,
+     *                                  but quality layers of the product are excluded by the subset, so their bits
+     *                                  would be zero for all pixels
+     */
+    public void readMaskedSpectralData(Rectangle region, IntPredicate invalidQuality, float[] dest, Band... bands) {
+        if (product == null) {
+            throw new IllegalStateException("The product has not been read yet");
+        }
+        Rectangle sceneRect = new Rectangle(product.getSceneRasterWidth(), product.getSceneRasterHeight());
+        if (region.isEmpty() || !sceneRect.contains(region)) {
+            throw new IllegalArgumentException(String.format("The region %d,%d,%d,%d is not within the scene of %d x %d pixels",
+                                                             region.x, region.y, region.width, region.height,
+                                                             sceneRect.width, sceneRect.height));
+        }
+        int numPixels = region.width * region.height;
+        long requiredLength = (long) numPixels * bands.length;
+        if (dest.length < requiredLength) {
+            throw new IllegalArgumentException(String.format("The destination array must have a length of at least %d",
+                                                             requiredLength));
+        }
+        boolean[] invalid = new boolean[numPixels];
+        if (invalidQuality != null) {
+            checkQualityLayers();
+            Raster qualityData = qualityAllImage.getData(region);
+            int[] quality = qualityData.getSamples(region.x, region.y, region.width, region.height, 0, (int[]) null);
+            for (int i = 0; i < numPixels; i++) {
+                invalid[i] = invalidQuality.test(quality[i]);
+            }
+        }
+
+        float[] samples = null;
+        for (int b = 0; b < bands.length; b++) {
+            Band band = bands[b];
+            Integer imageIndex = spectralImageIndexMap.get(band.getName());
+            if (imageIndex == null) {
+                throw new IllegalArgumentException(String.format("'%s' is not a spectral band", band.getName()));
+            }
+            Raster data = bandImageMap.get(band.getName()).getData(region);
+            samples = data.getSamples(region.x, region.y, region.width, region.height, 0, samples);
+            float scale = (float) band.getScalingFactor();
+            float offset = (float) band.getScalingOffset();
+            float background = (float) band.getNoDataValue();
+            int destOffset = b * numPixels;
+            int i = 0;
+            for (int y = region.y; y < region.y + region.height; y++) {
+                for (int x = region.x; x < region.x + region.width; x++, i++) {
+                    float raw = samples[i];
+                    // in the geophysical float mode the background is already NaN
+                    boolean defective = pixelMaskStore != null && pixelMaskStore.isDefective(x, y, imageIndex);
+                    if (raw == background || Float.isNaN(raw) || invalid[i] || defective) {
+                        dest[destOffset + i] = Float.NaN;
+                    } else {
+                        dest[destOffset + i] = raw * scale + offset;
+                    }
+                }
+            }
+        }
+    }
+
+    private void checkQualityLayers() {
+        if (!missingQualityLayers.isEmpty()) {
+            throw new IllegalStateException(String.format("The quality layers %s are not part of the product subset, " +
+                                                          "the quality values cannot be evaluated", missingQualityLayers));
+        }
+    }
+
+    /**
+     * Extracts the spectra and quality values at many geographical positions. The positions are converted into pixel
+     * positions by the geocoding of the scene and grouped by the tiles of the spectral images, each tile is decoded
+     * only once. The tiles are processed in parallel.
+     *
+     * @param geoPositions the positions to extract
+     * @return the extracted pixels, in the order of the given positions
+     * @throws IllegalStateException if the product has not been read yet or has no geo-coding, or if quality
+     *                               layers of the product are excluded by the subset, so the quality values would be
+     *                               incomplete
+     */
+    public List<ExtractedPixel> extractPixels(List<GeoPos> geoPositions) {
+        if (product == null) {
+            throw new IllegalStateException("The product has not been read yet");
+        }
+        checkQualityLayers();
+        GeoCoding geoCoding = product.getSceneGeoCoding();
+        if (geoCoding == null || !geoCoding.canGetPixelPos()) {
+            throw new IllegalStateException("The product has no geo-coding, the positions cannot be located in the scene");
+        }
+        Dimension tileSize = ImageManager.getPreferredTileSize(product);
+        int width = product.getSceneRasterWidth();
+        int height = product.getSceneRasterHeight();
+
+        ExtractedPixel[] pixels = new ExtractedPixel[geoPositions.size()];
+        int[] xs = new int[pixels.length];
+        int[] ys = new int[pixels.length];
+        Map<Point, List<Integer>> tilePoints = new HashMap<>();
+        for (int i = 0; i < pixels.length; i++) {
+            GeoPos geoPos = geoPositions.get(i);
+            PixelPos pixelPos = geoCoding.getPixelPos(geoPos, null);
+            xs[i] = pixelPos.isValid() ? (int) Math.floor(pixelPos.x) : -1;
+            ys[i] = pixelPos.isValid() ? (int) Math.floor(pixelPos.y) : -1;
+            if (xs[i] < 0 || xs[i] >= width || ys[i] < 0 || ys[i] >= height) {
+                pixels[i] = new ExtractedPixel(geoPos, xs[i], ys[i], null, 0);
+            } else {
+                Point tileIndex = new Point(xs[i] / tileSize.width, ys[i] / tileSize.height);
+                tilePoints.computeIfAbsent(tileIndex, k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        Band[] spectralBands = spectralImageIndexMap.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue())
+                .map(entry -> product.getBand(entry.getKey()))
+                .toArray(Band[]::new);
+        tilePoints.entrySet().parallelStream().forEach(entry -> {
+            Point tileIndex = entry.getKey();
+            List<Integer> pointIndices = entry.getValue();
+            float[][] spectra = new float[pointIndices.size()][spectralBands.length];
+            for (int b = 0; b < spectralBands.length; b++) {
+                Band band = spectralBands[b];
+                Raster tile = band.getSourceImage().getTile(tileIndex.x, tileIndex.y);
+                for (int p = 0; p < pointIndices.size(); p++) {
+                    int pointIndex = pointIndices.get(p);
+                    double raw = tile.getSampleDouble(xs[pointIndex], ys[pointIndex], 0);
+                    boolean background = band.isNoDataValueUsed() && (raw == band.getNoDataValue() || Double.isNaN(raw));
+                    spectra[p][b] = background ? Float.NaN : (float) band.scale(raw);
+                }
+            }
+            Raster qualityTile = qualityAllImage.getTile(tileIndex.x, tileIndex.y);
+            for (int p = 0; p < pointIndices.size(); p++) {
+                int pointIndex = pointIndices.get(p);
+                pixels[pointIndex] = new ExtractedPixel(geoPositions.get(pointIndex), xs[pointIndex], ys[pointIndex],
+                                                        spectra[p], qualityTile.getSample(xs[pointIndex], ys[pointIndex], 0));
+            }
+        });
+        return Arrays.asList(pixels);
+    }
+
+    /**
+     * Sets the executor used by the asynchronous read methods. If {@code null} is given a shared default executor
+     * is used, its number of threads can be configured by the preference {@value EnmapProductReaderPlugIn#ENMAP_ASYNC_THREADS}.
+     *
+     * @param executor the executor decoding the tiles
+     */
+    public void setAsyncExecutor(Executor executor) {
+        asyncBandReader.setExecutor(executor);
+    }
+
+    /**
+     * Reads the raw data of a region of the band asynchronously. Cancelling the returned future aborts the
+     * decoding of all tiles which are not yet started.
+     *
+     * @param band   the band to read from
+     * @param region the region to read
+     * @return the future completing with the data of the region
+     */
+    public CompletableFuture<ProductData> readBandRegionAsync(Band band, Rectangle region) {
+        return readCubeAsync(region, band);
+    }
+
+    /**
+     * Reads the raw data of a region of several bands asynchronously. All bands must have the same data type.
+     * The data is returned in band sequential order. Cancelling the returned future aborts the
+     * decoding of all tiles which are not yet started.
+     *
+     * @param region the region to read
+     * @param bands  the bands to read from
+     * @return the future completing with the data of the region for all bands
+     * @throws IllegalArgumentException if the cube has more samples than an array can hold
+     */
+    public CompletableFuture<ProductData> readCubeAsync(Rectangle region, Band... bands) {
+        return asyncBandReader.readCube(region, bands);
+    }
+
+    /**
+     * Returns the statistics of the tile prefetching. The prefetching is only active if the
+     * preference {@value EnmapProductReaderPlugIn#ENMAP_PREFETCH_ENABLED} is set to {@code true}.
+     *
+     * @return the accumulated statistics of all image readers
+     */
+    public PrefetchStatistics getPrefetchStatistics() {
+        PrefetchStatistics statistics = PrefetchStatistics.EMPTY;
+        for (TilePrefetcher prefetcher : prefetcherMap.values()) {
+            statistics = statistics.add(prefetcher.getStatistics());
+        }
+        return statistics;
+    }
+
+    /**
+     * Returns the metrics of this product, which are also registered at the platform MBean server. They are only
+     * recorded if the preference {@value EnmapProductReaderPlugIn#ENMAP_METRICS_ENABLED} is set to {@code true}.
+     *
+     * @return the metrics or {@code null} if they are not recorded
+     */
+    public EnmapReaderMetricsMXBean getMetrics() {
+        return metrics;
     }
 
     @Override
     public void close() {
+        if (metrics != null) {
+            metrics.unregister();
+        }
+        prefetcherMap.values().forEach(TilePrefetcher::dispose);
+        prefetcherMap.clear();
+
         for (EnmapImageReader geoTiffImageReader : imageReaderList) {
             geoTiffImageReader.close();
         }
@@ -420,30 +1344,53 @@ class EnmapProductReader extends AbstractProductReader {
     }
 
     private void addCrsGeoCoding(Product product, EnmapMetadata meta) throws IOException {
+        CrsGeoCoding crsGeoCoding = createCrsGeoCoding(meta, region);
+        if (crsGeoCoding != null) {
+            product.setSceneGeoCoding(crsGeoCoding);
+        }
+    }
+
+    private CrsGeoCoding createCrsGeoCoding(EnmapMetadata meta, Rectangle area) throws IOException {
         GeoReferencing geoReferencing = meta.getGeoReferencing();
         try {
             String epsgCode = getEPSGCode(geoReferencing.projection);
             CoordinateReferenceSystem coordinateReferenceSystem = CRS.decode(epsgCode);
-            Dimension dimension = meta.getSceneDimension();
             double resolution = geoReferencing.resolution;
             // todo - easting and northing should be provided in metadata but are not in the test data
             // todo - we need to read it from one of the geotiff files.
 //                double easting = geoReferencing.easting;
 //                double northing = geoReferencing.northing;
-            Point2D eastingNorthing = getEastingNorthing(meta);
-            if (eastingNorthing != null) {
-                CrsGeoCoding crsGeoCoding = new CrsGeoCoding(coordinateReferenceSystem,
-                        (int) dimension.getWidth(), (int) dimension.getHeight(),
-                        eastingNorthing.getX(), eastingNorthing.getY(),
-                        resolution, resolution, geoReferencing.refX, geoReferencing.refY);
-                product.setSceneGeoCoding(crsGeoCoding);
+            if (eastingNorthing == null) {
+                eastingNorthing = getEastingNorthing(meta);
             }
+            if (eastingNorthing == null) {
+                return null;
+            }
+            // the map position of the reference pixel is moved to the origin of the area
+            return new CrsGeoCoding(coordinateReferenceSystem,
+                    area.width, area.height,
+                    eastingNorthing.getX() + area.x * resolution, eastingNorthing.getY() - area.y * resolution,
+                    resolution, resolution, geoReferencing.refX, geoReferencing.refY);
         } catch (Exception e) {
             throw new IOException(CANNOT_READ_PRODUCT_MSG, e);
         }
     }
 
-    private static void addTiePointGeoCoding(Product product, EnmapMetadata meta) throws IOException {
+    private Rectangle getGeometryRect(EnmapMetadata meta, Rectangle sceneRect, Geometry geometry) throws IOException {
+        if (EnmapMetadata.PROCESSING_LEVEL.L1B.equals(meta.getProcessingLevel())) {
+            throw new IOException(String.format("%s%nA region of interest is only supported for L1C and L2A products",
+                                                CANNOT_READ_PRODUCT_MSG));
+        }
+        CrsGeoCoding sceneGeoCoding = createCrsGeoCoding(meta, sceneRect);
+        if (sceneGeoCoding == null) {
+            throw new IOException(String.format("%s%nThe region of interest cannot be located without a geo-coding",
+                                                CANNOT_READ_PRODUCT_MSG));
+        }
+        return RegionOfInterest.computePixelRegion(geometry, meta.getSpatialOrthoCoverage(), sceneGeoCoding,
+                                                   sceneRect.getSize());
+    }
+
+    private void addTiePointGeoCoding(Product product, EnmapMetadata meta) throws IOException {
         String lonName = "longitude";
         String latName = "latitude";
         double[] cornerLatitudes = meta.getCornerLatitudes();
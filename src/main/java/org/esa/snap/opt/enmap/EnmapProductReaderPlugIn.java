@@ -26,6 +26,20 @@ public class EnmapProductReaderPlugIn implements ProductReaderPlugIn {
     private final String[] FORMAT_NAMES = new String[]{"EnMAP L1B/L1C/L2A"};
 
     public static final String ENMAP_GEOTIFF_USE_JAI = "enmap.geotiff.useJai";
+    public static final String ENMAP_READ_QUICKLOOKS = "enmap.reader.quicklooks";
+    public static final String ENMAP_PREFETCH_ENABLED = "enmap.reader.prefetch";
+    public static final String ENMAP_PREFETCH_THREADS = "enmap.reader.prefetch.threads";
+    public static final String ENMAP_PREFETCH_BAND_GROUP = "enmap.reader.prefetch.bandGroup";
+    public static final String ENMAP_ASYNC_THREADS = "enmap.reader.async.threads";
+    public static final String ENMAP_EAGER_DEFECTIVE_MASKS = "enmap.reader.defectiveMasks.eager";
+    public static final String ENMAP_QUALITY_ALL = "enmap.reader.qualityAll";
+    public static final String ENMAP_QUALITY_STATS_CACHE = "enmap.reader.qualityStats.cache";
+    public static final String ENMAP_TILE_INDEX_CACHE = "enmap.reader.tileIndex.cache";
+    public static final String ENMAP_SKIP_BACKGROUND_TILES = "enmap.reader.skipBackgroundTiles";
+    public static final String ENMAP_RLE_QUALITY_LAYERS = "enmap.reader.rleQualityLayers";
+    public static final String ENMAP_GEOPHYSICAL_FLOAT = "enmap.reader.geophysicalFloat";
+    public static final String ENMAP_L1B_DETECTOR = "enmap.reader.l1b.detector";
+    public static final String ENMAP_METRICS_ENABLED = "enmap.reader.metrics";
 
     static {
         EnMapRgbProfiles.registerRGBProfiles();
@@ -0,0 +1,87 @@
+package org.esa.snap.opt.enmap;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The metrics of an opened EnMAP product, as registered at the platform MBean server when the preference
+ * {@value EnmapProductReaderPlugIn#ENMAP_METRICS_ENABLED} is set to {@code true}. The object name is
+ * {@code org.esa.snap.opt.enmap:type=EnmapProductReader,name=<product name>,id=<number>}.
+ */
+public interface EnmapReaderMetricsMXBean {
+
+    /**
+     * returns the name of the product
+     *
+     * @return the product name
+     */
+    String getProductName();
+
+    /**
+     * returns the number of calls of {@code readBandRasterData}
+     *
+     * @return the number of read calls
+     */
+    long getReadCount();
+
+    /**
+     * returns the number of pixels delivered by {@code readBandRasterData}
+     *
+     * @return the number of pixels
+     */
+    long getReadPixelCount();
+
+    /**
+     * returns the number of bytes delivered by {@code readBandRasterData}
+     *
+     * @return the number of bytes
+     */
+    long getReadByteCount();
+
+    /**
+     * returns the durations of the calls of {@code readBandRasterData}
+     *
+     * @return the read time statistics
+     */
+    LatencyStatistics getReadTime();
+
+    /**
+     * returns the time spent in the image readers for decoding tiles, summed over all image readers
+     *
+     * @return the decode time statistics
+     */
+    LatencyStatistics getDecodeTime();
+
+    /**
+     * returns the time the tile computations waited for the read lock, which is shared by all image readers
+     *
+     * @return the lock wait time statistics
+     */
+    LatencyStatistics getLockWaitTime();
+
+    /**
+     * returns the time spent extracting the image files from the zip file of the product
+     *
+     * @return the extraction time in milliseconds, zero if nothing was extracted
+     */
+    double getZipExtractionMillis();
+
+    /**
+     * returns the metrics of the single image readers, e.g. of the spectral image and of each quality layer
+     *
+     * @return the statistics of the image readers in the order they have been opened
+     */
+    List<ImageReaderStatistics> getImageReaderStatistics();
+
+    /**
+     * returns the durations of the phases of opening the product
+     *
+     * @return the duration in milliseconds by the name of the {@link OpenPhase}
+     */
+    Map<String, Double> getOpenPhaseMillis();
+
+    /**
+     * Sets all counters and durations to zero, except of the durations of the open phases.
+     */
+    void reset();
+}
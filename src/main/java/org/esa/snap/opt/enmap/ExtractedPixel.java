@@ -0,0 +1,65 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.datamodel.GeoPos;
+
+/**
+ * The spectrum and quality of a pixel extracted at a geographical position.
+ *
+ * @see EnmapProductReader#extractPixels(java.util.List)
+ */
+public final class ExtractedPixel {
+
+    private final GeoPos geoPos;
+    private final int pixelX;
+    private final int pixelY;
+    private final float[] spectrum;
+    private final int quality;
+
+    ExtractedPixel(GeoPos geoPos, int pixelX, int pixelY, float[] spectrum, int quality) {
+        this.geoPos = geoPos;
+        this.pixelX = pixelX;
+        this.pixelY = pixelY;
+        this.spectrum = spectrum;
+        this.quality = quality;
+    }
+
+    public GeoPos getGeoPos() {
+        return geoPos;
+    }
+
+    public int getPixelX() {
+        return pixelX;
+    }
+
+    public int getPixelY() {
+        return pixelY;
+    }
+
+    /**
+     * returns whether the position is located inside of the scene, otherwise no values are available
+     *
+     * @return {@code true} if inside of the scene
+     */
+    public boolean isInside() {
+        return spectrum != null;
+    }
+
+    /**
+     * returns the geophysical values of all spectral bands, in the order of the bands in the product.
+     * Background pixels are NaN.
+     *
+     * @return the spectrum or {@code null} if the position is outside of the scene
+     */
+    public float[] getSpectrum() {
+        return spectrum;
+    }
+
+    /**
+     * returns the packed value of all quality layers, see {@link QualityBits}
+     *
+     * @return the quality value, 0 if the position is outside of the scene
+     */
+    public int getQuality() {
+        return quality;
+    }
+}
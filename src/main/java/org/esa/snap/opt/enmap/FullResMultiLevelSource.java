@@ -0,0 +1,39 @@
+package org.esa.snap.opt.enmap;
+
+import com.bc.ceres.glevel.MultiLevelSource;
+import com.bc.ceres.glevel.support.AbstractMultiLevelSource;
+
+import java.awt.image.RenderedImage;
+import java.util.function.Supplier;
+
+/**
+ * Multi-level source which provides the full resolution by an image of its own and the lower resolution levels by
+ * the given source, which reads them natively from the file. It is used for the bands whose full resolution is
+ * kept in a compact form in memory, the pixel masks in the {@link PixelMaskStore} and the run-length encoded quality
+ * layers. Decimating these images instead would decode the full resolution of the whole scene for an overview.
+ */
+class FullResMultiLevelSource extends AbstractMultiLevelSource {
+
+    private final Supplier<RenderedImage> fullResImageFactory;
+    private final MultiLevelSource levelSource;
+
+    FullResMultiLevelSource(Supplier<RenderedImage> fullResImageFactory, MultiLevelSource levelSource) {
+        super(levelSource.getModel());
+        this.fullResImageFactory = fullResImageFactory;
+        this.levelSource = levelSource;
+    }
+
+    @Override
+    protected RenderedImage createImage(int level) {
+        if (level == 0) {
+            return fullResImageFactory.get();
+        }
+        return levelSource.getImage(level);
+    }
+
+    @Override
+    public synchronized void reset() {
+        super.reset();
+        levelSource.reset();
+    }
+}
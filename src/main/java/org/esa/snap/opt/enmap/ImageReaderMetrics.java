@@ -0,0 +1,62 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.opt.enmap.imgReader.EnmapImageReader;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the metrics of the tiles decoded by one {@link EnmapImageReader}. The images of the reader record
+ * each tile taken from it, together with the time waited for the read lock and the time spent for decoding.
+ */
+class ImageReaderMetrics {
+
+    private final String name;
+    private final EnmapImageReader imageReader;
+    private final ReaderMetrics productMetrics;
+    private final LongAdder tileCount = new LongAdder();
+    private final LongAdder pixelCount = new LongAdder();
+    private final LongAdder byteCount = new LongAdder();
+    private final LatencyHistogram decodeTime = new LatencyHistogram();
+    private final LatencyHistogram lockWaitTime = new LatencyHistogram();
+
+    ImageReaderMetrics(String name, EnmapImageReader imageReader, ReaderMetrics productMetrics) {
+        this.name = name;
+        this.imageReader = imageReader;
+        this.productMetrics = productMetrics;
+    }
+
+    /**
+     * records a tile decoded from the image reader
+     *
+     * @param numPixels    the number of pixels of the tile
+     * @param numBytes     the size of the raw data of the tile
+     * @param lockWaitTime the time in nanoseconds waited for the read lock
+     * @param decodeTime   the time in nanoseconds spent in the image reader
+     */
+    void tileDecoded(long numPixels, long numBytes, long lockWaitTime, long decodeTime) {
+        tileCount.increment();
+        pixelCount.add(numPixels);
+        byteCount.add(numBytes);
+        this.lockWaitTime.record(lockWaitTime);
+        this.decodeTime.record(decodeTime);
+        productMetrics.tileDecoded(lockWaitTime, decodeTime);
+    }
+
+    void reset() {
+        tileCount.reset();
+        pixelCount.reset();
+        byteCount.reset();
+        decodeTime.reset();
+        lockWaitTime.reset();
+    }
+
+    long getZipExtractionTime() {
+        return imageReader.getZipExtractionTime();
+    }
+
+    ImageReaderStatistics getStatistics() {
+        return new ImageReaderStatistics(name, tileCount.sum(), pixelCount.sum(), byteCount.sum(),
+                                         decodeTime.getStatistics(), lockWaitTime.getStatistics(),
+                                         getZipExtractionTime() / 1.0e6);
+    }
+}
@@ -0,0 +1,96 @@
+package org.esa.snap.opt.enmap;
+
+/**
+ * Snapshot of the metrics of one image reader of an EnMAP product, e.g. the reader of the spectral image or
+ * of a quality layer.
+ */
+public final class ImageReaderStatistics {
+
+    private final String name;
+    private final long tileCount;
+    private final long pixelCount;
+    private final long byteCount;
+    private final LatencyStatistics decodeTime;
+    private final LatencyStatistics lockWaitTime;
+    private final double zipExtractionMillis;
+
+    ImageReaderStatistics(String name, long tileCount, long pixelCount, long byteCount, LatencyStatistics decodeTime,
+                          LatencyStatistics lockWaitTime, double zipExtractionMillis) {
+        this.name = name;
+        this.tileCount = tileCount;
+        this.pixelCount = pixelCount;
+        this.byteCount = byteCount;
+        this.decodeTime = decodeTime;
+        this.lockWaitTime = lockWaitTime;
+        this.zipExtractionMillis = zipExtractionMillis;
+    }
+
+    /**
+     * returns the name of the image, the key of the file in the metadata, e.g. {@code SPECTRAL_IMAGE}
+     *
+     * @return the name of the image
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * returns the number of tiles taken from the image reader
+     *
+     * @return the number of tiles
+     */
+    public long getTileCount() {
+        return tileCount;
+    }
+
+    /**
+     * returns the number of pixels of all tiles taken from the image reader
+     *
+     * @return the number of pixels
+     */
+    public long getPixelCount() {
+        return pixelCount;
+    }
+
+    /**
+     * returns the size of the raw data of all tiles taken from the image reader
+     *
+     * @return the number of bytes
+     */
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * returns the time spent in the image reader for decoding the tiles, while holding the read lock
+     *
+     * @return the decode time statistics
+     */
+    public LatencyStatistics getDecodeTime() {
+        return decodeTime;
+    }
+
+    /**
+     * returns the time the tile computations waited for the read lock before decoding
+     *
+     * @return the lock wait time statistics
+     */
+    public LatencyStatistics getLockWaitTime() {
+        return lockWaitTime;
+    }
+
+    /**
+     * returns the time spent extracting the files of the image reader from the zip file
+     *
+     * @return the extraction time in milliseconds, zero if nothing was extracted
+     */
+    public double getZipExtractionMillis() {
+        return zipExtractionMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ImageReaderStatistics{name=%s, tiles=%d, pixels=%d, bytes=%d, decode=%s, lockWait=%s, zipExtraction=%.3f ms}",
+                             name, tileCount, pixelCount, byteCount, decodeTime, lockWaitTime, zipExtractionMillis);
+    }
+}
@@ -0,0 +1,152 @@
+package org.esa.snap.opt.enmap;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.awt.Rectangle;
+
+/**
+ * The Java Flight Recorder implementation of the reader events. This class is only loaded by {@link ReaderEvents}
+ * if the runtime provides the {@code jdk.jfr} API. The events are enabled by default, they are contained in any
+ * recording, e.g. one started with {@code -XX:StartFlightRecording} or by JDK Mission Control.
+ */
+class JfrReaderEvents extends ReaderEvents {
+
+    @Override
+    Object beginTileRead() {
+        TileReadEvent event = new TileReadEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    void endTileRead(Object event, String band, int level, Rectangle rect, String backend, long bytes) {
+        TileReadEvent tileReadEvent = (TileReadEvent) event;
+        tileReadEvent.end();
+        if (tileReadEvent.shouldCommit()) {
+            tileReadEvent.band = band;
+            tileReadEvent.level = level;
+            tileReadEvent.x = rect.x;
+            tileReadEvent.y = rect.y;
+            tileReadEvent.width = rect.width;
+            tileReadEvent.height = rect.height;
+            tileReadEvent.backend = backend;
+            tileReadEvent.bytes = bytes;
+            tileReadEvent.commit();
+        }
+    }
+
+    @Override
+    Object beginRasterRead() {
+        RasterReadEvent event = new RasterReadEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    void endRasterRead(Object event, String band, Rectangle rect, String source, long bytes) {
+        RasterReadEvent rasterReadEvent = (RasterReadEvent) event;
+        rasterReadEvent.end();
+        if (rasterReadEvent.shouldCommit()) {
+            rasterReadEvent.band = band;
+            rasterReadEvent.x = rect.x;
+            rasterReadEvent.y = rect.y;
+            rasterReadEvent.width = rect.width;
+            rasterReadEvent.height = rect.height;
+            rasterReadEvent.source = source;
+            rasterReadEvent.bytes = bytes;
+            rasterReadEvent.commit();
+        }
+    }
+
+    @Override
+    Object beginOpenPhase() {
+        OpenPhaseEvent event = new OpenPhaseEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    void endOpenPhase(Object event, OpenPhase phase, String product) {
+        OpenPhaseEvent openPhaseEvent = (OpenPhaseEvent) event;
+        openPhaseEvent.end();
+        if (openPhaseEvent.shouldCommit()) {
+            openPhaseEvent.phase = phase.name();
+            openPhaseEvent.product = product;
+            openPhaseEvent.commit();
+        }
+    }
+
+    @Name("org.esa.snap.opt.enmap.EnmapTileRead")
+    @Label("EnMAP Tile Read")
+    @Category({"SNAP", "EnMAP Reader"})
+    @Description("A tile decoded by the image reader of an EnMAP band, including the wait for the read lock")
+    @StackTrace(false)
+    static class TileReadEvent extends Event {
+        @Label("Band")
+        String band;
+        @Label("Level")
+        int level;
+        @Label("X")
+        int x;
+        @Label("Y")
+        int y;
+        @Label("Width")
+        int width;
+        @Label("Height")
+        int height;
+        @Label("Backend")
+        String backend;
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name("org.esa.snap.opt.enmap.EnmapRasterRead")
+    @Label("EnMAP Raster Read")
+    @Category({"SNAP", "EnMAP Reader"})
+    @Description("A call of readBandRasterData of the EnMAP reader")
+    @StackTrace(false)
+    static class RasterReadEvent extends Event {
+        @Label("Band")
+        String band;
+        @Label("X")
+        int x;
+        @Label("Y")
+        int y;
+        @Label("Width")
+        int width;
+        @Label("Height")
+        int height;
+        @Label("Source")
+        String source;
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name("org.esa.snap.opt.enmap.EnmapOpenPhase")
+    @Label("EnMAP Open Phase")
+    @Category({"SNAP", "EnMAP Reader"})
+    @Description("A phase of opening an EnMAP product")
+    static class OpenPhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+        @Label("Product")
+        String product;
+    }
+}
@@ -0,0 +1,65 @@
+package org.esa.snap.opt.enmap;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts durations in buckets of powers of two microseconds. Recording is lock free, so it can be called
+ * concurrently by the tile computing threads.
+ */
+final class LatencyHistogram {
+
+    // bucket 0 counts durations below one microsecond, bucket i durations below 2^i microseconds
+    private static final int NUM_BUCKETS = 32;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        int bucket = Math.min(64 - Long.numberOfLeadingZeros(micros), NUM_BUCKETS - 1);
+        buckets.incrementAndGet(bucket);
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    void reset() {
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+    }
+
+    LatencyStatistics getStatistics() {
+        long[] counts = new long[NUM_BUCKETS];
+        long total = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        long maxMicros = maxNanos.get() / 1000;
+        return new LatencyStatistics(total, totalNanos.sum(), maxMicros,
+                                     getPercentile(counts, total, 0.5, maxMicros),
+                                     getPercentile(counts, total, 0.9, maxMicros),
+                                     getPercentile(counts, total, 0.99, maxMicros));
+    }
+
+    // the upper bound of the bucket containing the percentile, at most the maximum
+    private static long getPercentile(long[] counts, long total, double fraction, long maxMicros) {
+        long rank = (long) Math.ceil(total * fraction);
+        long cumulated = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulated += counts[i];
+            if (cumulated >= rank && cumulated > 0) {
+                return Math.min(1L << i, maxMicros);
+            }
+        }
+        return maxMicros;
+    }
+}
@@ -0,0 +1,93 @@
+package org.esa.snap.opt.enmap;
+
+/**
+ * Snapshot of the durations recorded for one kind of operation of the reader. The percentiles are approximated
+ * by the upper bounds of histogram buckets of powers of two microseconds.
+ */
+public final class LatencyStatistics {
+
+    private final long count;
+    private final long totalNanos;
+    private final long maxMicros;
+    private final long p50Micros;
+    private final long p90Micros;
+    private final long p99Micros;
+
+    LatencyStatistics(long count, long totalNanos, long maxMicros, long p50Micros, long p90Micros, long p99Micros) {
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxMicros = maxMicros;
+        this.p50Micros = p50Micros;
+        this.p90Micros = p90Micros;
+        this.p99Micros = p99Micros;
+    }
+
+    /**
+     * returns the number of recorded operations
+     *
+     * @return the number of operations
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * returns the sum of the durations of all operations
+     *
+     * @return the total duration in milliseconds
+     */
+    public double getTotalMillis() {
+        return totalNanos / 1.0e6;
+    }
+
+    /**
+     * returns the average duration of an operation
+     *
+     * @return the mean duration in microseconds
+     */
+    public double getMeanMicros() {
+        return count == 0 ? 0.0 : totalNanos / 1.0e3 / count;
+    }
+
+    /**
+     * returns the longest duration of an operation
+     *
+     * @return the maximum duration in microseconds
+     */
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    /**
+     * returns the median duration of an operation
+     *
+     * @return the approximated median in microseconds
+     */
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    /**
+     * returns the duration which is not exceeded by 90% of the operations
+     *
+     * @return the approximated 90th percentile in microseconds
+     */
+    public long getP90Micros() {
+        return p90Micros;
+    }
+
+    /**
+     * returns the duration which is not exceeded by 99% of the operations
+     *
+     * @return the approximated 99th percentile in microseconds
+     */
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LatencyStatistics{count=%d, total=%.3f ms, mean=%.1f us, p50=%d us, p90=%d us, p99=%d us, max=%d us}",
+                             count, getTotalMillis(), getMeanMicros(), p50Micros, p90Micros, p99Micros, maxMicros);
+    }
+}
@@ -0,0 +1,22 @@
+package org.esa.snap.opt.enmap;
+
+/**
+ * The phases of opening an EnMAP product, their durations are recorded by the reader.
+ *
+ * @see EnmapProductReader#getOpenPhaseDurations()
+ */
+public enum OpenPhase {
+    /**
+     * listing the files of the product and parsing the metadata XML file
+     */
+    METADATA,
+    GEOCODING,
+    SPECTRAL_BANDS,
+    TIE_POINT_GRIDS,
+    QUALITY_LAYERS,
+    QUICKLOOKS,
+    /**
+     * inserting the metadata into the metadata tree of the product
+     */
+    METADATA_INSERTION
+}
@@ -0,0 +1,37 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.image.ResolutionLevel;
+import org.esa.snap.core.image.SingleBandedOpImage;
+
+import javax.media.jai.PlanarImage;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.DataBuffer;
+import java.awt.image.WritableRaster;
+
+/**
+ * View on the {@link PixelMaskStore} providing the pixel mask of a single spectral band.
+ */
+class PixelMaskBandOpImage extends SingleBandedOpImage {
+
+    private final PixelMaskStore store;
+    private final int bandIndex;
+
+    PixelMaskBandOpImage(PixelMaskStore store, int bandIndex, Dimension tileSize) {
+        super(DataBuffer.TYPE_BYTE, store.getWidth(), store.getHeight(), tileSize, null, ResolutionLevel.MAXRES);
+        this.store = store;
+        this.bandIndex = bandIndex;
+    }
+
+    @Override
+    protected void computeRect(PlanarImage[] sourceImages, WritableRaster tile, Rectangle destRect) {
+        int[] samples = new int[destRect.width * destRect.height];
+        int i = 0;
+        for (int y = destRect.y; y < destRect.y + destRect.height; y++) {
+            for (int x = destRect.x; x < destRect.x + destRect.width; x++) {
+                samples[i++] = store.getPixelMaskValue(x, y, bandIndex);
+            }
+        }
+        tile.setSamples(destRect.x, destRect.y, destRect.width, destRect.height, 0, samples);
+    }
+}
@@ -0,0 +1,287 @@
+package org.esa.snap.opt.enmap;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps the pixel masks of all spectral bands bit-packed in memory. For every pixel one bit per band indicates
+ * whether the pixel is defective in this band, additionally one bit per pixel indicates the background.
+ * For 224 bands this needs 28 bytes per pixel instead of one byte per band and pixel.
+ * <p>
+ * The data is decoded lazily in blocks of the given size, within a block only the bands which have been
+ * requested are decoded, each band only once. Blocks are decoded under a lock of their own, so different blocks are
+ * decoded in parallel; only the access to the images is synchronised on the lock of the reader.
+ * The decoded blocks are kept up to the given number of bytes, beyond that the least recently used blocks are
+ * released and decoded again when needed.
+ * Within a block the bits of a pixel are stored in {@link #getBytesPerPixel()} consecutive bytes,
+ * the bit of band {@code b} is bit {@code b % 8} of the byte {@code b / 8}.
+ * <p>
+ * Bands without an image are not decoded, their bits are never set. This is used when only a subset of the
+ * bands is read.
+ */
+public class PixelMaskStore {
+
+    private static final int DEFECTIVE_MASK = 1;
+
+    private final RenderedImage[] pixelMaskImages;
+    private final int width;
+    private final int height;
+    private final int bytesPerPixel;
+    private final int backgroundValue;
+    private final int blockWidth;
+    private final int blockHeight;
+    private final int numXBlocks;
+    private final Object lock;
+    private final Map<Integer, Block> blocks;
+
+    PixelMaskStore(RenderedImage[] pixelMaskImages, int backgroundValue, Dimension blockSize, long maxBytes, Object lock) {
+        this.pixelMaskImages = pixelMaskImages;
+        RenderedImage firstImage = Arrays.stream(pixelMaskImages).filter(Objects::nonNull).findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("At least one pixel mask image is needed"));
+        this.width = firstImage.getWidth();
+        this.height = firstImage.getHeight();
+        this.bytesPerPixel = (pixelMaskImages.length + 7) / 8;
+        this.backgroundValue = backgroundValue;
+        this.blockWidth = Math.max(1, Math.min(blockSize.width, width));
+        this.blockHeight = Math.max(1, Math.min(blockSize.height, height));
+        this.numXBlocks = (width + blockWidth - 1) / blockWidth;
+        this.lock = lock;
+        long blockBytes = (long) blockWidth * blockHeight * (bytesPerPixel + 1);
+        int maxBlocks = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxBytes / blockBytes));
+        blocks = new LinkedHashMap<Integer, Block>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Block> eldest) {
+                return size() > maxBlocks;
+            }
+        };
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * returns the number of spectral bands covered by the store
+     *
+     * @return the number of bands
+     */
+    public int getNumBands() {
+        return pixelMaskImages.length;
+    }
+
+    /**
+     * returns the number of bytes used to store the defect bits of one pixel
+     *
+     * @return number of bytes per pixel
+     */
+    public int getBytesPerPixel() {
+        return bytesPerPixel;
+    }
+
+    /**
+     * returns whether the pixel is defective in the band at the given index (zero based)
+     *
+     * @param x         the x coordinate of the pixel
+     * @param y         the y coordinate of the pixel
+     * @param bandIndex the index of the band
+     * @return {@code true} if the pixel is defective in this band
+     */
+    public boolean isDefective(int x, int y, int bandIndex) {
+        Block block = getBlock(x, y, bandIndex, bandIndex + 1);
+        int offset = block.getPixelOffset(x, y);
+        return (block.bits[offset + (bandIndex >> 3)] >> (bandIndex & 7) & 1) != 0;
+    }
+
+    /**
+     * returns whether the pixel is background, i.e. contains no measurement
+     *
+     * @param x the x coordinate of the pixel
+     * @param y the y coordinate of the pixel
+     * @return {@code true} if the pixel is background
+     */
+    public boolean isBackground(int x, int y) {
+        // the background is the same in all bands, it is taken from the first band decoded for the block
+        Block block = getBlock(x, y, 0, 0);
+        return block.isBackground(x, y);
+    }
+
+    /**
+     * returns the indices of all bands in which the pixel is defective
+     *
+     * @param x the x coordinate of the pixel
+     * @param y the y coordinate of the pixel
+     * @return bit set of the defective band indices
+     */
+    public BitSet getDefectBits(int x, int y) {
+        Block block = getBlock(x, y, 0, pixelMaskImages.length);
+        int offset = block.getPixelOffset(x, y);
+        byte[] pixelBits = new byte[bytesPerPixel];
+        System.arraycopy(block.bits, offset, pixelBits, 0, bytesPerPixel);
+        return BitSet.valueOf(pixelBits);
+    }
+
+    /**
+     * Copies the packed defect bits of a complete row into the given array. The array must have a length of at least
+     * {@code getWidth() * getBytesPerPixel()}.
+     *
+     * @param y    the row
+     * @param dest the array receiving the packed bits, if {@code null} a new array is created
+     * @return the array containing the packed bits
+     */
+    public byte[] getRowDefectBits(int y, byte[] dest) {
+        int rowLength = width * bytesPerPixel;
+        if (dest == null) {
+            dest = new byte[rowLength];
+        }
+        for (int x = 0; x < width; x += blockWidth) {
+            Block block = getBlock(x, y, 0, pixelMaskImages.length);
+            int length = block.rect.width * bytesPerPixel;
+            System.arraycopy(block.bits, block.getPixelOffset(x, y), dest, x * bytesPerPixel, length);
+        }
+        return dest;
+    }
+
+    /**
+     * returns the number of bands in the range [fromBand, toBand) in which the pixel is defective
+     *
+     * @param x        the x coordinate of the pixel
+     * @param y        the y coordinate of the pixel
+     * @param fromBand the first band index (inclusive)
+     * @param toBand   the last band index (exclusive)
+     * @return the number of defective bands
+     */
+    public int countDefects(int x, int y, int fromBand, int toBand) {
+        Block block = getBlock(x, y, fromBand, toBand);
+        int offset = block.getPixelOffset(x, y);
+        int count = 0;
+        int b = fromBand;
+        while (b < toBand) {
+            int bit = b & 7;
+            int value = block.bits[offset + (b >> 3)] & 0xFF;
+            if (bit == 0 && b + 8 <= toBand) {
+                count += Integer.bitCount(value);
+                b += 8;
+            } else {
+                count += value >> bit & 1;
+                b++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * returns the value of the original pixel mask, either the background value, 1 for defective or 0
+     */
+    int getPixelMaskValue(int x, int y, int bandIndex) {
+        Block block = getBlock(x, y, bandIndex, bandIndex + 1);
+        if (block.isBackground(x, y)) {
+            return backgroundValue;
+        }
+        int offset = block.getPixelOffset(x, y);
+        return (block.bits[offset + (bandIndex >> 3)] >> (bandIndex & 7) & 1) != 0 ? 1 : 0;
+    }
+
+    /**
+     * returns the number of blocks currently kept in memory
+     */
+    int getNumDecodedBlocks() {
+        synchronized (blocks) {
+            return blocks.size();
+        }
+    }
+
+    // returns the block of the pixel, the bands in the range [fromBand, toBand) are decoded
+    private Block getBlock(int x, int y, int fromBand, int toBand) {
+        int blockX = x / blockWidth;
+        int blockY = y / blockHeight;
+        Block block;
+        synchronized (blocks) {
+            block = blocks.computeIfAbsent(blockY * numXBlocks + blockX, key -> createBlock(blockX, blockY));
+        }
+        block.decode(fromBand, toBand);
+        return block;
+    }
+
+    private Block createBlock(int blockX, int blockY) {
+        int x = blockX * blockWidth;
+        int y = blockY * blockHeight;
+        return new Block(new Rectangle(x, y, Math.min(blockWidth, width - x), Math.min(blockHeight, height - y)));
+    }
+
+    private class Block {
+        private final Rectangle rect;
+        private final byte[] bits;
+        private final byte[] background;
+        private final BitSet decodedBands = new BitSet();
+        private boolean backgroundDecoded;
+
+        private Block(Rectangle rect) {
+            this.rect = rect;
+            int numPixels = rect.width * rect.height;
+            bits = new byte[numPixels * bytesPerPixel];
+            background = new byte[(numPixels + 7) / 8];
+        }
+
+        private int getPixelOffset(int x, int y) {
+            return ((y - rect.y) * rect.width + x - rect.x) * bytesPerPixel;
+        }
+
+        private boolean isBackground(int x, int y) {
+            int pixelIndex = (y - rect.y) * rect.width + x - rect.x;
+            return (background[pixelIndex >> 3] >> (pixelIndex & 7) & 1) != 0;
+        }
+
+        // decodes the bands of the range which are not decoded yet, the background is decoded with the first band
+        private synchronized void decode(int fromBand, int toBand) {
+            int[] samples = null;
+            int numPixels = rect.width * rect.height;
+            for (int b = decodedBands.nextClearBit(fromBand); b < toBand; b = decodedBands.nextClearBit(b + 1)) {
+                decodedBands.set(b);
+                if (pixelMaskImages[b] == null) {
+                    continue;
+                }
+                Raster data;
+                synchronized (lock) {
+                    data = pixelMaskImages[b].getData(rect);
+                }
+                samples = data.getSamples(rect.x, rect.y, rect.width, rect.height, 0, samples);
+                int byteIndex = b >> 3;
+                byte bitValue = (byte) (1 << (b & 7));
+                for (int p = 0; p < numPixels; p++) {
+                    int sample = samples[p];
+                    if (sample == backgroundValue) {
+                        background[p >> 3] |= (byte) (1 << (p & 7));
+                    } else if ((sample & DEFECTIVE_MASK) != 0) {
+                        bits[p * bytesPerPixel + byteIndex] |= bitValue;
+                    }
+                }
+                backgroundDecoded = true;
+            }
+            if (!backgroundDecoded) {
+                // none of the requested bands has an image, the background is the same in all bands
+                int b = firstImageIndex();
+                decode(b, b + 1);
+            }
+        }
+    }
+
+    private int firstImageIndex() {
+        for (int i = 0; i < pixelMaskImages.length; i++) {
+            if (pixelMaskImages[i] != null) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("At least one pixel mask image is needed");
+    }
+}
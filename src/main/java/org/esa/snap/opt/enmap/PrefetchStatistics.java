@@ -0,0 +1,68 @@
+package org.esa.snap.opt.enmap;
+
+/**
+ * Snapshot of the statistics of the tile prefetching of an EnMAP product.
+ */
+public final class PrefetchStatistics {
+
+    static final PrefetchStatistics EMPTY = new PrefetchStatistics(0, 0, 0);
+
+    private final long requestCount;
+    private final long prefetchCount;
+    private final long hitCount;
+
+    PrefetchStatistics(long requestCount, long prefetchCount, long hitCount) {
+        this.requestCount = requestCount;
+        this.prefetchCount = prefetchCount;
+        this.hitCount = hitCount;
+    }
+
+    /**
+     * returns the number of tile requests observed by the prefetcher
+     *
+     * @return the number of tile requests
+     */
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * returns the number of tiles which have been decoded by the prefetcher; requests rejected by the saturated
+     * prefetch pool are not counted
+     *
+     * @return the number of prefetched tiles
+     */
+    public long getPrefetchCount() {
+        return prefetchCount;
+    }
+
+    /**
+     * returns the number of requested tiles which have been prefetched before and were still in the tile cache;
+     * prefetched tiles which have been evicted before the request are no hits
+     *
+     * @return the number of hits
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * returns the fraction of tile requests which have been served by a prefetched tile
+     *
+     * @return the hit rate between 0 and 1
+     */
+    public double getHitRate() {
+        return requestCount == 0 ? 0.0 : (double) hitCount / requestCount;
+    }
+
+    PrefetchStatistics add(PrefetchStatistics other) {
+        return new PrefetchStatistics(requestCount + other.requestCount, prefetchCount + other.prefetchCount,
+                                      hitCount + other.hitCount);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PrefetchStatistics{requests=%d, prefetched=%d, hits=%d, hitRate=%.3f}",
+                             requestCount, prefetchCount, hitCount, getHitRate());
+    }
+}
@@ -0,0 +1,58 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.image.ResolutionLevel;
+import org.esa.snap.core.image.SingleBandedOpImage;
+
+import javax.media.jai.PlanarImage;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.WritableRaster;
+import java.util.List;
+
+/**
+ * Combines the quality layers into one packed value per pixel, see {@link QualityBits} for the layout.
+ * All layers are read once per tile, the computed tiles are kept in the tile cache.
+ */
+class QualityAllOpImage extends SingleBandedOpImage {
+
+    private final List<Layer> layers;
+
+    QualityAllOpImage(List<Layer> layers, int dataBufferType, int width, int height, Dimension tileSize) {
+        super(dataBufferType, width, height, tileSize, null, ResolutionLevel.MAXRES);
+        this.layers = layers;
+    }
+
+    @Override
+    protected void computeRect(PlanarImage[] sourceImages, WritableRaster tile, Rectangle destRect) {
+        int[] packed = new int[destRect.width * destRect.height];
+        int[] samples = null;
+        for (Layer layer : layers) {
+            Raster data = layer.image.getData(destRect);
+            samples = data.getSamples(destRect.x, destRect.y, destRect.width, destRect.height, 0, samples);
+            int valueMask = layer.mask >>> layer.shift;
+            for (int i = 0; i < packed.length; i++) {
+                packed[i] |= (samples[i] & valueMask) << layer.shift;
+            }
+        }
+        tile.setSamples(destRect.x, destRect.y, destRect.width, destRect.height, 0, packed);
+    }
+
+    static class Layer {
+        private final RenderedImage image;
+        private final int shift;
+        private final int mask;
+
+        /**
+         * @param image the image of the quality layer
+         * @param shift the position of the layer in the packed value
+         * @param mask  the bits of the layer in the packed value, already shifted
+         */
+        Layer(RenderedImage image, int shift, int mask) {
+            this.image = image;
+            this.shift = shift;
+            this.mask = mask;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.esa.snap.opt.enmap;
+
+/**
+ * Bit layout of the synthetic {@code QUALITY_ALL} band, which combines all quality layers into one value per pixel.
+ * The masks are already shifted to the position of the layer in the packed value, the shifts can be used to extract
+ * the original value of a layer, e.g. {@code (value & CIRRUS_MASK) >> CIRRUS_SHIFT}.
+ * <p>
+ * For L1C and L2A products the band is of type uint16. L1B products provide separate test flags for VNIR and SWIR,
+ * therefore the band is of type uint32 and the SWIR test flags are stored in bits 16 to 23.
+ */
+public final class QualityBits {
+
+    public static final String QUALITY_ALL_BAND_NAME = "QUALITY_ALL";
+
+    public static final int CLASSES_SHIFT = 0;
+    public static final int CLASSES_MASK = 0b11;
+    public static final int CLASSES_LAND = 0b01;
+    public static final int CLASSES_WATER = 0b10;
+    public static final int CLASSES_BACKGROUND = 0b11;
+
+    public static final int CLOUD_SHIFT = 2;
+    public static final int CLOUD_MASK = 1 << CLOUD_SHIFT;
+
+    public static final int CLOUDSHADOW_SHIFT = 3;
+    public static final int CLOUDSHADOW_MASK = 1 << CLOUDSHADOW_SHIFT;
+
+    public static final int HAZE_SHIFT = 4;
+    public static final int HAZE_MASK = 1 << HAZE_SHIFT;
+
+    public static final int CIRRUS_SHIFT = 5;
+    public static final int CIRRUS_MASK = 0b11 << CIRRUS_SHIFT;
+
+    public static final int SNOW_SHIFT = 7;
+    public static final int SNOW_MASK = 1 << SNOW_SHIFT;
+
+    /**
+     * the test flags of L1C and L2A products, respectively the VNIR test flags of L1B products
+     */
+    public static final int TESTFLAGS_SHIFT = 8;
+    public static final int TESTFLAGS_MASK = 0xFF << TESTFLAGS_SHIFT;
+
+    /**
+     * the SWIR test flags, only present for L1B products
+     */
+    public static final int TESTFLAGS_SWIR_SHIFT = 16;
+    public static final int TESTFLAGS_SWIR_MASK = 0xFF << TESTFLAGS_SWIR_SHIFT;
+
+    private QualityBits() {
+    }
+}
@@ -7,13 +7,15 @@ import org.esa.snap.core.datamodel.ProductNodeGroup;
 import org.esa.snap.core.util.BitSetter;
 
 import java.awt.Color;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
 import static org.esa.snap.opt.enmap.EnmapFileUtils.*;
 
 class QualityLayerInfo {
+    static final String DEFECTIVE_PIXELS_BAND_NAME = "DEFECTIVE_PIXELS";
+    static final String DEFECTIVE_BAND_COUNT_BAND_NAME = "defective_band_count";
+    static final String DEFECTIVE_VNIR_FLAG_NAME = "Vnir";
+    static final String DEFECTIVE_SWIR_FLAG_NAME = "Swir";
+
     static QualityLayerInfo QL_CLASSES_LAND = create("Land", "Classified as land",
             QUALITY_CLASSES_KEY, 0b11, 0b01, Color.GREEN);
     static QualityLayerInfo QL_CLASSES_WATER = create("Water", "Classified as water",
@@ -42,8 +44,9 @@ class QualityLayerInfo {
     static QualityLayerInfo QL_SNOW_SNOW = create("Snow", "Classified as snow",
             QUALITY_SNOW_KEY, 1, Color.YELLOW);
 
+    // the pixel mask bands provide 1 for defective pixels, the background value is no defect, like in the aggregates
     static QualityLayerInfo QL_PM_DEFECTIVE_SERIES = create("Defective", "Defective pixel",
-            QUALITY_PIXELMASK_KEY, 1, Color.RED);
+            QUALITY_PIXELMASK_KEY, 0xFF, 1, Color.RED);
 
     static QualityLayerInfo QL_TF_NOMINAL = create("Nominal", "Nominal quality",
             QUALITY_TESTFLAGS_KEY, 0b11, 0b00, Color.GREEN.brighter());
@@ -134,6 +137,23 @@ class QualityLayerInfo {
 
     static QualityLayerInfo QL_TF_SWIR_ARTEFACT_VNIR = create("Artefact_Vnir", "Artefact VNIR pixel",
             QUALITY_TESTFLAGS_SWIR_KEY, BitSetter.setFlag(0, 7), Color.BLUE.darker());
+
+    static final QualityLayerInfo[] CLASSES_FLAGS = {QL_CLASSES_LAND, QL_CLASSES_WATER, QL_CLASSES_BG};
+    static final QualityLayerInfo[] CLOUD_FLAGS = {QL_CLOUD_CLOUD};
+    static final QualityLayerInfo[] CLOUDSHADOW_FLAGS = {QL_CLOUDSHADOW_SHADOW};
+    static final QualityLayerInfo[] HAZE_FLAGS = {QL_HAZE_HAZE};
+    static final QualityLayerInfo[] CIRRUS_FLAGS = {QL_CIRRUS_THIN, QL_CIRRUS_MEDIUM, QL_CIRRUS_THICK};
+    static final QualityLayerInfo[] SNOW_FLAGS = {QL_SNOW_SNOW};
+    static final QualityLayerInfo[] TESTFLAGS_FLAGS = {QL_TF_NOMINAL, QL_TF_REDUCED, QL_TF_LOW, QL_TF_NOT,
+            QL_TF_INTERPOLATED_SWIR, QL_TF_INTERPOLATED_VNIR, QL_TF_SATURATION_SWIR, QL_TF_SATURATION_VNIR,
+            QL_TF_ARTEFACT_SWIR, QL_TF_ARTEFACT_VNIR};
+    static final QualityLayerInfo[] TESTFLAGS_VNIR_FLAGS = {QL_TF_VNIR_NOMINAL, QL_TF_VNIR_REDUCED, QL_TF_VNIR_LOW,
+            QL_TF_VNIR_NOT, QL_TF_VNIR_INTERPOLATED_SWIR, QL_TF_VNIR_INTERPOLATED_VNIR, QL_TF_VNIR_SATURATION_SWIR,
+            QL_TF_VNIR_SATURATION_VNIR, QL_TF_VNIR_ARTEFACT_SWIR, QL_TF_VNIR_ARTEFACT_VNIR};
+    static final QualityLayerInfo[] TESTFLAGS_SWIR_FLAGS = {QL_TF_SWIR_NOMINAL, QL_TF_SWIR_REDUCED, QL_TF_SWIR_LOW,
+            QL_TF_SWIR_NOT, QL_TF_SWIR_INTERPOLATED_SWIR, QL_TF_SWIR_INTERPOLATED_VNIR, QL_TF_SWIR_SATURATION_SWIR,
+            QL_TF_SWIR_SATURATION_VNIR, QL_TF_SWIR_ARTEFACT_SWIR, QL_TF_SWIR_ARTEFACT_VNIR};
+
     String flagName;
 
     String maskName;
@@ -192,44 +212,76 @@ class QualityLayerInfo {
                 String.format("%s.%s", qualityKey, flagName), maskColor, transparency));
     }
 
-    void addMasksTo(Product product, EnmapMetadata meta) throws IOException {
-        int width = product.getSceneRasterWidth();
-        int height = product.getSceneRasterHeight();
-        ProductNodeGroup<Mask> maskGroup = product.getMaskGroup();
-        int[] spectralIndices = meta.getSpectralIndices();
-        StringBuilder vnirMaskExpression = new StringBuilder();
-        StringBuilder swirMaskExpression = new StringBuilder();
-        List<Mask> spectralMasks = new ArrayList<>();
-        for (int i = 0; i < meta.getNumSpectralBands(); i++) {
-            int spectralIndex = spectralIndices[i];
-            String seriesMaskName = String.format("%s_%03d", maskName, spectralIndex);
-            String maskExpression = String.format("%s_%03d.%s", qualityKey, spectralIndex, flagName);
-            spectralMasks.add(Mask.BandMathsType.create(seriesMaskName, description, width, height,
-                    maskExpression, maskColor, transparency));
-            if(i < meta.getNumVnirBands()) {
-                addMaskToCombinedExpression(vnirMaskExpression, seriesMaskName);
-            }else {
-                addMaskToCombinedExpression(swirMaskExpression, seriesMaskName);
-            }
+    /**
+     * Adds the flag to the flag coding of the packed {@link QualityBits#QUALITY_ALL_BAND_NAME} band. The flag is
+     * shifted to the position of the quality layer and its name is prefixed by the layer name, e.g. {@code CLOUD_Cloud}.
+     */
+    void addPackedFlagTo(FlagCoding flagCoding, int shift) {
+        String packedFlagName = getPackedFlagName();
+        if (flagValue != null) {
+            flagCoding.addFlag(packedFlagName, flagMask << shift, flagValue << shift, description);
+        } else {
+            flagCoding.addFlag(packedFlagName, flagMask << shift, description);
         }
+    }
 
-        String vnirDefectiveMaskName = "VNIR_Defective_Pixels";
-        maskGroup.add(Mask.BandMathsType.create(vnirDefectiveMaskName, "Masks all defective VNIR pixels",
-                width, height, vnirMaskExpression.toString(), Color.RED, 0.3));
-        String swirDefectiveMaskName = "SWIR_Defective_Pixels";
-        maskGroup.add(Mask.BandMathsType.create(swirDefectiveMaskName, "Masks all defective SWIR pixels",
-                width, height, swirMaskExpression.toString(), Color.RED, 0.3));
-         maskGroup.add(Mask.BandMathsType.create("All_Defective_Pixels", "Masks all defective pixels",
-                width, height, String.format("%s || %s", vnirDefectiveMaskName, swirDefectiveMaskName), Color.RED, 0.3));
+    void addPackedMaskTo(Product product) {
+        int width = product.getSceneRasterWidth();
+        int height = product.getSceneRasterHeight();
+        String packedFlagName = getPackedFlagName();
+        product.getMaskGroup().add(Mask.BandMathsType.create("QA_" + packedFlagName, description, width, height,
+                String.format("%s.%s", QualityBits.QUALITY_ALL_BAND_NAME, packedFlagName), maskColor, transparency));
+    }
 
-        spectralMasks.forEach(maskGroup::add);
+    /**
+     * returns whether the flag is set in the given value of the quality layer
+     */
+    boolean isSet(int value) {
+        int expected = flagValue != null ? flagValue : flagMask;
+        return (value & flagMask) == expected;
+    }
 
+    String getPackedFlagName() {
+        return String.format("%s_%s", qualityKey.replaceFirst("^QUALITY_", ""), flagName);
     }
 
-    private static void addMaskToCombinedExpression(StringBuilder vnirMaskExpression, String seriesMaskName) {
-        if(vnirMaskExpression.length() > 0) {
-            vnirMaskExpression.append(" || ");
+    /**
+     * Adds the masks combining the defective pixels of all bands. The masks of the single bands are not added,
+     * they are created on demand by the {@link DefectiveMaskProvider}.
+     */
+    void addMasksTo(Product product) {
+        int width = product.getSceneRasterWidth();
+        int height = product.getSceneRasterHeight();
+        ProductNodeGroup<Mask> maskGroup = product.getMaskGroup();
+
+        // the combined masks refer to the aggregated bands, which read all pixel masks once per tile,
+        // instead of combining all spectral masks in one expression; in a band subset they might be missing
+        String allDefectiveExpression = null;
+        if (product.containsBand(DEFECTIVE_PIXELS_BAND_NAME)) {
+            String vnirDefectiveMaskName = "VNIR_Defective_Pixels";
+            maskGroup.add(Mask.BandMathsType.create(vnirDefectiveMaskName, "Masks all defective VNIR pixels",
+                    width, height, String.format("%s.%s", DEFECTIVE_PIXELS_BAND_NAME, DEFECTIVE_VNIR_FLAG_NAME), Color.RED, 0.3));
+            String swirDefectiveMaskName = "SWIR_Defective_Pixels";
+            maskGroup.add(Mask.BandMathsType.create(swirDefectiveMaskName, "Masks all defective SWIR pixels",
+                    width, height, String.format("%s.%s", DEFECTIVE_PIXELS_BAND_NAME, DEFECTIVE_SWIR_FLAG_NAME), Color.RED, 0.3));
+            allDefectiveExpression = String.format("%s != 0", DEFECTIVE_PIXELS_BAND_NAME);
+        } else if (product.containsBand(DEFECTIVE_BAND_COUNT_BAND_NAME)) {
+            allDefectiveExpression = String.format("%s > 0", DEFECTIVE_BAND_COUNT_BAND_NAME);
         }
-        vnirMaskExpression.append(seriesMaskName);
+        if (allDefectiveExpression != null) {
+            maskGroup.add(Mask.BandMathsType.create("All_Defective_Pixels", "Masks all defective pixels",
+                    width, height, allDefectiveExpression, Color.RED, 0.3));
+        }
+    }
+
+    String getSeriesMaskName(int spectralIndex) {
+        return String.format("%s_%03d", maskName, spectralIndex);
+    }
+
+    Mask createSeriesMask(Product product, int spectralIndex) {
+        String maskExpression = String.format("%s_%03d.%s", qualityKey, spectralIndex, flagName);
+        return Mask.BandMathsType.create(getSeriesMaskName(spectralIndex), description,
+                product.getSceneRasterWidth(), product.getSceneRasterHeight(),
+                maskExpression, maskColor, transparency);
     }
 }
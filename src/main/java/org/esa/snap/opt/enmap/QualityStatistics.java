@@ -0,0 +1,104 @@
+package org.esa.snap.opt.enmap;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Scene-level statistics of the quality layers. For every flag of the quality layers the number of pixels
+ * is counted in which the flag is set. The flags are named like the flags of the {@code QUALITY_ALL} band,
+ * e.g. {@code CLASSES_Water}, {@code CLOUD_Cloud} or {@code TESTFLAGS_Reduced}.
+ * <p>
+ * Background pixels are only counted by {@link #getBackgroundPixelCount()}, the flag counts and fractions
+ * refer to the valid pixels of the scene. Therefore the statistics contain no {@code CLASSES_Background} flag.
+ */
+public final class QualityStatistics {
+
+    private static final String TOTAL_KEY = "total";
+    private static final String BACKGROUND_KEY = "background";
+    private static final String FLAG_KEY_PREFIX = "flag.";
+
+    private final long totalPixelCount;
+    private final long backgroundPixelCount;
+    private final Map<String, Long> flagCounts;
+
+    QualityStatistics(long totalPixelCount, long backgroundPixelCount, Map<String, Long> flagCounts) {
+        this.totalPixelCount = totalPixelCount;
+        this.backgroundPixelCount = backgroundPixelCount;
+        this.flagCounts = Collections.unmodifiableMap(new LinkedHashMap<>(flagCounts));
+    }
+
+    public long getTotalPixelCount() {
+        return totalPixelCount;
+    }
+
+    public long getBackgroundPixelCount() {
+        return backgroundPixelCount;
+    }
+
+    public long getValidPixelCount() {
+        return totalPixelCount - backgroundPixelCount;
+    }
+
+    /**
+     * returns the fraction of background pixels with respect to all pixels of the scene
+     *
+     * @return the background fraction
+     */
+    public double getBackgroundFraction() {
+        return totalPixelCount > 0 ? (double) backgroundPixelCount / totalPixelCount : 0.0;
+    }
+
+    /**
+     * returns the number of valid pixels in which the flag is set
+     *
+     * @param flagName the name of the flag, e.g. {@code CLOUD_Cloud}
+     * @return the number of pixels, 0 if the flag is unknown
+     */
+    public long getCount(String flagName) {
+        return flagCounts.getOrDefault(flagName, 0L);
+    }
+
+    /**
+     * returns the fraction of valid pixels in which the flag is set
+     *
+     * @param flagName the name of the flag, e.g. {@code CLOUD_Cloud}
+     * @return the fraction, 0 if the flag is unknown or the scene has no valid pixels
+     */
+    public double getFraction(String flagName) {
+        long validPixelCount = getValidPixelCount();
+        return validPixelCount > 0 ? (double) getCount(flagName) / validPixelCount : 0.0;
+    }
+
+    /**
+     * returns the counts of all flags
+     *
+     * @return unmodifiable map of flag name to pixel count
+     */
+    public Map<String, Long> getCounts() {
+        return flagCounts;
+    }
+
+    Properties toProperties() {
+        Properties properties = new Properties();
+        properties.setProperty(TOTAL_KEY, String.valueOf(totalPixelCount));
+        properties.setProperty(BACKGROUND_KEY, String.valueOf(backgroundPixelCount));
+        flagCounts.forEach((name, count) -> properties.setProperty(FLAG_KEY_PREFIX + name, String.valueOf(count)));
+        return properties;
+    }
+
+    static QualityStatistics fromProperties(Properties properties) {
+        long total = Long.parseLong(properties.getProperty(TOTAL_KEY));
+        long background = Long.parseLong(properties.getProperty(BACKGROUND_KEY));
+        Map<String, Long> flagCounts = new LinkedHashMap<>();
+        properties.stringPropertyNames().stream().filter(key -> key.startsWith(FLAG_KEY_PREFIX)).sorted().forEach(
+                key -> flagCounts.put(key.substring(FLAG_KEY_PREFIX.length()), Long.parseLong(properties.getProperty(key))));
+        return new QualityStatistics(total, background, flagCounts);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("QualityStatistics{total=%d, background=%d, flags=%s}", totalPixelCount, backgroundPixelCount, flagCounts);
+    }
+}
@@ -0,0 +1,184 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.util.SystemUtils;
+
+import java.awt.Rectangle;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.esa.snap.opt.enmap.EnmapFileUtils.*;
+
+/**
+ * Computes the {@link QualityStatistics} of a product. The quality layers are read tile by tile, the tiles are
+ * processed in parallel and each tile of each layer is read only once.
+ * <p>
+ * The result can be stored in a properties file in the cache directory, see {@link DerivedDataCache}. It is used as
+ * long as the fingerprint of the quality layer files is unchanged.
+ */
+class QualityStatisticsCalculator {
+
+    static final String CACHE_FILE_SUFFIX = ".quality-stats.properties";
+    private static final String FINGERPRINT_KEY = "fingerprint";
+    // the background is counted separately, the flag counts refer to the valid pixels only
+    private static final QualityLayerInfo[] CLASSES_FLAGS = {QualityLayerInfo.QL_CLASSES_LAND, QualityLayerInfo.QL_CLASSES_WATER};
+    private static final int CLASSES_BACKGROUND = 0b11;
+
+    private final RenderedImage classesImage;
+    private final List<Layer> layers = new ArrayList<>();
+    private final int numFlags;
+
+    QualityStatisticsCalculator(Product product) {
+        Band classesBand = product.getBand(QUALITY_CLASSES_KEY);
+        classesImage = classesBand != null ? classesBand.getSourceImage() : null;
+        addLayer(product, QUALITY_CLASSES_KEY, CLASSES_FLAGS);
+        addLayer(product, QUALITY_CLOUD_KEY, QualityLayerInfo.CLOUD_FLAGS);
+        addLayer(product, QUALITY_CLOUDSHADOW_KEY, QualityLayerInfo.CLOUDSHADOW_FLAGS);
+        addLayer(product, QUALITY_HAZE_KEY, QualityLayerInfo.HAZE_FLAGS);
+        addLayer(product, QUALITY_CIRRUS_KEY, QualityLayerInfo.CIRRUS_FLAGS);
+        addLayer(product, QUALITY_SNOW_KEY, QualityLayerInfo.SNOW_FLAGS);
+        addLayer(product, QUALITY_TESTFLAGS_KEY, QualityLayerInfo.TESTFLAGS_FLAGS);
+        addLayer(product, QUALITY_TESTFLAGS_VNIR_KEY, QualityLayerInfo.TESTFLAGS_VNIR_FLAGS);
+        addLayer(product, QUALITY_TESTFLAGS_SWIR_KEY, QualityLayerInfo.TESTFLAGS_SWIR_FLAGS);
+        numFlags = layers.stream().mapToInt(layer -> layer.flags.length).sum();
+    }
+
+    QualityStatistics compute() {
+        if (layers.isEmpty()) {
+            return new QualityStatistics(0, 0, new LinkedHashMap<>());
+        }
+        RenderedImage refImage = layers.get(0).image;
+        Rectangle bounds = new Rectangle(refImage.getMinX(), refImage.getMinY(), refImage.getWidth(), refImage.getHeight());
+        // index 0 holds the background count, the flag counts follow
+        long[] counts = AsyncBandReader.getTileRectangles(refImage, bounds).parallelStream()
+                .map(this::countTile)
+                .reduce(new long[numFlags + 1], QualityStatisticsCalculator::add);
+
+        Map<String, Long> flagCounts = new LinkedHashMap<>();
+        int index = 1;
+        for (Layer layer : layers) {
+            for (QualityLayerInfo flag : layer.flags) {
+                flagCounts.put(flag.getPackedFlagName(), counts[index++]);
+            }
+        }
+        return new QualityStatistics((long) bounds.width * bounds.height, counts[0], flagCounts);
+    }
+
+    private long[] countTile(Rectangle tileRect) {
+        long[] counts = new long[numFlags + 1];
+        int numPixels = tileRect.width * tileRect.height;
+        boolean[] background = new boolean[numPixels];
+        int[] samples = null;
+        if (classesImage != null) {
+            samples = getSamples(classesImage, tileRect, null);
+            for (int i = 0; i < numPixels; i++) {
+                if ((samples[i] & CLASSES_BACKGROUND) == CLASSES_BACKGROUND) {
+                    background[i] = true;
+                    counts[0]++;
+                }
+            }
+        }
+        int index = 1;
+        for (Layer layer : layers) {
+            samples = getSamples(layer.image, tileRect, samples);
+            for (QualityLayerInfo flag : layer.flags) {
+                long count = 0;
+                for (int i = 0; i < numPixels; i++) {
+                    if (!background[i] && flag.isSet(samples[i])) {
+                        count++;
+                    }
+                }
+                counts[index++] += count;
+            }
+        }
+        return counts;
+    }
+
+    private static int[] getSamples(RenderedImage image, Rectangle rect, int[] samples) {
+        Raster data = image.getData(rect);
+        return data.getSamples(rect.x, rect.y, rect.width, rect.height, 0, samples);
+    }
+
+    private static long[] add(long[] a, long[] b) {
+        long[] sum = new long[a.length];
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] = a[i] + b[i];
+        }
+        return sum;
+    }
+
+    private void addLayer(Product product, String qualityKey, QualityLayerInfo[] flags) {
+        Band band = product.getBand(qualityKey);
+        if (band != null) {
+            layers.add(new Layer(qualityKey, band.getSourceImage(), flags));
+        }
+    }
+
+    /**
+     * returns the keys of the quality layers the statistics are computed from
+     */
+    String[] getLayerKeys() {
+        return layers.stream().map(layer -> layer.key).toArray(String[]::new);
+    }
+
+    /**
+     * reads the statistics from a cache file, if it exists and has been written for the given fingerprint
+     *
+     * @return the statistics or {@code null} if no valid cache file exists
+     */
+    static QualityStatistics readCacheFile(Path cacheFile, String fingerprint) {
+        if (!Files.isRegularFile(cacheFile)) {
+            return null;
+        }
+        try {
+            Properties properties = new Properties();
+            try (InputStream inputStream = Files.newInputStream(cacheFile)) {
+                properties.load(inputStream);
+            }
+            if (!fingerprint.equals(properties.getProperty(FINGERPRINT_KEY))) {
+                return null;
+            }
+            return QualityStatistics.fromProperties(properties);
+        } catch (IOException | RuntimeException e) {
+            SystemUtils.LOG.warning(String.format("Could not read quality statistics from '%s': %s", cacheFile, e.getMessage()));
+            return null;
+        }
+    }
+
+    static void writeCacheFile(Path cacheFile, String fingerprint, QualityStatistics statistics) {
+        Properties properties = statistics.toProperties();
+        properties.setProperty(FINGERPRINT_KEY, fingerprint);
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            try (OutputStream outputStream = Files.newOutputStream(cacheFile)) {
+                properties.store(outputStream, "EnMAP quality statistics");
+            }
+        } catch (IOException | RuntimeException e) {
+            // the statistics are still kept in memory
+            SystemUtils.LOG.warning(String.format("Could not write quality statistics to '%s': %s", cacheFile, e.getMessage()));
+        }
+    }
+
+    private static class Layer {
+        private final String key;
+        private final RenderedImage image;
+        private final QualityLayerInfo[] flags;
+
+        private Layer(String key, RenderedImage image, QualityLayerInfo[] flags) {
+            this.key = key;
+            this.image = image;
+            this.flags = flags;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.util.SystemUtils;
+
+import java.awt.Rectangle;
+import java.util.logging.Level;
+
+/**
+ * Emits the Java Flight Recorder events of the reader. The events are only available if the runtime provides
+ * the {@code jdk.jfr} API (Java 11 or Java 8 from update 262), in this case the implementation is loaded from
+ * {@code JfrReaderEvents}. Otherwise, all methods do nothing.
+ * <p>
+ * An event is started by one of the {@code begin} methods, which returns {@code null} if the event is not
+ * enabled in a running recording. Only a non-null event must be passed to the corresponding {@code end} method.
+ */
+class ReaderEvents {
+
+    static final ReaderEvents INSTANCE = create();
+
+    private static final String JFR_EVENT_CLASS = "jdk.jfr.Event";
+    private static final String JFR_READER_EVENTS_CLASS = "org.esa.snap.opt.enmap.JfrReaderEvents";
+
+    private static ReaderEvents create() {
+        try {
+            Class.forName(JFR_EVENT_CLASS);
+        } catch (ClassNotFoundException e) {
+            return new ReaderEvents();
+        }
+        try {
+            // loaded by name, so the reader does not depend on the jdk.jfr classes on older runtimes
+            return (ReaderEvents) Class.forName(JFR_READER_EVENTS_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            SystemUtils.LOG.log(Level.FINE, "Flight recorder events of the EnMAP reader are not available", e);
+            return new ReaderEvents();
+        }
+    }
+
+    /**
+     * starts the event of decoding a tile from an image reader
+     *
+     * @return the started event or {@code null} if it is not recorded
+     */
+    Object beginTileRead() {
+        return null;
+    }
+
+    /**
+     * @param event   the event returned by {@link #beginTileRead()}
+     * @param band    the name of the band
+     * @param level   the resolution level of the image which has been read
+     * @param rect    the rectangle which has been read, in the coordinates of the level
+     * @param backend the name of the image reader backend
+     * @param bytes   the size of the raw data of the tile
+     */
+    void endTileRead(Object event, String band, int level, Rectangle rect, String backend, long bytes) {
+    }
+
+    /**
+     * starts the event of a call of {@code readBandRasterData}
+     *
+     * @return the started event or {@code null} if it is not recorded
+     */
+    Object beginRasterRead() {
+        return null;
+    }
+
+    /**
+     * @param event  the event returned by {@link #beginRasterRead()}
+     * @param band   the name of the band
+     * @param rect   the rectangle which has been read
+     * @param source how the data has been provided, e.g. from the tiles of the source image
+     * @param bytes  the size of the data written to the destination buffer
+     */
+    void endRasterRead(Object event, String band, Rectangle rect, String source, long bytes) {
+    }
+
+    /**
+     * starts the event of a phase of opening a product
+     *
+     * @return the started event or {@code null} if it is not recorded
+     */
+    Object beginOpenPhase() {
+        return null;
+    }
+
+    /**
+     * @param event   the event returned by {@link #beginOpenPhase()}
+     * @param phase   the phase which has ended
+     * @param product the path of the product
+     */
+    void endOpenPhase(Object event, OpenPhase phase, String product) {
+    }
+}
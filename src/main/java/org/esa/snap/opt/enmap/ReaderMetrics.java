@@ -0,0 +1,178 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.util.SystemUtils;
+import org.esa.snap.opt.enmap.imgReader.EnmapImageReader;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Collects the metrics of one opened EnMAP product and provides them as MXBean. The reader only creates an instance
+ * if the preference {@value EnmapProductReaderPlugIn#ENMAP_METRICS_ENABLED} is set, otherwise nothing is recorded.
+ */
+class ReaderMetrics implements EnmapReaderMetricsMXBean {
+
+    private static final String OBJECT_NAME_DOMAIN = "org.esa.snap.opt.enmap";
+    private static final AtomicInteger INSTANCE_COUNT = new AtomicInteger();
+
+    private final LongAdder readCount = new LongAdder();
+    private final LongAdder readPixelCount = new LongAdder();
+    private final LongAdder readByteCount = new LongAdder();
+    private final LatencyHistogram readTime = new LatencyHistogram();
+    private final LatencyHistogram decodeTime = new LatencyHistogram();
+    private final LatencyHistogram lockWaitTime = new LatencyHistogram();
+    // the image readers are added while the product is opened, the map is accessed by the MBean server afterwards
+    private final Map<EnmapImageReader, ImageReaderMetrics> imageReaderMetrics = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final Map<OpenPhase, Long> openPhaseDurations = Collections.synchronizedMap(new EnumMap<>(OpenPhase.class));
+    private volatile String productName = "";
+    private ObjectName objectName;
+
+    static boolean isEnabled() {
+        return EnmapProductReaderPlugIn.PREFERENCES.getBoolean(EnmapProductReaderPlugIn.ENMAP_METRICS_ENABLED, false);
+    }
+
+    /**
+     * Registers the metrics at the platform MBean server. A failing registration is only logged, the product can
+     * be used anyway.
+     */
+    void register(String productName) {
+        this.productName = productName;
+        try {
+            objectName = new ObjectName(String.format("%s:type=EnmapProductReader,name=%s,id=%d", OBJECT_NAME_DOMAIN,
+                                                      ObjectName.quote(productName), INSTANCE_COUNT.incrementAndGet()));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        } catch (JMException e) {
+            SystemUtils.LOG.log(Level.WARNING, String.format("Could not register metrics of product '%s'", productName), e);
+            objectName = null;
+        }
+    }
+
+    void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            SystemUtils.LOG.log(Level.FINE, "Could not unregister metrics", e);
+        }
+        objectName = null;
+    }
+
+    ImageReaderMetrics addImageReader(String name, EnmapImageReader imageReader) {
+        return imageReaderMetrics.computeIfAbsent(imageReader, r -> new ImageReaderMetrics(name, r, this));
+    }
+
+    ImageReaderMetrics getImageReaderMetrics(EnmapImageReader imageReader) {
+        return imageReaderMetrics.get(imageReader);
+    }
+
+    void openPhaseEnded(OpenPhase phase, long duration) {
+        openPhaseDurations.put(phase, duration);
+    }
+
+    void bandRasterRead(long numPixels, long numBytes, long duration) {
+        readCount.increment();
+        readPixelCount.add(numPixels);
+        readByteCount.add(numBytes);
+        readTime.record(duration);
+    }
+
+    void tileDecoded(long lockWaitTime, long decodeTime) {
+        this.lockWaitTime.record(lockWaitTime);
+        this.decodeTime.record(decodeTime);
+    }
+
+    @Override
+    public String getProductName() {
+        return productName;
+    }
+
+    @Override
+    public long getReadCount() {
+        return readCount.sum();
+    }
+
+    @Override
+    public long getReadPixelCount() {
+        return readPixelCount.sum();
+    }
+
+    @Override
+    public long getReadByteCount() {
+        return readByteCount.sum();
+    }
+
+    @Override
+    public LatencyStatistics getReadTime() {
+        return readTime.getStatistics();
+    }
+
+    @Override
+    public LatencyStatistics getDecodeTime() {
+        return decodeTime.getStatistics();
+    }
+
+    @Override
+    public LatencyStatistics getLockWaitTime() {
+        return lockWaitTime.getStatistics();
+    }
+
+    @Override
+    public double getZipExtractionMillis() {
+        long zipExtractionTime = 0;
+        for (ImageReaderMetrics metrics : getImageReaderMetricsList()) {
+            zipExtractionTime += metrics.getZipExtractionTime();
+        }
+        return zipExtractionTime / 1.0e6;
+    }
+
+    @Override
+    public List<ImageReaderStatistics> getImageReaderStatistics() {
+        List<ImageReaderStatistics> statistics = new ArrayList<>();
+        for (ImageReaderMetrics metrics : getImageReaderMetricsList()) {
+            statistics.add(metrics.getStatistics());
+        }
+        return statistics;
+    }
+
+    @Override
+    public Map<String, Double> getOpenPhaseMillis() {
+        Map<String, Double> openPhaseMillis = new LinkedHashMap<>();
+        synchronized (openPhaseDurations) {
+            openPhaseDurations.forEach((phase, duration) -> openPhaseMillis.put(phase.name(), duration / 1.0e6));
+        }
+        return openPhaseMillis;
+    }
+
+    @Override
+    public void reset() {
+        readCount.reset();
+        readPixelCount.reset();
+        readByteCount.reset();
+        readTime.reset();
+        decodeTime.reset();
+        lockWaitTime.reset();
+        getImageReaderMetricsList().forEach(ImageReaderMetrics::reset);
+    }
+
+    private List<ImageReaderMetrics> getImageReaderMetricsList() {
+        synchronized (imageReaderMetrics) {
+            return new ArrayList<>(imageReaderMetrics.values());
+        }
+    }
+}
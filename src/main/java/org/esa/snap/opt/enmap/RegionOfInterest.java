@@ -0,0 +1,65 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.datamodel.GeoCoding;
+import org.esa.snap.core.datamodel.GeoPos;
+import org.esa.snap.core.datamodel.PixelPos;
+import org.locationtech.jts.densify.Densifier;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+
+/**
+ * Converts a geographical region of interest into the pixel rectangle of the scene which covers it.
+ * The geometry is given in WGS84 with longitude as x and latitude as y coordinate.
+ */
+class RegionOfInterest {
+
+    // the edges are densified, because straight lines in WGS84 are curved in the map projection of the scene
+    private static final double DENSIFY_TOLERANCE_DEG = 0.001;
+
+    private RegionOfInterest() {
+    }
+
+    /**
+     * Computes the pixel rectangle covering the intersection of the region of interest and the coverage of the scene.
+     *
+     * @param roi            the region of interest
+     * @param sceneCoverage  the coverage of the scene, can be {@code null}
+     * @param geoCoding      the geo-coding of the complete scene
+     * @param sceneDimension the dimension of the complete scene
+     * @return the covering rectangle, it is empty if the region of interest does not intersect the scene
+     */
+    static Rectangle computePixelRegion(Geometry roi, Geometry sceneCoverage, GeoCoding geoCoding, Dimension sceneDimension) {
+        Geometry geometry = sceneCoverage != null ? roi.intersection(sceneCoverage) : roi;
+        if (geometry.isEmpty()) {
+            return new Rectangle();
+        }
+        geometry = Densifier.densify(geometry, DENSIFY_TOLERANCE_DEG);
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        PixelPos pixelPos = new PixelPos();
+        for (Coordinate coordinate : geometry.getCoordinates()) {
+            geoCoding.getPixelPos(new GeoPos(coordinate.y, coordinate.x), pixelPos);
+            if (!pixelPos.isValid()) {
+                continue;
+            }
+            minX = Math.min(minX, pixelPos.x);
+            minY = Math.min(minY, pixelPos.y);
+            maxX = Math.max(maxX, pixelPos.x);
+            maxY = Math.max(maxY, pixelPos.y);
+        }
+        if (minX > maxX || minY > maxY) {
+            return new Rectangle();
+        }
+        int x0 = (int) Math.floor(minX);
+        int y0 = (int) Math.floor(minY);
+        int x1 = (int) Math.ceil(maxX);
+        int y1 = (int) Math.ceil(maxY);
+        Rectangle pixelRegion = new Rectangle(x0, y0, Math.max(1, x1 - x0), Math.max(1, y1 - y0));
+        return pixelRegion.intersection(new Rectangle(sceneDimension));
+    }
+}
@@ -0,0 +1,71 @@
+package org.esa.snap.opt.enmap;
+
+import com.bc.ceres.glevel.MultiLevelImage;
+import org.esa.snap.core.image.ResolutionLevel;
+import org.esa.snap.core.image.SingleBandedOpImage;
+
+import javax.media.jai.OpImage;
+import javax.media.jai.PlanarImage;
+import javax.media.jai.RenderedOp;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.DataBuffer;
+import java.awt.image.RenderedImage;
+import java.awt.image.WritableRaster;
+
+/**
+ * Provides an 8-bit quality layer from its run-length encoded copy. The layer is encoded on the first tile request.
+ * The tiles are not put into the tile cache, they are expanded again on each request. The source image is only
+ * used for encoding, its tiles are not put into the tile cache either.
+ */
+class RleOpImage extends SingleBandedOpImage {
+
+    private final RenderedImage sourceImage;
+    private final Object lock;
+    private volatile RleRaster rleRaster;
+
+    RleOpImage(RenderedImage sourceImage, Dimension tileSize, Object lock) {
+        super(DataBuffer.TYPE_BYTE, sourceImage.getWidth(), sourceImage.getHeight(), tileSize, null, ResolutionLevel.MAXRES);
+        this.sourceImage = withoutTileCache(sourceImage);
+        this.lock = lock;
+        setTileCache(null);
+    }
+
+    // the source image is owned by this image, so its tile cache can be switched off
+    private static RenderedImage withoutTileCache(RenderedImage image) {
+        RenderedImage rendering = image;
+        if (image instanceof RenderedOp) {
+            rendering = ((RenderedOp) image).getRendering();
+        } else if (image instanceof MultiLevelImage) {
+            rendering = ((MultiLevelImage) image).getImage(0);
+        }
+        if (rendering instanceof OpImage) {
+            ((OpImage) rendering).setTileCache(null);
+        }
+        return rendering;
+    }
+
+    RleRaster getRleRaster() {
+        RleRaster raster = rleRaster;
+        if (raster == null) {
+            synchronized (this) {
+                raster = rleRaster;
+                if (raster == null) {
+                    raster = RleRaster.create(sourceImage, lock);
+                    rleRaster = raster;
+                }
+            }
+        }
+        return raster;
+    }
+
+    @Override
+    protected void computeRect(PlanarImage[] sourceImages, WritableRaster tile, Rectangle destRect) {
+        RleRaster raster = getRleRaster();
+        int[] samples = new int[destRect.width * destRect.height];
+        for (int y = 0; y < destRect.height; y++) {
+            raster.expandRow(destRect.y + y, destRect.x, destRect.width, samples, y * destRect.width);
+        }
+        tile.setSamples(destRect.x, destRect.y, destRect.width, destRect.height, 0, samples);
+    }
+}
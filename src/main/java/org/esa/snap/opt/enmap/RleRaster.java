@@ -0,0 +1,146 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.datamodel.ProductData;
+
+import java.awt.Rectangle;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Run-length encoded, in-memory copy of an 8-bit image. Each row is stored as a sequence of runs,
+ * a run consists of the value (one byte) and the run length (two bytes). The start of each row is indexed,
+ * so rows can be accessed randomly and expanded on the fly.
+ */
+class RleRaster {
+
+    private static final int BYTES_PER_RUN = 3;
+    private static final int MAX_RUN_LENGTH = 0xFFFF;
+    private static final int ROW_BLOCK_HEIGHT = 64;
+
+    private final int width;
+    private final int height;
+    private final byte[] runs;
+    private final int[] rowStarts;
+
+    private RleRaster(int width, int height, byte[] runs, int[] rowStarts) {
+        this.width = width;
+        this.height = height;
+        this.runs = runs;
+        this.rowStarts = rowStarts;
+    }
+
+    /**
+     * Encodes the image, it is read in blocks of rows. The access to the image is synchronised on the given lock.
+     */
+    static RleRaster create(RenderedImage image, Object lock) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] rowStarts = new int[height + 1];
+        ByteArrayOutputStream runStream = new ByteArrayOutputStream(height * BYTES_PER_RUN * 4);
+        int[] samples = null;
+        for (int blockY = 0; blockY < height; blockY += ROW_BLOCK_HEIGHT) {
+            Rectangle blockRect = new Rectangle(0, blockY, width, Math.min(ROW_BLOCK_HEIGHT, height - blockY));
+            Raster data;
+            synchronized (lock) {
+                data = image.getData(blockRect);
+            }
+            samples = data.getSamples(0, blockY, width, blockRect.height, 0, samples);
+            for (int row = 0; row < blockRect.height; row++) {
+                rowStarts[blockY + row] = runStream.size();
+                encodeRow(samples, row * width, width, runStream);
+            }
+        }
+        rowStarts[height] = runStream.size();
+        return new RleRaster(width, height, runStream.toByteArray(), rowStarts);
+    }
+
+    private static void encodeRow(int[] samples, int offset, int width, ByteArrayOutputStream runStream) {
+        int x = 0;
+        while (x < width) {
+            int value = samples[offset + x];
+            int length = 1;
+            while (x + length < width && length < MAX_RUN_LENGTH && samples[offset + x + length] == value) {
+                length++;
+            }
+            runStream.write(value);
+            runStream.write(length >> 8);
+            runStream.write(length);
+            x += length;
+        }
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    /**
+     * returns the number of bytes used by the encoded data and the row index
+     */
+    long getMemorySize() {
+        return runs.length + (long) rowStarts.length * Integer.BYTES;
+    }
+
+    int getSample(int x, int y) {
+        int runIndex = rowStarts[y];
+        int runX = 0;
+        while (runIndex < rowStarts[y + 1]) {
+            runX += getRunLength(runIndex);
+            if (x < runX) {
+                return runs[runIndex] & 0xFF;
+            }
+            runIndex += BYTES_PER_RUN;
+        }
+        throw new IllegalArgumentException(String.format("Pixel (%d, %d) is outside of the raster", x, y));
+    }
+
+    /**
+     * Expands a part of a row into the given array.
+     *
+     * @param y          the row
+     * @param x          the first column
+     * @param length     the number of pixels
+     * @param dest       the array receiving the pixels
+     * @param destOffset the index of the first pixel in the array
+     */
+    void expandRow(int y, int x, int length, int[] dest, int destOffset) {
+        int endX = x + length;
+        int runIndex = rowStarts[y];
+        int runStart = 0;
+        while (runIndex < rowStarts[y + 1] && runStart < endX) {
+            int runEnd = runStart + getRunLength(runIndex);
+            int from = Math.max(runStart, x);
+            int to = Math.min(runEnd, endX);
+            if (from < to) {
+                int value = runs[runIndex] & 0xFF;
+                for (int i = from; i < to; i++) {
+                    dest[destOffset + i - x] = value;
+                }
+            }
+            runStart = runEnd;
+            runIndex += BYTES_PER_RUN;
+        }
+    }
+
+    /**
+     * Expands the given region into the product data, line by line.
+     */
+    void expandInto(Rectangle region, ProductData dest) {
+        int[] line = new int[region.width];
+        for (int y = 0; y < region.height; y++) {
+            expandRow(region.y + y, region.x, region.width, line, 0);
+            int destOffset = y * region.width;
+            for (int x = 0; x < region.width; x++) {
+                dest.setElemIntAt(destOffset + x, line[x]);
+            }
+        }
+    }
+
+    private int getRunLength(int runIndex) {
+        return (runs[runIndex + 1] & 0xFF) << 8 | runs[runIndex + 2] & 0xFF;
+    }
+}
@@ -0,0 +1,28 @@
+package org.esa.snap.opt.enmap;
+
+/**
+ * Converts raw samples into geophysical float values by applying the scaling factor and offset of a band.
+ * Raw samples equal to the background value are converted to NaN.
+ */
+class SampleConversion {
+
+    private final float scalingFactor;
+    private final float scalingOffset;
+    private final float rawBackgroundValue;
+
+    SampleConversion(double scalingFactor, double scalingOffset, double rawBackgroundValue) {
+        this.scalingFactor = (float) scalingFactor;
+        this.scalingOffset = (float) scalingOffset;
+        this.rawBackgroundValue = (float) rawBackgroundValue;
+    }
+
+    /**
+     * converts the samples in place
+     */
+    void convert(float[] samples) {
+        for (int i = 0; i < samples.length; i++) {
+            float raw = samples[i];
+            samples[i] = raw == rawBackgroundValue ? Float.NaN : raw * scalingFactor + scalingOffset;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.util.SystemUtils;
+import org.esa.snap.opt.enmap.imgReader.EnmapImageReader;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.*;
+
+/**
+ * Watches the tile requests to the images of one {@link org.esa.snap.opt.enmap.imgReader.EnmapImageReader} and
+ * decodes the tiles which are likely requested next on a bounded background pool. Two access patterns are detected:
+ * <ul>
+ *     <li>spatial: the tiles of one image are requested row by row, the next tile of the row is prefetched</li>
+ *     <li>spectral: the same tile is requested for consecutive images, the tile of the next images is prefetched</li>
+ * </ul>
+ * The access patterns are tracked per requesting thread, as the tiles are usually requested by several threads
+ * concurrently. The prefetched tiles are put into the tile cache by the images themselves.
+ * <p>
+ * The tiles are decoded by a second reader of the same files, which is opened on the first prefetch. It is only
+ * used by the prefetch pool and has its own lock, so prefetching does not wait for the lock of the foreground reads
+ * and the decoding of both overlaps.
+ */
+class TilePrefetcher {
+
+    private static final int MAX_PENDING_TILES = 4096;
+
+    private final Map<Integer, EnmapMultiLevelSource> sources = new ConcurrentHashMap<>();
+    // the tiles which are queued or being decoded
+    private final Set<TileKey> pendingTiles = ConcurrentHashMap.newKeySet();
+    // the tiles which have been decoded but not yet requested
+    private final Set<TileKey> prefetchedTiles = ConcurrentHashMap.newKeySet();
+    // the last request of each thread by its id
+    private final Map<Long, TileKey> lastRequests = new ConcurrentHashMap<>();
+    private final EnmapImageReader imageReader;
+    private final Executor executor;
+    private final int bandGroupSize;
+    private final Object prefetchLock = new Object();
+    private EnmapImageReader prefetchReader;
+    private boolean prefetchReaderFailed;
+    private long requestCount;
+    private long prefetchCount;
+    private long hitCount;
+    private volatile boolean disposed;
+
+    TilePrefetcher(EnmapImageReader imageReader) {
+        this(imageReader, PrefetchExecutor.INSTANCE, PREFERENCES.getInt(ENMAP_PREFETCH_BAND_GROUP, 4));
+    }
+
+    TilePrefetcher(EnmapImageReader imageReader, Executor executor, int bandGroupSize) {
+        this.imageReader = imageReader;
+        this.executor = executor;
+        this.bandGroupSize = Math.max(1, bandGroupSize);
+    }
+
+    static boolean isEnabled() {
+        return PREFERENCES.getBoolean(ENMAP_PREFETCH_ENABLED, false);
+    }
+
+    void register(int imageIndex, EnmapMultiLevelSource source) {
+        sources.put(imageIndex, source);
+    }
+
+    /**
+     * Records the request of a tile and schedules the tiles which are likely requested next.
+     *
+     * @param cached whether the tile is in the tile cache, a prefetched tile which has been evicted is no hit
+     */
+    void tileRequested(int imageIndex, int level, int tileX, int tileY, boolean cached) {
+        if (disposed) {
+            return;
+        }
+        TileKey request = new TileKey(imageIndex, level, tileX, tileY);
+        synchronized (this) {
+            requestCount++;
+            if (prefetchedTiles.remove(request) && cached) {
+                hitCount++;
+            }
+        }
+        TileKey previous = lastRequests.put(Thread.currentThread().getId(), request);
+        if (previous == null || previous.level != level) {
+            return;
+        }
+        if (previous.imageIndex == imageIndex && previous.tileY == tileY && previous.tileX + 1 == tileX) {
+            schedule(new TileKey(imageIndex, level, tileX + 1, tileY));
+        } else if (previous.tileX == tileX && previous.tileY == tileY && previous.imageIndex + 1 == imageIndex) {
+            for (int i = 1; i <= bandGroupSize; i++) {
+                schedule(new TileKey(imageIndex + i, level, tileX, tileY));
+            }
+        }
+    }
+
+    synchronized PrefetchStatistics getStatistics() {
+        return new PrefetchStatistics(requestCount, prefetchCount, hitCount);
+    }
+
+    void dispose() {
+        disposed = true;
+        sources.clear();
+        pendingTiles.clear();
+        prefetchedTiles.clear();
+        lastRequests.clear();
+        synchronized (prefetchLock) {
+            if (prefetchReader != null) {
+                prefetchReader.close();
+                prefetchReader = null;
+            }
+        }
+    }
+
+    private void schedule(TileKey key) {
+        EnmapMultiLevelSource source = sources.get(key.imageIndex);
+        if (source == null || disposed || prefetchedTiles.contains(key) || !pendingTiles.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> prefetch(source, key));
+        } catch (RejectedExecutionException e) {
+            // the pool is saturated, the tile is not prefetched
+            pendingTiles.remove(key);
+        }
+    }
+
+    private void prefetch(EnmapMultiLevelSource source, TileKey key) {
+        try {
+            if (disposed) {
+                return;
+            }
+            EnmapLevelImage image = (EnmapLevelImage) source.getImage(key.level);
+            if (key.tileX < image.getMinTileX() + image.getNumXTiles() &&
+                key.tileY < image.getMinTileY() + image.getNumYTiles()) {
+                synchronized (prefetchLock) {
+                    EnmapImageReader reader = getPrefetchReader();
+                    if (reader == null) {
+                        return;
+                    }
+                    if (!image.prefetchTile(key.tileX, key.tileY, reader.getImageAt(key.imageIndex),
+                                            reader.getImageAt(key.imageIndex, key.level), prefetchLock)) {
+                        // the tile is already in the tile cache
+                        return;
+                    }
+                }
+                // only tiles which have actually been decoded are counted
+                if (prefetchedTiles.size() > MAX_PENDING_TILES) {
+                    // tiles which have been prefetched but never requested are forgotten
+                    prefetchedTiles.clear();
+                }
+                prefetchedTiles.add(key);
+                synchronized (this) {
+                    prefetchCount++;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            SystemUtils.LOG.log(Level.FINE, "Prefetching of tile failed", e);
+        } finally {
+            pendingTiles.remove(key);
+        }
+    }
+
+    // needs to be called while holding the prefetchLock
+    private EnmapImageReader getPrefetchReader() {
+        if (prefetchReader == null && !prefetchReaderFailed && !disposed) {
+            try {
+                prefetchReader = imageReader.reopen();
+            } catch (IOException | RuntimeException e) {
+                // without a reader of its own the prefetcher would compete with the foreground reads, it stays idle
+                prefetchReaderFailed = true;
+                SystemUtils.LOG.log(Level.FINE, "Could not open the reader for prefetching", e);
+            }
+        }
+        return prefetchReader;
+    }
+
+    private static class PrefetchExecutor {
+        // the pool is bounded; if it is saturated further prefetch requests are rejected
+        private static final ThreadPoolExecutor INSTANCE = createExecutor();
+
+        private static ThreadPoolExecutor createExecutor() {
+            int numThreads = Math.max(1, PREFERENCES.getInt(ENMAP_PREFETCH_THREADS, 2));
+            AtomicInteger threadCount = new AtomicInteger();
+            return new ThreadPoolExecutor(numThreads, numThreads, 30, TimeUnit.SECONDS,
+                                          new ArrayBlockingQueue<>(64),
+                                          r -> {
+                                              Thread thread = new Thread(r, "enmap-prefetch-" + threadCount.incrementAndGet());
+                                              thread.setDaemon(true);
+                                              return thread;
+                                          },
+                                          new ThreadPoolExecutor.AbortPolicy());
+        }
+    }
+
+    private static final class TileKey {
+        private final int imageIndex;
+        private final int level;
+        private final int tileX;
+        private final int tileY;
+
+        private TileKey(int imageIndex, int level, int tileX, int tileY) {
+            this.imageIndex = imageIndex;
+            this.level = level;
+            this.tileX = tileX;
+            this.tileY = tileY;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            TileKey tileKey = (TileKey) o;
+            return imageIndex == tileKey.imageIndex && level == tileKey.level &&
+                   tileX == tileKey.tileX && tileY == tileKey.tileY;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(imageIndex, level, tileX, tileY);
+        }
+    }
+}
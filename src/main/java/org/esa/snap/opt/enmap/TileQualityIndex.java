@@ -0,0 +1,253 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.util.SystemUtils;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.IntStream;
+
+/**
+ * Summarises the quality of every tile of the scene, derived from QUALITY_CLASSES and QUALITY_CLOUD.
+ * The tiles have the size of the tiles of the spectral band images, so operators can skip tiles
+ * without decoding any spectral data.
+ * <p>
+ * A tile is {@link TileClass#BACKGROUND} if all its pixels are background. Otherwise the background pixels are
+ * ignored and the tile is {@link TileClass#CLOUD} if all remaining pixels are cloudy, {@link TileClass#WATER} if
+ * all remaining pixels are cloud free water, and {@link TileClass#MIXED} in any other case.
+ */
+public class TileQualityIndex {
+
+    public enum TileClass {
+        BACKGROUND('B'), CLOUD('C'), WATER('W'), MIXED('M');
+
+        private final char code;
+
+        TileClass(char code) {
+            this.code = code;
+        }
+
+        private static TileClass fromCode(char code) {
+            for (TileClass tileClass : values()) {
+                if (tileClass.code == code) {
+                    return tileClass;
+                }
+            }
+            throw new IllegalArgumentException(String.format("Unknown tile class code '%s'", code));
+        }
+    }
+
+    static final String CACHE_FILE_SUFFIX = ".tile-index.txt";
+    private static final int CLASSES_MASK = 0b11;
+    private static final int CLASSES_WATER = 0b10;
+    private static final int CLASSES_BACKGROUND = 0b11;
+
+    private final int width;
+    private final int height;
+    private final int tileWidth;
+    private final int tileHeight;
+    private final int numXTiles;
+    private final int numYTiles;
+    private final TileClass[] tileClasses;
+
+    private TileQualityIndex(int width, int height, int tileWidth, int tileHeight, TileClass[] tileClasses) {
+        this.width = width;
+        this.height = height;
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        this.numXTiles = (width + tileWidth - 1) / tileWidth;
+        this.numYTiles = (height + tileHeight - 1) / tileHeight;
+        if (tileClasses.length != numXTiles * numYTiles) {
+            throw new IllegalArgumentException("Number of tile classes does not match the tile grid");
+        }
+        this.tileClasses = tileClasses;
+    }
+
+    public int getTileWidth() {
+        return tileWidth;
+    }
+
+    public int getTileHeight() {
+        return tileHeight;
+    }
+
+    public int getNumXTiles() {
+        return numXTiles;
+    }
+
+    public int getNumYTiles() {
+        return numYTiles;
+    }
+
+    /**
+     * returns the class of the tile at the given tile indices
+     *
+     * @param tileX the tile index in x direction
+     * @param tileY the tile index in y direction
+     * @return the tile class
+     */
+    public TileClass getTileClass(int tileX, int tileY) {
+        if (tileX < 0 || tileX >= numXTiles || tileY < 0 || tileY >= numYTiles) {
+            throw new IllegalArgumentException(String.format("Tile (%d, %d) is outside of the tile grid", tileX, tileY));
+        }
+        return tileClasses[tileY * numXTiles + tileX];
+    }
+
+    /**
+     * returns the class of the tile containing the given pixel
+     *
+     * @param x the x coordinate of the pixel
+     * @param y the y coordinate of the pixel
+     * @return the tile class
+     */
+    public TileClass getTileClassAt(int x, int y) {
+        return getTileClass(x / tileWidth, y / tileHeight);
+    }
+
+    /**
+     * returns whether all pixels of the given rectangle are located in tiles of the given class
+     *
+     * @param rect      the rectangle in pixel coordinates of the scene
+     * @param tileClass the tile class
+     * @return {@code true} if all tiles intersecting the rectangle are of the given class
+     */
+    public boolean isAll(Rectangle rect, TileClass tileClass) {
+        Rectangle clipped = rect.intersection(new Rectangle(width, height));
+        if (clipped.isEmpty()) {
+            return false;
+        }
+        int maxTileX = (clipped.x + clipped.width - 1) / tileWidth;
+        int maxTileY = (clipped.y + clipped.height - 1) / tileHeight;
+        for (int tileY = clipped.y / tileHeight; tileY <= maxTileY; tileY++) {
+            for (int tileX = clipped.x / tileWidth; tileX <= maxTileX; tileX++) {
+                if (getTileClass(tileX, tileY) != tileClass) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates the index by reading the quality images tile by tile, the tiles are processed in parallel.
+     *
+     * @param classesImage the image of QUALITY_CLASSES
+     * @param cloudImage   the image of QUALITY_CLOUD, can be {@code null}
+     * @param tileSize     the size of the tiles
+     * @return the index
+     */
+    static TileQualityIndex create(RenderedImage classesImage, RenderedImage cloudImage, Dimension tileSize) {
+        int width = classesImage.getWidth();
+        int height = classesImage.getHeight();
+        int numXTiles = (width + tileSize.width - 1) / tileSize.width;
+        int numYTiles = (height + tileSize.height - 1) / tileSize.height;
+        TileClass[] tileClasses = new TileClass[numXTiles * numYTiles];
+        IntStream.range(0, tileClasses.length).parallel().forEach(i -> {
+            int tileX = i % numXTiles;
+            int tileY = i / numXTiles;
+            Rectangle tileRect = new Rectangle(tileX * tileSize.width, tileY * tileSize.height, tileSize.width, tileSize.height)
+                    .intersection(new Rectangle(width, height));
+            tileClasses[i] = classifyTile(classesImage, cloudImage, tileRect);
+        });
+        return new TileQualityIndex(width, height, tileSize.width, tileSize.height, tileClasses);
+    }
+
+    private static TileClass classifyTile(RenderedImage classesImage, RenderedImage cloudImage, Rectangle tileRect) {
+        int[] classes = getSamples(classesImage, tileRect);
+        int[] clouds = cloudImage != null ? getSamples(cloudImage, tileRect) : null;
+        boolean allBackground = true;
+        boolean allCloud = true;
+        boolean allWater = true;
+        for (int i = 0; i < classes.length; i++) {
+            int pixelClass = classes[i] & CLASSES_MASK;
+            if (pixelClass == CLASSES_BACKGROUND) {
+                continue;
+            }
+            allBackground = false;
+            boolean cloud = clouds != null && (clouds[i] & 1) != 0;
+            allCloud &= cloud;
+            allWater &= !cloud && pixelClass == CLASSES_WATER;
+            if (!allCloud && !allWater) {
+                return TileClass.MIXED;
+            }
+        }
+        if (allBackground) {
+            return TileClass.BACKGROUND;
+        }
+        return allCloud ? TileClass.CLOUD : TileClass.WATER;
+    }
+
+    private static int[] getSamples(RenderedImage image, Rectangle rect) {
+        Raster data = image.getData(rect);
+        return data.getSamples(rect.x, rect.y, rect.width, rect.height, 0, (int[]) null);
+    }
+
+    /**
+     * Reads the index from a cache file, see {@link DerivedDataCache}. The file is only used if it has been written
+     * for the given fingerprint and matches the scene and tile size.
+     *
+     * @return the index or {@code null} if no valid cache file exists
+     */
+    static TileQualityIndex readCacheFile(Path cacheFile, String fingerprint, int width, int height, Dimension tileSize) {
+        if (!Files.isRegularFile(cacheFile)) {
+            return null;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(cacheFile, StandardCharsets.US_ASCII)) {
+            if (!fingerprint.equals(reader.readLine())) {
+                return null;
+            }
+            String[] header = reader.readLine().trim().split("\\s+");
+            if (Integer.parseInt(header[0]) != width || Integer.parseInt(header[1]) != height ||
+                    Integer.parseInt(header[2]) != tileSize.width || Integer.parseInt(header[3]) != tileSize.height) {
+                return null;
+            }
+            int numXTiles = (width + tileSize.width - 1) / tileSize.width;
+            int numYTiles = (height + tileSize.height - 1) / tileSize.height;
+            TileClass[] tileClasses = new TileClass[numXTiles * numYTiles];
+            for (int tileY = 0; tileY < numYTiles; tileY++) {
+                String line = reader.readLine();
+                for (int tileX = 0; tileX < numXTiles; tileX++) {
+                    tileClasses[tileY * numXTiles + tileX] = TileClass.fromCode(line.charAt(tileX));
+                }
+            }
+            return new TileQualityIndex(width, height, tileSize.width, tileSize.height, tileClasses);
+        } catch (IOException | RuntimeException e) {
+            SystemUtils.LOG.warning(String.format("Could not read tile quality index from '%s': %s", cacheFile, e.getMessage()));
+            return null;
+        }
+    }
+
+    /**
+     * Writes the index into a cache file. The first line contains the fingerprint, the second the scene width and
+     * height and the tile width and height, then follows one line per tile row with one character per tile.
+     */
+    static void writeCacheFile(Path cacheFile, String fingerprint, TileQualityIndex index) {
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            try (BufferedWriter writer = Files.newBufferedWriter(cacheFile, StandardCharsets.US_ASCII)) {
+                writer.write(fingerprint);
+                writer.newLine();
+                writer.write(String.format("%d %d %d %d", index.width, index.height, index.tileWidth, index.tileHeight));
+                writer.newLine();
+                for (int tileY = 0; tileY < index.numYTiles; tileY++) {
+                    StringBuilder line = new StringBuilder(index.numXTiles);
+                    for (int tileX = 0; tileX < index.numXTiles; tileX++) {
+                        line.append(index.getTileClass(tileX, tileY).code);
+                    }
+                    writer.write(line.toString());
+                    writer.newLine();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // the index is still kept in memory
+            SystemUtils.LOG.warning(String.format("Could not write tile quality index to '%s': %s", cacheFile, e.getMessage()));
+        }
+    }
+}
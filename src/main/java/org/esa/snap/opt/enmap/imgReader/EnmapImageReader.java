@@ -6,6 +6,7 @@ import org.esa.snap.opt.enmap.EnmapProductReaderPlugIn;
 import org.esa.snap.opt.enmap.ProductFormat;
 
 import java.awt.Dimension;
+import java.awt.Rectangle;
 import java.awt.image.RenderedImage;
 import java.io.IOException;
 import java.util.Map;
@@ -37,6 +38,18 @@ public interface EnmapImageReader {
         }
     }
 
+    /**
+     * Creates a reader which provides only a region of the images of the given reader. The images of the returned
+     * reader start at the origin of the region.
+     *
+     * @param imageReader the reader providing the complete images
+     * @param region      the region in pixel coordinates of the complete images
+     * @return reader instance to access the region
+     */
+    static EnmapImageReader createSubsetReader(EnmapImageReader imageReader, Rectangle region) {
+        return new SubsetImageReader(imageReader, region);
+    }
+
     /**
      * Creates an image reader. Implementation depends on the format of the data retrieved from the metadata.
      * Currently only {@link ProductFormat GeoTIFF+Metadata} is supported.
@@ -93,6 +106,47 @@ public interface EnmapImageReader {
      */
     RenderedImage getImageAt(int index) throws IOException;
 
+    /**
+     * returns the spectral image at the specified index (zero based) in a reduced resolution, if the source can
+     * provide this level natively, e.g. from internal TIFF overviews or by decimated reading.
+     *
+     * @param index the spectral index
+     * @param level the resolution level, zero is the full resolution
+     * @return the image at the given spectral index and level or {@code null} if the level is not natively available
+     * @throws IOException              in case the information could not be retrieved from the source
+     * @throws IllegalArgumentException in case the index is less than zero or higher than the maximum number of images minus one
+     */
+    default RenderedImage getImageAt(int index, int level) throws IOException {
+        return level == 0 ? getImageAt(index) : null;
+    }
+
+    /**
+     * returns the name of the library decoding the images, it is reported in the flight recorder events
+     *
+     * @return the name of the backend
+     */
+    default String getBackendName() {
+        return getClass().getSimpleName();
+    }
+
+    /**
+     * returns the time spent extracting the files of this reader from the zip file of the product
+     *
+     * @return the extraction time in nanoseconds, zero if the product is not zipped or the files are streamed
+     */
+    default long getZipExtractionTime() {
+        return 0;
+    }
+
+    /**
+     * Creates another reader of the same files. It has its own file handles and decoder state, so it can be used
+     * concurrently to this reader, e.g. for decoding tiles in the background.
+     *
+     * @return the new reader, which needs to be closed by the caller
+     * @throws IOException in case the files cannot be opened again
+     */
+    EnmapImageReader reopen() throws IOException;
+
     /**
      * Closes any open resource
      */
@@ -1,6 +1,7 @@
 package org.esa.snap.opt.enmap.imgReader;
 
 import com.bc.ceres.core.VirtualDir;
+import com.bc.ceres.glevel.MultiLevelImage;
 import org.esa.snap.core.dataio.ProductIOPlugInManager;
 import org.esa.snap.core.dataio.ProductReader;
 import org.esa.snap.core.dataio.ProductReaderPlugIn;
@@ -8,6 +9,7 @@ import org.esa.snap.core.datamodel.Product;
 
 import java.awt.Dimension;
 import java.awt.image.RenderedImage;
+import java.io.File;
 import java.io.IOException;
 import java.util.Iterator;
 
@@ -16,9 +18,15 @@ import static org.esa.snap.opt.enmap.EnmapFileUtils.getRelativePath;
 class GdalGeoTiffImageReader implements EnmapImageReader {
     public static final String GDAL_FORMAT_NAME = "GDAL-GTiff-READER";
     private final Product product;
+    private final long zipExtractionTime;
+    private final VirtualDir dataDir;
+    private final String fileName;
 
-    private GdalGeoTiffImageReader(Product gtProduct) {
+    private GdalGeoTiffImageReader(Product gtProduct, long zipExtractionTime, VirtualDir dataDir, String fileName) {
         this.product = gtProduct;
+        this.zipExtractionTime = zipExtractionTime;
+        this.dataDir = dataDir;
+        this.fileName = fileName;
     }
 
     public static EnmapImageReader createImageReader(VirtualDir dataDir, String fileName) throws IOException {
@@ -28,8 +36,12 @@ class GdalGeoTiffImageReader implements EnmapImageReader {
             if (readerPlugIns.hasNext()) {
                 ProductReader reader = readerPlugIns.next().createReaderInstance();
                 String relativePath = getRelativePath(dataDir, fileName);
-                Product product = reader.readProductNodes(dataDir.getFile(relativePath), null);
-                return new GdalGeoTiffImageReader(product);
+                // GDAL needs a file, from a zip it is extracted into the temporary directory first
+                long extractionStart = System.nanoTime();
+                File file = dataDir.getFile(relativePath);
+                long zipExtractionTime = dataDir.isArchive() ? System.nanoTime() - extractionStart : 0;
+                Product product = reader.readProductNodes(file, null);
+                return new GdalGeoTiffImageReader(product, zipExtractionTime, dataDir, fileName);
             }else {
                 throw new IllegalStateException(String.format("Reader '%s' not found.", GDAL_FORMAT_NAME));
             }
@@ -53,6 +65,31 @@ class GdalGeoTiffImageReader implements EnmapImageReader {
         return product.getBandAt(index).getSourceImage();
     }
 
+    @Override
+    public RenderedImage getImageAt(int index, int level) {
+        // GDAL serves the lower levels from the internal overviews if present, otherwise by decimated reading
+        MultiLevelImage sourceImage = product.getBandAt(index).getSourceImage();
+        if (level < sourceImage.getModel().getLevelCount()) {
+            return sourceImage.getImage(level);
+        }
+        return null;
+    }
+
+    @Override
+    public long getZipExtractionTime() {
+        return zipExtractionTime;
+    }
+
+    @Override
+    public String getBackendName() {
+        return "GDAL";
+    }
+
+    @Override
+    public EnmapImageReader reopen() throws IOException {
+        return createImageReader(dataDir, fileName);
+    }
+
     @Override
     public void close() {
         product.dispose();
@@ -1,27 +1,45 @@
 package org.esa.snap.opt.enmap.imgReader;
 
 import com.bc.ceres.core.VirtualDir;
+import it.geosolutions.imageioimpl.plugins.tiff.TIFFImageReader;
+import it.geosolutions.imageioimpl.plugins.tiff.TIFFImageReaderSpi;
 import it.geosolutions.imageioimpl.plugins.tiff.TIFFRenderedImage;
+import org.esa.snap.core.util.SystemUtils;
 import org.esa.snap.dataio.geotiff.GeoTiffImageReader;
 
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.stream.ImageInputStream;
 import javax.media.jai.operator.BandSelectDescriptor;
 import java.awt.Dimension;
 import java.awt.image.RenderedImage;
+import java.io.File;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 import static org.esa.snap.opt.enmap.EnmapFileUtils.getInputStream;
+import static org.esa.snap.opt.enmap.EnmapFileUtils.getRelativePath;
 
 class JaiGeoTiffImageReader implements EnmapImageReader{
     private GeoTiffImageReader geoTiffImageReader;
+    private final VirtualDir dataDir;
+    private final String fileName;
+    // the reduced levels are read with source sub-sampling by a second TIFF reader, created on first use
+    private ImageInputStream levelInputStream;
+    private TIFFImageReader levelReader;
+    private final Map<Integer, RenderedImage> levelImages = new HashMap<>();
 
-    private JaiGeoTiffImageReader(GeoTiffImageReader geoTiffImageReader) {
+    private JaiGeoTiffImageReader(GeoTiffImageReader geoTiffImageReader, VirtualDir dataDir, String fileName) {
         this.geoTiffImageReader = geoTiffImageReader;
+        this.dataDir = dataDir;
+        this.fileName = fileName;
     }
 
     public static EnmapImageReader createImageReader(VirtualDir dataDir, String fileName) throws IOException {
         try {
             return new JaiGeoTiffImageReader(new GeoTiffImageReader(getInputStream(dataDir, fileName), () -> {
-            }));
+            }), dataDir, fileName);
         } catch (IllegalStateException ise) {
             throw new IOException("Could not create spectral data reader.", ise);
         }
@@ -43,8 +61,67 @@ class JaiGeoTiffImageReader implements EnmapImageReader{
         return BandSelectDescriptor.create(geoTiffImageReader.getBaseImage(), new int[]{index}, null);
     }
 
+    /**
+     * Provides the reduced levels by reading every 2^level-th pixel of every 2^level-th line, so only the
+     * pixels of the level are copied instead of the full resolution rectangle. The sub-sampled image is shared by
+     * all bands of a level; its width and height are rounded up, so it covers the level image of the band.
+     */
     @Override
-    public void close() {
+    public RenderedImage getImageAt(int index, int level) throws IOException {
+        if (level == 0) {
+            return getImageAt(index);
+        }
+        RenderedImage levelImage = getSubsampledImage(level);
+        return BandSelectDescriptor.create(levelImage, new int[]{index}, null);
+    }
+
+    private synchronized RenderedImage getSubsampledImage(int level) throws IOException {
+        RenderedImage levelImage = levelImages.get(level);
+        if (levelImage == null) {
+            if (levelReader == null) {
+                // for a zipped product the file is extracted once by the virtual directory
+                File file = dataDir.getFile(getRelativePath(dataDir, fileName));
+                levelInputStream = ImageIO.createImageInputStream(file);
+                if (levelInputStream == null) {
+                    throw new IOException(String.format("Could not open '%s' for reading reduced levels", fileName));
+                }
+                levelReader = new TIFFImageReader(new TIFFImageReaderSpi());
+                levelReader.setInput(levelInputStream, true, true);
+            }
+            int step = 1 << level;
+            ImageReadParam readParam = levelReader.getDefaultReadParam();
+            readParam.setSourceSubsampling(step, step, 0, 0);
+            levelImage = levelReader.readAsRenderedImage(0, readParam);
+            levelImages.put(level, levelImage);
+        }
+        return levelImage;
+    }
+
+    @Override
+    public EnmapImageReader reopen() throws IOException {
+        return createImageReader(dataDir, fileName);
+    }
+
+    @Override
+    public String getBackendName() {
+        return "JAI";
+    }
+
+    @Override
+    public synchronized void close() {
         geoTiffImageReader.close();
+        levelImages.clear();
+        if (levelReader != null) {
+            levelReader.dispose();
+            levelReader = null;
+        }
+        if (levelInputStream != null) {
+            try {
+                levelInputStream.close();
+            } catch (IOException e) {
+                SystemUtils.LOG.fine(String.format("Could not close '%s': %s", fileName, e.getMessage()));
+            }
+            levelInputStream = null;
+        }
     }
 }
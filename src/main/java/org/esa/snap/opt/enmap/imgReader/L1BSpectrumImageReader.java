@@ -7,51 +7,123 @@ import java.awt.Dimension;
 import java.awt.image.RenderedImage;
 import java.io.IOException;
 
+/**
+ * Combines the VNIR and SWIR images of L1B products. The readers of the two detectors are opened on first use,
+ * so a file is not opened if none of its images is requested.
+ */
 class L1BSpectrumImageReader implements EnmapImageReader {
 
-    private final EnmapImageReader vnirImageReader;
-    private final EnmapImageReader swirImageReader;
+    private final VirtualDir dataDir;
+    private final EnmapMetadata meta;
+    private final String vnirImageKey;
+    private final String swirImageKey;
+    private final int numVnirImages;
+    private final int numSwirImages;
+    private EnmapImageReader vnirImageReader;
+    private EnmapImageReader swirImageReader;
 
     public L1BSpectrumImageReader(VirtualDir dataDir, EnmapMetadata meta, String vnirImageKey, String swirImageKey) throws IOException {
-        vnirImageReader = EnmapImageReader.createImageReader(dataDir, meta, vnirImageKey);
-        swirImageReader = EnmapImageReader.createImageReader(dataDir, meta, swirImageKey);
+        this.dataDir = dataDir;
+        this.meta = meta;
+        this.vnirImageKey = vnirImageKey;
+        this.swirImageKey = swirImageKey;
+        numVnirImages = meta.getNumVnirBands();
+        numSwirImages = meta.getNumSwirBands();
     }
 
     @Override
-    public Dimension getTileDimension() throws IOException {
-        return vnirImageReader.getTileDimension();
+    public synchronized Dimension getTileDimension() throws IOException {
+        if (vnirImageReader == null && swirImageReader != null) {
+            return swirImageReader.getTileDimension();
+        }
+        return getVnirImageReader().getTileDimension();
     }
 
     @Override
-    public int getNumImages() throws IOException {
+    public int getNumImages() {
         return getNumVnirImages() + getNumSwirImages();
     }
 
-    public int getNumVnirImages() throws IOException {
-        return vnirImageReader.getNumImages();
+    public int getNumVnirImages() {
+        return numVnirImages;
     }
 
-    public int getNumSwirImages() throws IOException {
-        return swirImageReader.getNumImages();
+    public int getNumSwirImages() {
+        return numSwirImages;
     }
 
     @Override
     public RenderedImage getImageAt(int index) throws IOException {
-        int vnirImages = getNumVnirImages();
-        int swirImages = getNumSwirImages();
-        int maxImages = vnirImages + swirImages;
-        if (index < vnirImages) {
-            return vnirImageReader.getImageAt(index);
-        } else if (index < maxImages) {
-            return swirImageReader.getImageAt(index - vnirImages);
+        int maxImages = numVnirImages + numSwirImages;
+        if (index < 0 || index >= maxImages) {
+            throw new IllegalArgumentException(String.format("Image index must be between 0 and %d", maxImages - 1));
+        }
+        if (index < numVnirImages) {
+            return getVnirImageReader().getImageAt(index);
         } else {
+            return getSwirImageReader().getImageAt(index - numVnirImages);
+        }
+    }
+
+    @Override
+    public RenderedImage getImageAt(int index, int level) throws IOException {
+        int maxImages = numVnirImages + numSwirImages;
+        if (index < 0 || index >= maxImages) {
             throw new IllegalArgumentException(String.format("Image index must be between 0 and %d", maxImages - 1));
         }
+        if (index < numVnirImages) {
+            return getVnirImageReader().getImageAt(index, level);
+        } else {
+            return getSwirImageReader().getImageAt(index - numVnirImages, level);
+        }
+    }
+
+    @Override
+    public EnmapImageReader reopen() throws IOException {
+        // the detectors are opened on first use, as by this reader
+        return new L1BSpectrumImageReader(dataDir, meta, vnirImageKey, swirImageKey);
+    }
+
+    private synchronized EnmapImageReader getVnirImageReader() throws IOException {
+        if (vnirImageReader == null) {
+            vnirImageReader = EnmapImageReader.createImageReader(dataDir, meta, vnirImageKey);
+        }
+        return vnirImageReader;
+    }
+
+    private synchronized EnmapImageReader getSwirImageReader() throws IOException {
+        if (swirImageReader == null) {
+            swirImageReader = EnmapImageReader.createImageReader(dataDir, meta, swirImageKey);
+        }
+        return swirImageReader;
+    }
+
+    @Override
+    public synchronized String getBackendName() {
+        // both detectors are read by the same backend
+        EnmapImageReader openedReader = vnirImageReader != null ? vnirImageReader : swirImageReader;
+        return openedReader != null ? openedReader.getBackendName() : EnmapImageReader.super.getBackendName();
+    }
+
+    @Override
+    public synchronized long getZipExtractionTime() {
+        long zipExtractionTime = 0;
+        if (vnirImageReader != null) {
+            zipExtractionTime += vnirImageReader.getZipExtractionTime();
+        }
+        if (swirImageReader != null) {
+            zipExtractionTime += swirImageReader.getZipExtractionTime();
+        }
+        return zipExtractionTime;
     }
 
     @Override
-    public void close() {
-        vnirImageReader.close();
-        swirImageReader.close();
+    public synchronized void close() {
+        if (vnirImageReader != null) {
+            vnirImageReader.close();
+        }
+        if (swirImageReader != null) {
+            swirImageReader.close();
+        }
     }
 }
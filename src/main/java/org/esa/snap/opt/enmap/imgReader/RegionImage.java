@@ -0,0 +1,39 @@
+package org.esa.snap.opt.enmap.imgReader;
+
+import org.esa.snap.core.image.ResolutionLevel;
+import org.esa.snap.core.image.SingleBandedOpImage;
+
+import javax.media.jai.PlanarImage;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.WritableRaster;
+
+/**
+ * A rectangular region of a single-banded source image, shifted to the origin. The tiles are not cached,
+ * they are copied from the source on each request.
+ */
+class RegionImage extends SingleBandedOpImage {
+
+    private final RenderedImage sourceImage;
+    private final int offsetX;
+    private final int offsetY;
+
+    RegionImage(RenderedImage sourceImage, Rectangle region) {
+        super(sourceImage.getSampleModel().getDataType(), region.width, region.height,
+              new Dimension(Math.min(sourceImage.getTileWidth(), region.width), Math.min(sourceImage.getTileHeight(), region.height)),
+              null, ResolutionLevel.MAXRES);
+        this.sourceImage = sourceImage;
+        this.offsetX = region.x;
+        this.offsetY = region.y;
+        setTileCache(null);
+    }
+
+    @Override
+    protected void computeRect(PlanarImage[] sourceImages, WritableRaster tile, Rectangle destRect) {
+        Rectangle sourceRect = new Rectangle(destRect.x + offsetX, destRect.y + offsetY, destRect.width, destRect.height);
+        Raster data = sourceImage.getData(sourceRect);
+        tile.setRect(-offsetX, -offsetY, data);
+    }
+}
@@ -0,0 +1,79 @@
+package org.esa.snap.opt.enmap.imgReader;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.RenderedImage;
+import java.io.IOException;
+
+/**
+ * Provides a region of the images of another reader. The images start at the origin of the region.
+ */
+class SubsetImageReader implements EnmapImageReader {
+
+    private final EnmapImageReader imageReader;
+    private final Rectangle region;
+
+    SubsetImageReader(EnmapImageReader imageReader, Rectangle region) {
+        this.imageReader = imageReader;
+        this.region = new Rectangle(region);
+    }
+
+    @Override
+    public Dimension getTileDimension() throws IOException {
+        Dimension tileDimension = imageReader.getTileDimension();
+        return new Dimension(Math.min(tileDimension.width, region.width), Math.min(tileDimension.height, region.height));
+    }
+
+    @Override
+    public int getNumImages() throws IOException {
+        return imageReader.getNumImages();
+    }
+
+    @Override
+    public RenderedImage getImageAt(int index) throws IOException {
+        return new RegionImage(imageReader.getImageAt(index), region);
+    }
+
+    @Override
+    public RenderedImage getImageAt(int index, int level) throws IOException {
+        if (level == 0) {
+            return getImageAt(index);
+        }
+        // the region can only be taken from the level image if it starts at a pixel of this level
+        int scale = 1 << level;
+        if (region.x % scale != 0 || region.y % scale != 0) {
+            return null;
+        }
+        RenderedImage levelImage = imageReader.getImageAt(index, level);
+        if (levelImage == null) {
+            return null;
+        }
+        Rectangle levelRegion = new Rectangle(region.x / scale, region.y / scale,
+                                              (region.width + scale - 1) / scale, (region.height + scale - 1) / scale);
+        levelRegion = levelRegion.intersection(new Rectangle(levelImage.getWidth(), levelImage.getHeight()));
+        if (levelRegion.isEmpty()) {
+            return null;
+        }
+        return new RegionImage(levelImage, levelRegion);
+    }
+
+    @Override
+    public String getBackendName() {
+        return imageReader.getBackendName();
+    }
+
+    @Override
+    public long getZipExtractionTime() {
+        return imageReader.getZipExtractionTime();
+    }
+
+    @Override
+    public EnmapImageReader reopen() throws IOException {
+        return new SubsetImageReader(imageReader.reopen(), region);
+    }
+
+    @Override
+    public void close() {
+        imageReader.close();
+    }
+}
@@ -0,0 +1,38 @@
+package org.esa.snap.opt.enmap.resampling;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The bands of multispectral sensors to which EnMAP data can be resampled without a file of response functions.
+ * The response functions are Gaussian approximations with the central wavelengths and bandwidths (FWHM) of the
+ * sensor specifications. For exact results the tabulated response functions published for the sensor can be given
+ * to the operator instead.
+ */
+public enum SensorPreset {
+
+    SENTINEL2_MSI(new String[]{"B1", "B2", "B3", "B4", "B5", "B6", "B7", "B8", "B8A", "B9", "B10", "B11", "B12"},
+                  new double[]{442.7, 492.4, 559.8, 664.6, 704.1, 740.5, 782.8, 832.8, 864.7, 945.1, 1373.5, 1613.7, 2202.4},
+                  new double[]{21, 66, 36, 31, 15, 15, 20, 106, 21, 20, 31, 91, 175}),
+    LANDSAT8_OLI(new String[]{"B1", "B2", "B3", "B4", "B5", "B6", "B7", "B9"},
+                 new double[]{443.0, 482.0, 561.4, 654.6, 864.7, 1608.9, 2200.7, 1373.4},
+                 new double[]{16, 60, 57, 37, 28, 85, 187, 21});
+
+    private final String[] bandNames;
+    private final double[] centers;
+    private final double[] fwhms;
+
+    SensorPreset(String[] bandNames, double[] centers, double[] fwhms) {
+        this.bandNames = bandNames;
+        this.centers = centers;
+        this.fwhms = fwhms;
+    }
+
+    public List<SpectralResponseFunction> getResponseFunctions() {
+        List<SpectralResponseFunction> functions = new ArrayList<>();
+        for (int i = 0; i < bandNames.length; i++) {
+            functions.add(SpectralResponseFunction.gaussian(bandNames[i], centers[i], fwhms[i]));
+        }
+        return functions;
+    }
+}
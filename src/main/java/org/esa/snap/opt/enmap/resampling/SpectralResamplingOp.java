@@ -0,0 +1,190 @@
+package org.esa.snap.opt.enmap.resampling;
+
+import com.bc.ceres.core.ProgressMonitor;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.gpf.Operator;
+import org.esa.snap.core.gpf.OperatorException;
+import org.esa.snap.core.gpf.OperatorSpi;
+import org.esa.snap.core.gpf.Tile;
+import org.esa.snap.core.gpf.annotations.OperatorMetadata;
+import org.esa.snap.core.gpf.annotations.Parameter;
+import org.esa.snap.core.gpf.annotations.SourceProduct;
+import org.esa.snap.core.gpf.annotations.TargetProduct;
+import org.esa.snap.core.util.ProductUtils;
+import org.esa.snap.core.util.SystemUtils;
+
+import java.awt.Rectangle;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resamples the spectral bands of an EnMAP product to the bands of a multispectral sensor. The bands are weighted
+ * sums of the EnMAP bands, the weights are computed once from the band characterisation and the response functions
+ * of the sensor, see {@link SpectralWeights}.
+ * <p>
+ * All target bands are computed together for a tile: each contributing EnMAP band is read once and added to all
+ * target bands it contributes to. The tiles are computed concurrently by the GPF tile scheduler. A target pixel
+ * is NaN if one of its contributing EnMAP pixels is no-data.
+ */
+@OperatorMetadata(alias = "EnmapSpectralResampling",
+        category = "Optical/Preprocessing",
+        version = "1.0",
+        authors = "Brockmann Consult GmbH",
+        description = "Resamples the spectral bands of an EnMAP product to the bands of a multispectral sensor.")
+public class SpectralResamplingOp extends Operator {
+
+    @SourceProduct(description = "The EnMAP product")
+    private Product sourceProduct;
+
+    @TargetProduct
+    private Product targetProduct;
+
+    @Parameter(defaultValue = "SENTINEL2_MSI",
+            description = "The sensor whose bands are simulated with Gaussian approximations of their response functions.")
+    private SensorPreset sensor;
+
+    @Parameter(label = "Response functions file",
+            description = "A table of response functions in place of the sensor. The first column is the wavelength " +
+                    "in nm, the header names the bands of the following columns.")
+    private File srfFile;
+
+    @Parameter(defaultValue = "0.001", interval = "[0.0, 1.0)",
+            description = "The relative weight below which an EnMAP band is not used for a target band.")
+    private double minWeight;
+
+    private Band[] sourceBands;
+    private SpectralWeights weights;
+    private Band[] targetBands;
+    // the indices of the target bands by the indices of the response functions, -1 if no EnMAP band contributes
+    private int[] targetBandIndices;
+
+    @Override
+    public void initialize() throws OperatorException {
+        List<Band> spectralBands = new ArrayList<>();
+        for (Band band : sourceProduct.getBands()) {
+            if (band.getSpectralBandIndex() >= 0 && band.getSpectralWavelength() > 0) {
+                spectralBands.add(band);
+            }
+        }
+        if (spectralBands.isEmpty()) {
+            throw new OperatorException("The source product contains no spectral bands");
+        }
+        sourceBands = spectralBands.toArray(new Band[0]);
+        float[] centers = new float[sourceBands.length];
+        float[] fwhms = new float[sourceBands.length];
+        for (int i = 0; i < sourceBands.length; i++) {
+            centers[i] = sourceBands[i].getSpectralWavelength();
+            fwhms[i] = sourceBands[i].getSpectralBandwidth();
+        }
+        List<SpectralResponseFunction> functions = getResponseFunctions();
+        weights = SpectralWeights.compute(centers, fwhms, functions, minWeight);
+
+        int width = sourceProduct.getSceneRasterWidth();
+        int height = sourceProduct.getSceneRasterHeight();
+        String productType = sourceProduct.getProductType() + "_" + (srfFile != null ? "SRF" : sensor.name());
+        targetProduct = new Product(sourceProduct.getName() + "_resampled", productType, width, height);
+        targetProduct.setDescription(sourceProduct.getDescription());
+        targetProduct.setStartTime(sourceProduct.getStartTime());
+        targetProduct.setEndTime(sourceProduct.getEndTime());
+        targetProduct.setPreferredTileSize(sourceProduct.getPreferredTileSize());
+        ProductUtils.copyMetadata(sourceProduct, targetProduct);
+        ProductUtils.copyTiePointGrids(sourceProduct, targetProduct);
+        ProductUtils.copyGeoCoding(sourceProduct, targetProduct);
+
+        List<Band> bands = new ArrayList<>();
+        targetBandIndices = new int[functions.size()];
+        for (int i = 0; i < functions.size(); i++) {
+            SpectralResponseFunction function = functions.get(i);
+            if (weights.getSourceIndices(i).length == 0) {
+                SystemUtils.LOG.warning(String.format("The band '%s' is outside of the spectral range of the product " +
+                                                      "and is not resampled", function.getName()));
+                targetBandIndices[i] = -1;
+                continue;
+            }
+            Band band = targetProduct.addBand(function.getName(), ProductData.TYPE_FLOAT32);
+            band.setSpectralBandIndex(bands.size());
+            band.setSpectralWavelength((float) function.getCentralWavelength());
+            band.setSpectralBandwidth((float) function.getBandwidth());
+            band.setUnit(sourceBands[0].getUnit());
+            band.setDescription(String.format("%s resampled from %d EnMAP bands", function.getName(),
+                                              weights.getSourceIndices(i).length));
+            band.setNoDataValue(Double.NaN);
+            band.setNoDataValueUsed(true);
+            targetBandIndices[i] = bands.size();
+            bands.add(band);
+        }
+        if (bands.isEmpty()) {
+            throw new OperatorException("None of the response functions overlaps with the spectral bands of the product");
+        }
+        targetBands = bands.toArray(new Band[0]);
+    }
+
+    private List<SpectralResponseFunction> getResponseFunctions() {
+        if (srfFile == null) {
+            return sensor.getResponseFunctions();
+        }
+        try (Reader reader = Files.newBufferedReader(srfFile.toPath(), StandardCharsets.UTF_8)) {
+            return SpectralResponseFunction.read(reader);
+        } catch (IOException e) {
+            throw new OperatorException(String.format("Cannot read the response functions from '%s': %s",
+                                                      srfFile, e.getMessage()), e);
+        }
+    }
+
+    @Override
+    public void computeTileStack(Map<Band, Tile> targetTiles, Rectangle targetRectangle, ProgressMonitor pm) throws OperatorException {
+        int numPixels = targetRectangle.width * targetRectangle.height;
+        float[][] sums = new float[targetBands.length][numPixels];
+        pm.beginTask("Resampling spectral bands", sourceBands.length);
+        try {
+            for (int source = 0; source < sourceBands.length; source++) {
+                int[] targets = weights.getTargetIndices(source);
+                if (targets.length == 0) {
+                    pm.worked(1);
+                    continue;
+                }
+                checkForCancellation();
+                Band sourceBand = sourceBands[source];
+                float[] samples = getSourceTile(sourceBand, targetRectangle).getSamplesFloat();
+                if (sourceBand.isNoDataValueUsed()) {
+                    float noDataValue = (float) sourceBand.getGeophysicalNoDataValue();
+                    for (int i = 0; i < numPixels; i++) {
+                        if (samples[i] == noDataValue) {
+                            samples[i] = Float.NaN;
+                        }
+                    }
+                }
+                float[] targetWeights = weights.getTargetWeights(source);
+                for (int k = 0; k < targets.length; k++) {
+                    int targetIndex = targetBandIndices[targets[k]];
+                    float weight = targetWeights[k];
+                    float[] sum = sums[targetIndex];
+                    for (int i = 0; i < numPixels; i++) {
+                        sum[i] += weight * samples[i];
+                    }
+                }
+                pm.worked(1);
+            }
+            for (int i = 0; i < targetBands.length; i++) {
+                targetTiles.get(targetBands[i]).setSamples(sums[i]);
+            }
+        } finally {
+            pm.done();
+        }
+    }
+
+    public static class Spi extends OperatorSpi {
+
+        public Spi() {
+            super(SpectralResamplingOp.class);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package org.esa.snap.opt.enmap.resampling;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The relative spectral response of a band of a multispectral sensor, tabulated at increasing wavelengths in nm.
+ * Between the wavelengths the response is interpolated linearly, outside of them it is zero.
+ */
+public class SpectralResponseFunction {
+
+    private final String name;
+    private final double[] wavelengths;
+    private final double[] responses;
+
+    public SpectralResponseFunction(String name, double[] wavelengths, double[] responses) {
+        if (wavelengths.length != responses.length || wavelengths.length < 2) {
+            throw new IllegalArgumentException(
+                    String.format("The response function '%s' needs at least two wavelengths with one response each", name));
+        }
+        for (int i = 1; i < wavelengths.length; i++) {
+            if (wavelengths[i] <= wavelengths[i - 1]) {
+                throw new IllegalArgumentException(
+                        String.format("The wavelengths of the response function '%s' are not increasing", name));
+            }
+        }
+        this.name = name;
+        this.wavelengths = wavelengths.clone();
+        this.responses = responses.clone();
+    }
+
+    /**
+     * returns a Gaussian response function, tabulated in steps of 1 nm up to three times the full width at half maximum
+     * from the center
+     */
+    public static SpectralResponseFunction gaussian(String name, double center, double fwhm) {
+        double sigma = fwhm / (2.0 * Math.sqrt(2.0 * Math.log(2.0)));
+        int halfWidth = (int) Math.ceil(3.0 * fwhm);
+        double[] wavelengths = new double[2 * halfWidth + 1];
+        double[] responses = new double[wavelengths.length];
+        for (int i = 0; i < wavelengths.length; i++) {
+            double offset = i - halfWidth;
+            wavelengths[i] = center + offset;
+            responses[i] = Math.exp(-0.5 * offset * offset / (sigma * sigma));
+        }
+        return new SpectralResponseFunction(name, wavelengths, responses);
+    }
+
+    /**
+     * Reads the response functions of several bands from a table. The first line which is not empty and not a comment
+     * (starting with '#') is the header, its first column is the wavelength in nm and the following columns name the
+     * bands. Each further line contains a wavelength and the responses of the bands. The columns are separated by
+     * commas, semicolons, tabs or blanks.
+     */
+    public static List<SpectralResponseFunction> read(Reader reader) throws IOException {
+        BufferedReader lineReader = new BufferedReader(reader);
+        String[] header = null;
+        List<double[]> rows = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = lineReader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] columns = line.split("\\s*[,;\\t]\\s*|\\s+");
+            if (header == null) {
+                if (columns.length < 2) {
+                    throw new IOException("The header of the response functions must name at least one band");
+                }
+                header = columns;
+                continue;
+            }
+            if (columns.length != header.length) {
+                throw new IOException(String.format("Line %d of the response functions has %d columns instead of %d",
+                                                    lineNumber, columns.length, header.length));
+            }
+            double[] row = new double[columns.length];
+            try {
+                for (int i = 0; i < columns.length; i++) {
+                    row[i] = Double.parseDouble(columns[i]);
+                }
+            } catch (NumberFormatException e) {
+                throw new IOException(String.format("Line %d of the response functions contains an invalid number", lineNumber), e);
+            }
+            rows.add(row);
+        }
+        if (header == null) {
+            throw new IOException("The response functions contain no header");
+        }
+        rows.sort((row1, row2) -> Double.compare(row1[0], row2[0]));
+        double[] wavelengths = new double[rows.size()];
+        for (int i = 0; i < wavelengths.length; i++) {
+            wavelengths[i] = rows.get(i)[0];
+        }
+        List<SpectralResponseFunction> functions = new ArrayList<>();
+        for (int band = 1; band < header.length; band++) {
+            double[] responses = new double[rows.size()];
+            for (int i = 0; i < responses.length; i++) {
+                responses[i] = rows.get(i)[band];
+            }
+            try {
+                functions.add(new SpectralResponseFunction(header[band], wavelengths, responses));
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+        return functions;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getMinWavelength() {
+        return wavelengths[0];
+    }
+
+    public double getMaxWavelength() {
+        return wavelengths[wavelengths.length - 1];
+    }
+
+    /**
+     * returns the linearly interpolated response at the given wavelength, zero outside of the tabulated wavelengths
+     */
+    public double getResponse(double wavelength) {
+        if (wavelength < wavelengths[0] || wavelength > wavelengths[wavelengths.length - 1]) {
+            return 0.0;
+        }
+        int index = Arrays.binarySearch(wavelengths, wavelength);
+        if (index >= 0) {
+            return responses[index];
+        }
+        int upper = -index - 1;
+        int lower = upper - 1;
+        double t = (wavelength - wavelengths[lower]) / (wavelengths[upper] - wavelengths[lower]);
+        return responses[lower] + t * (responses[upper] - responses[lower]);
+    }
+
+    /**
+     * returns the response weighted mean wavelength
+     */
+    public double getCentralWavelength() {
+        double sum = 0.0;
+        double weightedSum = 0.0;
+        for (int i = 1; i < wavelengths.length; i++) {
+            double step = wavelengths[i] - wavelengths[i - 1];
+            double response = 0.5 * (responses[i] + responses[i - 1]);
+            sum += step * response;
+            weightedSum += step * response * 0.5 * (wavelengths[i] + wavelengths[i - 1]);
+        }
+        return sum > 0.0 ? weightedSum / sum : 0.5 * (getMinWavelength() + getMaxWavelength());
+    }
+
+    /**
+     * returns the distance between the outermost wavelengths at which the response reaches half of its maximum
+     */
+    public double getBandwidth() {
+        double max = 0.0;
+        for (double response : responses) {
+            max = Math.max(max, response);
+        }
+        if (max <= 0.0) {
+            return 0.0;
+        }
+        double half = 0.5 * max;
+        int first = 0;
+        while (responses[first] < half) {
+            first++;
+        }
+        int last = responses.length - 1;
+        while (responses[last] < half) {
+            last--;
+        }
+        return crossing(last + 1, last, half) - crossing(first - 1, first, half);
+    }
+
+    // the wavelength between the samples outside and inside at which the response is equal to the level
+    private double crossing(int outside, int inside, double level) {
+        if (outside < 0 || outside >= wavelengths.length) {
+            return wavelengths[inside];
+        }
+        double t = (level - responses[outside]) / (responses[inside] - responses[outside]);
+        return wavelengths[outside] + t * (wavelengths[inside] - wavelengths[outside]);
+    }
+}
@@ -0,0 +1,140 @@
+package org.esa.snap.opt.enmap.resampling;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The sparse matrix of the weights by which the spectral bands of EnMAP are combined into the bands of another sensor.
+ * The weight of an EnMAP band for a target band is the overlap of its spectral response, a Gaussian with the central
+ * wavelength and bandwidth (FWHM) of the band characterisation, with the response function of the target band.
+ * The weights of a target band are normalised to a sum of one; weights below a threshold are dropped, as the
+ * response functions overlap with only a few of the EnMAP bands.
+ * <p>
+ * Besides the weights of each target band, the matrix provides the target bands to which each EnMAP band contributes,
+ * so every source band needs to be visited once for all target bands.
+ */
+public class SpectralWeights {
+
+    // the step in nm of the integration of the response products
+    private static final double STEP = 1.0;
+
+    private final int[][] sourceIndices;
+    private final float[][] weights;
+    private final int[][] targetIndices;
+    private final float[][] targetWeights;
+
+    private SpectralWeights(int numSources, int[][] sourceIndices, float[][] weights) {
+        this.sourceIndices = sourceIndices;
+        this.weights = weights;
+        int[] counts = new int[numSources];
+        for (int[] indices : sourceIndices) {
+            for (int index : indices) {
+                counts[index]++;
+            }
+        }
+        targetIndices = new int[numSources][];
+        targetWeights = new float[numSources][];
+        for (int i = 0; i < numSources; i++) {
+            targetIndices[i] = new int[counts[i]];
+            targetWeights[i] = new float[counts[i]];
+            counts[i] = 0;
+        }
+        for (int target = 0; target < sourceIndices.length; target++) {
+            for (int k = 0; k < sourceIndices[target].length; k++) {
+                int source = sourceIndices[target][k];
+                targetIndices[source][counts[source]] = target;
+                targetWeights[source][counts[source]] = weights[target][k];
+                counts[source]++;
+            }
+        }
+    }
+
+    /**
+     * @param centers   the central wavelengths of the EnMAP bands in nm
+     * @param fwhms     the bandwidths (FWHM) of the EnMAP bands in nm
+     * @param functions the response functions of the target bands
+     * @param minWeight the relative weight below which an EnMAP band is not used for a target band
+     */
+    public static SpectralWeights compute(float[] centers, float[] fwhms, List<SpectralResponseFunction> functions,
+                                          double minWeight) {
+        if (centers.length != fwhms.length) {
+            throw new IllegalArgumentException("The number of central wavelengths and bandwidths differs");
+        }
+        int[][] sourceIndices = new int[functions.size()][];
+        float[][] weights = new float[functions.size()][];
+        for (int target = 0; target < functions.size(); target++) {
+            SpectralResponseFunction function = functions.get(target);
+            double[] overlaps = new double[centers.length];
+            double sum = 0.0;
+            for (int source = 0; source < centers.length; source++) {
+                overlaps[source] = overlap(centers[source], fwhms[source], function);
+                sum += overlaps[source];
+            }
+            List<Integer> used = new ArrayList<>();
+            double usedSum = 0.0;
+            for (int source = 0; source < centers.length; source++) {
+                if (sum > 0.0 && overlaps[source] / sum >= minWeight) {
+                    used.add(source);
+                    usedSum += overlaps[source];
+                }
+            }
+            sourceIndices[target] = new int[used.size()];
+            weights[target] = new float[used.size()];
+            for (int k = 0; k < used.size(); k++) {
+                int source = used.get(k);
+                sourceIndices[target][k] = source;
+                weights[target][k] = (float) (overlaps[source] / usedSum);
+            }
+        }
+        return new SpectralWeights(centers.length, sourceIndices, weights);
+    }
+
+    // the integral of the product of the Gaussian response of the source band and the target response function
+    private static double overlap(double center, double fwhm, SpectralResponseFunction function) {
+        if (!(fwhm > 0.0)) {
+            return 0.0;
+        }
+        double sigma = fwhm / (2.0 * Math.sqrt(2.0 * Math.log(2.0)));
+        // the grid is aligned to whole nm, as the tabulated response functions usually are
+        double min = Math.ceil(Math.max(center - 4.0 * sigma, function.getMinWavelength()));
+        double max = Math.min(center + 4.0 * sigma, function.getMaxWavelength());
+        double sum = 0.0;
+        for (double wavelength = min; wavelength <= max; wavelength += STEP) {
+            double offset = (wavelength - center) / sigma;
+            sum += function.getResponse(wavelength) * Math.exp(-0.5 * offset * offset);
+        }
+        return sum * STEP;
+    }
+
+    public int getNumTargets() {
+        return sourceIndices.length;
+    }
+
+    /**
+     * returns the indices of the EnMAP bands contributing to the target band, in increasing order
+     */
+    public int[] getSourceIndices(int target) {
+        return sourceIndices[target];
+    }
+
+    /**
+     * returns the weights of the EnMAP bands contributing to the target band, in the order of {@link #getSourceIndices(int)}
+     */
+    public float[] getWeights(int target) {
+        return weights[target];
+    }
+
+    /**
+     * returns the indices of the target bands to which the EnMAP band contributes
+     */
+    public int[] getTargetIndices(int source) {
+        return targetIndices[source];
+    }
+
+    /**
+     * returns the weights of the EnMAP band for the target bands, in the order of {@link #getTargetIndices(int)}
+     */
+    public float[] getTargetWeights(int source) {
+        return targetWeights[source];
+    }
+}
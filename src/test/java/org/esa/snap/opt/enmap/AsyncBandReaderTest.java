@@ -0,0 +1,107 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.junit.Test;
+
+import javax.media.jai.RasterFactory;
+import javax.media.jai.TiledImage;
+import java.awt.Rectangle;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AsyncBandReaderTest {
+
+    private static final int WIDTH = 50;
+    private static final int HEIGHT = 40;
+    private static final int TILE_SIZE = 16;
+
+    @Test
+    public void testReadCube() throws Exception {
+        AtomicInteger readCount = new AtomicInteger();
+        Product product = new Product("test", "test", WIDTH, HEIGHT);
+        Band band1 = addBand(product, "b1", 1000, readCount);
+        Band band2 = addBand(product, "b2", 2000, readCount);
+        AsyncBandReader reader = new AsyncBandReader();
+        reader.setExecutor(Runnable::run);
+
+        Rectangle region = new Rectangle(5, 3, 30, 20);
+        ProductData cube = reader.readCube(region, band1, band2).get();
+
+        assertEquals(2 * region.width * region.height, cube.getNumElems());
+        for (int b = 0; b < 2; b++) {
+            for (int y = 0; y < region.height; y++) {
+                for (int x = 0; x < region.width; x++) {
+                    int index = b * region.width * region.height + y * region.width + x;
+                    assertEquals(getValue((b + 1) * 1000, region.x + x, region.y + y), cube.getElemIntAt(index));
+                }
+            }
+        }
+        assertTrue(readCount.get() > 0);
+    }
+
+    @Test
+    public void testCancelledReadDecodesNoTiles() {
+        AtomicInteger readCount = new AtomicInteger();
+        Product product = new Product("test", "test", WIDTH, HEIGHT);
+        Band band = addBand(product, "b1", 1000, readCount);
+        // the tile tasks are queued and only run when the test drains the queue
+        List<Runnable> queuedTasks = new ArrayList<>();
+        AsyncBandReader reader = new AsyncBandReader();
+        reader.setExecutor(queuedTasks::add);
+
+        CompletableFuture<ProductData> future = reader.readCube(new Rectangle(0, 0, WIDTH, HEIGHT), band);
+        assertEquals(12, queuedTasks.size());
+        assertTrue(future.cancel(false));
+        queuedTasks.forEach(Runnable::run);
+
+        assertTrue(future.isCancelled());
+        assertEquals(0, readCount.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCubeLargerThanArray() {
+        Product product = new Product("test", "test", 40000, 30000);
+        Band band1 = product.addBand("b1", ProductData.TYPE_INT16);
+        Band band2 = product.addBand("b2", ProductData.TYPE_INT16);
+        new AsyncBandReader().readCube(new Rectangle(0, 0, 40000, 30000), band1, band2);
+    }
+
+    private static int getValue(int offset, int x, int y) {
+        return offset + y * WIDTH + x;
+    }
+
+    private static Band addBand(Product product, String name, int offset, AtomicInteger readCount) {
+        Band band = product.addBand(name, ProductData.TYPE_INT32);
+        TiledImage image = new TiledImage(0, 0, WIDTH, HEIGHT, 0, 0,
+                                          RasterFactory.createBandedSampleModel(DataBuffer.TYPE_INT, TILE_SIZE, TILE_SIZE, 1),
+                                          null) {
+            @Override
+            public Raster getTile(int tileX, int tileY) {
+                readCount.incrementAndGet();
+                return super.getTile(tileX, tileY);
+            }
+
+            @Override
+            public Raster getData(Rectangle rect) {
+                readCount.incrementAndGet();
+                return super.getData(rect);
+            }
+        };
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                image.setSample(x, y, 0, getValue(offset, x, y));
+            }
+        }
+        readCount.set(0);
+        band.setSourceImage(image);
+        return band;
+    }
+}
@@ -0,0 +1,133 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.datamodel.Mask;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.opt.enmap.EnmapMetadata.PROCESSING_LEVEL;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.awt.image.Raster;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.ENMAP_EAGER_DEFECTIVE_MASKS;
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.PREFERENCES;
+import static org.esa.snap.opt.enmap.SyntheticProductFixture.getReader;
+import static org.junit.Assert.*;
+
+public class DefectiveMaskProviderTest {
+
+    private static final int NUM_BANDS = 5 + 4;
+
+    @Rule
+    public SyntheticProductFixture fixture = new SyntheticProductFixture(ENMAP_EAGER_DEFECTIVE_MASKS);
+
+    @Test
+    public void testMasksAreCreatedOnRequest() throws IOException {
+        PREFERENCES.putBoolean(ENMAP_EAGER_DEFECTIVE_MASKS, false);
+        File metadataFile = fixture.generate(PROCESSING_LEVEL.L2A, 5, 4);
+        Product product = fixture.read(metadataFile);
+
+        assertEquals(0, countDefectiveMasks(product));
+        Mask mask = getReader(product).getDefectiveMask(1);
+        assertEquals("Defective_001", mask.getName());
+        assertSame(mask, product.getMaskGroup().get("Defective_001"));
+        assertSame(mask, getReader(product).getDefectiveMask(1));
+        assertEquals(1, countDefectiveMasks(product));
+
+        // the band with index 0 (zero based) is defective in the column 0
+        Raster pixelMaskData = SyntheticProductFixture.readTiff(metadataFile, EnmapFileUtils.QUALITY_PIXELMASK_KEY);
+        Raster maskData = mask.getSourceImage().getData();
+        int numDefectivePixels = 0;
+        for (int y = 0; y < SyntheticProductFixture.HEIGHT; y++) {
+            for (int x = 0; x < SyntheticProductFixture.WIDTH; x++) {
+                boolean defective = maskData.getSample(x, y, 0) != 0;
+                assertEquals(x + "," + y, pixelMaskData.getSample(x, y, 0) == 1, defective);
+                numDefectivePixels += defective ? 1 : 0;
+            }
+        }
+        assertTrue(numDefectivePixels > 0);
+    }
+
+    @Test
+    public void testUnknownSpectralIndex() throws IOException {
+        Product product = fixture.read(fixture.generate(PROCESSING_LEVEL.L2A, 5, 4));
+        try {
+            getReader(product).getDefectiveMask(NUM_BANDS + 1);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException expected) {
+            assertEquals(0, countDefectiveMasks(product));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testProductNotRead() {
+        new EnmapProductReader(new EnmapProductReaderPlugIn()).getDefectiveMask(1);
+    }
+
+    @Test
+    public void testEagerMasks() throws IOException {
+        PREFERENCES.putBoolean(ENMAP_EAGER_DEFECTIVE_MASKS, true);
+        Product product = fixture.read(fixture.generate(PROCESSING_LEVEL.L2A, 5, 4));
+
+        assertEquals(NUM_BANDS, countDefectiveMasks(product));
+        for (int i = 1; i <= NUM_BANDS; i++) {
+            assertSame(product.getMaskGroup().get(String.format("Defective_%03d", i)),
+                       getReader(product).getDefectiveMask(i));
+        }
+    }
+
+    @Test
+    public void testConcurrentRequests() throws Exception {
+        Product product = fixture.read(fixture.generate(PROCESSING_LEVEL.L2A, 5, 4));
+        EnmapProductReader reader = getReader(product);
+
+        // every thread requests all masks in its own order, each mask must be created exactly once
+        List<Callable<Mask[]>> tasks = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            List<Integer> indices = new ArrayList<>();
+            for (int i = 1; i <= NUM_BANDS; i++) {
+                indices.add(i);
+            }
+            Collections.shuffle(indices);
+            tasks.add(() -> {
+                Mask[] masks = new Mask[NUM_BANDS];
+                for (int index : indices) {
+                    masks[index - 1] = reader.getDefectiveMask(index);
+                }
+                return masks;
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Mask[]>> results = executor.invokeAll(tasks);
+            Mask[] firstMasks = results.get(0).get();
+            for (Future<Mask[]> result : results) {
+                Mask[] masks = result.get();
+                for (int i = 0; i < NUM_BANDS; i++) {
+                    assertSame(firstMasks[i], masks[i]);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(NUM_BANDS, countDefectiveMasks(product));
+    }
+
+    private static int countDefectiveMasks(Product product) {
+        int count = 0;
+        for (String name : product.getMaskGroup().getNodeNames()) {
+            if (name.matches("Defective_\\d{3}")) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
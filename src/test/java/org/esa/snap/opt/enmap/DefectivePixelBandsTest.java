@@ -0,0 +1,148 @@
+package org.esa.snap.opt.enmap;
+
+import com.bc.ceres.glevel.MultiLevelImage;
+import org.esa.snap.core.dataio.ProductSubsetDef;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Mask;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.opt.enmap.EnmapMetadata.PROCESSING_LEVEL;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.io.File;
+import java.io.IOException;
+
+import static org.esa.snap.opt.enmap.SyntheticProductFixture.HEIGHT;
+import static org.esa.snap.opt.enmap.SyntheticProductFixture.WIDTH;
+import static org.esa.snap.opt.enmap.SyntheticProductFixture.assertSamplesEqual;
+import static org.esa.snap.opt.enmap.SyntheticProductFixture.readTiff;
+import static org.junit.Assert.*;
+
+public class DefectivePixelBandsTest {
+
+    private static final int NUM_VNIR_BANDS = 12;
+    private static final int NUM_SWIR_BANDS = 11;
+    private static final int NUM_BANDS = NUM_VNIR_BANDS + NUM_SWIR_BANDS;
+    private static final String ALL_DEFECTIVE_MASK_NAME = "All_Defective_Pixels";
+
+    @Rule
+    public SyntheticProductFixture fixture = new SyntheticProductFixture();
+
+    @Test
+    public void testDefectivePixelBands() throws IOException {
+        File metadataFile = fixture.generate(PROCESSING_LEVEL.L2A, NUM_VNIR_BANDS, NUM_SWIR_BANDS);
+        Product product = fixture.read(metadataFile);
+
+        Raster pixelMaskData = readTiff(metadataFile, EnmapFileUtils.QUALITY_PIXELMASK_KEY);
+        for (int i = 0; i < NUM_BANDS; i++) {
+            Band band = product.getBand(String.format("%s_%03d", EnmapFileUtils.QUALITY_PIXELMASK_KEY, i + 1));
+            assertSamplesEqual(pixelMaskData, i, band.getSourceImage().getData());
+        }
+
+        Raster flagData = product.getBand(QualityLayerInfo.DEFECTIVE_PIXELS_BAND_NAME).getSourceImage().getData();
+        Raster countData = product.getBand(QualityLayerInfo.DEFECTIVE_BAND_COUNT_BAND_NAME).getSourceImage().getData();
+        Raster allDefectiveData = product.getMaskGroup().get(ALL_DEFECTIVE_MASK_NAME).getSourceImage().getData();
+        int numDefectivePixels = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int vnirCount = 0;
+                int swirCount = 0;
+                for (int i = 0; i < NUM_BANDS; i++) {
+                    // the background value of the pixel mask is not counted
+                    if (pixelMaskData.getSample(x, y, i) == 1) {
+                        if (i < NUM_VNIR_BANDS) {
+                            vnirCount++;
+                        } else {
+                            swirCount++;
+                        }
+                    }
+                }
+                int expectedFlags = (vnirCount > 0 ? DefectivePixelsOpImage.VNIR_FLAG : 0) |
+                                    (swirCount > 0 ? DefectivePixelsOpImage.SWIR_FLAG : 0);
+                assertEquals(x + "," + y, expectedFlags, flagData.getSample(x, y, 0));
+                assertEquals(x + "," + y, vnirCount + swirCount, countData.getSample(x, y, 0));
+                assertEquals(x + "," + y, expectedFlags != 0, allDefectiveData.getSample(x, y, 0) != 0);
+                numDefectivePixels += expectedFlags != 0 ? 1 : 0;
+            }
+        }
+        // the generated product has defective columns in VNIR and SWIR bands
+        assertTrue(numDefectivePixels > 0);
+        assertNotNull(product.getMaskGroup().get("VNIR_Defective_Pixels"));
+        assertNotNull(product.getMaskGroup().get("SWIR_Defective_Pixels"));
+    }
+
+    @Test
+    public void testPixelMaskLevels() throws IOException {
+        File metadataFile = fixture.generate(PROCESSING_LEVEL.L2A, NUM_VNIR_BANDS, NUM_SWIR_BANDS);
+        Product product = fixture.read(metadataFile);
+
+        Raster pixelMaskData = readTiff(metadataFile, EnmapFileUtils.QUALITY_PIXELMASK_KEY);
+        int bandIndex = 10;
+        Band band = product.getBand(String.format("%s_%03d", EnmapFileUtils.QUALITY_PIXELMASK_KEY, bandIndex + 1));
+        MultiLevelImage sourceImage = band.getSourceImage();
+        assertTrue(sourceImage.getModel().getLevelCount() > 1);
+        // the full resolution is served by the store, the lower levels are read from the pixel mask itself
+        assertTrue(sourceImage.getImage(0) instanceof PixelMaskBandOpImage);
+        RenderedImage levelImage = sourceImage.getImage(1);
+        assertTrue(levelImage instanceof EnmapLevelImage);
+        Raster levelData = levelImage.getData();
+        assertEquals(WIDTH / 2, levelData.getWidth());
+        assertEquals(HEIGHT / 2, levelData.getHeight());
+        for (int y = 0; y < levelData.getHeight(); y++) {
+            for (int x = 0; x < levelData.getWidth(); x++) {
+                assertEquals(x + "," + y, pixelMaskData.getSample(2 * x, 2 * y, bandIndex), levelData.getSample(x, y, 0));
+            }
+        }
+        // the defective column 10 * 37 % 100 = 70 and the background are contained in the level
+        assertEquals(1, levelData.getSample(35, 20, 0));
+        assertEquals(255, levelData.getSample(0, 0, 0));
+    }
+
+    @Test
+    public void testBackgroundIsNotDefective() throws IOException {
+        File metadataFile = fixture.generate(PROCESSING_LEVEL.L2A, NUM_VNIR_BANDS, NUM_SWIR_BANDS);
+        Product product = fixture.read(metadataFile);
+
+        // the band with index 10 (zero based) is defective in the column 10 * 37 % 100
+        int spectralIndex = 11;
+        Mask mask = SyntheticProductFixture.getReader(product).getDefectiveMask(spectralIndex);
+        Raster maskData = mask.getSourceImage().getData();
+        Raster pixelMaskData = product.getBand(String.format("%s_%03d", EnmapFileUtils.QUALITY_PIXELMASK_KEY, spectralIndex))
+                .getSourceImage().getData();
+        Raster allDefectiveData = product.getMaskGroup().get(ALL_DEFECTIVE_MASK_NAME).getSourceImage().getData();
+        assertEquals(1, pixelMaskData.getSample(70, 40, 0));
+        assertTrue(maskData.getSample(70, 40, 0) != 0);
+        assertTrue(allDefectiveData.getSample(70, 40, 0) != 0);
+
+        // the upper left corner is background, both the single band and the combined mask leave it out
+        assertEquals(255, pixelMaskData.getSample(0, 0, 0));
+        assertEquals(0, maskData.getSample(0, 0, 0));
+        assertEquals(0, allDefectiveData.getSample(0, 0, 0));
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                boolean defective = pixelMaskData.getSample(x, y, 0) == 1;
+                assertEquals(x + "," + y, defective, maskData.getSample(x, y, 0) != 0);
+                if (defective) {
+                    assertTrue(x + "," + y, allDefectiveData.getSample(x, y, 0) != 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAllDefectiveMaskWithoutCountBand() throws IOException {
+        File metadataFile = fixture.generate(PROCESSING_LEVEL.L2A, NUM_VNIR_BANDS, NUM_SWIR_BANDS);
+        Product product = fixture.read(metadataFile);
+        ProductSubsetDef subsetDef = new ProductSubsetDef();
+        subsetDef.setNodeNames(new String[]{"band_001", QualityLayerInfo.DEFECTIVE_PIXELS_BAND_NAME});
+        Product subset = fixture.read(metadataFile, subsetDef);
+
+        assertNull(subset.getBand(QualityLayerInfo.DEFECTIVE_BAND_COUNT_BAND_NAME));
+        Mask mask = subset.getMaskGroup().get(ALL_DEFECTIVE_MASK_NAME);
+        assertNotNull(mask);
+        Raster expected = product.getMaskGroup().get(ALL_DEFECTIVE_MASK_NAME).getSourceImage().getData();
+        assertSamplesEqual(expected, 0, mask.getSourceImage().getData());
+    }
+}
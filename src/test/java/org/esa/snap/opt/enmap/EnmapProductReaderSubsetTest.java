@@ -0,0 +1,260 @@
+package org.esa.snap.opt.enmap;
+
+import com.bc.ceres.core.ProgressMonitor;
+import org.esa.snap.core.dataio.ProductSubsetDef;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.GeoCoding;
+import org.esa.snap.core.datamodel.GeoPos;
+import org.esa.snap.core.datamodel.PixelPos;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.datamodel.TiePointGrid;
+import org.esa.snap.core.subset.GeometrySubsetRegion;
+import org.esa.snap.opt.enmap.EnmapMetadata.PROCESSING_LEVEL;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import java.awt.Rectangle;
+import java.awt.image.Raster;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class EnmapProductReaderSubsetTest {
+
+    private static final int REGION_X = 20;
+    private static final int REGION_Y = 10;
+    private static final int REGION_WIDTH = 50;
+    private static final int REGION_HEIGHT = 40;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private boolean useJai;
+
+    @Before
+    public void setUp() {
+        useJai = EnmapProductReaderPlugIn.PREFERENCES.getBoolean(EnmapProductReaderPlugIn.ENMAP_GEOTIFF_USE_JAI, false);
+        EnmapProductReaderPlugIn.PREFERENCES.putBoolean(EnmapProductReaderPlugIn.ENMAP_GEOTIFF_USE_JAI, true);
+    }
+
+    @After
+    public void tearDown() {
+        EnmapProductReaderPlugIn.PREFERENCES.putBoolean(EnmapProductReaderPlugIn.ENMAP_GEOTIFF_USE_JAI, useJai);
+    }
+
+    @Test
+    public void testRegionSubsetOfL1C() throws IOException {
+        testRegionSubset(PROCESSING_LEVEL.L1C);
+    }
+
+    @Test
+    public void testRegionSubsetOfL2A() throws IOException {
+        testRegionSubset(PROCESSING_LEVEL.L2A);
+    }
+
+    @Test
+    public void testReadBandRasterDataOfRegionSubset() throws IOException {
+        File metadataFile = generate(PROCESSING_LEVEL.L2A);
+        ProductSubsetDef subsetDef = new ProductSubsetDef();
+        subsetDef.setRegion(REGION_X, REGION_Y, REGION_WIDTH, REGION_HEIGHT);
+        Product fullProduct = null;
+        Product subset = null;
+        try {
+            fullProduct = new EnmapProductReaderPlugIn().createReaderInstance().readProductNodes(metadataFile, null);
+            subset = new EnmapProductReaderPlugIn().createReaderInstance().readProductNodes(metadataFile, subsetDef);
+            // a window in the lower right part of the region, it is shifted if the region offset is applied twice
+            Rectangle window = new Rectangle(25, 18, 20, 15);
+            for (String bandName : new String[]{"band_001", EnmapFileUtils.QUALITY_CLASSES_KEY}) {
+                Band band = subset.getBand(bandName);
+                ProductData data = ProductData.createInstance(band.getDataType(), window.width * window.height);
+                subset.getProductReader().readBandRasterData(band, window.x, window.y, window.width, window.height,
+                                                             data, ProgressMonitor.NULL);
+                Raster fullData = fullProduct.getBand(bandName).getSourceImage().getData();
+                for (int y = 0; y < window.height; y++) {
+                    for (int x = 0; x < window.width; x++) {
+                        assertEquals(bandName + " at " + x + "," + y,
+                                     fullData.getSample(REGION_X + window.x + x, REGION_Y + window.y + y, 0),
+                                     data.getElemIntAt(y * window.width + x));
+                    }
+                }
+            }
+        } finally {
+            if (subset != null) {
+                subset.dispose();
+            }
+            if (fullProduct != null) {
+                fullProduct.dispose();
+            }
+        }
+    }
+
+    @Test
+    public void testGeometrySubsetOfL2A() throws IOException {
+        File metadataFile = generate(PROCESSING_LEVEL.L2A);
+        Product fullProduct = null;
+        Product subset = null;
+        try {
+            fullProduct = new EnmapProductReaderPlugIn().createReaderInstance().readProductNodes(metadataFile, null);
+            // the polygon lies within the pixels at the border of the region
+            GeoCoding geoCoding = fullProduct.getSceneGeoCoding();
+            double[][] corners = {
+                    {REGION_X + 0.25, REGION_Y + 0.25}, {REGION_X + REGION_WIDTH - 0.25, REGION_Y + 0.25},
+                    {REGION_X + REGION_WIDTH - 0.25, REGION_Y + REGION_HEIGHT - 0.25},
+                    {REGION_X + 0.25, REGION_Y + REGION_HEIGHT - 0.25}, {REGION_X + 0.25, REGION_Y + 0.25}
+            };
+            Coordinate[] coordinates = new Coordinate[corners.length];
+            for (int i = 0; i < corners.length; i++) {
+                GeoPos geoPos = geoCoding.getGeoPos(new PixelPos(corners[i][0], corners[i][1]), null);
+                coordinates[i] = new Coordinate(geoPos.getLon(), geoPos.getLat());
+            }
+            ProductSubsetDef subsetDef = new ProductSubsetDef();
+            subsetDef.setSubsetRegion(new GeometrySubsetRegion(new GeometryFactory().createPolygon(coordinates), 0));
+            EnmapProductReader reader = (EnmapProductReader) new EnmapProductReaderPlugIn().createReaderInstance();
+            subset = reader.readProductNodes(metadataFile, subsetDef);
+
+            assertTrue(reader.isSubsetReadingFullySupported());
+            assertEquals(REGION_WIDTH, subset.getSceneRasterWidth());
+            assertEquals(REGION_HEIGHT, subset.getSceneRasterHeight());
+            assertGeoPosEquals(fullProduct, subset, 0, 0);
+            assertGeoPosEquals(fullProduct, subset, REGION_WIDTH - 1, REGION_HEIGHT - 1);
+            for (String bandName : new String[]{"band_001", EnmapFileUtils.QUALITY_CLASSES_KEY}) {
+                Raster fullData = fullProduct.getBand(bandName).getSourceImage().getData();
+                Raster subsetData = subset.getBand(bandName).getSourceImage().getData();
+                for (int y = 0; y < REGION_HEIGHT; y++) {
+                    for (int x = 0; x < REGION_WIDTH; x++) {
+                        assertEquals(bandName + " at " + x + "," + y,
+                                     fullData.getSample(REGION_X + x, REGION_Y + y, 0), subsetData.getSample(x, y, 0));
+                    }
+                }
+            }
+        } finally {
+            if (subset != null) {
+                subset.dispose();
+            }
+            if (fullProduct != null) {
+                fullProduct.dispose();
+            }
+        }
+    }
+
+    @Test
+    public void testIgnoreMetadata() throws IOException {
+        File metadataFile = generate(PROCESSING_LEVEL.L2A);
+        ProductSubsetDef subsetDef = new ProductSubsetDef();
+        subsetDef.setIgnoreMetadata(true);
+        Product product = null;
+        try {
+            product = new EnmapProductReaderPlugIn().createReaderInstance().readProductNodes(metadataFile, subsetDef);
+            assertEquals(0, product.getMetadataRoot().getNumElements());
+            assertNotNull(product.getBand("band_001"));
+        } finally {
+            if (product != null) {
+                product.dispose();
+            }
+        }
+    }
+
+    @Test
+    public void testMaskedReadWithoutQualityLayers() throws IOException {
+        File metadataFile = generate(PROCESSING_LEVEL.L2A);
+        ProductSubsetDef subsetDef = new ProductSubsetDef();
+        subsetDef.setNodeNames(new String[]{"band_001", EnmapFileUtils.QUALITY_CLASSES_KEY});
+        EnmapProductReader reader = (EnmapProductReader) new EnmapProductReaderPlugIn().createReaderInstance();
+        Product product = null;
+        try {
+            product = reader.readProductNodes(metadataFile, subsetDef);
+            Band band = product.getBand("band_001");
+            Rectangle region = new Rectangle(0, 0, 10, 10);
+            float[] dest = new float[100];
+            // without a predicate the quality layers are not needed
+            reader.readMaskedSpectralData(region, null, dest, band);
+            try {
+                reader.readMaskedSpectralData(region, q -> (q & QualityBits.CLOUD_MASK) != 0, dest, band);
+                fail("IllegalStateException expected, the cloud layer is not part of the subset");
+            } catch (IllegalStateException expected) {
+                assertTrue(expected.getMessage(), expected.getMessage().contains(EnmapFileUtils.QUALITY_CLOUD_KEY));
+            }
+            try {
+                reader.extractPixels(Collections.singletonList(product.getSceneGeoCoding().getGeoPos(new PixelPos(5.5, 5.5), null)));
+                fail("IllegalStateException expected, the quality values would be incomplete");
+            } catch (IllegalStateException expected) {
+                assertTrue(expected.getMessage(), expected.getMessage().contains(EnmapFileUtils.QUALITY_CLOUD_KEY));
+            }
+        } finally {
+            if (product != null) {
+                product.dispose();
+            }
+        }
+    }
+
+    private void testRegionSubset(PROCESSING_LEVEL level) throws IOException {
+        File metadataFile = generate(level);
+        ProductSubsetDef subsetDef = new ProductSubsetDef();
+        subsetDef.setRegion(REGION_X, REGION_Y, REGION_WIDTH, REGION_HEIGHT);
+        Product fullProduct = null;
+        Product subset = null;
+        try {
+            fullProduct = new EnmapProductReaderPlugIn().createReaderInstance().readProductNodes(metadataFile, null);
+            subset = new EnmapProductReaderPlugIn().createReaderInstance().readProductNodes(metadataFile, subsetDef);
+            assertEquals(REGION_WIDTH, subset.getSceneRasterWidth());
+            assertEquals(REGION_HEIGHT, subset.getSceneRasterHeight());
+
+            for (String bandName : new String[]{"band_001", "band_005", EnmapFileUtils.QUALITY_CLASSES_KEY}) {
+                Raster fullData = fullProduct.getBand(bandName).getSourceImage().getData();
+                Raster subsetData = subset.getBand(bandName).getSourceImage().getData();
+                for (int y = 0; y < REGION_HEIGHT; y++) {
+                    for (int x = 0; x < REGION_WIDTH; x++) {
+                        assertEquals(bandName + " at " + x + "," + y,
+                                     fullData.getSample(REGION_X + x, REGION_Y + y, 0), subsetData.getSample(x, y, 0));
+                    }
+                }
+            }
+
+            // the upper left and the lower right pixel of the region
+            assertGeoPosEquals(fullProduct, subset, 0, 0);
+            assertGeoPosEquals(fullProduct, subset, REGION_WIDTH - 1, REGION_HEIGHT - 1);
+
+            for (TiePointGrid subsetGrid : subset.getTiePointGrids()) {
+                TiePointGrid fullGrid = fullProduct.getTiePointGrid(subsetGrid.getName());
+                assertNotNull(subsetGrid.getName(), fullGrid);
+                assertEquals(-REGION_X, subsetGrid.getOffsetX(), 1.0e-6);
+                assertEquals(-REGION_Y, subsetGrid.getOffsetY(), 1.0e-6);
+                assertEquals(subsetGrid.getName(), fullGrid.getPixelDouble(REGION_X, REGION_Y),
+                             subsetGrid.getPixelDouble(0, 0), 1.0e-4);
+                assertEquals(subsetGrid.getName(), fullGrid.getPixelDouble(REGION_X + REGION_WIDTH - 1, REGION_Y + REGION_HEIGHT - 1),
+                             subsetGrid.getPixelDouble(REGION_WIDTH - 1, REGION_HEIGHT - 1), 1.0e-4);
+            }
+            assertTrue(subset.getNumTiePointGrids() > 0);
+        } finally {
+            if (subset != null) {
+                subset.dispose();
+            }
+            if (fullProduct != null) {
+                fullProduct.dispose();
+            }
+        }
+    }
+
+    private static void assertGeoPosEquals(Product fullProduct, Product subset, int x, int y) {
+        GeoPos expected = fullProduct.getSceneGeoCoding().getGeoPos(new PixelPos(REGION_X + x + 0.5, REGION_Y + y + 0.5), null);
+        GeoPos actual = subset.getSceneGeoCoding().getGeoPos(new PixelPos(x + 0.5, y + 0.5), null);
+        assertEquals(expected.getLat(), actual.getLat(), 1.0e-6);
+        assertEquals(expected.getLon(), actual.getLon(), 1.0e-6);
+    }
+
+    private File generate(PROCESSING_LEVEL level) throws IOException {
+        SyntheticProductGenerator generator = new SyntheticProductGenerator(level);
+        generator.setSceneSize(100, 80);
+        generator.setNumBands(3, 2);
+        generator.setTileSize(32);
+        return generator.generate(tempFolder.newFolder(level.name()));
+    }
+}
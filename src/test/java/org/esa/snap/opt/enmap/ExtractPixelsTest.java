@@ -0,0 +1,101 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.GeoCoding;
+import org.esa.snap.core.datamodel.GeoPos;
+import org.esa.snap.core.datamodel.PixelPos;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.opt.enmap.EnmapMetadata.PROCESSING_LEVEL;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.awt.image.Raster;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.ENMAP_QUALITY_ALL;
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.PREFERENCES;
+import static org.esa.snap.opt.enmap.SyntheticProductFixture.getReader;
+import static org.junit.Assert.*;
+
+public class ExtractPixelsTest {
+
+    private static final int NUM_BANDS = 3 + 2;
+    // several pixels per tile of 32 x 32 pixels and pixels at the tile borders, the background, cloud and water
+    private static final int[][] PIXELS = {
+            {0, 0}, {5, 5}, {31, 31}, {32, 32}, {33, 31}, {65, 28}, {64, 0}, {70, 30}, {30, 56}, {99, 79}, {63, 64}
+    };
+
+    @Rule
+    public SyntheticProductFixture fixture = new SyntheticProductFixture(ENMAP_QUALITY_ALL);
+
+    @Test
+    public void testExtractedValues() throws IOException {
+        PREFERENCES.putBoolean(ENMAP_QUALITY_ALL, true);
+        Product product = fixture.read(fixture.generate(PROCESSING_LEVEL.L2A, 3, 2));
+        GeoCoding geoCoding = product.getSceneGeoCoding();
+        List<GeoPos> geoPositions = new ArrayList<>();
+        for (int[] pixel : PIXELS) {
+            geoPositions.add(geoCoding.getGeoPos(new PixelPos(pixel[0] + 0.5, pixel[1] + 0.5), null));
+        }
+        // the positions are given in an order not related to the tiles
+        Collections.reverse(geoPositions);
+        GeoPos outside = geoCoding.getGeoPos(new PixelPos(-20.5, 40.5), null);
+        geoPositions.add(3, outside);
+
+        List<ExtractedPixel> pixels = getReader(product).extractPixels(geoPositions);
+
+        assertEquals(geoPositions.size(), pixels.size());
+        Raster qualityData = product.getBand(QualityBits.QUALITY_ALL_BAND_NAME).getSourceImage().getData();
+        Raster[] bandData = new Raster[NUM_BANDS];
+        for (int b = 0; b < NUM_BANDS; b++) {
+            bandData[b] = product.getBand(String.format("band_%03d", b + 1)).getSourceImage().getData();
+        }
+        int numInside = 0;
+        for (int i = 0; i < pixels.size(); i++) {
+            ExtractedPixel pixel = pixels.get(i);
+            assertSame(geoPositions.get(i), pixel.getGeoPos());
+            if (geoPositions.get(i) == outside) {
+                assertFalse(pixel.isInside());
+                continue;
+            }
+            numInside++;
+            int x = pixel.getPixelX();
+            int y = pixel.getPixelY();
+            assertTrue(pixel.isInside());
+            assertEquals(qualityData.getSample(x, y, 0), pixel.getQuality());
+            assertEquals(NUM_BANDS, pixel.getSpectrum().length);
+            for (int b = 0; b < NUM_BANDS; b++) {
+                Band band = product.getBand(String.format("band_%03d", b + 1));
+                int raw = bandData[b].getSample(x, y, 0);
+                float value = pixel.getSpectrum()[b];
+                if (raw == band.getNoDataValue()) {
+                    assertTrue(x + "," + y, Float.isNaN(value));
+                } else {
+                    assertEquals(x + "," + y, band.scale(raw), value, 1.0e-5 * Math.max(1.0, Math.abs(band.scale(raw))));
+                }
+            }
+        }
+        assertEquals(PIXELS.length, numInside);
+        // the pixels are located at the given pixel positions
+        ExtractedPixel last = pixels.get(pixels.size() - 1);
+        assertEquals(0, last.getPixelX());
+        assertEquals(0, last.getPixelY());
+        assertTrue(Float.isNaN(last.getSpectrum()[0]));
+        assertEquals(QualityBits.CLASSES_BACKGROUND, last.getQuality() & QualityBits.CLASSES_MASK);
+    }
+
+    @Test
+    public void testWithoutGeoCoding() throws IOException {
+        Product product = fixture.read(fixture.generate(PROCESSING_LEVEL.L2A, 3, 2));
+        product.setSceneGeoCoding(null);
+        try {
+            getReader(product).extractPixels(Collections.singletonList(new GeoPos(50.0, 10.0)));
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException expected) {
+            assertTrue(expected.getMessage().contains("geo-coding"));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.opt.enmap.EnmapMetadata.PROCESSING_LEVEL;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.awt.image.Raster;
+import java.io.File;
+import java.io.IOException;
+
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.ENMAP_GEOPHYSICAL_FLOAT;
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.PREFERENCES;
+import static org.esa.snap.opt.enmap.SyntheticProductFixture.HEIGHT;
+import static org.esa.snap.opt.enmap.SyntheticProductFixture.WIDTH;
+import static org.junit.Assert.*;
+
+public class GeophysicalFloatBandsTest {
+
+    @Rule
+    public SyntheticProductFixture fixture = new SyntheticProductFixture(ENMAP_GEOPHYSICAL_FLOAT);
+
+    @Test
+    public void testGeophysicalFloatBands() throws IOException {
+        File metadataFile = fixture.generate(PROCESSING_LEVEL.L2A, 3, 2);
+        Product rawProduct = fixture.read(metadataFile);
+        PREFERENCES.putBoolean(ENMAP_GEOPHYSICAL_FLOAT, true);
+        Product floatProduct = fixture.read(metadataFile);
+
+        for (Band rawBand : rawProduct.getBands()) {
+            if (!rawBand.getName().startsWith("band_")) {
+                continue;
+            }
+            Band floatBand = floatProduct.getBand(rawBand.getName());
+            assertNotNull(rawBand.getName(), floatBand);
+            assertEquals(ProductData.TYPE_FLOAT32, floatBand.getDataType());
+            assertFalse(floatBand.isScalingApplied());
+            assertTrue(Double.isNaN(floatBand.getNoDataValue()));
+
+            Raster rawData = rawBand.getSourceImage().getData();
+            Raster floatData = floatBand.getSourceImage().getData();
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    int raw = rawData.getSample(x, y, 0);
+                    float value = floatData.getSampleFloat(x, y, 0);
+                    if (raw == rawBand.getNoDataValue()) {
+                        assertTrue(x + "," + y, Float.isNaN(value));
+                    } else {
+                        double expected = raw * rawBand.getScalingFactor() + rawBand.getScalingOffset();
+                        assertEquals(x + "," + y, expected, value, 1.0e-5 * Math.max(1.0, Math.abs(expected)));
+                    }
+                }
+            }
+            // the upper left corner of the orthorectified scene is background
+            assertTrue(Float.isNaN(floatData.getSampleFloat(0, 0, 0)));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.opt.enmap.EnmapMetadata.PROCESSING_LEVEL;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.ENMAP_L1B_DETECTOR;
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.PREFERENCES;
+import static org.esa.snap.opt.enmap.SyntheticProductFixture.assertSamplesEqual;
+import static org.junit.Assert.*;
+
+public class L1BDetectorTest {
+
+    @Rule
+    public SyntheticProductFixture fixture = new SyntheticProductFixture(ENMAP_L1B_DETECTOR);
+
+    @Test
+    public void testL1BDetectorSelection() throws IOException {
+        int numVnirBands = 5;
+        int numSwirBands = 4;
+        File metadataFile = fixture.generate(PROCESSING_LEVEL.L1B, numVnirBands, numSwirBands);
+        PREFERENCES.remove(ENMAP_L1B_DETECTOR);
+        Product fullProduct = fixture.read(metadataFile);
+        PREFERENCES.put(ENMAP_L1B_DETECTOR, "VNIR");
+        Product vnirProduct = fixture.read(metadataFile);
+
+        for (int spectralIndex = 1; spectralIndex <= numVnirBands + numSwirBands; spectralIndex++) {
+            String bandName = String.format("band_%03d", spectralIndex);
+            String pixelMaskName = String.format("%s_%03d", EnmapFileUtils.QUALITY_PIXELMASK_KEY, spectralIndex);
+            assertNotNull(bandName, fullProduct.getBand(bandName));
+            if (spectralIndex <= numVnirBands) {
+                assertSamplesEqual(fullProduct.getBand(bandName).getSourceImage().getData(), 0,
+                                   vnirProduct.getBand(bandName).getSourceImage().getData());
+                assertSamplesEqual(fullProduct.getBand(pixelMaskName).getSourceImage().getData(), 0,
+                                   vnirProduct.getBand(pixelMaskName).getSourceImage().getData());
+            } else {
+                assertNull(bandName, vnirProduct.getBand(bandName));
+                assertNull(pixelMaskName, vnirProduct.getBand(pixelMaskName));
+            }
+        }
+        assertNotNull(vnirProduct.getBand(EnmapFileUtils.QUALITY_TESTFLAGS_VNIR_KEY));
+        assertNull(vnirProduct.getBand(EnmapFileUtils.QUALITY_TESTFLAGS_SWIR_KEY));
+        assertNotNull(vnirProduct.getBand(EnmapFileUtils.QUICKLOOK_VNIR_KEY + "_red"));
+        assertNull(vnirProduct.getBand(EnmapFileUtils.QUICKLOOK_SWIR_KEY + "_red"));
+        // the quality layers of the scene are read for both detectors
+        assertSamplesEqual(fullProduct.getBand(EnmapFileUtils.QUALITY_CLASSES_KEY).getSourceImage().getData(), 0,
+                           vnirProduct.getBand(EnmapFileUtils.QUALITY_CLASSES_KEY).getSourceImage().getData());
+
+        PREFERENCES.put(ENMAP_L1B_DETECTOR, "SWIR");
+        Product swirProduct = fixture.read(metadataFile);
+        assertNull(swirProduct.getBand(String.format("band_%03d", numVnirBands)));
+        String firstSwirBandName = String.format("band_%03d", numVnirBands + 1);
+        assertSamplesEqual(fullProduct.getBand(firstSwirBandName).getSourceImage().getData(), 0,
+                           swirProduct.getBand(firstSwirBandName).getSourceImage().getData());
+        assertNull(swirProduct.getBand(EnmapFileUtils.QUALITY_TESTFLAGS_VNIR_KEY));
+        assertNotNull(swirProduct.getBand(EnmapFileUtils.QUALITY_TESTFLAGS_SWIR_KEY));
+    }
+}
@@ -0,0 +1,53 @@
+package org.esa.snap.opt.enmap;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testStatistics() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 98; i++) {
+            histogram.record(3_000);      // 3 us
+        }
+        histogram.record(100_000);        // 100 us
+        histogram.record(5_000_000);      // 5 ms
+
+        LatencyStatistics statistics = histogram.getStatistics();
+        assertEquals(100, statistics.getCount());
+        assertEquals(5.394, statistics.getTotalMillis(), 1.0e-6);
+        assertEquals(53.94, statistics.getMeanMicros(), 1.0e-6);
+        assertEquals(5000, statistics.getMaxMicros());
+        // the percentiles are the upper bounds of the buckets
+        assertEquals(4, statistics.getP50Micros());
+        assertEquals(4, statistics.getP90Micros());
+        assertEquals(128, statistics.getP99Micros());
+    }
+
+    @Test
+    public void testPercentilesDoNotExceedMaximum() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_500_000);
+
+        LatencyStatistics statistics = histogram.getStatistics();
+        assertEquals(1500, statistics.getMaxMicros());
+        assertEquals(1500, statistics.getP50Micros());
+        assertEquals(1500, statistics.getP99Micros());
+    }
+
+    @Test
+    public void testReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(10_000);
+        histogram.reset();
+
+        LatencyStatistics statistics = histogram.getStatistics();
+        assertEquals(0, statistics.getCount());
+        assertEquals(0.0, statistics.getTotalMillis(), 0.0);
+        assertEquals(0.0, statistics.getMeanMicros(), 0.0);
+        assertEquals(0, statistics.getMaxMicros());
+        assertEquals(0, statistics.getP99Micros());
+    }
+}
@@ -0,0 +1,101 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.opt.enmap.EnmapMetadata.PROCESSING_LEVEL;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.awt.Rectangle;
+import java.awt.image.Raster;
+import java.io.File;
+import java.io.IOException;
+
+import static org.esa.snap.opt.enmap.SyntheticProductFixture.getReader;
+import static org.esa.snap.opt.enmap.SyntheticProductFixture.readTiff;
+import static org.junit.Assert.*;
+
+public class MaskedSpectralDataTest {
+
+    // contains the cloud centred at 65,28 and the defective column of band_011 at x = 70
+    private static final Rectangle REGION = new Rectangle(40, 16, 50, 40);
+
+    @Rule
+    public SyntheticProductFixture fixture = new SyntheticProductFixture();
+
+    @Test
+    public void testMaskedValues() throws IOException {
+        File metadataFile = fixture.generate(PROCESSING_LEVEL.L2A, 12, 11);
+        Product product = fixture.read(metadataFile);
+        Band[] bands = {product.getBand("band_001"), product.getBand("band_011")};
+        int[] bandIndices = {0, 10};
+
+        float[] dest = new float[bands.length * REGION.width * REGION.height];
+        getReader(product).readMaskedSpectralData(REGION, q -> (q & QualityBits.CLOUD_MASK) != 0, dest, bands);
+
+        Raster cloudData = readTiff(metadataFile, EnmapFileUtils.QUALITY_CLOUD_KEY);
+        Raster pixelMaskData = readTiff(metadataFile, EnmapFileUtils.QUALITY_PIXELMASK_KEY);
+        int numCloudPixels = 0;
+        int numDefectivePixels = 0;
+        int numValidPixels = 0;
+        for (int b = 0; b < bands.length; b++) {
+            Band band = bands[b];
+            Raster rawData = band.getSourceImage().getData(REGION);
+            int i = b * REGION.width * REGION.height;
+            for (int y = REGION.y; y < REGION.y + REGION.height; y++) {
+                for (int x = REGION.x; x < REGION.x + REGION.width; x++, i++) {
+                    int raw = rawData.getSample(x, y, 0);
+                    boolean cloud = cloudData.getSample(x, y, 0) != 0;
+                    boolean defective = pixelMaskData.getSample(x, y, bandIndices[b]) == 1;
+                    String message = band.getName() + " " + x + "," + y;
+                    if (raw == band.getNoDataValue() || cloud || defective) {
+                        assertTrue(message, Float.isNaN(dest[i]));
+                    } else {
+                        double expected = raw * band.getScalingFactor() + band.getScalingOffset();
+                        assertEquals(message, expected, dest[i], 1.0e-5 * Math.max(1.0, Math.abs(expected)));
+                        numValidPixels++;
+                    }
+                    numCloudPixels += cloud ? 1 : 0;
+                    numDefectivePixels += defective ? 1 : 0;
+                }
+            }
+        }
+        assertTrue(numCloudPixels > 0);
+        assertTrue(numDefectivePixels > 0);
+        assertTrue(numValidPixels > 0);
+        // the pixel in the defective column is rejected for band_011 only
+        int i = (40 - REGION.y) * REGION.width + 70 - REGION.x;
+        assertFalse(Float.isNaN(dest[i]));
+        assertTrue(Float.isNaN(dest[REGION.width * REGION.height + i]));
+    }
+
+    @Test
+    public void testWithoutQualityPredicate() throws IOException {
+        Product product = fixture.read(fixture.generate(PROCESSING_LEVEL.L2A, 12, 11));
+        Band band = product.getBand("band_002");
+
+        float[] dest = new float[REGION.width * REGION.height];
+        getReader(product).readMaskedSpectralData(REGION, null, dest, band);
+        // the cloud is not masked without a predicate
+        int i = (28 - REGION.y) * REGION.width + 65 - REGION.x;
+        Raster rawData = band.getSourceImage().getData(REGION);
+        assertEquals(band.scale(rawData.getSample(65, 28, 0)), dest[i], 1.0e-3);
+    }
+
+    @Test
+    public void testRegionOutsideScene() throws IOException {
+        Product product = fixture.read(fixture.generate(PROCESSING_LEVEL.L2A, 12, 11));
+        Rectangle region = new Rectangle(80, 60, 30, 30);
+        try {
+            getReader(product).readMaskedSpectralData(region, null, new float[900], product.getBand("band_001"));
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains("not within the scene"));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testProductNotRead() {
+        new EnmapProductReader(new EnmapProductReaderPlugIn()).readMaskedSpectralData(REGION, null, new float[10]);
+    }
+}
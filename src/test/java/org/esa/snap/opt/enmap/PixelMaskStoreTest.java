@@ -0,0 +1,218 @@
+package org.esa.snap.opt.enmap;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.WritableRaster;
+import java.util.BitSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class PixelMaskStoreTest {
+
+    private static final int NUM_BANDS = 10;
+    private static final int WIDTH = 4;
+    private static final int HEIGHT = 5;
+    private static final int BACKGROUND = 255;
+
+    private static PixelMaskStore store;
+
+    @BeforeClass
+    public static void beforeClass() {
+        RenderedImage[] images = new RenderedImage[NUM_BANDS];
+        for (int b = 0; b < NUM_BANDS; b++) {
+            BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_BYTE_GRAY);
+            WritableRaster raster = image.getRaster();
+            // pixel (x, x) is defective in band x
+            if (b < WIDTH) {
+                raster.setSample(b, b, 0, 1);
+            }
+            // pixel (3, 4) is defective in all bands
+            raster.setSample(3, 4, 0, 1);
+            // first pixel of the last row is background
+            raster.setSample(0, 4, 0, BACKGROUND);
+            images[b] = image;
+        }
+        store = new PixelMaskStore(images, BACKGROUND, new Dimension(WIDTH, 2), Long.MAX_VALUE, new Object());
+    }
+
+    @Test
+    public void testDimensions() {
+        assertEquals(WIDTH, store.getWidth());
+        assertEquals(HEIGHT, store.getHeight());
+        assertEquals(NUM_BANDS, store.getNumBands());
+        assertEquals(2, store.getBytesPerPixel());
+    }
+
+    @Test
+    public void testMissingImagesAreNotDecoded() {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_BYTE_GRAY);
+        image.getRaster().setSample(1, 1, 0, 1);
+        PixelMaskStore subsetStore = new PixelMaskStore(new RenderedImage[]{null, image, null}, BACKGROUND,
+                                                       new Dimension(WIDTH, 2), Long.MAX_VALUE, new Object());
+        assertEquals(WIDTH, subsetStore.getWidth());
+        assertEquals(HEIGHT, subsetStore.getHeight());
+        assertTrue(subsetStore.isDefective(1, 1, 1));
+        assertFalse(subsetStore.isDefective(1, 1, 0));
+        assertEquals(1, subsetStore.countDefects(1, 1, 0, 3));
+    }
+
+    @Test
+    public void testIsDefective() {
+        assertTrue(store.isDefective(2, 2, 2));
+        assertFalse(store.isDefective(2, 2, 3));
+        assertFalse(store.isDefective(1, 2, 2));
+        assertTrue(store.isDefective(3, 4, 9));
+    }
+
+    @Test
+    public void testIsBackground() {
+        assertTrue(store.isBackground(0, 4));
+        assertFalse(store.isBackground(1, 4));
+        assertFalse(store.isDefective(0, 4, 0));
+        assertEquals(BACKGROUND, store.getPixelMaskValue(0, 4, 0));
+        assertEquals(1, store.getPixelMaskValue(1, 1, 1));
+        assertEquals(0, store.getPixelMaskValue(1, 1, 0));
+    }
+
+    @Test
+    public void testCountDefects() {
+        assertEquals(NUM_BANDS, store.countDefects(3, 4, 0, NUM_BANDS));
+        assertEquals(3, store.countDefects(3, 4, 2, 5));
+        assertEquals(1, store.countDefects(3, 3, 0, NUM_BANDS));
+        assertEquals(0, store.countDefects(3, 3, 4, NUM_BANDS));
+        assertEquals(0, store.countDefects(2, 3, 0, NUM_BANDS));
+    }
+
+    @Test
+    public void testGetDefectBits() {
+        BitSet bits = store.getDefectBits(3, 4);
+        assertEquals(NUM_BANDS, bits.cardinality());
+        bits = store.getDefectBits(1, 1);
+        assertEquals(1, bits.cardinality());
+        assertTrue(bits.get(1));
+
+        byte[] row = store.getRowDefectBits(0, null);
+        assertEquals(WIDTH * store.getBytesPerPixel(), row.length);
+        assertEquals(1, row[0]);
+        assertEquals(0, row[2]);
+    }
+
+    @Test
+    public void testOnlyRequestedBandsAreDecoded() {
+        CountingImage[] images = createCountingImages(3);
+        PixelMaskStore blockStore = new PixelMaskStore(images, BACKGROUND, new Dimension(2, 2), Long.MAX_VALUE,
+                                                       new Object());
+
+        assertEquals(1, blockStore.getPixelMaskValue(1, 1, 1));
+        assertEquals(0, images[0].readCount.get());
+        assertEquals(1, images[1].readCount.get());
+        // the other pixels of the block are served without decoding again
+        assertEquals(0, blockStore.getPixelMaskValue(1, 0, 1));
+        assertFalse(blockStore.isBackground(0, 1));
+        assertEquals(1, images[1].readCount.get());
+        assertEquals(1, blockStore.getNumDecodedBlocks());
+
+        // the other bands are decoded when needed, the decoded band is not decoded again
+        assertEquals(3, blockStore.countDefects(0, 0, 0, 3));
+        assertEquals(1, images[0].readCount.get());
+        assertEquals(1, images[1].readCount.get());
+        assertEquals(1, images[2].readCount.get());
+        // a block only decodes its own pixels
+        assertEquals(new Rectangle(0, 0, 2, 2), images[2].lastRect);
+    }
+
+    @Test
+    public void testBlocksAreEvicted() {
+        CountingImage[] images = createCountingImages(3);
+        // two blocks of 2 x 2 pixels with one byte of defect bits and the background bits
+        PixelMaskStore blockStore = new PixelMaskStore(images, BACKGROUND, new Dimension(2, 2), 2 * 2 * 2 * 2,
+                                                       new Object());
+
+        for (int y = 0; y < 4; y++) {
+            for (int x = 0; x < 4; x++) {
+                assertEquals(x + "," + y, x == y ? 3 : 0, blockStore.countDefects(x, y, 0, 3));
+                assertTrue(blockStore.getNumDecodedBlocks() <= 2);
+            }
+        }
+        int readCount = images[0].readCount.get();
+        assertEquals(4, readCount);
+        // the first block has been released and is decoded again
+        assertEquals(3, blockStore.countDefects(0, 0, 0, 3));
+        assertEquals(readCount + 1, images[0].readCount.get());
+        assertEquals(2, blockStore.getNumDecodedBlocks());
+    }
+
+    @Test(timeout = 10000)
+    public void testDecodedBlocksAreAvailableWhileDecoding() throws InterruptedException {
+        CountingImage[] images = createCountingImages(2);
+        // the reader lock is held while decoding, it is not shared with the decoded blocks
+        PixelMaskStore blockStore = new PixelMaskStore(images, BACKGROUND, new Dimension(2, 2), Long.MAX_VALUE,
+                                                       new Object());
+        assertEquals(2, blockStore.countDefects(0, 0, 0, 2));
+
+        CountDownLatch decodingStarted = new CountDownLatch(1);
+        CountDownLatch decodingReleased = new CountDownLatch(1);
+        for (CountingImage image : images) {
+            image.decodingStarted = decodingStarted;
+            image.decodingReleased = decodingReleased;
+        }
+        AtomicInteger count = new AtomicInteger(-1);
+        Thread thread = new Thread(() -> count.set(blockStore.countDefects(3, 3, 0, 2)));
+        thread.start();
+        decodingStarted.await();
+
+        // the block of the other thread is still decoding
+        assertEquals(2, blockStore.countDefects(1, 1, 0, 2));
+        assertFalse(blockStore.isDefective(1, 0, 0));
+        decodingReleased.countDown();
+        thread.join();
+        assertEquals(2, count.get());
+    }
+
+    // images of 4 x 4 pixels, defective on the diagonal, which count the reads
+    private static CountingImage[] createCountingImages(int numBands) {
+        CountingImage[] images = new CountingImage[numBands];
+        for (int b = 0; b < numBands; b++) {
+            images[b] = new CountingImage();
+            for (int i = 0; i < 4; i++) {
+                images[b].getRaster().setSample(i, i, 0, 1);
+            }
+        }
+        return images;
+    }
+
+    private static class CountingImage extends BufferedImage {
+
+        private final AtomicInteger readCount = new AtomicInteger();
+        private volatile Rectangle lastRect;
+        private volatile CountDownLatch decodingStarted;
+        private volatile CountDownLatch decodingReleased;
+
+        private CountingImage() {
+            super(4, 4, BufferedImage.TYPE_BYTE_GRAY);
+        }
+
+        @Override
+        public Raster getData(Rectangle rect) {
+            readCount.incrementAndGet();
+            lastRect = rect;
+            if (decodingStarted != null) {
+                decodingStarted.countDown();
+                try {
+                    decodingReleased.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.getData(rect);
+        }
+    }
+}
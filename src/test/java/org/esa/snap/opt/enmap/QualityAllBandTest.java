@@ -0,0 +1,64 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.opt.enmap.EnmapMetadata.PROCESSING_LEVEL;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.awt.image.Raster;
+import java.io.File;
+import java.io.IOException;
+
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.ENMAP_QUALITY_ALL;
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.PREFERENCES;
+import static org.esa.snap.opt.enmap.SyntheticProductFixture.HEIGHT;
+import static org.esa.snap.opt.enmap.SyntheticProductFixture.WIDTH;
+import static org.esa.snap.opt.enmap.SyntheticProductFixture.readTiff;
+import static org.junit.Assert.*;
+
+public class QualityAllBandTest {
+
+    @Rule
+    public SyntheticProductFixture fixture = new SyntheticProductFixture(ENMAP_QUALITY_ALL);
+
+    @Test
+    public void testQualityAllBand() throws IOException {
+        File metadataFile = fixture.generate(PROCESSING_LEVEL.L2A, 3, 2);
+        PREFERENCES.putBoolean(ENMAP_QUALITY_ALL, true);
+        Product product = fixture.read(metadataFile);
+
+        Band qualityAllBand = product.getBand(QualityBits.QUALITY_ALL_BAND_NAME);
+        assertNotNull(qualityAllBand);
+        assertNotNull(product.getMaskGroup().get("QA_CLOUD_Cloud"));
+        assertNotNull(product.getMaskGroup().get("QA_CLASSES_Water"));
+        String[] keys = {
+                EnmapFileUtils.QUALITY_CLASSES_KEY, EnmapFileUtils.QUALITY_CLOUD_KEY, EnmapFileUtils.QUALITY_CLOUDSHADOW_KEY,
+                EnmapFileUtils.QUALITY_HAZE_KEY, EnmapFileUtils.QUALITY_CIRRUS_KEY, EnmapFileUtils.QUALITY_SNOW_KEY,
+                EnmapFileUtils.QUALITY_TESTFLAGS_KEY
+        };
+        int[] shifts = {
+                QualityBits.CLASSES_SHIFT, QualityBits.CLOUD_SHIFT, QualityBits.CLOUDSHADOW_SHIFT,
+                QualityBits.HAZE_SHIFT, QualityBits.CIRRUS_SHIFT, QualityBits.SNOW_SHIFT,
+                QualityBits.TESTFLAGS_SHIFT
+        };
+        Raster[] layerData = new Raster[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            layerData[i] = readTiff(metadataFile, keys[i]);
+        }
+        Raster qualityAllData = qualityAllBand.getSourceImage().getData();
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int expected = 0;
+                for (int i = 0; i < keys.length; i++) {
+                    expected |= layerData[i].getSample(x, y, 0) << shifts[i];
+                }
+                assertEquals(x + "," + y, expected, qualityAllData.getSample(x, y, 0));
+            }
+        }
+        // the cloud is set in the centre of the generated cloud, the water class in the centre of the lake
+        assertEquals(QualityBits.CLOUD_MASK, qualityAllData.getSample(65, 28, 0) & QualityBits.CLOUD_MASK);
+        assertEquals(QualityBits.CLASSES_WATER, qualityAllData.getSample(30, 56, 0) & QualityBits.CLASSES_MASK);
+        assertEquals(QualityBits.CLASSES_BACKGROUND, qualityAllData.getSample(0, 0, 0) & QualityBits.CLASSES_MASK);
+    }
+}
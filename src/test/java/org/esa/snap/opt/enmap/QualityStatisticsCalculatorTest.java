@@ -0,0 +1,36 @@
+package org.esa.snap.opt.enmap;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class QualityStatisticsCalculatorTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testCacheFile() {
+        Map<String, Long> flagCounts = new LinkedHashMap<>();
+        flagCounts.put("CLASSES_Land", 700L);
+        flagCounts.put("CLOUD_Cloud", 50L);
+        QualityStatistics statistics = new QualityStatistics(1000, 300, flagCounts);
+        Path cacheFile = tempFolder.getRoot().toPath().resolve("cache").resolve("product" + QualityStatisticsCalculator.CACHE_FILE_SUFFIX);
+        QualityStatisticsCalculator.writeCacheFile(cacheFile, "scene=40x25;QUALITY_CLASSES=a:1:2", statistics);
+
+        QualityStatistics cachedStatistics = QualityStatisticsCalculator.readCacheFile(cacheFile, "scene=40x25;QUALITY_CLASSES=a:1:2");
+        assertNotNull(cachedStatistics);
+        assertEquals(1000, cachedStatistics.getTotalPixelCount());
+        assertEquals(300, cachedStatistics.getBackgroundPixelCount());
+        assertEquals(flagCounts, cachedStatistics.getCounts());
+        // statistics of modified quality layers are not used
+        assertNull(QualityStatisticsCalculator.readCacheFile(cacheFile, "scene=40x25;QUALITY_CLASSES=a:1:3"));
+        assertNull(QualityStatisticsCalculator.readCacheFile(cacheFile.resolveSibling("other.properties"), "scene=40x25"));
+    }
+}
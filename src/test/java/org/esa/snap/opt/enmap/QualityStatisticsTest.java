@@ -0,0 +1,66 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.opt.enmap.EnmapMetadata.PROCESSING_LEVEL;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.awt.image.Raster;
+import java.io.File;
+import java.io.IOException;
+
+import static org.esa.snap.opt.enmap.SyntheticProductFixture.HEIGHT;
+import static org.esa.snap.opt.enmap.SyntheticProductFixture.WIDTH;
+import static org.esa.snap.opt.enmap.SyntheticProductFixture.getReader;
+import static org.esa.snap.opt.enmap.SyntheticProductFixture.readTiff;
+import static org.junit.Assert.*;
+
+public class QualityStatisticsTest {
+
+    @Rule
+    public SyntheticProductFixture fixture = new SyntheticProductFixture();
+
+    @Test
+    public void testQualityStatistics() throws IOException {
+        File metadataFile = fixture.generate(PROCESSING_LEVEL.L2A, 3, 2);
+        Product product = fixture.read(metadataFile);
+        QualityStatistics statistics = getReader(product).getQualityStatistics();
+
+        Raster classesData = readTiff(metadataFile, EnmapFileUtils.QUALITY_CLASSES_KEY);
+        Raster cloudData = readTiff(metadataFile, EnmapFileUtils.QUALITY_CLOUD_KEY);
+        Raster hazeData = readTiff(metadataFile, EnmapFileUtils.QUALITY_HAZE_KEY);
+        long backgroundCount = 0;
+        long landCount = 0;
+        long waterCount = 0;
+        long cloudCount = 0;
+        long hazeCount = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int pixelClass = classesData.getSample(x, y, 0);
+                // the flags are only counted for the pixels which are not background
+                if (pixelClass == QualityBits.CLASSES_BACKGROUND) {
+                    backgroundCount++;
+                    continue;
+                }
+                landCount += pixelClass == QualityBits.CLASSES_LAND ? 1 : 0;
+                waterCount += pixelClass == QualityBits.CLASSES_WATER ? 1 : 0;
+                cloudCount += cloudData.getSample(x, y, 0);
+                hazeCount += hazeData.getSample(x, y, 0);
+            }
+        }
+        assertEquals(WIDTH * HEIGHT, statistics.getTotalPixelCount());
+        assertEquals(backgroundCount, statistics.getBackgroundPixelCount());
+        assertEquals(landCount, statistics.getCount("CLASSES_Land"));
+        assertEquals(waterCount, statistics.getCount("CLASSES_Water"));
+        assertEquals(cloudCount, statistics.getCount("CLOUD_Cloud"));
+        assertEquals(hazeCount, statistics.getCount("HAZE_Haze"));
+        assertTrue(statistics.getCounts().containsKey("SNOW_Snow"));
+        assertEquals(0, statistics.getCount("SNOW_Snow"));
+        assertFalse(statistics.getCounts().containsKey("CLASSES_Background"));
+        // the generated scene has background, water, cloud and haze
+        assertTrue(backgroundCount > 0);
+        assertTrue(waterCount > 0);
+        assertTrue(cloudCount > 0);
+        assertTrue(hazeCount > 0);
+    }
+}
@@ -0,0 +1,52 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.opt.enmap.EnmapMetadata.PROCESSING_LEVEL;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.awt.image.Raster;
+import java.io.File;
+import java.io.IOException;
+
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.ENMAP_READ_QUICKLOOKS;
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.PREFERENCES;
+import static org.esa.snap.opt.enmap.SyntheticProductFixture.assertSamplesEqual;
+import static org.esa.snap.opt.enmap.SyntheticProductFixture.readTiff;
+import static org.junit.Assert.*;
+
+public class QuicklookBandsTest {
+
+    @Rule
+    public SyntheticProductFixture fixture = new SyntheticProductFixture(ENMAP_READ_QUICKLOOKS);
+
+    @Test
+    public void testQuicklookBands() throws IOException {
+        File metadataFile = fixture.generate(PROCESSING_LEVEL.L2A, 3, 2);
+        Product product = fixture.read(metadataFile);
+
+        Raster quicklookData = readTiff(metadataFile, EnmapFileUtils.QUICKLOOK_VNIR_KEY);
+        String[] colorNames = {"red", "green", "blue"};
+        for (int i = 0; i < colorNames.length; i++) {
+            Band band = product.getBand(EnmapFileUtils.QUICKLOOK_VNIR_KEY + "_" + colorNames[i]);
+            assertNotNull(colorNames[i], band);
+            assertSamplesEqual(quicklookData, i, band.getSourceImage().getData());
+        }
+        assertNotNull(product.getBand(EnmapFileUtils.QUICKLOOK_SWIR_KEY + "_red"));
+        Raster redData = product.getBand(EnmapFileUtils.QUICKLOOK_VNIR_KEY + "_red").getSourceImage().getData();
+        // the cloud is bright, the upper left corner of the orthorectified scene is background
+        assertEquals(240, redData.getSample(65, 28, 0));
+        assertEquals(0, redData.getSample(0, 0, 0));
+    }
+
+    @Test
+    public void testQuicklooksDisabled() throws IOException {
+        File metadataFile = fixture.generate(PROCESSING_LEVEL.L2A, 3, 2);
+        PREFERENCES.putBoolean(ENMAP_READ_QUICKLOOKS, false);
+        Product product = fixture.read(metadataFile);
+
+        assertNull(product.getBand(EnmapFileUtils.QUICKLOOK_VNIR_KEY + "_red"));
+        assertNull(product.getBand(EnmapFileUtils.QUICKLOOK_SWIR_KEY + "_red"));
+    }
+}
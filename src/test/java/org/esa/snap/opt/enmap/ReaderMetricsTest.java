@@ -0,0 +1,91 @@
+package org.esa.snap.opt.enmap;
+
+import com.bc.ceres.core.ProgressMonitor;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.opt.enmap.EnmapMetadata.PROCESSING_LEVEL;
+import org.junit.Rule;
+import org.junit.Test;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.ENMAP_METRICS_ENABLED;
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.PREFERENCES;
+import static org.esa.snap.opt.enmap.SyntheticProductFixture.getReader;
+import static org.junit.Assert.*;
+
+public class ReaderMetricsTest {
+
+    @Rule
+    public SyntheticProductFixture fixture = new SyntheticProductFixture(ENMAP_METRICS_ENABLED);
+
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    @Test
+    public void testMetricsBean() throws IOException, JMException {
+        File metadataFile = fixture.generate(PROCESSING_LEVEL.L2A, 3, 2);
+        PREFERENCES.putBoolean(ENMAP_METRICS_ENABLED, true);
+        Product product = new EnmapProductReaderPlugIn().createReaderInstance().readProductNodes(metadataFile, null);
+        String productName = product.getName();
+        try {
+            Set<ObjectName> names = queryNames(productName);
+            assertEquals(1, names.size());
+            ObjectName name = names.iterator().next();
+            assertEquals(productName, mBeanServer.getAttribute(name, "ProductName"));
+            assertEquals(0L, mBeanServer.getAttribute(name, "ReadCount"));
+            assertFalse(((TabularData) mBeanServer.getAttribute(name, "OpenPhaseMillis")).isEmpty());
+
+            Band band = product.getBand("band_001");
+            ProductData data = ProductData.createInstance(band.getDataType(), 20 * 10);
+            getReader(product).readBandRasterData(band, 40, 30, 20, 10, data, ProgressMonitor.NULL);
+
+            assertEquals(1L, mBeanServer.getAttribute(name, "ReadCount"));
+            assertEquals(200L, mBeanServer.getAttribute(name, "ReadPixelCount"));
+            assertEquals(200L * data.getElemSize(), mBeanServer.getAttribute(name, "ReadByteCount"));
+            assertEquals(1L, ((CompositeData) mBeanServer.getAttribute(name, "ReadTime")).get("count"));
+            assertTrue((Long) ((CompositeData) mBeanServer.getAttribute(name, "DecodeTime")).get("count") > 0);
+            CompositeData[] imageReaderStatistics = (CompositeData[]) mBeanServer.getAttribute(name, "ImageReaderStatistics");
+            assertTrue(imageReaderStatistics.length > 0);
+            long tileCount = 0;
+            for (CompositeData statistics : imageReaderStatistics) {
+                tileCount += (Long) statistics.get("tileCount");
+            }
+            assertTrue(tileCount > 0);
+
+            mBeanServer.invoke(name, "reset", null, null);
+            assertEquals(0L, mBeanServer.getAttribute(name, "ReadCount"));
+        } finally {
+            product.dispose();
+        }
+        // the bean is unregistered when the product is disposed
+        assertTrue(queryNames(productName).isEmpty());
+    }
+
+    @Test
+    public void testMetricsDisabled() throws IOException, JMException {
+        File metadataFile = fixture.generate(PROCESSING_LEVEL.L2A, 3, 2);
+        PREFERENCES.putBoolean(ENMAP_METRICS_ENABLED, false);
+        Product product = fixture.read(metadataFile);
+
+        assertNull(getReader(product).getMetrics());
+        assertTrue(queryNames(product.getName()).isEmpty());
+        Band band = product.getBand("band_001");
+        ProductData data = ProductData.createInstance(band.getDataType(), 100);
+        getReader(product).readBandRasterData(band, 0, 0, 10, 10, data, ProgressMonitor.NULL);
+        assertTrue(queryNames(product.getName()).isEmpty());
+    }
+
+    private Set<ObjectName> queryNames(String productName) throws JMException {
+        return mBeanServer.queryNames(new ObjectName(String.format("org.esa.snap.opt.enmap:type=EnmapProductReader,name=%s,*",
+                                                                   ObjectName.quote(productName))), null);
+    }
+}
@@ -0,0 +1,67 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.datamodel.CrsGeoCoding;
+import org.esa.snap.core.datamodel.GeoPos;
+import org.esa.snap.core.datamodel.PixelPos;
+import org.geotools.referencing.CRS;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+
+import static org.junit.Assert.*;
+
+public class RegionOfInterestTest {
+
+    private static final Dimension SCENE_DIMENSION = new Dimension(1000, 1000);
+
+    private static CrsGeoCoding geoCoding;
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        geoCoding = new CrsGeoCoding(CRS.decode("EPSG:32632"), SCENE_DIMENSION.width, SCENE_DIMENSION.height,
+                                     500000, 5000000, 30, 30, 0, 0);
+    }
+
+    @Test
+    public void testComputePixelRegion() {
+        Geometry roi = createPolygon(100, 200, 300, 400);
+        Rectangle region = RegionOfInterest.computePixelRegion(roi, null, geoCoding, SCENE_DIMENSION);
+        assertEquals(100, region.x, 1);
+        assertEquals(200, region.y, 1);
+        assertEquals(300, region.x + region.width, 1);
+        assertEquals(400, region.y + region.height, 1);
+    }
+
+    @Test
+    public void testComputePixelRegion_ClippedByCoverage() {
+        Geometry roi = createPolygon(100, 200, 300, 400);
+        Geometry coverage = createPolygon(0, 0, 150, 1000);
+        Rectangle region = RegionOfInterest.computePixelRegion(roi, coverage, geoCoding, SCENE_DIMENSION);
+        assertEquals(100, region.x, 1);
+        assertEquals(150, region.x + region.width, 1);
+    }
+
+    @Test
+    public void testComputePixelRegion_OutsideOfScene() {
+        Geometry roi = createPolygon(-300, -300, -100, -100);
+        Geometry coverage = createPolygon(0, 0, 1000, 1000);
+        assertTrue(RegionOfInterest.computePixelRegion(roi, coverage, geoCoding, SCENE_DIMENSION).isEmpty());
+    }
+
+    private static Geometry createPolygon(double x0, double y0, double x1, double y1) {
+        Coordinate[] coordinates = {
+                toCoordinate(x0, y0), toCoordinate(x1, y0), toCoordinate(x1, y1), toCoordinate(x0, y1), toCoordinate(x0, y0)
+        };
+        return new GeometryFactory().createPolygon(coordinates);
+    }
+
+    private static Coordinate toCoordinate(double x, double y) {
+        GeoPos geoPos = geoCoding.getGeoPos(new PixelPos(x, y), null);
+        return new Coordinate(geoPos.lon, geoPos.lat);
+    }
+}
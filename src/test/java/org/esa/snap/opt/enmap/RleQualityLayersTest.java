@@ -0,0 +1,58 @@
+package org.esa.snap.opt.enmap;
+
+import com.bc.ceres.glevel.MultiLevelImage;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.opt.enmap.EnmapMetadata.PROCESSING_LEVEL;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.awt.image.Raster;
+import java.io.File;
+import java.io.IOException;
+
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.ENMAP_RLE_QUALITY_LAYERS;
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.PREFERENCES;
+import static org.esa.snap.opt.enmap.SyntheticProductFixture.assertSamplesEqual;
+import static org.esa.snap.opt.enmap.SyntheticProductFixture.readTiff;
+import static org.junit.Assert.*;
+
+public class RleQualityLayersTest {
+
+    @Rule
+    public SyntheticProductFixture fixture = new SyntheticProductFixture(ENMAP_RLE_QUALITY_LAYERS);
+
+    @Test
+    public void testRleQualityLayers() throws IOException {
+        File metadataFile = fixture.generate(PROCESSING_LEVEL.L2A, 3, 2);
+        PREFERENCES.putBoolean(ENMAP_RLE_QUALITY_LAYERS, true);
+        Product product = fixture.read(metadataFile);
+
+        Raster classesData = readTiff(metadataFile, EnmapFileUtils.QUALITY_CLASSES_KEY);
+        Band band = product.getBand(EnmapFileUtils.QUALITY_CLASSES_KEY);
+        MultiLevelImage sourceImage = band.getSourceImage();
+        assertTrue(sourceImage.getImage(0) instanceof RleOpImage);
+        assertSamplesEqual(classesData, 0, sourceImage.getData());
+
+        // the lower levels are read from the quality layer itself, not decimated from the encoded copy
+        assertTrue(sourceImage.getModel().getLevelCount() > 1);
+        assertTrue(sourceImage.getImage(1) instanceof EnmapLevelImage);
+        Raster levelData = sourceImage.getImage(1).getData();
+        for (int y = 0; y < levelData.getHeight(); y++) {
+            for (int x = 0; x < levelData.getWidth(); x++) {
+                assertEquals(x + "," + y, classesData.getSample(2 * x, 2 * y, 0), levelData.getSample(x, y, 0));
+            }
+        }
+    }
+
+    @Test
+    public void testRleDisabled() throws IOException {
+        File metadataFile = fixture.generate(PROCESSING_LEVEL.L2A, 3, 2);
+        PREFERENCES.putBoolean(ENMAP_RLE_QUALITY_LAYERS, false);
+        Product product = fixture.read(metadataFile);
+
+        MultiLevelImage sourceImage = product.getBand(EnmapFileUtils.QUALITY_CLASSES_KEY).getSourceImage();
+        assertTrue(sourceImage.getImage(0) instanceof EnmapLevelImage);
+        assertSamplesEqual(readTiff(metadataFile, EnmapFileUtils.QUALITY_CLASSES_KEY), 0, sourceImage.getData());
+    }
+}
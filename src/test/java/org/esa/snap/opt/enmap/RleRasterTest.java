@@ -0,0 +1,102 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.datamodel.ProductData;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.media.jai.JAI;
+import javax.media.jai.RasterFactory;
+import javax.media.jai.RenderedOp;
+import javax.media.jai.TileCache;
+import javax.media.jai.TiledImage;
+import javax.media.jai.operator.BandSelectDescriptor;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+
+import static org.junit.Assert.*;
+
+public class RleRasterTest {
+
+    private static final int WIDTH = 100;
+    private static final int HEIGHT = 70;
+
+    private static BufferedImage image;
+    private static RleRaster rleRaster;
+
+    @BeforeClass
+    public static void beforeClass() {
+        image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_BYTE_GRAY);
+        WritableRaster raster = image.getRaster();
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                raster.setSample(x, y, 0, x < y ? 3 : (x / 30) % 2);
+            }
+        }
+        raster.setSample(WIDTH - 1, HEIGHT - 1, 0, 255);
+        rleRaster = RleRaster.create(image, new Object());
+    }
+
+    @Test
+    public void testGetSample() {
+        assertEquals(WIDTH, rleRaster.getWidth());
+        assertEquals(HEIGHT, rleRaster.getHeight());
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                assertEquals(image.getRaster().getSample(x, y, 0), rleRaster.getSample(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testExpandRow() {
+        int[] row = new int[20];
+        rleRaster.expandRow(35, 25, 20, row, 0);
+        for (int i = 0; i < row.length; i++) {
+            assertEquals(image.getRaster().getSample(25 + i, 35, 0), row[i]);
+        }
+    }
+
+    @Test
+    public void testExpandInto() {
+        Rectangle region = new Rectangle(55, 40, 45, 30);
+        ProductData data = ProductData.createInstance(ProductData.TYPE_UINT8, region.width * region.height);
+        rleRaster.expandInto(region, data);
+        assertEquals(image.getRaster().getSample(55, 40, 0), data.getElemIntAt(0));
+        assertEquals(255, data.getElemIntAt(region.width * region.height - 1));
+    }
+
+    @Test
+    public void testMemorySize() {
+        assertTrue(rleRaster.getMemorySize() < (long) WIDTH * HEIGHT);
+    }
+
+    @Test
+    public void testSourceTilesAreNotCached() {
+        TiledImage twoBandImage = new TiledImage(0, 0, WIDTH, HEIGHT, 0, 0,
+                                                 RasterFactory.createBandedSampleModel(DataBuffer.TYPE_BYTE, 32, 32, 2), null);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                twoBandImage.setSample(x, y, 1, image.getRaster().getSample(x, y, 0));
+            }
+        }
+        TileCache tileCache = JAI.getDefaultInstance().getTileCache();
+
+        // a band of the source is cached when read directly
+        RenderedOp cachedBand = BandSelectDescriptor.create(twoBandImage, new int[]{1}, null);
+        cachedBand.getData();
+        Raster[] cachedTiles = tileCache.getTiles(cachedBand.getRendering());
+        assertNotNull(cachedTiles);
+        assertTrue(cachedTiles.length > 0);
+
+        RenderedOp band = BandSelectDescriptor.create(twoBandImage, new int[]{1}, null);
+        RleOpImage rleImage = new RleOpImage(band, new Dimension(32, 32), new Object());
+        assertEquals(image.getRaster().getSample(60, 40, 0), rleImage.getData().getSample(60, 40, 0));
+        Raster[] tiles = tileCache.getTiles(band.getRendering());
+        assertTrue(tiles == null || tiles.length == 0);
+        cachedBand.dispose();
+    }
+}
@@ -0,0 +1,147 @@
+package org.esa.snap.opt.enmap;
+
+import it.geosolutions.imageioimpl.plugins.tiff.TIFFImageReader;
+import it.geosolutions.imageioimpl.plugins.tiff.TIFFImageReaderSpi;
+import org.esa.snap.core.dataio.ProductSubsetDef;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.opt.enmap.EnmapMetadata.PROCESSING_LEVEL;
+import org.junit.rules.ExternalResource;
+import org.junit.rules.TemporaryFolder;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.Raster;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.ENMAP_GEOTIFF_USE_JAI;
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.PREFERENCES;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Test rule for the tests reading products of the {@link SyntheticProductGenerator}. It generates the products
+ * into a temporary folder, reads them with the JAI backend, and disposes the read products after the test.
+ * The reader preferences given to the constructor are restored after the test, so a test can change them freely.
+ * <p>
+ * Usage:
+ * <pre>
+ *     &#64;Rule
+ *     public SyntheticProductFixture fixture = new SyntheticProductFixture(ENMAP_READ_QUICKLOOKS);
+ * </pre>
+ */
+class SyntheticProductFixture extends ExternalResource {
+
+    static final int WIDTH = 100;
+    static final int HEIGHT = 80;
+
+    private final TemporaryFolder tempFolder = new TemporaryFolder();
+    private final Set<String> preferenceKeys = new LinkedHashSet<>();
+    private final Map<String, String> previousPreferences = new HashMap<>();
+    private final Map<String, File> generatedProducts = new HashMap<>();
+    private final List<Product> products = new ArrayList<>();
+
+    SyntheticProductFixture(String... preferenceKeys) {
+        this.preferenceKeys.add(ENMAP_GEOTIFF_USE_JAI);
+        this.preferenceKeys.addAll(Arrays.asList(preferenceKeys));
+    }
+
+    @Override
+    protected void before() throws Throwable {
+        tempFolder.create();
+        for (String key : preferenceKeys) {
+            previousPreferences.put(key, PREFERENCES.get(key, null));
+        }
+        PREFERENCES.putBoolean(ENMAP_GEOTIFF_USE_JAI, true);
+    }
+
+    @Override
+    protected void after() {
+        products.forEach(Product::dispose);
+        products.clear();
+        generatedProducts.clear();
+        for (String key : preferenceKeys) {
+            String value = previousPreferences.get(key);
+            if (value != null) {
+                PREFERENCES.put(key, value);
+            } else {
+                PREFERENCES.remove(key);
+            }
+        }
+        tempFolder.delete();
+    }
+
+    /**
+     * Generates a product of {@link #WIDTH} x {@link #HEIGHT} pixels with tiles of 32 pixels. A product with the
+     * same level and number of bands is only generated once per test.
+     *
+     * @return the metadata file of the product
+     */
+    File generate(PROCESSING_LEVEL level, int numVnirBands, int numSwirBands) throws IOException {
+        String name = String.format("%s_%d_%d", level, numVnirBands, numSwirBands);
+        File metadataFile = generatedProducts.get(name);
+        if (metadataFile == null) {
+            SyntheticProductGenerator generator = new SyntheticProductGenerator(level);
+            generator.setSceneSize(WIDTH, HEIGHT);
+            generator.setNumBands(numVnirBands, numSwirBands);
+            generator.setTileSize(32);
+            metadataFile = generator.generate(tempFolder.newFolder(name));
+            generatedProducts.put(name, metadataFile);
+        }
+        return metadataFile;
+    }
+
+    Product read(File metadataFile) throws IOException {
+        return read(metadataFile, null);
+    }
+
+    /**
+     * reads the product with the current preferences, the product is disposed after the test
+     */
+    Product read(File metadataFile, ProductSubsetDef subsetDef) throws IOException {
+        Product product = new EnmapProductReaderPlugIn().createReaderInstance().readProductNodes(metadataFile, subsetDef);
+        products.add(product);
+        return product;
+    }
+
+    static EnmapProductReader getReader(Product product) {
+        return (EnmapProductReader) product.getProductReader();
+    }
+
+    /**
+     * reads the file of the product with the given key directly, without the EnMAP reader
+     */
+    static Raster readTiff(File metadataFile, String key) throws IOException {
+        String fileName;
+        try (InputStream inputStream = new FileInputStream(metadataFile)) {
+            fileName = EnmapMetadata.create(inputStream).getFileNameMap().get(key);
+        }
+        assertNotNull(key, fileName);
+        TIFFImageReader reader = new TIFFImageReader(new TIFFImageReaderSpi());
+        try (ImageInputStream stream = ImageIO.createImageInputStream(new File(metadataFile.getParentFile(), fileName))) {
+            reader.setInput(stream);
+            return reader.readRaster(0, null);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    static void assertSamplesEqual(Raster expected, int expectedBand, Raster actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < actual.getHeight(); y++) {
+            for (int x = 0; x < actual.getWidth(); x++) {
+                assertEquals(x + "," + y, expected.getSample(x, y, expectedBand), actual.getSample(x, y, 0));
+            }
+        }
+    }
+}
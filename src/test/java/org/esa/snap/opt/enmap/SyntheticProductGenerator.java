@@ -0,0 +1,533 @@
+package org.esa.snap.opt.enmap;
+
+import org.esa.snap.core.datamodel.CrsGeoCoding;
+import org.esa.snap.core.datamodel.GeoPos;
+import org.esa.snap.core.datamodel.PixelPos;
+import org.esa.snap.opt.enmap.EnmapMetadata.PROCESSING_LEVEL;
+import org.geotools.referencing.CRS;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.esa.snap.opt.enmap.EnmapFileUtils.*;
+
+/**
+ * Generates synthetic EnMAP products in the GeoTIFF+Metadata format with configurable dimensions, band counts,
+ * tiling and compression. The products are accepted by the reader like real products, but the metadata contains only
+ * the elements evaluated by the reader. They are meant for measuring the reader with realistic product sizes,
+ * the default dimensions and band counts are those of real products.
+ * <p>
+ * The images contain smooth spectra with some noise, a background area at the left and right edges of the
+ * orthorectified scenes, a lake, a cloud with its shadow and a few defective pixel columns.
+ * <p>
+ * Usage: {@code SyntheticProductGenerator <L1B|L1C|L2A> <targetDir> [key=value ...]} with the keys
+ * {@code width, height, vnirBands, swirBands, tileSize, compression, bandInterleaved, zipped, quicklooks}.
+ * A tile size of 0 writes strips of one row.
+ */
+public class SyntheticProductGenerator {
+
+    static final int DEFAULT_NUM_VNIR_BANDS = 91;
+    static final int DEFAULT_NUM_SWIR_BANDS = 133;
+    static final int DEFAULT_TILE_SIZE = 256;
+
+    private static final double PIXEL_SIZE = 30.0;
+    private static final int UTM_ZONE = 32;
+    // upper left corner of the scene, south of Munich
+    private static final double UPPER_LEFT_EASTING = 630000.0;
+    private static final double UPPER_LEFT_NORTHING = 5295000.0;
+    private static final String START_TIME = "2023-06-26T10:20:21.000000Z";
+    private static final String STOP_TIME = "2023-06-26T10:20:25.500000Z";
+    private static final int BACKGROUND_VALUE = 0;
+    private static final int PIXELMASK_BACKGROUND_VALUE = 255;
+
+    private final PROCESSING_LEVEL level;
+    private int width;
+    private int height;
+    private int numVnirBands;
+    private int numSwirBands;
+    private int tileSize;
+    private SyntheticTiffWriter.Compression compression;
+    private boolean bandInterleaved;
+    private boolean zipped;
+    private boolean quicklooks;
+
+    public SyntheticProductGenerator(PROCESSING_LEVEL level) {
+        this.level = level;
+        boolean ortho = level != PROCESSING_LEVEL.L1B;
+        width = ortho ? 1128 : 1000;
+        height = ortho ? 1212 : 1024;
+        numVnirBands = DEFAULT_NUM_VNIR_BANDS;
+        numSwirBands = DEFAULT_NUM_SWIR_BANDS;
+        tileSize = DEFAULT_TILE_SIZE;
+        compression = SyntheticTiffWriter.Compression.DEFLATE;
+        bandInterleaved = true;
+        quicklooks = true;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: SyntheticProductGenerator <L1B|L1C|L2A> <targetDir> [key=value ...]");
+            System.out.println("keys: width, height, vnirBands, swirBands, tileSize, compression (NONE|DEFLATE), " +
+                               "bandInterleaved, zipped, quicklooks");
+            System.exit(1);
+        }
+        SyntheticProductGenerator generator = new SyntheticProductGenerator(PROCESSING_LEVEL.valueOf(args[0]));
+        for (int i = 2; i < args.length; i++) {
+            String[] keyValue = args[i].split("=", 2);
+            if (keyValue.length != 2) {
+                throw new IllegalArgumentException(String.format("Expected key=value but got '%s'", args[i]));
+            }
+            generator.setOption(keyValue[0], keyValue[1]);
+        }
+        long start = System.nanoTime();
+        File productFile = generator.generate(new File(args[1]));
+        System.out.printf("Generated %s in %d s%n", productFile.getAbsolutePath(), (System.nanoTime() - start) / 1_000_000_000L);
+    }
+
+    public void setSceneSize(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public void setNumBands(int numVnirBands, int numSwirBands) {
+        this.numVnirBands = numVnirBands;
+        this.numSwirBands = numSwirBands;
+    }
+
+    /**
+     * @param tileSize the width and height of the square tiles of the images, 0 to write strips of one row
+     */
+    public void setTileSize(int tileSize) {
+        this.tileSize = tileSize;
+    }
+
+    public void setCompression(SyntheticTiffWriter.Compression compression) {
+        this.compression = compression;
+    }
+
+    /**
+     * @param bandInterleaved {@code true} to store the bands of the images one after the other,
+     *                        {@code false} to store all bands of a pixel together
+     */
+    public void setBandInterleaved(boolean bandInterleaved) {
+        this.bandInterleaved = bandInterleaved;
+    }
+
+    /**
+     * @param zipped {@code true} to additionally pack the product into a zip file
+     */
+    public void setZipped(boolean zipped) {
+        this.zipped = zipped;
+    }
+
+    public void setQuicklooks(boolean quicklooks) {
+        this.quicklooks = quicklooks;
+    }
+
+    /**
+     * Writes the product into a new directory within the target directory. The name of the directory
+     * contains the processing level and the dimensions of the product.
+     *
+     * @param targetDir the directory to write the product to
+     * @return the zip file if the product is zipped, otherwise the metadata file
+     * @throws IOException if the product could not be written
+     */
+    public File generate(File targetDir) throws IOException {
+        String dirName = String.format("enmap_%s_synthetic_%dx%dx%d", level, width, height, numVnirBands + numSwirBands);
+        File productDir = new File(targetDir, dirName);
+        Files.createDirectories(productDir.toPath());
+        String baseName = String.format("ENMAP01-____%s-DT0000000001_20230626T102021Z_001_V010400_20230701T120000Z", level);
+
+        CrsGeoCoding geoCoding = createGeoCoding();
+        Map<String, File> files = new LinkedHashMap<>();
+        files.put(METADATA_KEY, new File(productDir, baseName + METADATA_SUFFIX));
+        if (level == PROCESSING_LEVEL.L1B) {
+            files.put(SPECTRAL_IMAGE_VNIR_KEY, writeSpectralImage(productDir, baseName, SPECTRAL_IMAGE_VNIR_KEY, 0, numVnirBands));
+            files.put(SPECTRAL_IMAGE_SWIR_KEY, writeSpectralImage(productDir, baseName, SPECTRAL_IMAGE_SWIR_KEY, numVnirBands, numSwirBands));
+            files.put(QUALITY_PIXELMASK_VNIR_KEY, writePixelMask(productDir, baseName, QUALITY_PIXELMASK_VNIR_KEY, 0, numVnirBands));
+            files.put(QUALITY_PIXELMASK_SWIR_KEY, writePixelMask(productDir, baseName, QUALITY_PIXELMASK_SWIR_KEY, numVnirBands, numSwirBands));
+            files.put(QUALITY_TESTFLAGS_VNIR_KEY, writeQualityLayer(productDir, baseName, QUALITY_TESTFLAGS_VNIR_KEY));
+            files.put(QUALITY_TESTFLAGS_SWIR_KEY, writeQualityLayer(productDir, baseName, QUALITY_TESTFLAGS_SWIR_KEY));
+        } else {
+            files.put(SPECTRAL_IMAGE_KEY, writeSpectralImage(productDir, baseName, SPECTRAL_IMAGE_KEY, 0, numVnirBands + numSwirBands));
+            files.put(QUALITY_PIXELMASK_KEY, writePixelMask(productDir, baseName, QUALITY_PIXELMASK_KEY, 0, numVnirBands + numSwirBands));
+            files.put(QUALITY_TESTFLAGS_KEY, writeQualityLayer(productDir, baseName, QUALITY_TESTFLAGS_KEY));
+        }
+        for (String qualityKey : new String[]{QUALITY_CLASSES_KEY, QUALITY_CLOUD_KEY, QUALITY_CLOUDSHADOW_KEY,
+                QUALITY_HAZE_KEY, QUALITY_CIRRUS_KEY, QUALITY_SNOW_KEY}) {
+            files.put(qualityKey, writeQualityLayer(productDir, baseName, qualityKey));
+        }
+        if (quicklooks) {
+            files.put(QUICKLOOK_VNIR_KEY, writeQuicklook(productDir, baseName, QUICKLOOK_VNIR_KEY));
+            files.put(QUICKLOOK_SWIR_KEY, writeQuicklook(productDir, baseName, QUICKLOOK_SWIR_KEY));
+        }
+        writeMetadata(files, geoCoding);
+
+        if (zipped) {
+            File zipFile = new File(targetDir, dirName + ".zip");
+            writeZip(zipFile, dirName, files.values());
+            return zipFile;
+        }
+        return files.get(METADATA_KEY);
+    }
+
+    void setOption(String key, String value) {
+        switch (key) {
+            case "width":
+                width = Integer.parseInt(value);
+                break;
+            case "height":
+                height = Integer.parseInt(value);
+                break;
+            case "vnirBands":
+                numVnirBands = Integer.parseInt(value);
+                break;
+            case "swirBands":
+                numSwirBands = Integer.parseInt(value);
+                break;
+            case "tileSize":
+                tileSize = Integer.parseInt(value);
+                break;
+            case "compression":
+                compression = SyntheticTiffWriter.Compression.valueOf(value.toUpperCase(Locale.ENGLISH));
+                break;
+            case "bandInterleaved":
+                bandInterleaved = Boolean.parseBoolean(value);
+                break;
+            case "zipped":
+                zipped = Boolean.parseBoolean(value);
+                break;
+            case "quicklooks":
+                quicklooks = Boolean.parseBoolean(value);
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("Unknown option '%s'", key));
+        }
+    }
+
+    private File writeSpectralImage(File productDir, String baseName, String key, int bandOffset, int numBands) throws IOException {
+        File file = new File(productDir, String.format("%s-%s.TIF", baseName, key));
+        SyntheticTiffWriter writer = createTiffWriter(numBands, 16);
+        writer.setNoDataValue(BACKGROUND_VALUE);
+        // a smooth spectrum, darker over water and brighter under the cloud
+        int[] spectrum = new int[numBands];
+        for (int i = 0; i < numBands; i++) {
+            spectrum[i] = 2000 + (int) (3000 * Math.sin((bandOffset + i) * Math.PI / (numVnirBands + numSwirBands)));
+        }
+        writer.write(file, (band, x, y) -> {
+            if (isBackground(x, y)) {
+                return BACKGROUND_VALUE;
+            }
+            int value = spectrum[band];
+            if (isWater(x, y)) {
+                value /= 4;
+            } else if (isCloud(x, y)) {
+                value = 9000;
+            }
+            return value + (x + y) % 64 + noise(bandOffset + band, x, y, 32);
+        });
+        return file;
+    }
+
+    private File writePixelMask(File productDir, String baseName, String key, int bandOffset, int numBands) throws IOException {
+        File file = new File(productDir, String.format("%s-QL_%s.TIF", baseName, key));
+        SyntheticTiffWriter writer = createTiffWriter(numBands, 8);
+        writer.write(file, (band, x, y) -> {
+            if (isBackground(x, y)) {
+                return PIXELMASK_BACKGROUND_VALUE;
+            }
+            // every tenth band has a defective detector column
+            int spectralIndex = bandOffset + band;
+            return spectralIndex % 10 == 0 && x == (spectralIndex * 37) % width ? 1 : 0;
+        });
+        return file;
+    }
+
+    private File writeQualityLayer(File productDir, String baseName, String key) throws IOException {
+        File file = new File(productDir, String.format("%s-QL_%s.TIF", baseName, key));
+        SyntheticTiffWriter writer = createTiffWriter(1, 8);
+        writer.write(file, (band, x, y) -> getQualityValue(key, x, y));
+        return file;
+    }
+
+    private File writeQuicklook(File productDir, String baseName, String key) throws IOException {
+        File file = new File(productDir, String.format("%s-%s.TIF", baseName, key));
+        SyntheticTiffWriter writer = createTiffWriter(3, 8);
+        writer.write(file, (band, x, y) -> {
+            if (isBackground(x, y)) {
+                return 0;
+            }
+            if (isCloud(x, y)) {
+                return 240;
+            }
+            return isWater(x, y) ? 30 + 20 * band : 90 + 30 * band + noise(band, x, y, 16);
+        });
+        return file;
+    }
+
+    private int getQualityValue(String key, int x, int y) {
+        boolean background = isBackground(x, y);
+        switch (key) {
+            case QUALITY_CLASSES_KEY:
+                // 1: land, 2: water, 3: background
+                return background ? 3 : isWater(x, y) ? 2 : 1;
+            case QUALITY_CLOUD_KEY:
+                return !background && isCloud(x, y) ? 1 : 0;
+            case QUALITY_CLOUDSHADOW_KEY:
+                return !background && isCloudShadow(x, y) ? 1 : 0;
+            case QUALITY_HAZE_KEY:
+                return !background && y > height * 3 / 4 ? 1 : 0;
+            case QUALITY_CIRRUS_KEY:
+                // thin, medium and thick cirrus around the cloud
+                int distance = distanceToCloud(x, y);
+                return background || distance > 3 * height / 20 ? 0 : 3 - distance / (height / 20 + 1);
+            case QUALITY_SNOW_KEY:
+                return 0;
+            default:
+                // the test flags, reduced quality around the defective columns, saturation in the cloud
+                if (background) {
+                    return 0;
+                }
+                return isCloud(x, y) ? 0b10000001 : (x % 37 == 0 ? 0b01 : 0b00);
+        }
+    }
+
+    // the orthorectified scenes are rotated within the image, leaving background triangles at the edges
+    private boolean isBackground(int x, int y) {
+        if (level == PROCESSING_LEVEL.L1B) {
+            return false;
+        }
+        int margin = width / 10;
+        return x < margin * (height - y) / height || x >= width - margin * y / height;
+    }
+
+    private boolean isWater(int x, int y) {
+        double dx = x - width * 0.3;
+        double dy = y - height * 0.7;
+        double radius = Math.min(width, height) * 0.1;
+        return dx * dx + dy * dy < radius * radius;
+    }
+
+    private boolean isCloud(int x, int y) {
+        return distanceToCloud(x, y) == 0;
+    }
+
+    private boolean isCloudShadow(int x, int y) {
+        return !isCloud(x, y) && distanceToCloud(x - width / 20, y - height / 20) == 0;
+    }
+
+    private int distanceToCloud(int x, int y) {
+        double dx = x - width * 0.65;
+        double dy = y - height * 0.35;
+        double radius = Math.min(width, height) * 0.08;
+        return (int) Math.max(0, Math.sqrt(dx * dx + dy * dy) - radius);
+    }
+
+    private static int noise(int band, int x, int y, int range) {
+        int hash = x * 73856093 ^ y * 19349663 ^ band * 83492791;
+        hash ^= hash >>> 13;
+        hash *= 0x5bd1e995;
+        return ((hash >>> 15) & Integer.MAX_VALUE) % range;
+    }
+
+    private SyntheticTiffWriter createTiffWriter(int numBands, int bitsPerSample) {
+        SyntheticTiffWriter writer = new SyntheticTiffWriter(width, height, numBands, bitsPerSample);
+        if (tileSize > 0) {
+            writer.setTiles(tileSize, tileSize);
+        } else {
+            writer.setStrips(1);
+        }
+        writer.setBandInterleaved(bandInterleaved);
+        writer.setCompression(compression, Deflater.DEFAULT_COMPRESSION);
+        if (level != PROCESSING_LEVEL.L1B) {
+            writer.setGeoReferencing(32600 + UTM_ZONE, UPPER_LEFT_EASTING, UPPER_LEFT_NORTHING, PIXEL_SIZE);
+        }
+        return writer;
+    }
+
+    private CrsGeoCoding createGeoCoding() throws IOException {
+        try {
+            return new CrsGeoCoding(CRS.decode("EPSG:" + (32600 + UTM_ZONE)), width, height,
+                                    UPPER_LEFT_EASTING, UPPER_LEFT_NORTHING, PIXEL_SIZE, PIXEL_SIZE);
+        } catch (Exception e) {
+            throw new IOException("Cannot create the geo-coding of the synthetic product", e);
+        }
+    }
+
+    private void writeMetadata(Map<String, File> files, CrsGeoCoding geoCoding) throws IOException {
+        int numBands = numVnirBands + numSwirBands;
+        boolean ortho = level != PROCESSING_LEVEL.L1B;
+        File metadataFile = files.get(METADATA_KEY);
+        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(metadataFile), StandardCharsets.UTF_8))) {
+            out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+            out.println("<level_X>");
+            out.println("  <metadata>");
+            out.println("    <schema>");
+            out.println("      <versionSchema>01.04.00</versionSchema>");
+            out.printf("      <processingLevel>%s</processingLevel>%n", level);
+            out.println("    </schema>");
+            out.printf("    <name>%s</name>%n", metadataFile.getName());
+            out.printf("    <comment>Synthetic EnMAP %s product</comment>%n", level);
+            out.println("  </metadata>");
+            out.println("  <processing>");
+            out.println("    <productFormat>GeoTIFF+Metadata</productFormat>");
+            out.println("  </processing>");
+            out.println("  <base>");
+            out.println("    <spatialCoverage>");
+            writeBoundingPolygon(out, geoCoding, "      ");
+            out.println("    </spatialCoverage>");
+            out.println("    <temporalCoverage>");
+            out.printf("      <startTime>%s</startTime>%n", START_TIME);
+            out.printf("      <stopTime>%s</stopTime>%n", STOP_TIME);
+            out.println("    </temporalCoverage>");
+            out.println("    <revision>01.04.00</revision>");
+            out.printf("    <format>ENMAP_%s</format>%n", level);
+            out.printf("    <level>%s</level>%n", level);
+            out.println("    <archivedVersion>01.04.00</archivedVersion>");
+            out.println("  </base>");
+            out.println("  <specific>");
+            writeProductQuality(out, "vnir", 1, numVnirBands);
+            writeProductQuality(out, "swir", numVnirBands + 1, numSwirBands);
+            out.printf("    <backgroundValue>%d</backgroundValue>%n", BACKGROUND_VALUE);
+            out.printf("    <widthOfScene unit=\"pixel\">%d</widthOfScene>%n", width);
+            out.printf("    <heightOfScene unit=\"pixel\">%d</heightOfScene>%n", height);
+            writeAngles(out, "sunElevationAngle", 58.2, 0.2);
+            writeAngles(out, "sunAzimuthAngle", 152.4, 0.4);
+            writeAngles(out, "acrossOffNadirAngle", 2.5, 0.1);
+            writeAngles(out, "alongOffNadirAngle", 0.1, 0.05);
+            writeAngles(out, "sceneAzimuthAngle", 100.3, 0.3);
+            out.printf(Locale.ENGLISH, "    <pixelSize>%d</pixelSize>%n", (int) PIXEL_SIZE);
+            if (ortho) {
+                out.println("    <spatialCoverageOfOrthoScene>");
+                writeBoundingPolygon(out, geoCoding, "      ");
+                out.println("    </spatialCoverageOfOrthoScene>");
+            }
+            out.println("    <bandCharacterisation>");
+            for (int i = 0; i < numBands; i++) {
+                writeBandCharacterisation(out, i);
+            }
+            out.println("    </bandCharacterisation>");
+            if (ortho) {
+                out.printf("    <pixelSizeOfOrthoScene>%d</pixelSizeOfOrthoScene>%n", (int) PIXEL_SIZE);
+                out.printf("    <widthOfOrthoScene>%d</widthOfOrthoScene>%n", width);
+                out.printf("    <heightOfOrthoScene>%d</heightOfOrthoScene>%n", height);
+            }
+            out.println("  </specific>");
+            out.println("  <product>");
+            if (ortho) {
+                out.println("    <image>");
+                out.println("      <merge>");
+                out.printf("        <channels>%d</channels>%n", numBands);
+                out.println("      </merge>");
+                out.println("    </image>");
+                out.println("    <ortho>");
+                out.printf("      <projection>UTM_Zone%d_North</projection>%n", UTM_ZONE);
+                out.printf("      <resolution>%d</resolution>%n", (int) PIXEL_SIZE);
+                out.println("    </ortho>");
+            }
+            out.println("    <productFileInformation>");
+            int number = 1;
+            for (File file : files.values()) {
+                out.printf("      <file number=\"%d\">%n", number++);
+                out.printf("        <name>%s</name>%n", file.getName());
+                if (file != metadataFile) {
+                    out.printf("        <size unit=\"Kbyte\">%d</size>%n", (file.length() + 1023) / 1024);
+                }
+                out.printf("        <format>%s</format>%n", file == metadataFile ? "xml" : "binary");
+                out.println("      </file>");
+            }
+            out.println("    </productFileInformation>");
+            out.println("  </product>");
+            out.println("</level_X>");
+        }
+    }
+
+    private void writeBoundingPolygon(PrintWriter out, CrsGeoCoding geoCoding, String indent) {
+        String[] frames = {"upper_left", "lower_left", "lower_right", "upper_right", "upper_left", "center"};
+        double[][] pixels = {{0, 0}, {0, height}, {width, height}, {width, 0}, {0, 0}, {width / 2.0, height / 2.0}};
+        out.printf("%s<boundingPolygon>%n", indent);
+        for (int i = 0; i < frames.length; i++) {
+            GeoPos geoPos = geoCoding.getGeoPos(new PixelPos(pixels[i][0], pixels[i][1]), null);
+            out.printf("%s  <point>%n", indent);
+            out.printf("%s    <frame>%s</frame>%n", indent, frames[i]);
+            out.printf(Locale.ENGLISH, "%s    <latitude unit=\"DEG\">%.7f</latitude>%n", indent, geoPos.getLat());
+            out.printf(Locale.ENGLISH, "%s    <longitude unit=\"DEG\">%.7f</longitude>%n", indent, geoPos.getLon());
+            out.printf("%s  </point>%n", indent);
+        }
+        out.printf("%s</boundingPolygon>%n", indent);
+    }
+
+    private static void writeProductQuality(PrintWriter out, String detector, int firstChannel, int numChannels) {
+        String channels = IntStream.range(firstChannel, firstChannel + numChannels)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(","));
+        out.printf("    <%sProductQuality>%n", detector);
+        out.printf("      <numChannelsExpected>%d</numChannelsExpected>%n", numChannels);
+        out.printf("      <expectedChannelsList>%s</expectedChannelsList>%n", channels);
+        out.printf("    </%sProductQuality>%n", detector);
+    }
+
+    private static void writeAngles(PrintWriter out, String name, double center, double delta) {
+        out.printf("    <%s>%n", name);
+        out.printf(Locale.ENGLISH, "      <upper_left unit=\"DEG\">%.6f</upper_left>%n", center - delta);
+        out.printf(Locale.ENGLISH, "      <upper_right unit=\"DEG\">%.6f</upper_right>%n", center + delta / 2);
+        out.printf(Locale.ENGLISH, "      <lower_right unit=\"DEG\">%.6f</lower_right>%n", center + delta);
+        out.printf(Locale.ENGLISH, "      <lower_left unit=\"DEG\">%.6f</lower_left>%n", center - delta / 2);
+        out.printf(Locale.ENGLISH, "      <center unit=\"DEG\">%.6f</center>%n", center);
+        out.printf("    </%s>%n", name);
+    }
+
+    private void writeBandCharacterisation(PrintWriter out, int index) {
+        double wavelength;
+        double fwhm;
+        if (index < numVnirBands) {
+            wavelength = 418.0 + index * (993.0 - 418.0) / Math.max(1, numVnirBands - 1);
+            fwhm = 6.5;
+        } else {
+            wavelength = 902.0 + (index - numVnirBands) * (2445.0 - 902.0) / Math.max(1, numSwirBands - 1);
+            fwhm = 10.0;
+        }
+        boolean reflectance = level == PROCESSING_LEVEL.L2A;
+        out.printf("      <bandID number=\"%d\">%n", index + 1);
+        out.printf(Locale.ENGLISH, "        <wavelengthCenterOfBand>%.2f</wavelengthCenterOfBand>%n", wavelength);
+        out.printf(Locale.ENGLISH, "        <FWHMOfBand>%.2f</FWHMOfBand>%n", fwhm);
+        out.printf(Locale.ENGLISH, "        <GainOfBand>%s</GainOfBand>%n", reflectance ? "0.0001" : "0.005");
+        out.printf(Locale.ENGLISH, "        <OffsetOfBand>%s</OffsetOfBand>%n", reflectance ? "0" : "-0.1");
+        out.println("      </bandID>");
+    }
+
+    // the reader expects the files within a directory named like the zip file
+    private static void writeZip(File zipFile, String dirName, Collection<File> files) throws IOException {
+        byte[] buffer = new byte[1 << 20];
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(zipFile), 1 << 20))) {
+            zip.putNextEntry(new ZipEntry(dirName + "/"));
+            zip.closeEntry();
+            for (File file : files) {
+                zip.putNextEntry(new ZipEntry(dirName + "/" + file.getName()));
+                try (InputStream in = Files.newInputStream(file.toPath())) {
+                    int count;
+                    while ((count = in.read(buffer)) != -1) {
+                        zip.write(buffer, 0, count);
+                    }
+                }
+                zip.closeEntry();
+            }
+        }
+    }
+}
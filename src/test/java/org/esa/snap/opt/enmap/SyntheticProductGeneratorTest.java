@@ -0,0 +1,136 @@
+package org.esa.snap.opt.enmap;
+
+import com.bc.ceres.glevel.MultiLevelImage;
+import org.esa.snap.core.dataio.DecodeQualification;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.opt.enmap.EnmapMetadata.PROCESSING_LEVEL;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.awt.Dimension;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SyntheticProductGeneratorTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testMetadataOfOrthoProduct() throws IOException {
+        SyntheticProductGenerator generator = new SyntheticProductGenerator(PROCESSING_LEVEL.L2A);
+        generator.setSceneSize(120, 90);
+        generator.setNumBands(4, 5);
+        generator.setTileSize(64);
+        File metadataFile = generator.generate(tempFolder.getRoot());
+
+        EnmapMetadata meta;
+        try (InputStream inputStream = new FileInputStream(metadataFile)) {
+            meta = EnmapMetadata.create(inputStream);
+        }
+        assertEquals(PROCESSING_LEVEL.L2A, meta.getProcessingLevel());
+        assertEquals(new Dimension(120, 90), meta.getSceneDimension());
+        assertEquals(9, meta.getNumSpectralBands());
+        assertEquals(4, meta.getNumVnirBands());
+        assertArrayEquals(new int[]{5, 6, 7, 8, 9}, meta.getSwirIndices());
+        assertEquals(418.0f, meta.getCentralWavelength(0), 1.0e-3f);
+        assertEquals(30.0, meta.getPixelSize(), 1.0e-6);
+        assertEquals("UTM_Zone32_North", meta.getGeoReferencing().projection);
+        Map<String, String> fileNameMap = meta.getFileNameMap();
+        for (Map.Entry<String, String> entry : fileNameMap.entrySet()) {
+            assertNotNull(entry.getKey(), entry.getValue());
+            assertTrue(entry.getValue(), new File(metadataFile.getParentFile(), entry.getValue()).isFile());
+        }
+    }
+
+    @Test
+    public void testDecodeQualification() throws IOException {
+        EnmapProductReaderPlugIn plugIn = new EnmapProductReaderPlugIn();
+        for (PROCESSING_LEVEL level : PROCESSING_LEVEL.values()) {
+            SyntheticProductGenerator generator = new SyntheticProductGenerator(level);
+            generator.setSceneSize(40, 30);
+            generator.setNumBands(2, 3);
+            generator.setTileSize(0);
+            generator.setQuicklooks(false);
+            generator.setZipped(true);
+            File zipFile = generator.generate(tempFolder.getRoot());
+            assertTrue(zipFile.getName().contains(level.name()));
+            assertEquals(DecodeQualification.INTENDED, plugIn.getDecodeQualification(zipFile));
+            File productDir = new File(tempFolder.getRoot(), zipFile.getName().replace(".zip", ""));
+            File[] metadataFiles = productDir.listFiles((dir, name) -> name.endsWith(EnmapFileUtils.METADATA_SUFFIX));
+            assertNotNull(metadataFiles);
+            assertEquals(1, metadataFiles.length);
+            assertEquals(DecodeQualification.INTENDED, plugIn.getDecodeQualification(metadataFiles[0]));
+        }
+    }
+
+    @Test
+    public void testReadOrthoProduct() throws IOException {
+        SyntheticProductGenerator generator = new SyntheticProductGenerator(PROCESSING_LEVEL.L1C);
+        generator.setSceneSize(100, 80);
+        generator.setNumBands(3, 2);
+        generator.setTileSize(32);
+        File metadataFile = generator.generate(tempFolder.getRoot());
+
+        boolean useJai = EnmapProductReaderPlugIn.PREFERENCES.getBoolean(EnmapProductReaderPlugIn.ENMAP_GEOTIFF_USE_JAI, false);
+        EnmapProductReaderPlugIn.PREFERENCES.putBoolean(EnmapProductReaderPlugIn.ENMAP_GEOTIFF_USE_JAI, true);
+        Product product = null;
+        try {
+            product = new EnmapProductReaderPlugIn().createReaderInstance().readProductNodes(metadataFile, null);
+            assertEquals(100, product.getSceneRasterWidth());
+            assertEquals(80, product.getSceneRasterHeight());
+            assertNotNull(product.getBand("band_005"));
+            Band classesBand = product.getBand(EnmapFileUtils.QUALITY_CLASSES_KEY);
+            assertNotNull(classesBand);
+            // the centre of the lake is water, the upper left corner of the orthorectified scene is background
+            assertEquals(2, classesBand.getSourceImage().getData().getSample(30, 56, 0));
+            assertEquals(3, classesBand.getSourceImage().getData().getSample(0, 0, 0));
+        } finally {
+            if (product != null) {
+                product.dispose();
+            }
+            EnmapProductReaderPlugIn.PREFERENCES.putBoolean(EnmapProductReaderPlugIn.ENMAP_GEOTIFF_USE_JAI, useJai);
+        }
+    }
+
+    @Test
+    public void testReadReducedLevelWithJai() throws IOException {
+        SyntheticProductGenerator generator = new SyntheticProductGenerator(PROCESSING_LEVEL.L2A);
+        generator.setSceneSize(256, 200);
+        generator.setNumBands(2, 2);
+        generator.setTileSize(64);
+        File metadataFile = generator.generate(tempFolder.getRoot());
+
+        boolean useJai = EnmapProductReaderPlugIn.PREFERENCES.getBoolean(EnmapProductReaderPlugIn.ENMAP_GEOTIFF_USE_JAI, false);
+        EnmapProductReaderPlugIn.PREFERENCES.putBoolean(EnmapProductReaderPlugIn.ENMAP_GEOTIFF_USE_JAI, true);
+        Product product = null;
+        try {
+            product = new EnmapProductReaderPlugIn().createReaderInstance().readProductNodes(metadataFile, null);
+            MultiLevelImage sourceImage = product.getBand("band_003").getSourceImage();
+            assertTrue(sourceImage.getModel().getLevelCount() > 1);
+            Raster fullData = sourceImage.getImage(0).getData();
+            RenderedImage levelImage = sourceImage.getImage(1);
+            Raster levelData = levelImage.getData();
+            // the reduced level takes every second pixel of every second line
+            for (int y = 0; y < levelImage.getHeight(); y++) {
+                for (int x = 0; x < levelImage.getWidth(); x++) {
+                    assertEquals(x + "," + y, fullData.getSample(2 * x, 2 * y, 0), levelData.getSample(x, y, 0));
+                }
+            }
+        } finally {
+            if (product != null) {
+                product.dispose();
+            }
+            EnmapProductReaderPlugIn.PREFERENCES.putBoolean(EnmapProductReaderPlugIn.ENMAP_GEOTIFF_USE_JAI, useJai);
+        }
+    }
+}
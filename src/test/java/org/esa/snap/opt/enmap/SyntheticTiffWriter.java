@@ -0,0 +1,436 @@
+package org.esa.snap.opt.enmap;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Writes unsigned 8 or 16 bit multi-band images as (Big)TIFF with optional GeoTIFF tags. The blocks are computed one
+ * after the other by a {@link SampleSource} and written directly to the file, so images of several gigabytes can be
+ * written without keeping them in memory.
+ * <p>
+ * Only the subset of TIFF needed by the synthetic EnMAP products is supported: little endian byte order, strips or
+ * tiles, band or pixel interleaving and no compression or deflate compression. BigTIFF is used if the image might
+ * not fit into a classic TIFF file.
+ */
+class SyntheticTiffWriter {
+
+    interface SampleSource {
+        /**
+         * returns the sample of the given band at the given pixel position
+         */
+        int getSample(int band, int x, int y);
+    }
+
+    enum Compression {
+        NONE(1),
+        DEFLATE(8);
+
+        private final int code;
+
+        Compression(int code) {
+            this.code = code;
+        }
+    }
+
+    // files larger than this are written as BigTIFF, the margin leaves room for the directory and the GeoTIFF tags
+    private static final long CLASSIC_TIFF_LIMIT = 0xFFFFFFFFL - (64L << 20);
+
+    private static final int TYPE_ASCII = 2;
+    private static final int TYPE_SHORT = 3;
+    private static final int TYPE_LONG = 4;
+    private static final int TYPE_DOUBLE = 12;
+    private static final int TYPE_LONG8 = 16;
+
+    private static final int TAG_IMAGE_WIDTH = 256;
+    private static final int TAG_IMAGE_LENGTH = 257;
+    private static final int TAG_BITS_PER_SAMPLE = 258;
+    private static final int TAG_COMPRESSION = 259;
+    private static final int TAG_PHOTOMETRIC = 262;
+    private static final int TAG_STRIP_OFFSETS = 273;
+    private static final int TAG_SAMPLES_PER_PIXEL = 277;
+    private static final int TAG_ROWS_PER_STRIP = 278;
+    private static final int TAG_STRIP_BYTE_COUNTS = 279;
+    private static final int TAG_PLANAR_CONFIGURATION = 284;
+    private static final int TAG_TILE_WIDTH = 322;
+    private static final int TAG_TILE_LENGTH = 323;
+    private static final int TAG_TILE_OFFSETS = 324;
+    private static final int TAG_TILE_BYTE_COUNTS = 325;
+    private static final int TAG_EXTRA_SAMPLES = 338;
+    private static final int TAG_SAMPLE_FORMAT = 339;
+    private static final int TAG_MODEL_PIXEL_SCALE = 33550;
+    private static final int TAG_MODEL_TIEPOINT = 33922;
+    private static final int TAG_GEO_KEY_DIRECTORY = 34735;
+    private static final int TAG_GDAL_NODATA = 42113;
+
+    private final int width;
+    private final int height;
+    private final int numBands;
+    private final int bytesPerSample;
+    private int blockWidth;
+    private int blockHeight;
+    private boolean tiled;
+    private boolean bandInterleaved;
+    private Compression compression;
+    private int compressionLevel;
+    private int epsgCode;
+    private double[] modelTiePoint;
+    private double pixelSize;
+    private Integer noDataValue;
+    private boolean bigTiff;
+
+    /**
+     * @param width         the width of the image
+     * @param height        the height of the image
+     * @param numBands      the number of bands
+     * @param bitsPerSample 8 or 16
+     */
+    SyntheticTiffWriter(int width, int height, int numBands, int bitsPerSample) {
+        if (bitsPerSample != 8 && bitsPerSample != 16) {
+            throw new IllegalArgumentException("Only 8 and 16 bits per sample are supported");
+        }
+        this.width = width;
+        this.height = height;
+        this.numBands = numBands;
+        this.bytesPerSample = bitsPerSample / 8;
+        setStrips(1);
+        bandInterleaved = true;
+        compression = Compression.NONE;
+        compressionLevel = Deflater.DEFAULT_COMPRESSION;
+        bigTiff = (long) width * height * numBands * bytesPerSample > CLASSIC_TIFF_LIMIT;
+    }
+
+    void setTiles(int tileWidth, int tileHeight) {
+        tiled = true;
+        blockWidth = tileWidth;
+        blockHeight = tileHeight;
+    }
+
+    void setStrips(int rowsPerStrip) {
+        tiled = false;
+        blockWidth = width;
+        blockHeight = Math.min(rowsPerStrip, height);
+    }
+
+    /**
+     * @param bandInterleaved {@code true} to store the bands one after the other (planar configuration 2),
+     *                        {@code false} to store all bands of a pixel together (planar configuration 1)
+     */
+    void setBandInterleaved(boolean bandInterleaved) {
+        this.bandInterleaved = bandInterleaved;
+    }
+
+    void setCompression(Compression compression, int compressionLevel) {
+        this.compression = compression;
+        this.compressionLevel = compressionLevel;
+    }
+
+    void setNoDataValue(int noDataValue) {
+        this.noDataValue = noDataValue;
+    }
+
+    void setForceBigTiff(boolean forceBigTiff) {
+        bigTiff |= forceBigTiff;
+    }
+
+    /**
+     * Adds the GeoTIFF tags of a projected coordinate reference system with square pixels.
+     *
+     * @param epsgCode  the EPSG code of the projected coordinate reference system
+     * @param easting   the easting of the upper left corner of the image
+     * @param northing  the northing of the upper left corner of the image
+     * @param pixelSize the size of a pixel in map units
+     */
+    void setGeoReferencing(int epsgCode, double easting, double northing, double pixelSize) {
+        this.epsgCode = epsgCode;
+        this.modelTiePoint = new double[]{0, 0, 0, easting, northing, 0};
+        this.pixelSize = pixelSize;
+    }
+
+    void write(File file, SampleSource source) throws IOException {
+        int blocksAcross = (width + blockWidth - 1) / blockWidth;
+        int blocksDown = (height + blockHeight - 1) / blockHeight;
+        int numPlanes = bandInterleaved ? numBands : 1;
+        int samplesPerBlockPixel = bandInterleaved ? 1 : numBands;
+        long[] offsets = new long[blocksAcross * blocksDown * numPlanes];
+        long[] byteCounts = new long[offsets.length];
+
+        Deflater deflater = compression == Compression.DEFLATE ? new Deflater(compressionLevel) : null;
+        byte[] block = new byte[blockWidth * blockHeight * samplesPerBlockPixel * bytesPerSample];
+        byte[] compressed = deflater != null ? new byte[block.length + block.length / 8 + 64] : null;
+        ByteBuffer blockBuffer = ByteBuffer.wrap(block).order(ByteOrder.LITTLE_ENDIAN);
+        long ifdOffset;
+        try (CountingOutputStream out = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 20))) {
+            // the header is completed when the offset of the directory is known
+            out.write(createHeader(0));
+            int blockIndex = 0;
+            for (int plane = 0; plane < numPlanes; plane++) {
+                for (int blockY = 0; blockY < blocksDown; blockY++) {
+                    for (int blockX = 0; blockX < blocksAcross; blockX++) {
+                        int x0 = blockX * blockWidth;
+                        int y0 = blockY * blockHeight;
+                        // tiles always have the full size, only the last strip may be shorter
+                        int rows = tiled ? blockHeight : Math.min(blockHeight, height - y0);
+                        int length = blockWidth * rows * samplesPerBlockPixel * bytesPerSample;
+                        fillBlock(blockBuffer, source, plane, x0, y0, rows);
+                        offsets[blockIndex] = out.getCount();
+                        if (deflater != null) {
+                            deflater.reset();
+                            deflater.setInput(block, 0, length);
+                            deflater.finish();
+                            while (!deflater.finished()) {
+                                int compressedLength = deflater.deflate(compressed);
+                                out.write(compressed, 0, compressedLength);
+                                byteCounts[blockIndex] += compressedLength;
+                            }
+                        } else {
+                            out.write(block, 0, length);
+                            byteCounts[blockIndex] = length;
+                        }
+                        blockIndex++;
+                    }
+                }
+            }
+            if (out.getCount() % 2 != 0) {
+                out.write(0);
+            }
+            ifdOffset = out.getCount();
+            if (!bigTiff && ifdOffset > CLASSIC_TIFF_LIMIT) {
+                throw new IOException("The image data exceeds the size of a classic TIFF, BigTIFF must be forced");
+            }
+            out.write(createDirectory(ifdOffset, offsets, byteCounts));
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            ByteBuffer header = createHeader(ifdOffset);
+            raf.write(header.array(), 0, header.limit());
+        }
+    }
+
+    private void fillBlock(ByteBuffer blockBuffer, SampleSource source, int plane, int x0, int y0, int rows) {
+        blockBuffer.clear();
+        for (int y = y0; y < y0 + rows; y++) {
+            for (int x = x0; x < x0 + blockWidth; x++) {
+                boolean inside = x < width && y < height;
+                if (bandInterleaved) {
+                    putSample(blockBuffer, inside ? source.getSample(plane, x, y) : 0);
+                } else {
+                    for (int band = 0; band < numBands; band++) {
+                        putSample(blockBuffer, inside ? source.getSample(band, x, y) : 0);
+                    }
+                }
+            }
+        }
+    }
+
+    private void putSample(ByteBuffer blockBuffer, int sample) {
+        if (bytesPerSample == 1) {
+            blockBuffer.put((byte) sample);
+        } else {
+            blockBuffer.putShort((short) sample);
+        }
+    }
+
+    private ByteBuffer createHeader(long ifdOffset) {
+        ByteBuffer header = ByteBuffer.allocate(bigTiff ? 16 : 8).order(ByteOrder.LITTLE_ENDIAN);
+        header.put((byte) 'I').put((byte) 'I');
+        if (bigTiff) {
+            header.putShort((short) 43).putShort((short) 8).putShort((short) 0).putLong(ifdOffset);
+        } else {
+            header.putShort((short) 42).putInt((int) ifdOffset);
+        }
+        header.flip();
+        return header;
+    }
+
+    private byte[] createDirectory(long ifdOffset, long[] offsets, long[] byteCounts) {
+        int[] bitsPerSample = new int[numBands];
+        int[] sampleFormat = new int[numBands];
+        for (int i = 0; i < numBands; i++) {
+            bitsPerSample[i] = bytesPerSample * 8;
+            sampleFormat[i] = 1;
+        }
+        int offsetType = bigTiff ? TYPE_LONG8 : TYPE_LONG;
+        List<Entry> entries = new ArrayList<>();
+        entries.add(Entry.ofInts(TAG_IMAGE_WIDTH, TYPE_LONG, width));
+        entries.add(Entry.ofInts(TAG_IMAGE_LENGTH, TYPE_LONG, height));
+        entries.add(Entry.ofInts(TAG_BITS_PER_SAMPLE, TYPE_SHORT, bitsPerSample));
+        entries.add(Entry.ofInts(TAG_COMPRESSION, TYPE_SHORT, compression.code));
+        entries.add(Entry.ofInts(TAG_PHOTOMETRIC, TYPE_SHORT, 1));
+        entries.add(Entry.ofInts(TAG_SAMPLES_PER_PIXEL, TYPE_SHORT, numBands));
+        entries.add(Entry.ofInts(TAG_PLANAR_CONFIGURATION, TYPE_SHORT, bandInterleaved ? 2 : 1));
+        if (tiled) {
+            entries.add(Entry.ofInts(TAG_TILE_WIDTH, TYPE_LONG, blockWidth));
+            entries.add(Entry.ofInts(TAG_TILE_LENGTH, TYPE_LONG, blockHeight));
+            entries.add(Entry.ofLongs(TAG_TILE_OFFSETS, offsetType, offsets));
+            entries.add(Entry.ofLongs(TAG_TILE_BYTE_COUNTS, offsetType, byteCounts));
+        } else {
+            entries.add(Entry.ofInts(TAG_ROWS_PER_STRIP, TYPE_LONG, blockHeight));
+            entries.add(Entry.ofLongs(TAG_STRIP_OFFSETS, offsetType, offsets));
+            entries.add(Entry.ofLongs(TAG_STRIP_BYTE_COUNTS, offsetType, byteCounts));
+        }
+        if (numBands > 1) {
+            // the additional bands are unspecified data, as written by GDAL
+            entries.add(Entry.ofInts(TAG_EXTRA_SAMPLES, TYPE_SHORT, new int[numBands - 1]));
+        }
+        entries.add(Entry.ofInts(TAG_SAMPLE_FORMAT, TYPE_SHORT, sampleFormat));
+        if (modelTiePoint != null) {
+            entries.add(Entry.ofDoubles(TAG_MODEL_PIXEL_SCALE, pixelSize, pixelSize, 0));
+            entries.add(Entry.ofDoubles(TAG_MODEL_TIEPOINT, modelTiePoint));
+            entries.add(Entry.ofInts(TAG_GEO_KEY_DIRECTORY, TYPE_SHORT,
+                    1, 1, 0, 3,             // version 1.1.0, 3 keys
+                    1024, 0, 1, 1,          // GTModelTypeGeoKey: projected
+                    1025, 0, 1, 1,          // GTRasterTypeGeoKey: pixel is area
+                    3072, 0, 1, epsgCode)); // ProjectedCSTypeGeoKey
+        }
+        if (noDataValue != null) {
+            entries.add(Entry.ofAscii(TAG_GDAL_NODATA, String.valueOf(noDataValue)));
+        }
+        entries.sort(Comparator.comparingInt(entry -> entry.tag));
+
+        int entrySize = bigTiff ? 20 : 12;
+        int valueSize = bigTiff ? 8 : 4;
+        int directorySize = (bigTiff ? 8 : 2) + entries.size() * entrySize + valueSize;
+        int externalSize = entries.stream().mapToInt(entry -> entry.data.length > valueSize ? align(entry.data.length) : 0).sum();
+        ByteBuffer buffer = ByteBuffer.allocate(directorySize + externalSize).order(ByteOrder.LITTLE_ENDIAN);
+        if (bigTiff) {
+            buffer.putLong(entries.size());
+        } else {
+            buffer.putShort((short) entries.size());
+        }
+        long externalOffset = ifdOffset + directorySize;
+        for (Entry entry : entries) {
+            buffer.putShort((short) entry.tag).putShort((short) entry.type);
+            if (bigTiff) {
+                buffer.putLong(entry.count);
+            } else {
+                buffer.putInt(entry.count);
+            }
+            if (entry.data.length <= valueSize) {
+                buffer.put(entry.data);
+                buffer.position(buffer.position() + valueSize - entry.data.length);
+            } else {
+                if (bigTiff) {
+                    buffer.putLong(externalOffset);
+                } else {
+                    buffer.putInt((int) externalOffset);
+                }
+                externalOffset += align(entry.data.length);
+            }
+        }
+        // no further directory
+        buffer.position(buffer.position() + valueSize);
+        for (Entry entry : entries) {
+            if (entry.data.length > valueSize) {
+                buffer.put(entry.data);
+                buffer.position(buffer.position() + align(entry.data.length) - entry.data.length);
+            }
+        }
+        return buffer.array();
+    }
+
+    private static int align(int length) {
+        return length + length % 2;
+    }
+
+    private static class Entry {
+
+        private final int tag;
+        private final int type;
+        private final int count;
+        private final byte[] data;
+
+        private Entry(int tag, int type, int count, byte[] data) {
+            this.tag = tag;
+            this.type = type;
+            this.count = count;
+            this.data = data;
+        }
+
+        static Entry ofInts(int tag, int type, int... values) {
+            long[] longValues = new long[values.length];
+            for (int i = 0; i < values.length; i++) {
+                longValues[i] = values[i];
+            }
+            return ofLongs(tag, type, longValues);
+        }
+
+        static Entry ofLongs(int tag, int type, long[] values) {
+            int size = type == TYPE_SHORT ? 2 : type == TYPE_LONG ? 4 : 8;
+            ByteBuffer buffer = ByteBuffer.allocate(values.length * size).order(ByteOrder.LITTLE_ENDIAN);
+            for (long value : values) {
+                if (type == TYPE_SHORT) {
+                    buffer.putShort((short) value);
+                } else if (type == TYPE_LONG) {
+                    buffer.putInt((int) value);
+                } else {
+                    buffer.putLong(value);
+                }
+            }
+            return new Entry(tag, type, values.length, buffer.array());
+        }
+
+        static Entry ofDoubles(int tag, double... values) {
+            ByteBuffer buffer = ByteBuffer.allocate(values.length * 8).order(ByteOrder.LITTLE_ENDIAN);
+            for (double value : values) {
+                buffer.putDouble(value);
+            }
+            return new Entry(tag, TYPE_DOUBLE, values.length, buffer.array());
+        }
+
+        static Entry ofAscii(int tag, String value) {
+            byte[] chars = value.getBytes(StandardCharsets.US_ASCII);
+            byte[] data = new byte[chars.length + 1];
+            System.arraycopy(chars, 0, data, 0, chars.length);
+            return new Entry(tag, TYPE_ASCII, data.length, data);
+        }
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+
+        private final OutputStream out;
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        void write(ByteBuffer buffer) throws IOException {
+            write(buffer.array(), 0, buffer.limit());
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
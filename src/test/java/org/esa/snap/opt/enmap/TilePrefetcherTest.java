@@ -0,0 +1,228 @@
+package org.esa.snap.opt.enmap;
+
+import com.bc.ceres.glevel.support.DefaultMultiLevelModel;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.opt.enmap.EnmapMetadata.PROCESSING_LEVEL;
+import org.esa.snap.opt.enmap.imgReader.EnmapImageReader;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import javax.media.jai.JAI;
+import javax.media.jai.RasterFactory;
+import javax.media.jai.TiledImage;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.ENMAP_PREFETCH_ENABLED;
+import static org.esa.snap.opt.enmap.EnmapProductReaderPlugIn.PREFERENCES;
+import static org.junit.Assert.*;
+
+public class TilePrefetcherTest {
+
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 32;
+    private static final int TILE_SIZE = 16;
+    private static final int NUM_IMAGES = 4;
+
+    @Rule
+    public SyntheticProductFixture fixture = new SyntheticProductFixture(ENMAP_PREFETCH_ENABLED);
+
+    private final CountingImageReader imageReader = new CountingImageReader();
+    private final EnmapLevelImage[] images = new EnmapLevelImage[NUM_IMAGES];
+    private TilePrefetcher prefetcher;
+
+    @After
+    public void tearDown() {
+        if (prefetcher != null) {
+            prefetcher.dispose();
+        }
+        JAI.getDefaultInstance().getTileCache().flush();
+    }
+
+    @Test
+    public void testSequentialPattern() {
+        createImages(4);
+
+        images[0].getTile(0, 0);
+        assertEquals(0, imageReader.getPrefetchReadCount());
+        images[0].getTile(1, 0);
+        // the next tile of the row is decoded by the reader of the prefetcher, not by the foreground reader
+        assertEquals(2, imageReader.readCount.get());
+        assertEquals(1, imageReader.getPrefetchReadCount());
+        assertStatistics(2, 1, 0);
+
+        Raster tile = images[0].getTile(2, 0);
+        assertEquals(2, imageReader.readCount.get());
+        assertEquals(getValue(0, 2 * TILE_SIZE, 0), tile.getSample(2 * TILE_SIZE, 0, 0));
+        // the request continues the row, so the last tile of the row is prefetched as well
+        assertStatistics(3, 2, 1);
+    }
+
+    @Test
+    public void testSpectralPattern() {
+        createImages(2);
+
+        images[0].getTile(1, 1);
+        images[1].getTile(1, 1);
+        // the tile of the next two images is prefetched
+        assertEquals(2, imageReader.getPrefetchReadCount());
+        assertStatistics(2, 2, 0);
+
+        images[2].getTile(1, 1);
+        images[3].getTile(1, 1);
+        assertEquals(2, imageReader.readCount.get());
+        assertStatistics(4, 2, 2);
+        assertEquals(0.5, prefetcher.getStatistics().getHitRate(), 1.0e-6);
+    }
+
+    @Test
+    public void testEvictedTileIsNoHit() {
+        createImages(4);
+
+        images[0].getTile(0, 0);
+        images[0].getTile(1, 0);
+        assertStatistics(2, 1, 0);
+        JAI.getDefaultInstance().getTileCache().flush();
+
+        images[0].getTile(2, 0);
+        // the prefetched tile has been evicted and is decoded again
+        assertEquals(3, imageReader.readCount.get());
+        assertEquals(3, prefetcher.getStatistics().getRequestCount());
+        assertEquals(0, prefetcher.getStatistics().getHitCount());
+    }
+
+    @Test
+    public void testDispose() {
+        createImages(4);
+
+        images[0].getTile(0, 0);
+        images[0].getTile(1, 0);
+        prefetcher.dispose();
+        assertTrue(imageReader.prefetchReader.closed);
+
+        images[0].getTile(2, 0);
+        images[0].getTile(3, 0);
+        assertEquals(1, imageReader.getPrefetchReadCount());
+        assertStatistics(2, 1, 0);
+    }
+
+    @Test
+    public void testDisabledByDefault() throws IOException {
+        PREFERENCES.remove(ENMAP_PREFETCH_ENABLED);
+        assertFalse(TilePrefetcher.isEnabled());
+
+        Product product = fixture.read(fixture.generate(PROCESSING_LEVEL.L2A, 3, 2));
+        product.getBand("band_001").getSourceImage().getData();
+        assertEquals(0, SyntheticProductFixture.getReader(product).getPrefetchStatistics().getRequestCount());
+    }
+
+    @Test
+    public void testPrefetchedProductData() throws IOException {
+        File metadataFile = fixture.generate(PROCESSING_LEVEL.L2A, 3, 2);
+        Product product = fixture.read(metadataFile);
+        PREFERENCES.putBoolean(ENMAP_PREFETCH_ENABLED, true);
+        Product prefetchedProduct = fixture.read(metadataFile);
+
+        for (int i = 1; i <= 5; i++) {
+            String bandName = String.format("band_%03d", i);
+            Band band = prefetchedProduct.getBand(bandName);
+            RenderedImage image = band.getSourceImage();
+            // the tiles are requested row by row, as by a processor
+            for (int tileY = 0; tileY < image.getNumYTiles(); tileY++) {
+                for (int tileX = 0; tileX < image.getNumXTiles(); tileX++) {
+                    image.getTile(tileX, tileY);
+                }
+            }
+            SyntheticProductFixture.assertSamplesEqual(product.getBand(bandName).getSourceImage().getData(), 0,
+                                                       image.getData());
+        }
+        PrefetchStatistics statistics = SyntheticProductFixture.getReader(prefetchedProduct).getPrefetchStatistics();
+        assertTrue(statistics.getRequestCount() > 0);
+        assertTrue(statistics.getHitCount() <= statistics.getPrefetchCount());
+    }
+
+    private void createImages(int bandGroupSize) {
+        prefetcher = new TilePrefetcher(imageReader, Runnable::run, bandGroupSize);
+        DefaultMultiLevelModel model = new DefaultMultiLevelModel(1, new AffineTransform(), WIDTH, HEIGHT);
+        for (int i = 0; i < NUM_IMAGES; i++) {
+            EnmapMultiLevelSource source = new EnmapMultiLevelSource(model, imageReader, i, "b" + i, DataBuffer.TYPE_INT,
+                                                                     new Dimension(TILE_SIZE, TILE_SIZE), new Object(),
+                                                                     prefetcher, null, null, null);
+            images[i] = (EnmapLevelImage) source.getImage(0);
+        }
+    }
+
+    private void assertStatistics(long requestCount, long prefetchCount, long hitCount) {
+        PrefetchStatistics statistics = prefetcher.getStatistics();
+        assertEquals(requestCount, statistics.getRequestCount());
+        assertEquals(prefetchCount, statistics.getPrefetchCount());
+        assertEquals(hitCount, statistics.getHitCount());
+    }
+
+    private static int getValue(int imageIndex, int x, int y) {
+        return imageIndex * 10000 + y * WIDTH + x;
+    }
+
+    // provides images with known values and counts the reads
+    private static class CountingImageReader implements EnmapImageReader {
+
+        private final AtomicInteger readCount = new AtomicInteger();
+        private CountingImageReader prefetchReader;
+        private boolean closed;
+
+        @Override
+        public Dimension getTileDimension() {
+            return new Dimension(TILE_SIZE, TILE_SIZE);
+        }
+
+        @Override
+        public int getNumImages() {
+            return NUM_IMAGES;
+        }
+
+        @Override
+        public RenderedImage getImageAt(int index) {
+            TiledImage image = new TiledImage(0, 0, WIDTH, HEIGHT, 0, 0,
+                                              RasterFactory.createBandedSampleModel(DataBuffer.TYPE_INT, TILE_SIZE, TILE_SIZE, 1),
+                                              null) {
+                @Override
+                public Raster getData(Rectangle rect) {
+                    readCount.incrementAndGet();
+                    return super.getData(rect);
+                }
+            };
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    image.setSample(x, y, 0, getValue(index, x, y));
+                }
+            }
+            return image;
+        }
+
+        synchronized int getPrefetchReadCount() {
+            return prefetchReader != null ? prefetchReader.readCount.get() : 0;
+        }
+
+        @Override
+        public synchronized EnmapImageReader reopen() {
+            if (prefetchReader == null) {
+                prefetchReader = new CountingImageReader();
+            }
+            return prefetchReader;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
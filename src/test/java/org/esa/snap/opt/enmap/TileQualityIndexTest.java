@@ -0,0 +1,118 @@
+package org.esa.snap.opt.enmap;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TileQualityIndexTest {
+
+    private static final Dimension TILE_SIZE = new Dimension(10, 10);
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testCreate() {
+        TileQualityIndex index = TileQualityIndex.create(createClassesImage(), createCloudImage(), TILE_SIZE);
+
+        assertEquals(3, index.getNumXTiles());
+        assertEquals(2, index.getNumYTiles());
+        assertEquals(TileQualityIndex.TileClass.BACKGROUND, index.getTileClass(0, 0));
+        assertEquals(TileQualityIndex.TileClass.WATER, index.getTileClass(1, 0));
+        assertEquals(TileQualityIndex.TileClass.CLOUD, index.getTileClass(2, 0));
+        assertEquals(TileQualityIndex.TileClass.MIXED, index.getTileClass(0, 1));
+        assertTrue(index.isAll(new Rectangle(0, 0, 10, 10), TileQualityIndex.TileClass.BACKGROUND));
+        assertFalse(index.isAll(new Rectangle(5, 5, 10, 10), TileQualityIndex.TileClass.BACKGROUND));
+    }
+
+    @Test
+    public void testCacheFile() {
+        TileQualityIndex index = TileQualityIndex.create(createClassesImage(), createCloudImage(), TILE_SIZE);
+        Path cacheFile = tempFolder.getRoot().toPath().resolve("cache").resolve("product" + TileQualityIndex.CACHE_FILE_SUFFIX);
+        TileQualityIndex.writeCacheFile(cacheFile, "scene=30x20;QUALITY_CLASSES=a:1:2", index);
+
+        TileQualityIndex cachedIndex = TileQualityIndex.readCacheFile(cacheFile, "scene=30x20;QUALITY_CLASSES=a:1:2", 30, 20, TILE_SIZE);
+        assertNotNull(cachedIndex);
+        for (int tileY = 0; tileY < index.getNumYTiles(); tileY++) {
+            for (int tileX = 0; tileX < index.getNumXTiles(); tileX++) {
+                assertEquals(index.getTileClass(tileX, tileY), cachedIndex.getTileClass(tileX, tileY));
+            }
+        }
+        // an index of modified quality layers or of another tiling is not used
+        assertNull(TileQualityIndex.readCacheFile(cacheFile, "scene=30x20;QUALITY_CLASSES=a:1:3", 30, 20, TILE_SIZE));
+        assertNull(TileQualityIndex.readCacheFile(cacheFile, "scene=30x20;QUALITY_CLASSES=a:1:2", 30, 20, new Dimension(15, 10)));
+    }
+
+    @Test
+    public void testFingerprintOfProductDirectory() throws IOException {
+        Path productDir = tempFolder.newFolder("product").toPath();
+        Path metadataFile = Files.write(productDir.resolve("P-METADATA.XML"), new byte[]{1});
+        Path classesFile = Files.write(productDir.resolve("P-QL_QUALITY_CLASSES.TIF"), new byte[]{1, 2, 3});
+        Map<String, String> fileNameMap = new HashMap<>();
+        fileNameMap.put(EnmapFileUtils.QUALITY_CLASSES_KEY, classesFile.getFileName().toString());
+        Dimension sceneSize = new Dimension(30, 20);
+
+        String fingerprint = DerivedDataCache.createFingerprint(metadataFile, fileNameMap, sceneSize, TILE_SIZE,
+                                                                EnmapFileUtils.QUALITY_CLASSES_KEY, EnmapFileUtils.QUALITY_CLOUD_KEY);
+        assertEquals(fingerprint, DerivedDataCache.createFingerprint(metadataFile, fileNameMap, sceneSize, TILE_SIZE,
+                                                                     EnmapFileUtils.QUALITY_CLASSES_KEY, EnmapFileUtils.QUALITY_CLOUD_KEY));
+        assertNotEquals(fingerprint, DerivedDataCache.createFingerprint(metadataFile, fileNameMap, new Dimension(30, 21), TILE_SIZE,
+                                                                        EnmapFileUtils.QUALITY_CLASSES_KEY));
+
+        // replacing the quality layer changes the fingerprint, even if the metadata is unchanged
+        Files.write(classesFile, new byte[]{1, 2, 3, 4});
+        Files.setLastModifiedTime(classesFile, FileTime.fromMillis(Files.getLastModifiedTime(classesFile).toMillis() + 2000));
+        assertNotEquals(fingerprint, DerivedDataCache.createFingerprint(metadataFile, fileNameMap, sceneSize, TILE_SIZE,
+                                                                        EnmapFileUtils.QUALITY_CLASSES_KEY, EnmapFileUtils.QUALITY_CLOUD_KEY));
+    }
+
+    @Test
+    public void testCachePathDependsOnLocation() {
+        DerivedDataCache cache = new DerivedDataCache(tempFolder.getRoot().toPath());
+        Path path1 = cache.getPath(tempFolder.getRoot().toPath().resolve("a").resolve("P.zip"), ".x");
+        Path path2 = cache.getPath(tempFolder.getRoot().toPath().resolve("b").resolve("P.zip"), ".x");
+        assertNotEquals(path1, path2);
+        assertEquals(tempFolder.getRoot().toPath(), path1.getParent());
+        assertTrue(path1.getFileName().toString().startsWith("P.zip-"));
+    }
+
+    // 30x20 pixels: background, water and land in the upper row of tiles, mixed classes in the lower row
+    private static BufferedImage createClassesImage() {
+        BufferedImage image = new BufferedImage(30, 20, BufferedImage.TYPE_BYTE_GRAY);
+        for (int y = 0; y < 20; y++) {
+            for (int x = 0; x < 30; x++) {
+                int value;
+                if (y < 10) {
+                    value = x < 10 ? 3 : x < 20 ? 2 : 1;
+                } else {
+                    value = (x + y) % 2 == 0 ? 1 : 2;
+                }
+                image.getRaster().setSample(x, y, 0, value);
+            }
+        }
+        return image;
+    }
+
+    // the land tile in the upper right is completely cloudy
+    private static BufferedImage createCloudImage() {
+        BufferedImage image = new BufferedImage(30, 20, BufferedImage.TYPE_BYTE_GRAY);
+        for (int y = 0; y < 10; y++) {
+            for (int x = 20; x < 30; x++) {
+                image.getRaster().setSample(x, y, 0, 1);
+            }
+        }
+        return image;
+    }
+}
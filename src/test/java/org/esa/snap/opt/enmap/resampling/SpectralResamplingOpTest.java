@@ -0,0 +1,177 @@
+package org.esa.snap.opt.enmap.resampling;
+
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.gpf.GPF;
+import org.esa.snap.core.gpf.OperatorSpi;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.awt.image.Raster;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SpectralResamplingOpTest {
+
+    private static final int WIDTH = 40;
+    private static final int HEIGHT = 30;
+    private static final int NUM_BANDS = 21;
+    private static final float NO_DATA_VALUE = -1.0f;
+    // the source bands at 600 nm and 660 nm have no data at these pixels
+    private static final int[][] NO_DATA_PIXELS = {{10, 25, 12}, {16, 3, 27}};
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void beforeClass() {
+        GPF.getDefaultInstance().getOperatorSpiRegistry().loadOperatorSpis();
+    }
+
+    @Test
+    public void testOperatorSpiRegistration() {
+        OperatorSpi spi = GPF.getDefaultInstance().getOperatorSpiRegistry().getOperatorSpi("EnmapSpectralResampling");
+        assertNotNull(spi);
+        assertTrue(spi instanceof SpectralResamplingOp.Spi);
+        assertEquals(SpectralResamplingOp.class, spi.getOperatorClass());
+    }
+
+    @Test
+    public void testSensorPreset() {
+        Product source = createSourceProduct();
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("sensor", SensorPreset.SENTINEL2_MSI);
+        Product target = GPF.createProduct("EnmapSpectralResampling", parameters, source);
+
+        // only the bands overlapping 500 to 700 nm are resampled
+        assertNotNull(target.getBand("B3"));
+        assertNotNull(target.getBand("B4"));
+        assertNull(target.getBand("B11"));
+        assertEquals(WIDTH, target.getSceneRasterWidth());
+        assertEquals(HEIGHT, target.getSceneRasterHeight());
+        assertWeightedSums(source, target, SensorPreset.SENTINEL2_MSI.getResponseFunctions());
+    }
+
+    @Test
+    public void testResponseFunctionFile() throws IOException {
+        File srfFile = tempFolder.newFile("srf.csv");
+        try (PrintWriter writer = new PrintWriter(srfFile, StandardCharsets.UTF_8.name())) {
+            writer.println("# a triangular band around 600 nm and a band outside of the product");
+            writer.println("wavelength,Red,Swir");
+            for (int wavelength = 560; wavelength <= 640; wavelength += 5) {
+                double red = 1.0 - Math.abs(wavelength - 600) / 40.0;
+                writer.printf(Locale.ENGLISH, "%d,%.4f,0.0%n", wavelength, red);
+            }
+            writer.println("1600,0.0,0.5");
+            writer.println("1610,0.0,1.0");
+            writer.println("1620,0.0,0.5");
+        }
+        Product source = createSourceProduct();
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("srfFile", srfFile);
+        Product target = GPF.createProduct("EnmapSpectralResampling", parameters, source);
+
+        assertEquals(1, target.getNumBands());
+        Band red = target.getBand("Red");
+        assertNotNull(red);
+        assertEquals(600.0f, red.getSpectralWavelength(), 1.0f);
+        assertTrue(target.getProductType().endsWith("_SRF"));
+        List<SpectralResponseFunction> functions;
+        try (Reader reader = Files.newBufferedReader(srfFile.toPath(), StandardCharsets.UTF_8)) {
+            functions = SpectralResponseFunction.read(reader);
+        }
+        assertWeightedSums(source, target, functions);
+    }
+
+    // compares each target band with the weighted sum of the source bands, NaN if a contributing pixel has no data
+    private static void assertWeightedSums(Product source, Product target, List<SpectralResponseFunction> functions) {
+        float[] centers = new float[NUM_BANDS];
+        float[] fwhms = new float[NUM_BANDS];
+        Raster[] sourceData = new Raster[NUM_BANDS];
+        for (int i = 0; i < NUM_BANDS; i++) {
+            Band band = source.getBand(getBandName(i));
+            centers[i] = band.getSpectralWavelength();
+            fwhms[i] = band.getSpectralBandwidth();
+            sourceData[i] = band.getSourceImage().getData();
+        }
+        SpectralWeights weights = SpectralWeights.compute(centers, fwhms, functions, 0.001);
+        int numNoDataPixels = 0;
+        for (int t = 0; t < functions.size(); t++) {
+            Band targetBand = target.getBand(functions.get(t).getName());
+            int[] sourceIndices = weights.getSourceIndices(t);
+            if (sourceIndices.length == 0) {
+                assertNull(targetBand);
+                continue;
+            }
+            assertNotNull(targetBand);
+            float[] targetWeights = weights.getWeights(t);
+            Raster targetData = targetBand.getSourceImage().getData();
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    double expected = 0.0;
+                    for (int k = 0; k < sourceIndices.length; k++) {
+                        float sample = sourceData[sourceIndices[k]].getSampleFloat(x, y, 0);
+                        expected += sample == NO_DATA_VALUE ? Double.NaN : targetWeights[k] * sample;
+                    }
+                    float value = targetData.getSampleFloat(x, y, 0);
+                    String message = targetBand.getName() + " at " + x + "," + y;
+                    if (Double.isNaN(expected)) {
+                        assertTrue(message, Float.isNaN(value));
+                        numNoDataPixels++;
+                    } else {
+                        assertEquals(message, expected, value, 1.0e-4 * Math.abs(expected));
+                    }
+                }
+            }
+        }
+        // a no-data pixel of a contributing source band makes the target pixel NaN
+        assertTrue(numNoDataPixels > 0);
+    }
+
+    // bands every 10 nm from 500 to 700 nm with a value depending on the band and the position
+    private static Product createSourceProduct() {
+        Product product = new Product("synthetic", "ENMAP_L2A", WIDTH, HEIGHT);
+        product.setPreferredTileSize(16, 16);
+        for (int i = 0; i < NUM_BANDS; i++) {
+            Band band = product.addBand(getBandName(i), ProductData.TYPE_FLOAT32);
+            band.setSpectralBandIndex(i);
+            band.setSpectralWavelength(500.0f + 10.0f * i);
+            band.setSpectralBandwidth(8.0f);
+            band.setNoDataValue(NO_DATA_VALUE);
+            band.setNoDataValueUsed(true);
+            float[] values = new float[WIDTH * HEIGHT];
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    values[y * WIDTH + x] = 1000.0f + 50.0f * i + 3.0f * x + 7.0f * y + (i % 3) * x;
+                }
+            }
+            for (int[] pixel : NO_DATA_PIXELS) {
+                if (pixel[0] == i) {
+                    values[pixel[2] * WIDTH + pixel[1]] = NO_DATA_VALUE;
+                }
+            }
+            band.setRasterData(ProductData.createInstance(values));
+        }
+        // bands without a wavelength are not resampled
+        Band qualityBand = product.addBand("quality", ProductData.TYPE_FLOAT32);
+        qualityBand.setRasterData(ProductData.createInstance(new float[WIDTH * HEIGHT]));
+        return product;
+    }
+
+    private static String getBandName(int index) {
+        return String.format("band_%03d", index + 1);
+    }
+}
@@ -0,0 +1,119 @@
+package org.esa.snap.opt.enmap.resampling;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SpectralWeightsTest {
+
+    // bands every 10 nm from 400 to 1000 nm, as the VNIR detector
+    private static float[] centers() {
+        float[] centers = new float[61];
+        for (int i = 0; i < centers.length; i++) {
+            centers[i] = 400 + 10 * i;
+        }
+        return centers;
+    }
+
+    private static float[] fwhms(int count) {
+        float[] fwhms = new float[count];
+        Arrays.fill(fwhms, 8.0f);
+        return fwhms;
+    }
+
+    @Test
+    public void testWeightsOfNarrowBand() {
+        float[] centers = centers();
+        List<SpectralResponseFunction> functions = Collections.singletonList(
+                SpectralResponseFunction.gaussian("B", 600.0, 20.0));
+        SpectralWeights weights = SpectralWeights.compute(centers, fwhms(centers.length), functions, 0.001);
+
+        assertEquals(1, weights.getNumTargets());
+        int[] sourceIndices = weights.getSourceIndices(0);
+        float[] values = weights.getWeights(0);
+        // only the bands around 600 nm contribute
+        assertTrue(sourceIndices.length > 2 && sourceIndices.length < 10);
+        double sum = 0.0;
+        int peak = 0;
+        for (int k = 0; k < values.length; k++) {
+            sum += values[k];
+            if (values[k] > values[peak]) {
+                peak = k;
+            }
+        }
+        assertEquals(1.0, sum, 1.0e-5);
+        assertEquals(20, sourceIndices[peak]);
+        assertEquals(values[peak - 1], values[peak + 1], 1.0e-5);
+    }
+
+    @Test
+    public void testTargetsOfSourceBands() {
+        float[] centers = centers();
+        List<SpectralResponseFunction> functions = Arrays.asList(
+                SpectralResponseFunction.gaussian("B1", 500.0, 30.0),
+                SpectralResponseFunction.gaussian("B2", 520.0, 30.0));
+        SpectralWeights weights = SpectralWeights.compute(centers, fwhms(centers.length), functions, 0.001);
+
+        // the band at 510 nm contributes equally to both targets
+        assertArrayEquals(new int[]{0, 1}, weights.getTargetIndices(11));
+        float[] targetWeights = weights.getTargetWeights(11);
+        assertEquals(targetWeights[0], targetWeights[1], 1.0e-5);
+        assertEquals(0, weights.getTargetIndices(50).length);
+    }
+
+    @Test
+    public void testTargetOutsideOfSpectralRange() {
+        float[] centers = centers();
+        List<SpectralResponseFunction> functions = Collections.singletonList(
+                SpectralResponseFunction.gaussian("B12", 2202.4, 175.0));
+        SpectralWeights weights = SpectralWeights.compute(centers, fwhms(centers.length), functions, 0.001);
+
+        assertEquals(0, weights.getSourceIndices(0).length);
+        assertEquals(0, weights.getWeights(0).length);
+    }
+
+    @Test
+    public void testReadResponseFunctions() throws IOException {
+        String table = "# test sensor\n" +
+                "wavelength,B1,B2\n" +
+                "500,0.0,0.0\n" +
+                "510,1.0,0.0\n" +
+                "520,0.0,0.5\n" +
+                "530,0.0,1.0\n";
+        List<SpectralResponseFunction> functions = SpectralResponseFunction.read(new StringReader(table));
+
+        assertEquals(2, functions.size());
+        SpectralResponseFunction b1 = functions.get(0);
+        assertEquals("B1", b1.getName());
+        assertEquals(0.5, b1.getResponse(505.0), 1.0e-9);
+        assertEquals(0.0, b1.getResponse(490.0), 0.0);
+        assertEquals(510.0, b1.getCentralWavelength(), 1.0e-9);
+        assertEquals(10.0, b1.getBandwidth(), 1.0e-9);
+        assertEquals(1.0, functions.get(1).getResponse(530.0), 0.0);
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadResponseFunctionsWithMissingColumn() throws IOException {
+        SpectralResponseFunction.read(new StringReader("wavelength\tB1\tB2\n500\t0.1\n"));
+    }
+
+    @Test
+    public void testGaussianBandwidth() {
+        SpectralResponseFunction function = SpectralResponseFunction.gaussian("B", 865.0, 21.0);
+        assertEquals(865.0, function.getCentralWavelength(), 1.0e-6);
+        assertEquals(21.0, function.getBandwidth(), 0.5);
+    }
+
+    @Test
+    public void testSensorPresets() {
+        assertEquals(13, SensorPreset.SENTINEL2_MSI.getResponseFunctions().size());
+        assertEquals(8, SensorPreset.LANDSAT8_OLI.getResponseFunctions().size());
+        assertEquals("B8A", SensorPreset.SENTINEL2_MSI.getResponseFunctions().get(8).getName());
+    }
+}